@@ -135,6 +135,7 @@ public class App {
     LOGGER.info(splitLine);
     app.useCacheAsideStategy();
     LOGGER.info(splitLine);
+    LOGGER.info("# Cache statistics: {}", app.appManager.printCacheStats());
   }
 
   /**
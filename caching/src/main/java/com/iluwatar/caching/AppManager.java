@@ -57,8 +57,18 @@ public class AppManager {
    * @param newDbManager database manager
    */
   public AppManager(final DbManager newDbManager) {
+    this(newDbManager, EvictionPolicy.LRU);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param newDbManager database manager
+   * @param evictionPolicy eviction policy of the cache
+   */
+  public AppManager(final DbManager newDbManager, final EvictionPolicy evictionPolicy) {
     this.dbManager = newDbManager;
-    this.cacheStore = new CacheStore(newDbManager);
+    this.cacheStore = new CacheStore(newDbManager, evictionPolicy);
   }
 
   /**
@@ -129,6 +139,15 @@ public class AppManager {
     return cacheStore.print();
   }
 
+  /**
+   * Returns the cache statistics.
+   *
+   * @return String
+   */
+  public String printCacheStats() {
+    return cacheStore.getStats().toString();
+  }
+
   /**
    * Cache-Aside save user account helper.
    *
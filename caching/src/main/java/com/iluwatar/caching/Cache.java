@@ -0,0 +1,126 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Storage engine behind {@link CacheStore}. Implementations decide how entries
+ * are kept in memory and which entry is evicted when the cache is full.
+ */
+public interface Cache {
+  /**
+   * Get user account.
+   *
+   * @param userId String
+   * @return {@link UserAccount} or null if it is not cached
+   */
+  UserAccount get(String userId);
+
+  /**
+   * Set user account.
+   *
+   * @param userId      {@link String}
+   * @param userAccount {@link UserAccount}
+   */
+  void set(String userId, UserAccount userAccount);
+
+  /**
+   * Check if Cache contains the userId.
+   *
+   * @param userId {@link String}
+   * @return boolean
+   */
+  boolean contains(String userId);
+
+  /**
+   * Invalidate cache for user.
+   *
+   * @param userId {@link String}
+   */
+  void invalidate(String userId);
+
+  /**
+   * Number of entries in the cache.
+   *
+   * @return int
+   */
+  int size();
+
+  /**
+   * Check if the cache is full.
+   *
+   * @return boolean
+   */
+  boolean isFull();
+
+  /**
+   * Get the entry that is the next candidate for eviction.
+   *
+   * @return {@link UserAccount} or null if the cache is empty
+   */
+  UserAccount getLruData();
+
+  /**
+   * Clear cache.
+   */
+  void clear();
+
+  /**
+   * Returns cache data in list form.
+   *
+   * @return {@link List}
+   */
+  List<UserAccount> getCacheDataInListForm();
+
+  /**
+   * Set cache capacity.
+   *
+   * @param newCapacity int
+   */
+  void setCapacity(int newCapacity);
+
+  /**
+   * Set the statistics the cache reports its evictions to. Caches that do
+   * not report anything may ignore it.
+   *
+   * @param stats {@link CacheStats}
+   */
+  default void setStats(CacheStats stats) {
+    // nothing is reported by default
+  }
+
+  /**
+   * Set the listener told about the user ids the cache evicts on its own to
+   * make room for other entries. The listener may be called with locks of the
+   * cache held, so it must not block. Caches that never evict may ignore it.
+   *
+   * @param listener receives the evicted user ids
+   */
+  default void setEvictionListener(Consumer<String> listener) {
+    // nothing is evicted by default
+  }
+}
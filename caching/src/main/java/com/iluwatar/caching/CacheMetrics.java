@@ -0,0 +1,209 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Default {@link CacheStats}, keeping the statistics in memory. Counters are
+ * {@link LongAdder}s and latencies go to {@link LatencyHistogram}s, so
+ * recording never blocks and scales with the number of threads.
+ */
+public class CacheMetrics implements CacheStats {
+  /**
+   * Hits.
+   */
+  private final LongAdder hits = new LongAdder();
+  /**
+   * Misses.
+   */
+  private final LongAdder misses = new LongAdder();
+  /**
+   * Evictions per cause.
+   */
+  private final Map<EvictionCause, LongAdder> evictions = new EnumMap<>(EvictionCause.class);
+  /**
+   * Number of accounts loaded from the DB.
+   */
+  private final LongAdder loadedAccounts = new LongAdder();
+  /**
+   * Number of accounts written back.
+   */
+  private final LongAdder flushedAccounts = new LongAdder();
+  /**
+   * Latency of loads from the DB.
+   */
+  private final LatencyHistogram loadLatency = new LatencyHistogram();
+  /**
+   * Latency of write-behind flushes to the DB.
+   */
+  private final LatencyHistogram flushLatency = new LatencyHistogram();
+  /**
+   * Last reported number of accounts waiting to be written back.
+   */
+  private volatile int writeBehindQueueDepth;
+
+  /**
+   * Constructor.
+   */
+  public CacheMetrics() {
+    for (var cause : EvictionCause.values()) {
+      evictions.put(cause, new LongAdder());
+    }
+  }
+
+  @Override
+  public void recordHits(final int count) {
+    hits.add(count);
+  }
+
+  @Override
+  public void recordMisses(final int count) {
+    misses.add(count);
+  }
+
+  @Override
+  public void recordLoad(final int count, final long nanos) {
+    loadedAccounts.add(count);
+    loadLatency.record(nanos);
+  }
+
+  @Override
+  public void recordEviction(final EvictionCause cause, final int count) {
+    evictions.get(cause).add(count);
+  }
+
+  @Override
+  public void recordFlush(final int count, final long nanos) {
+    flushedAccounts.add(count);
+    flushLatency.record(nanos);
+  }
+
+  @Override
+  public void recordWriteBehindQueueDepth(final int depth) {
+    writeBehindQueueDepth = depth;
+  }
+
+  /**
+   * Number of hits.
+   *
+   * @return long
+   */
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  /**
+   * Number of misses.
+   *
+   * @return long
+   */
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  /**
+   * Share of lookups that were hits.
+   *
+   * @return double between 0 and 1, 1 if there were no lookups
+   */
+  public double getHitRate() {
+    var hitCount = hits.sum();
+    var lookups = hitCount + misses.sum();
+    return lookups == 0 ? 1 : (double) hitCount / lookups;
+  }
+
+  /**
+   * Number of evictions for a cause.
+   *
+   * @param cause {@link EvictionCause}
+   * @return long
+   */
+  public long getEvictionCount(final EvictionCause cause) {
+    return evictions.get(cause).sum();
+  }
+
+  /**
+   * Number of accounts loaded from the DB. A batched load counts every account it read, while
+   * {@link #getLoadLatency()} records one latency per round trip.
+   *
+   * @return long
+   */
+  public long getLoadedCount() {
+    return loadedAccounts.sum();
+  }
+
+  /**
+   * Number of accounts written back.
+   *
+   * @return long
+   */
+  public long getFlushedCount() {
+    return flushedAccounts.sum();
+  }
+
+  /**
+   * Latency of loads from the DB.
+   *
+   * @return {@link LatencyHistogram}
+   */
+  public LatencyHistogram getLoadLatency() {
+    return loadLatency;
+  }
+
+  /**
+   * Latency of write-behind flushes to the DB.
+   *
+   * @return {@link LatencyHistogram}
+   */
+  public LatencyHistogram getFlushLatency() {
+    return flushLatency;
+  }
+
+  /**
+   * Last reported number of accounts waiting to be written back.
+   *
+   * @return int
+   */
+  public int getWriteBehindQueueDepth() {
+    return writeBehindQueueDepth;
+  }
+
+  /**
+   * Summary of the statistics.
+   *
+   * @return String
+   */
+  @Override
+  public String toString() {
+    return String.format("hits=%d, misses=%d, hitRate=%.3f, evictions(size=%d, expired=%d, "
+            + "explicit=%d), loaded=%d, load=[%s], flushed=%d, flush=[%s], writeBehindQueue=%d",
+        getHitCount(), getMissCount(), getHitRate(), getEvictionCount(EvictionCause.SIZE),
+        getEvictionCount(EvictionCause.EXPIRED), getEvictionCount(EvictionCause.EXPLICIT),
+        getLoadedCount(), loadLatency, getFlushedCount(), flushLatency, writeBehindQueueDepth);
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+/**
+ * Receives the statistics of a {@link CacheStore} and its cache. The methods
+ * are called on the hot path, so implementations have to be cheap and
+ * thread-safe; {@link CacheMetrics} is the default one.
+ */
+public interface CacheStats {
+  /**
+   * Statistics that are discarded.
+   */
+  CacheStats DISABLED = new CacheStats() {
+    @Override
+    public void recordHits(final int count) {
+      // discarded
+    }
+
+    @Override
+    public void recordMisses(final int count) {
+      // discarded
+    }
+
+    @Override
+    public void recordLoad(final int count, final long nanos) {
+      // discarded
+    }
+
+    @Override
+    public void recordEviction(final EvictionCause cause, final int count) {
+      // discarded
+    }
+
+    @Override
+    public void recordFlush(final int count, final long nanos) {
+      // discarded
+    }
+
+    @Override
+    public void recordWriteBehindQueueDepth(final int depth) {
+      // discarded
+    }
+  };
+
+  /**
+   * Record cache hits.
+   *
+   * @param count number of hits
+   */
+  void recordHits(int count);
+
+  /**
+   * Record cache misses.
+   *
+   * @param count number of misses
+   */
+  void recordMisses(int count);
+
+  /**
+   * Record a load from the DB.
+   *
+   * @param count number of accounts loaded
+   * @param nanos time the load took
+   */
+  void recordLoad(int count, long nanos);
+
+  /**
+   * Record evictions.
+   *
+   * @param cause {@link EvictionCause}
+   * @param count number of evicted entries
+   */
+  void recordEviction(EvictionCause cause, int count);
+
+  /**
+   * Record a write-behind flush to the DB.
+   *
+   * @param count number of accounts written
+   * @param nanos time the write took
+   */
+  void recordFlush(int count, long nanos);
+
+  /**
+   * Record the number of accounts waiting to be written back.
+   *
+   * @param depth int
+   */
+  void recordWriteBehindQueueDepth(int depth);
+}
@@ -25,8 +25,17 @@
 package com.iluwatar.caching;
 
 import com.iluwatar.caching.database.DbManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 
@@ -39,23 +48,98 @@ public class CacheStore {
    * Cache capacity.
    */
   private static final int CAPACITY = 3;
+  /**
+   * Maximum number of accounts written back in one round trip.
+   */
+  private static final int WRITE_BEHIND_BATCH_SIZE = 100;
+  /**
+   * Maximum time a written account waits before it reaches the DB.
+   */
+  private static final long WRITE_BEHIND_MAX_DELAY_MILLIS = 1000;
+  /**
+   * Number of pending write-backs at which writers are blocked.
+   */
+  private static final int WRITE_BEHIND_MAX_DIRTY = 10_000;
+  /**
+   * Number of threads reloading entries for refresh-ahead.
+   */
+  private static final int REFRESH_THREADS = 2;
 
   /**
-   * Lru cache see {@link LruCache}.
+   * Cache, see {@link Cache}.
+   */
+  private Cache cache;
+  /**
+   * Eviction policy of the cache.
    */
-  private LruCache cache;
+  private final EvictionPolicy evictionPolicy;
   /**
    * DbManager.
    */
   private final DbManager dbManager;
+  /**
+   * Writes dirty accounts back to the DB, see {@link WriteBehindFlusher}.
+   */
+  private final WriteBehindFlusher writeBehindFlusher;
+  /**
+   * Loads in progress, shared by all threads missing on the same user id.
+   */
+  private final Map<String, CompletableFuture<UserAccount>> inFlightLoads =
+      new ConcurrentHashMap<>();
+  /**
+   * Statistics, see {@link CacheStats}.
+   */
+  private CacheStats stats = new CacheMetrics();
 
   /**
-   * Cache Store.
+   * Cache Store using an LRU cache.
    * @param dataBaseManager {@link DbManager}
    */
   public CacheStore(final DbManager dataBaseManager) {
+    this(dataBaseManager, EvictionPolicy.LRU);
+  }
+
+  /**
+   * Cache Store.
+   * @param dataBaseManager {@link DbManager}
+   * @param policy {@link EvictionPolicy}
+   */
+  public CacheStore(final DbManager dataBaseManager, final EvictionPolicy policy) {
+    this(dataBaseManager, policy, new WriteBehindFlusher(dataBaseManager,
+        WRITE_BEHIND_BATCH_SIZE, WRITE_BEHIND_MAX_DELAY_MILLIS, WRITE_BEHIND_MAX_DIRTY));
+  }
+
+  /**
+   * Cache Store.
+   * @param dataBaseManager {@link DbManager}
+   * @param policy {@link EvictionPolicy}
+   * @param flusher {@link WriteBehindFlusher} writing to the same {@link DbManager}
+   */
+  public CacheStore(final DbManager dataBaseManager, final EvictionPolicy policy,
+                    final WriteBehindFlusher flusher) {
     this.dbManager = dataBaseManager;
+    this.evictionPolicy = policy;
+    this.writeBehindFlusher = flusher;
     initCapacity(CAPACITY);
+    setStats(stats);
+  }
+
+  /**
+   * Replace the statistics, e.g. to report them to a monitoring system.
+   * @param cacheStats {@link CacheStats}
+   */
+  public void setStats(final CacheStats cacheStats) {
+    this.stats = cacheStats;
+    cache.setStats(cacheStats);
+    writeBehindFlusher.setStats(cacheStats);
+  }
+
+  /**
+   * Get the statistics.
+   * @return {@link CacheStats}, a {@link CacheMetrics} unless replaced
+   */
+  public CacheStats getStats() {
+    return stats;
   }
 
   /**
@@ -64,26 +148,203 @@ public class CacheStore {
    */
   public void initCapacity(final int capacity) {
     if (cache == null) {
-      cache = new LruCache(capacity);
+      cache = evictionPolicy.newCache(capacity);
+      cache.setStats(stats);
     } else {
       cache.setCapacity(capacity);
     }
   }
 
+  /**
+   * Let cache entries expire. The cache is cleared in the process.
+   * @param ttlMillis time-to-live of an entry since it was written, 0 for none
+   * @param idleMillis time an entry may go without being read, 0 for none
+   * @param refreshAfterMillis age after which reading an entry reloads it in
+   *                           the background, 0 for none
+   */
+  public void initExpiry(final long ttlMillis, final long idleMillis,
+                         final long refreshAfterMillis) {
+    if (cache instanceof ExpiringCache) {
+      throw new IllegalStateException("Expiry has already been initialized");
+    }
+    var refreshExecutor = Executors.newFixedThreadPool(REFRESH_THREADS, runnable -> {
+      var thread = new Thread(runnable, "cache-refresh");
+      thread.setDaemon(true);
+      return thread;
+    });
+    cache.clear();
+    cache = new ExpiringCache(cache, ttlMillis, idleMillis, refreshAfterMillis,
+        this::load, refreshExecutor, System::currentTimeMillis);
+    cache.setStats(stats);
+  }
+
+  /**
+   * Add an off-heap tier below the cache, see {@link TieredCache}. The cache
+   * is cleared in the process.
+   * @param offHeapBytes size of the off-heap tier
+   * @param slabSize size of one off-heap slab
+   */
+  public void initOffHeapTier(final long offHeapBytes, final int slabSize) {
+    if (cache instanceof ExpiringCache) {
+      throw new IllegalStateException("The off-heap tier has to be initialized before expiry");
+    }
+    cache.clear();
+    var heapTier = cache;
+    heapTier.setStats(CacheStats.DISABLED);
+    cache = new TieredCache(heapTier, offHeapBytes, slabSize);
+    cache.setStats(stats);
+  }
+
+  /**
+   * Load user account, preferring a pending write-back over the DB.
+   * @param userId {@link String}
+   * @return {@link UserAccount}
+   */
+  private UserAccount load(final String userId) {
+    var pending = writeBehindFlusher.getPending(userId);
+    if (pending != null) {
+      return pending;
+    }
+    var start = System.nanoTime();
+    var userAccount = dbManager.readFromDb(userId);
+    stats.recordLoad(1, System.nanoTime() - start);
+    return userAccount;
+  }
+
   /**
    * Get user account using read-through cache.
    * @param userId {@link String}
    * @return {@link UserAccount}
    */
   public UserAccount readThrough(final String userId) {
-    if (cache.contains(userId)) {
-      LOGGER.info("# Found in Cache!");
-      return cache.get(userId);
+    var cached = cache.get(userId);
+    if (cached != null) {
+      LOGGER.trace("# Found in Cache!");
+      stats.recordHits(1);
+      return cached;
+    }
+    LOGGER.trace("# Not found in cache! Go to DB!!");
+    stats.recordMisses(1);
+    return loadOnce(userId);
+  }
+
+  /**
+   * Get user accounts using read-through cache. The misses are read from the
+   * DB in a single round trip.
+   * @param userIds {@link Collection} of {@link String}
+   * @return {@link Map} from user id to {@link UserAccount}, without the ids
+   *     that were not found
+   */
+  public Map<String, UserAccount> readThroughAll(final Collection<String> userIds) {
+    var result = new LinkedHashMap<String, UserAccount>();
+    var owned = new HashMap<String, CompletableFuture<UserAccount>>();
+    var awaited = new HashMap<String, CompletableFuture<UserAccount>>();
+    for (var userId : userIds) {
+      var cached = cache.get(userId);
+      if (cached != null) {
+        result.put(userId, cached);
+      } else if (!owned.containsKey(userId) && !awaited.containsKey(userId)) {
+        var future = new CompletableFuture<UserAccount>();
+        var existing = inFlightLoads.putIfAbsent(userId, future);
+        if (existing == null) {
+          owned.put(userId, future);
+        } else {
+          awaited.put(userId, existing);
+        }
+      }
+    }
+    stats.recordHits(result.size());
+    stats.recordMisses(owned.size() + awaited.size());
+    if (!owned.isEmpty()) {
+      LOGGER.trace("# {} not found in cache! Go to DB!!", owned.size());
+      try {
+        var loaded = loadAll(owned.keySet());
+        owned.forEach((userId, future) -> future.complete(loaded.get(userId)));
+      } catch (RuntimeException e) {
+        owned.values().forEach(future -> future.completeExceptionally(e));
+        throw e;
+      } finally {
+        owned.forEach(inFlightLoads::remove);
+      }
+    }
+    owned.forEach((userId, future) -> awaited.put(userId, future));
+    awaited.forEach((userId, future) -> {
+      var userAccount = await(future);
+      if (userAccount != null) {
+        result.put(userId, userAccount);
+      }
+    });
+    return result;
+  }
+
+  /**
+   * Load user account, letting concurrent misses on the same user id share
+   * a single load.
+   * @param userId {@link String}
+   * @return {@link UserAccount}
+   */
+  private UserAccount loadOnce(final String userId) {
+    var future = new CompletableFuture<UserAccount>();
+    var existing = inFlightLoads.putIfAbsent(userId, future);
+    if (existing != null) {
+      return await(existing);
+    }
+    try {
+      // another load may have completed since the caller missed
+      var userAccount = cache.get(userId);
+      if (userAccount == null) {
+        userAccount = load(userId);
+        cache.set(userId, userAccount);
+      }
+      future.complete(userAccount);
+      return userAccount;
+    } catch (RuntimeException e) {
+      future.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlightLoads.remove(userId, future);
+    }
+  }
+
+  /**
+   * Load several user accounts with one DB round trip and cache them.
+   * @param userIds {@link Collection} of {@link String}
+   * @return {@link Map} from user id to {@link UserAccount}
+   */
+  private Map<String, UserAccount> loadAll(final Collection<String> userIds) {
+    var loaded = new HashMap<String, UserAccount>();
+    var toRead = new ArrayList<String>();
+    for (var userId : userIds) {
+      var pending = writeBehindFlusher.getPending(userId);
+      if (pending != null) {
+        loaded.put(userId, pending);
+      } else {
+        toRead.add(userId);
+      }
+    }
+    if (!toRead.isEmpty()) {
+      var start = System.nanoTime();
+      loaded.putAll(dbManager.readAllFromDb(toRead));
+      stats.recordLoad(toRead.size(), System.nanoTime() - start);
+    }
+    loaded.forEach(cache::set);
+    return loaded;
+  }
+
+  /**
+   * Wait for a load started by another thread.
+   * @param future {@link CompletableFuture}
+   * @return {@link UserAccount}
+   */
+  private static UserAccount await(final CompletableFuture<UserAccount> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
     }
-    LOGGER.info("# Not found in cache! Go to DB!!");
-    UserAccount userAccount = dbManager.readFromDb(userId);
-    cache.set(userId, userAccount);
-    return userAccount;
   }
 
   /**
@@ -107,8 +368,9 @@ public class CacheStore {
     if (cache.contains(userAccount.getUserId())) {
       dbManager.updateDb(userAccount);
       // Cache data has been updated -- remove older
-      cache.invalidate(userAccount.getUserId());
       // version from cache.
+      cache.invalidate(userAccount.getUserId());
+      stats.recordEviction(EvictionCause.EXPLICIT, 1);
     } else {
       dbManager.writeToDb(userAccount);
     }
@@ -120,32 +382,32 @@ public class CacheStore {
    * @return {@link UserAccount}
    */
   public UserAccount readThroughWithWriteBackPolicy(final String userId) {
-    if (cache.contains(userId)) {
-      LOGGER.info("# Found in cache!");
-      return cache.get(userId);
+    var cached = cache.get(userId);
+    if (cached != null) {
+      LOGGER.trace("# Found in cache!");
+      stats.recordHits(1);
+      return cached;
     }
-    LOGGER.info("# Not found in Cache!");
-    UserAccount userAccount = dbManager.readFromDb(userId);
-    if (cache.isFull()) {
-      LOGGER.info("# Cache is FULL! Writing LRU data to DB...");
-      UserAccount toBeWrittenToDb = cache.getLruData();
-      dbManager.upsertDb(toBeWrittenToDb);
-    }
-    cache.set(userId, userAccount);
-    return userAccount;
+    LOGGER.trace("# Not found in Cache!");
+    stats.recordMisses(1);
+    // An evicted account may not have been written back yet.
+    return loadOnce(userId);
   }
 
   /**
-   * Set user account.
+   * Set user account. The account is written to the DB asynchronously by the
+   * {@link WriteBehindFlusher}, batched together with other pending writes.
    * @param userAccount {@link UserAccount}
    */
   public void writeBehind(final UserAccount userAccount) {
-    if (cache.isFull() && !cache.contains(userAccount.getUserId())) {
-      LOGGER.info("# Cache is FULL! Writing LRU data to DB...");
-      UserAccount toBeWrittenToDb = cache.getLruData();
-      dbManager.upsertDb(toBeWrittenToDb);
-    }
     cache.set(userAccount.getUserId(), userAccount);
+    try {
+      writeBehindFlusher.markDirty(userAccount);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      LOGGER.warn("# Interrupted while waiting for write-behind, writing to DB directly");
+      dbManager.upsertDb(userAccount);
+    }
   }
 
   /**
@@ -158,15 +420,17 @@ public class CacheStore {
   }
 
   /**
-   * Writes remaining content in the cache into the DB.
+   * Writes the pending write-behind data into the DB and disconnects.
+   *
+   * @throws IllegalStateException if pending data could not be written
    */
   public void flushCache() {
     LOGGER.info("# flushCache...");
-    Optional.ofNullable(cache)
-        .map(LruCache::getCacheDataInListForm)
-        .orElse(List.of())
-        .forEach(dbManager::updateDb);
-    dbManager.disconnect();
+    try {
+      writeBehindFlusher.close();
+    } finally {
+      dbManager.disconnect();
+    }
   }
 
   /**
@@ -175,7 +439,7 @@ public class CacheStore {
    */
   public String print() {
     return Optional.ofNullable(cache)
-        .map(LruCache::getCacheDataInListForm)
+        .map(Cache::getCacheDataInListForm)
         .orElse(List.of())
         .stream()
         .map(userAccount -> userAccount.toString() + "\n")
@@ -188,7 +452,13 @@ public class CacheStore {
    * @return {@link UserAccount}
    */
   public UserAccount get(final String userId) {
-    return cache.get(userId);
+    var userAccount = cache.get(userId);
+    if (userAccount != null) {
+      stats.recordHits(1);
+    } else {
+      stats.recordMisses(1);
+    }
+    return userAccount;
   }
 
   /**
@@ -205,6 +475,9 @@ public class CacheStore {
    * @param userId {@link String}
    */
   public void invalidate(final String userId) {
+    if (cache.contains(userId)) {
+      stats.recordEviction(EvictionCause.EXPLICIT, 1);
+    }
     cache.invalidate(userId);
   }
 }
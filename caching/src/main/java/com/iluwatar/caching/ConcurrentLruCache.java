@@ -0,0 +1,501 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Thread-safe variant of {@link LruCache}. The key space is striped into
+ * segments, each of which is a small LRU cache of its own (a hash table plus a
+ * doubly linked-list) guarded by its own lock, so writers to different
+ * segments never contend with each other.
+ *
+ * <p>Reads do not block: the value is looked up in the segment's concurrent
+ * hash table, and the node is only moved to the front of the list if the
+ * segment lock can be acquired without waiting. Under heavy contention the
+ * recency order is therefore approximate, which is the usual trade-off made by
+ * concurrent LRU caches.
+ */
+@Slf4j
+public class ConcurrentLruCache implements Cache {
+  /**
+   * Upper bound for the number of segments.
+   */
+  private static final int MAX_SEGMENTS = 64;
+  /**
+   * Minimum number of entries a segment holds, so that small caches keep an
+   * exact LRU order.
+   */
+  private static final int MIN_SEGMENT_CAPACITY = 16;
+
+  /**
+   * Static class Node.
+   */
+  static class Node {
+    /**
+     * user id.
+     */
+    private final String userId;
+    /**
+     * User Account.
+     */
+    private volatile UserAccount userAccount;
+    /**
+     * Time of the last recorded access, used to order entries across segments.
+     */
+    private volatile long accessTime;
+    /**
+     * previous.
+     */
+    private Node previous;
+    /**
+     * next.
+     */
+    private Node next;
+
+    /**
+     * Node definition.
+     *
+     * @param id      String
+     * @param account {@link UserAccount}
+     */
+    Node(final String id, final UserAccount account) {
+      this.userId = id;
+      this.userAccount = account;
+      this.accessTime = System.nanoTime();
+    }
+  }
+
+  /**
+   * A single stripe of the cache.
+   */
+  static class Segment {
+    /**
+     * Lock guarding the linked-list and all structural changes.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    /**
+     * Entries of this segment.
+     */
+    private final Map<String, Node> cache = new ConcurrentHashMap<>();
+    /**
+     * Capacity of this segment.
+     */
+    private int capacity;
+    /**
+     * Head.
+     */
+    private Node head;
+    /**
+     * End.
+     */
+    private Node end;
+
+    /**
+     * Constructor.
+     *
+     * @param cap int
+     */
+    Segment(final int cap) {
+      this.capacity = cap;
+    }
+
+    /**
+     * Remove node from linked list. Must be called with the lock held.
+     *
+     * @param node {@link Node}
+     */
+    private void remove(final Node node) {
+      if (node.previous != null) {
+        node.previous.next = node.next;
+      } else {
+        head = node.next;
+      }
+      if (node.next != null) {
+        node.next.previous = node.previous;
+      } else {
+        end = node.previous;
+      }
+    }
+
+    /**
+     * Move node to the front of the list. Must be called with the lock held.
+     *
+     * @param node {@link Node}
+     */
+    private void setHead(final Node node) {
+      node.next = head;
+      node.previous = null;
+      if (head != null) {
+        head.previous = node;
+      }
+      head = node;
+      if (end == null) {
+        end = head;
+      }
+    }
+
+    /**
+     * Get user account, promoting it if the lock is free.
+     *
+     * @param userId String
+     * @return {@link UserAccount}
+     */
+    UserAccount get(final String userId) {
+      var node = cache.get(userId);
+      if (node == null) {
+        return null;
+      }
+      node.accessTime = System.nanoTime();
+      if (lock.tryLock()) {
+        try {
+          if (cache.get(userId) == node) {
+            remove(node);
+            setHead(node);
+          }
+        } finally {
+          lock.unlock();
+        }
+      }
+      return node.userAccount;
+    }
+
+    /**
+     * Set user account.
+     *
+     * @param userId      String
+     * @param userAccount {@link UserAccount}
+     * @return the user id of the entry evicted to make room, or null
+     */
+    String set(final String userId, final UserAccount userAccount) {
+      lock.lock();
+      try {
+        var old = cache.get(userId);
+        if (old != null) {
+          old.userAccount = userAccount;
+          old.accessTime = System.nanoTime();
+          remove(old);
+          setHead(old);
+          return null;
+        }
+        String evicted = null;
+        if (cache.size() >= capacity && end != null) {
+          LOGGER.trace("# Cache is FULL! Removing {} from cache...", end.userId);
+          evicted = end.userId;
+          cache.remove(evicted);
+          remove(end);
+        }
+        var newNode = new Node(userId, userAccount);
+        setHead(newNode);
+        cache.put(userId, newNode);
+        return evicted;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    /**
+     * Invalidate cache for user.
+     *
+     * @param userId String
+     */
+    void invalidate(final String userId) {
+      lock.lock();
+      try {
+        var toBeRemoved = cache.remove(userId);
+        if (toBeRemoved != null) {
+          LOGGER.trace("# {} has been updated! "
+              + "Removing older version from cache...", userId);
+          remove(toBeRemoved);
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    /**
+     * Least recently used node of this segment.
+     *
+     * @return {@link Node} or null if the segment is empty
+     */
+    Node lruNode() {
+      lock.lock();
+      try {
+        return end;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    /**
+     * Snapshot of the nodes of this segment.
+     *
+     * @param nodes list the nodes are added to
+     */
+    void collect(final List<Node> nodes) {
+      lock.lock();
+      try {
+        var temp = head;
+        while (temp != null) {
+          nodes.add(temp);
+          temp = temp.next;
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    /**
+     * Clear segment.
+     */
+    void clear() {
+      lock.lock();
+      try {
+        head = null;
+        end = null;
+        cache.clear();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Capacity of Cache.
+   */
+  private int capacity;
+  /**
+   * Segments, selected by the hash of the user id.
+   */
+  private volatile Segment[] segments;
+  /**
+   * Statistics evictions are reported to.
+   */
+  private volatile CacheStats stats = CacheStats.DISABLED;
+  /**
+   * Listener told about evicted user ids.
+   */
+  private volatile Consumer<String> evictionListener = userId -> { };
+
+  /**
+   * Constructor.
+   *
+   * @param cap Integer.
+   */
+  public ConcurrentLruCache(final int cap) {
+    this.capacity = cap;
+    this.segments = createSegments(cap);
+  }
+
+  /**
+   * Creates the segments for the given capacity. The segment count is a power
+   * of two so the segment can be selected with a mask, and the capacity is
+   * split so that the segment capacities add up exactly to the total.
+   *
+   * @param cap int
+   * @return segments
+   */
+  private static Segment[] createSegments(final int cap) {
+    var count = 1;
+    while (count < MAX_SEGMENTS && count * 2 * MIN_SEGMENT_CAPACITY <= cap) {
+      count *= 2;
+    }
+    var result = new Segment[count];
+    for (var i = 0; i < count; i++) {
+      result[i] = new Segment(cap / count + (i < cap % count ? 1 : 0));
+    }
+    return result;
+  }
+
+  /**
+   * Select the segment owning the user id.
+   *
+   * @param userId String
+   * @return {@link Segment}
+   */
+  private Segment segmentFor(final String userId) {
+    var current = segments;
+    var hash = userId.hashCode();
+    hash ^= hash >>> 16;
+    return current[hash & (current.length - 1)];
+  }
+
+  /**
+   * Get user account.
+   *
+   * @param userId String
+   * @return {@link UserAccount}
+   */
+  @Override
+  public UserAccount get(final String userId) {
+    return segmentFor(userId).get(userId);
+  }
+
+  /**
+   * Set user account.
+   *
+   * @param userId      {@link String}
+   * @param userAccount {@link UserAccount}
+   */
+  @Override
+  public void set(final String userId, final UserAccount userAccount) {
+    var evicted = segmentFor(userId).set(userId, userAccount);
+    if (evicted != null) {
+      stats.recordEviction(EvictionCause.SIZE, 1);
+      evictionListener.accept(evicted);
+    }
+  }
+
+  /**
+   * Check if Cache contains the userId.
+   *
+   * @param userId {@link String}
+   * @return boolean
+   */
+  @Override
+  public boolean contains(final String userId) {
+    return segmentFor(userId).cache.containsKey(userId);
+  }
+
+  /**
+   * Invalidate cache for user.
+   *
+   * @param userId {@link String}
+   */
+  @Override
+  public void invalidate(final String userId) {
+    segmentFor(userId).invalidate(userId);
+  }
+
+  /**
+   * Number of entries in the cache.
+   *
+   * @return int
+   */
+  @Override
+  public int size() {
+    var size = 0;
+    for (var segment : segments) {
+      size += segment.cache.size();
+    }
+    return size;
+  }
+
+  /**
+   * Check if the cache is full.
+   *
+   * @return boolean
+   */
+  @Override
+  public boolean isFull() {
+    return size() >= capacity;
+  }
+
+  /**
+   * Get LRU data, i.e. the least recently used entry over all segments.
+   *
+   * @return {@link UserAccount} or null if the cache is empty
+   */
+  @Override
+  public UserAccount getLruData() {
+    Node lru = null;
+    for (var segment : segments) {
+      var candidate = segment.lruNode();
+      if (candidate != null && (lru == null || candidate.accessTime < lru.accessTime)) {
+        lru = candidate;
+      }
+    }
+    return lru == null ? null : lru.userAccount;
+  }
+
+  /**
+   * Clear cache.
+   */
+  @Override
+  public void clear() {
+    for (var segment : segments) {
+      segment.clear();
+    }
+  }
+
+  /**
+   * Returns cache data in list form, most recently used first.
+   *
+   * @return {@link List}
+   */
+  @Override
+  public List<UserAccount> getCacheDataInListForm() {
+    var nodes = new ArrayList<Node>();
+    for (var segment : segments) {
+      segment.collect(nodes);
+    }
+    if (segments.length > 1) {
+      nodes.sort(Comparator.comparingLong((Node node) -> node.accessTime).reversed());
+    }
+    var listOfCacheData = new ArrayList<UserAccount>(nodes.size());
+    nodes.forEach(node -> listOfCacheData.add(node.userAccount));
+    return listOfCacheData;
+  }
+
+  @Override
+  public void setStats(final CacheStats cacheStats) {
+    this.stats = cacheStats;
+  }
+
+  @Override
+  public void setEvictionListener(final Consumer<String> listener) {
+    this.evictionListener = listener;
+  }
+
+  /**
+   * Set cache capacity. Shrinking the cache clears it, like {@link LruCache}
+   * does. Growing it keeps the data and, if the capacity warrants more
+   * segments, re-stripes the entries. Resizing is not meant to race with
+   * regular traffic and should be done before the cache is shared.
+   *
+   * @param newCapacity int
+   */
+  @Override
+  public synchronized void setCapacity(final int newCapacity) {
+    if (capacity > newCapacity) {
+      clear();
+    }
+    var entries = getCacheDataInListForm();
+    this.capacity = newCapacity;
+    var resized = createSegments(newCapacity);
+    this.segments = resized;
+    for (var i = entries.size() - 1; i >= 0; i--) {
+      var account = entries.get(i);
+      set(account.getUserId(), account);
+    }
+  }
+}
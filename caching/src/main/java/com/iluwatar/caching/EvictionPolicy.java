@@ -0,0 +1,64 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.util.function.IntFunction;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Enum class containing the eviction policies a {@link CacheStore} can use.
+ */
+@AllArgsConstructor
+public enum EvictionPolicy {
+  /**
+   * Least recently used, see {@link ConcurrentLruCache}.
+   */
+  LRU("lru", ConcurrentLruCache::new),
+  /**
+   * Window TinyLFU, see {@link TinyLfuCache}.
+   */
+  TINY_LFU("tiny-lfu", TinyLfuCache::new);
+
+  /**
+   * Policy value.
+   */
+  @Getter
+  private final String policy;
+  /**
+   * Creates a cache of the given capacity.
+   */
+  private final IntFunction<Cache> factory;
+
+  /**
+   * Create a new cache using this policy.
+   *
+   * @param capacity int
+   * @return {@link Cache}
+   */
+  public Cache newCache(final int capacity) {
+    return factory.apply(capacity);
+  }
+}
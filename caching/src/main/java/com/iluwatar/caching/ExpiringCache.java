@@ -0,0 +1,489 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Decorator adding expiry to another {@link Cache}. An entry expires when its
+ * time-to-live has passed since it was written, or when it has not been read
+ * for the idle time, whichever comes first. Deadlines are tracked in a
+ * {@link TimingWheel}, so expiring entries never requires a scan of the cache.
+ *
+ * <p>With refresh-ahead enabled, a read of an entry that is older than the
+ * refresh time reloads it asynchronously while the current value is still
+ * served. Entries that are read often are thus replaced before they expire,
+ * and readers of hot keys never wait for the database.
+ *
+ * <p>Reads do not block. The timing wheel is advanced by writes, and by reads
+ * when its lock is free.
+ *
+ * <p>When the backing cache evicts an entry to make room, it tells this cache
+ * through its eviction listener. The user id is queued, and its bookkeeping is
+ * dropped the next time the timing wheel is advanced, as the backing cache
+ * may evict while another thread holds the lock.
+ */
+@Slf4j
+public class ExpiringCache implements Cache {
+  /**
+   * Duration of one tick of the timing wheel.
+   */
+  private static final long TICK_MILLIS = 10;
+
+  /**
+   * Expiry bookkeeping of a cached user account.
+   */
+  static class Entry extends TimingWheel.Timer {
+    /**
+     * user id.
+     */
+    private final String userId;
+    /**
+     * Time-to-live of this entry in milliseconds, 0 for none.
+     */
+    private volatile long ttlMillis;
+    /**
+     * Time the entry was written.
+     */
+    private volatile long writeTime;
+    /**
+     * Time the entry was last read.
+     */
+    private volatile long accessTime;
+    /**
+     * Incremented on every write, so that a refresh does not overwrite a newer
+     * value.
+     */
+    private long version;
+    /**
+     * Whether a refresh is in progress.
+     */
+    private boolean refreshing;
+
+    /**
+     * Constructor.
+     *
+     * @param id String
+     */
+    Entry(final String id) {
+      this.userId = id;
+    }
+  }
+
+  /**
+   * Backing cache.
+   */
+  private final Cache delegate;
+  /**
+   * Default time-to-live in milliseconds, 0 for none.
+   */
+  private final long ttlMillis;
+  /**
+   * Idle time in milliseconds, 0 for none.
+   */
+  private final long idleMillis;
+  /**
+   * Age in milliseconds after which a read triggers a refresh, 0 for none.
+   */
+  private final long refreshAfterMillis;
+  /**
+   * Loads a fresh value for a refresh.
+   */
+  private final Function<String, UserAccount> loader;
+  /**
+   * Runs the refreshes.
+   */
+  private final Executor executor;
+  /**
+   * Clock in milliseconds.
+   */
+  private final LongSupplier clock;
+  /**
+   * Lock guarding the entries and the timing wheel.
+   */
+  private final ReentrantLock lock = new ReentrantLock();
+  /**
+   * Expiry bookkeeping per user id, only modified with the lock held.
+   */
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+  /**
+   * User ids evicted by the backing cache, whose bookkeeping is still to be
+   * dropped.
+   */
+  private final Queue<String> evicted = new ConcurrentLinkedQueue<>();
+  /**
+   * Deadlines of the entries.
+   */
+  private final TimingWheel timingWheel;
+  /**
+   * Statistics expiries are reported to.
+   */
+  private volatile CacheStats stats = CacheStats.DISABLED;
+
+  /**
+   * Constructor.
+   *
+   * @param cache              backing {@link Cache}
+   * @param ttlMillis          default time-to-live, 0 for none
+   * @param idleMillis         idle time, 0 for none
+   * @param refreshAfterMillis age after which a read refreshes the entry, 0 for none
+   * @param loader             loads the fresh value of a refreshed entry
+   * @param executor           runs the refreshes
+   * @param clock              clock in milliseconds
+   */
+  public ExpiringCache(final Cache cache, final long ttlMillis, final long idleMillis,
+                       final long refreshAfterMillis, final Function<String, UserAccount> loader,
+                       final Executor executor, final LongSupplier clock) {
+    if (ttlMillis <= 0 && idleMillis <= 0) {
+      throw new IllegalArgumentException("Either a time-to-live or an idle time is required");
+    }
+    this.delegate = cache;
+    this.ttlMillis = ttlMillis;
+    this.idleMillis = idleMillis;
+    this.refreshAfterMillis = refreshAfterMillis;
+    this.loader = loader;
+    this.executor = executor;
+    this.clock = clock;
+    this.timingWheel = new TimingWheel(clock.getAsLong() / TICK_MILLIS);
+    cache.setEvictionListener(evicted::add);
+  }
+
+  /**
+   * Get user account. Expired entries are treated as missing.
+   *
+   * @param userId String
+   * @return {@link UserAccount}
+   */
+  @Override
+  public UserAccount get(final String userId) {
+    var userAccount = delegate.get(userId);
+    if (userAccount == null) {
+      return null;
+    }
+    var now = clock.getAsLong();
+    var entry = entries.get(userId);
+    if (entry != null && deadline(entry) <= now) {
+      if (lock.tryLock()) {
+        try {
+          if (entries.get(userId) == entry && deadline(entry) <= now) {
+            remove(entry);
+          }
+        } finally {
+          lock.unlock();
+        }
+      }
+      return null;
+    }
+    if (entry != null) {
+      entry.accessTime = now;
+    }
+    if (lock.tryLock()) {
+      try {
+        expire(now);
+        if (entry != null && refreshAfterMillis > 0 && !entry.refreshing
+            && now - entry.writeTime >= refreshAfterMillis && entries.get(userId) == entry) {
+          refresh(entry);
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+    return userAccount;
+  }
+
+  /**
+   * Set user account with the default time-to-live.
+   *
+   * @param userId      {@link String}
+   * @param userAccount {@link UserAccount}
+   */
+  @Override
+  public void set(final String userId, final UserAccount userAccount) {
+    set(userId, userAccount, ttlMillis);
+  }
+
+  /**
+   * Set user account with its own time-to-live.
+   *
+   * @param userId      {@link String}
+   * @param userAccount {@link UserAccount}
+   * @param entryTtlMillis time-to-live of this entry, 0 for none
+   */
+  public void set(final String userId, final UserAccount userAccount, final long entryTtlMillis) {
+    lock.lock();
+    try {
+      var now = clock.getAsLong();
+      expire(now);
+      delegate.set(userId, userAccount);
+      var entry = entries.computeIfAbsent(userId, Entry::new);
+      entry.ttlMillis = entryTtlMillis;
+      entry.writeTime = now;
+      entry.accessTime = now;
+      entry.version++;
+      schedule(entry);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Reload the entry in the background. Must be called with the lock held.
+   *
+   * @param entry {@link Entry}
+   */
+  private void refresh(final Entry entry) {
+    entry.refreshing = true;
+    var version = entry.version;
+    try {
+      executor.execute(() -> {
+        UserAccount fresh = null;
+        try {
+          fresh = loader.apply(entry.userId);
+        } catch (RuntimeException e) {
+          LOGGER.warn("# Refresh of {} failed", entry.userId, e);
+        }
+        lock.lock();
+        try {
+          entry.refreshing = false;
+          if (fresh != null && entries.get(entry.userId) == entry && entry.version == version) {
+            set(entry.userId, fresh, entry.ttlMillis);
+          }
+        } finally {
+          lock.unlock();
+        }
+      });
+    } catch (RuntimeException e) {
+      entry.refreshing = false;
+      LOGGER.warn("# Refresh of {} rejected", entry.userId, e);
+    }
+  }
+
+  /**
+   * Time at which the entry expires.
+   *
+   * @param entry {@link Entry}
+   * @return time in milliseconds
+   */
+  private long deadline(final Entry entry) {
+    var deadline = Long.MAX_VALUE;
+    if (entry.ttlMillis > 0) {
+      deadline = entry.writeTime + entry.ttlMillis;
+    }
+    if (idleMillis > 0) {
+      deadline = Math.min(deadline, entry.accessTime + idleMillis);
+    }
+    return deadline;
+  }
+
+  /**
+   * Put the entry in the timing wheel, or take it out if it never expires.
+   * Must be called with the lock held.
+   *
+   * @param entry {@link Entry}
+   */
+  private void schedule(final Entry entry) {
+    var deadline = deadline(entry);
+    if (deadline == Long.MAX_VALUE) {
+      timingWheel.cancel(entry);
+    } else {
+      timingWheel.schedule(entry, (deadline + TICK_MILLIS - 1) / TICK_MILLIS);
+    }
+  }
+
+  /**
+   * Advance the timing wheel and drop the entries that are due. Reads only
+   * update the access time, so an idle deadline that has moved on is
+   * re-scheduled instead. Also drops the entries evicted by the backing
+   * cache. Must be called with the lock held.
+   *
+   * @param now current time in milliseconds
+   */
+  private void expire(final long now) {
+    String userId;
+    while ((userId = evicted.poll()) != null) {
+      // the user may have been written again since it was evicted
+      var entry = entries.get(userId);
+      if (entry != null && !delegate.contains(userId)) {
+        timingWheel.cancel(entry);
+        entries.remove(userId);
+      }
+    }
+    timingWheel.advance(now / TICK_MILLIS, timer -> {
+      var entry = (Entry) timer;
+      if (deadline(entry) <= now) {
+        remove(entry);
+      } else {
+        schedule(entry);
+      }
+    });
+  }
+
+  /**
+   * Drop an expired entry. Must be called with the lock held.
+   *
+   * @param entry {@link Entry}
+   */
+  private void remove(final Entry entry) {
+    timingWheel.cancel(entry);
+    entries.remove(entry.userId);
+    delegate.invalidate(entry.userId);
+    stats.recordEviction(EvictionCause.EXPIRED, 1);
+  }
+
+  /**
+   * Check if Cache contains the userId.
+   *
+   * @param userId {@link String}
+   * @return boolean
+   */
+  @Override
+  public boolean contains(final String userId) {
+    return get(userId) != null;
+  }
+
+  /**
+   * Invalidate cache for user.
+   *
+   * @param userId {@link String}
+   */
+  @Override
+  public void invalidate(final String userId) {
+    lock.lock();
+    try {
+      var entry = entries.remove(userId);
+      if (entry != null) {
+        timingWheel.cancel(entry);
+      }
+      delegate.invalidate(userId);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Number of entries in the cache.
+   *
+   * @return int
+   */
+  @Override
+  public int size() {
+    return delegate.size();
+  }
+
+  /**
+   * Number of entries with expiry bookkeeping.
+   *
+   * @return int
+   */
+  int trackedCount() {
+    return entries.size();
+  }
+
+  /**
+   * Check if the cache is full.
+   *
+   * @return boolean
+   */
+  @Override
+  public boolean isFull() {
+    return delegate.isFull();
+  }
+
+  /**
+   * Get the entry that is the next candidate for eviction.
+   *
+   * @return {@link UserAccount} or null if the cache is empty
+   */
+  @Override
+  public UserAccount getLruData() {
+    return delegate.getLruData();
+  }
+
+  /**
+   * Clear cache.
+   */
+  @Override
+  public void clear() {
+    lock.lock();
+    try {
+      timingWheel.clear();
+      entries.clear();
+      evicted.clear();
+      delegate.clear();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns cache data in list form, after dropping the expired entries.
+   *
+   * @return {@link List}
+   */
+  @Override
+  public List<UserAccount> getCacheDataInListForm() {
+    lock.lock();
+    try {
+      expire(clock.getAsLong());
+    } finally {
+      lock.unlock();
+    }
+    return delegate.getCacheDataInListForm();
+  }
+
+  @Override
+  public void setStats(final CacheStats cacheStats) {
+    this.stats = cacheStats;
+    delegate.setStats(cacheStats);
+  }
+
+  /**
+   * Set cache capacity.
+   *
+   * @param newCapacity int
+   */
+  @Override
+  public void setCapacity(final int newCapacity) {
+    lock.lock();
+    try {
+      delegate.setCapacity(newCapacity);
+      if (delegate.size() == 0) {
+        timingWheel.clear();
+        entries.clear();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+}
@@ -0,0 +1,187 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+/**
+ * Count-min sketch of 4-bit counters used by {@link TinyLfuCache} to estimate
+ * how often a key has been accessed. Each key is mapped to four counters in
+ * different rows and its frequency is the smallest of them. After a sample of
+ * accesses ten times the cache size, all counters are halved, so that keys
+ * which were popular a long time ago slowly lose their advantage.
+ *
+ * <p>The sketch is not thread-safe; callers are expected to guard it.
+ */
+class FrequencySketch {
+  /**
+   * Seeds of the four hash functions.
+   */
+  private static final long[] SEEDS = {
+      0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+  };
+  /**
+   * Mask clearing the high bit of every counter after a shift.
+   */
+  private static final long RESET_MASK = 0x7777777777777777L;
+  /**
+   * Mask selecting the low bit of every counter.
+   */
+  private static final long ONE_MASK = 0x1111111111111111L;
+  /**
+   * Largest value a 4-bit counter can hold.
+   */
+  private static final int MAX_COUNT = 15;
+
+  /**
+   * Counters, sixteen per long.
+   */
+  private long[] table;
+  /**
+   * Mask used to map a hash to a table index.
+   */
+  private int tableMask;
+  /**
+   * Number of increments after which the counters are aged.
+   */
+  private int sampleSize;
+  /**
+   * Increments since the last aging.
+   */
+  private int size;
+
+  /**
+   * Constructor.
+   *
+   * @param maximumSize expected number of entries in the cache
+   */
+  FrequencySketch(final int maximumSize) {
+    ensureCapacity(maximumSize);
+  }
+
+  /**
+   * Resize the sketch for the given cache size. Resizing drops all counters.
+   *
+   * @param maximumSize expected number of entries in the cache
+   */
+  void ensureCapacity(final int maximumSize) {
+    var maximum = Math.max(maximumSize, 1);
+    var length = Integer.highestOneBit(Math.min(maximum, 1 << 30));
+    if (length < maximum) {
+      length <<= 1;
+    }
+    table = new long[length];
+    tableMask = length - 1;
+    sampleSize = maximum > Integer.MAX_VALUE / 10 ? Integer.MAX_VALUE : 10 * maximum;
+    size = 0;
+  }
+
+  /**
+   * Estimated number of accesses of the key, between 0 and 15.
+   *
+   * @param key String
+   * @return int
+   */
+  int frequency(final String key) {
+    var hash = spread(key.hashCode());
+    var start = (hash & 3) << 2;
+    var frequency = MAX_COUNT;
+    for (var i = 0; i < 4; i++) {
+      var index = indexOf(hash, i);
+      var count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+      frequency = Math.min(frequency, count);
+    }
+    return frequency;
+  }
+
+  /**
+   * Record an access of the key.
+   *
+   * @param key String
+   */
+  void increment(final String key) {
+    var hash = spread(key.hashCode());
+    var start = (hash & 3) << 2;
+    var added = false;
+    for (var i = 0; i < 4; i++) {
+      added |= incrementAt(indexOf(hash, i), start + i);
+    }
+    if (added && ++size == sampleSize) {
+      reset();
+    }
+  }
+
+  /**
+   * Increment the counter at the given position unless it is saturated.
+   *
+   * @param index   table index
+   * @param counter counter within the long, between 0 and 15
+   * @return true if the counter was incremented
+   */
+  private boolean incrementAt(final int index, final int counter) {
+    var offset = counter << 2;
+    var mask = 0xfL << offset;
+    if ((table[index] & mask) != mask) {
+      table[index] += 1L << offset;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Halve all counters.
+   */
+  private void reset() {
+    var odd = 0;
+    for (var i = 0; i < table.length; i++) {
+      odd += Long.bitCount(table[i] & ONE_MASK);
+      table[i] = (table[i] >>> 1) & RESET_MASK;
+    }
+    size = (size >>> 1) - (odd >>> 2);
+  }
+
+  /**
+   * Table index of the key for the given row.
+   *
+   * @param hash spread hash of the key
+   * @param row  int
+   * @return int
+   */
+  private int indexOf(final int hash, final int row) {
+    var result = (hash + SEEDS[row]) * SEEDS[row];
+    result += result >>> 32;
+    return (int) result & tableMask;
+  }
+
+  /**
+   * Spread the bits of a hash code.
+   *
+   * @param hashCode int
+   * @return int
+   */
+  private static int spread(final int hashCode) {
+    var x = ((hashCode >>> 16) ^ hashCode) * 0x45d9f3b;
+    x = ((x >>> 16) ^ x) * 0x45d9f3b;
+    return (x >>> 16) ^ x;
+  }
+}
@@ -0,0 +1,198 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of latencies in nanoseconds with logarithmic buckets, in the
+ * style of HdrHistogram. Every power of two is split into eight linear
+ * sub-buckets, so a recorded value is off by at most 12.5% while the whole
+ * range of a long fits into a few hundred buckets. Recording is lock-free.
+ */
+public class LatencyHistogram {
+  /**
+   * Bits of precision below the leading one.
+   */
+  private static final int SUB_BITS = 3;
+  /**
+   * Sub-buckets per power of two.
+   */
+  private static final int SUB_BUCKETS = 1 << SUB_BITS;
+  /**
+   * Number of buckets.
+   */
+  private static final int BUCKETS = (Long.SIZE - SUB_BITS + 1) * SUB_BUCKETS;
+
+  /**
+   * Counts per bucket.
+   */
+  private final LongAdder[] counts = new LongAdder[BUCKETS];
+  /**
+   * Number of recorded values.
+   */
+  private final LongAdder count = new LongAdder();
+  /**
+   * Sum of the recorded values.
+   */
+  private final LongAdder sum = new LongAdder();
+  /**
+   * Largest recorded value.
+   */
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+  /**
+   * Constructor.
+   */
+  public LatencyHistogram() {
+    for (var i = 0; i < BUCKETS; i++) {
+      counts[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * Record a latency.
+   *
+   * @param nanos latency, negative values count as 0
+   */
+  public void record(final long nanos) {
+    var value = Math.max(0, nanos);
+    counts[bucketOf(value)].increment();
+    count.increment();
+    sum.add(value);
+    max.accumulate(value);
+  }
+
+  /**
+   * Number of recorded latencies.
+   *
+   * @return long
+   */
+  public long getCount() {
+    return count.sum();
+  }
+
+  /**
+   * Mean latency in nanoseconds.
+   *
+   * @return double, 0 if nothing was recorded
+   */
+  public double getMean() {
+    var n = count.sum();
+    return n == 0 ? 0 : (double) sum.sum() / n;
+  }
+
+  /**
+   * Largest latency in nanoseconds.
+   *
+   * @return long
+   */
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * Latency below which the given share of the recorded latencies lies,
+   * rounded up to the bucket bound.
+   *
+   * @param percentile between 0 and 100
+   * @return latency in nanoseconds, 0 if nothing was recorded
+   */
+  public long getPercentile(final double percentile) {
+    var snapshot = new long[BUCKETS];
+    var total = 0L;
+    for (var i = 0; i < BUCKETS; i++) {
+      snapshot[i] = counts[i].sum();
+      total += snapshot[i];
+    }
+    if (total == 0) {
+      return 0;
+    }
+    var rank = (long) Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100);
+    var seen = 0L;
+    for (var i = 0; i < BUCKETS; i++) {
+      seen += snapshot[i];
+      if (seen >= Math.max(1, rank)) {
+        return Math.min(upperBoundOf(i), getMax());
+      }
+    }
+    return getMax();
+  }
+
+  /**
+   * Bucket of a value.
+   *
+   * @param value non-negative long
+   * @return int
+   */
+  static int bucketOf(final long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    var exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+    var sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+  }
+
+  /**
+   * Largest value of a bucket.
+   *
+   * @param bucket int
+   * @return long
+   */
+  static long upperBoundOf(final int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    var exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+    var sub = bucket % SUB_BUCKETS;
+    var width = 1L << (exponent - SUB_BITS);
+    return ((long) (SUB_BUCKETS + sub) << (exponent - SUB_BITS)) + width - 1;
+  }
+
+  /**
+   * Summary of the histogram in microseconds.
+   *
+   * @return String
+   */
+  @Override
+  public String toString() {
+    return String.format("count=%d, mean=%.1fus, p50=%dus, p99=%dus, max=%dus",
+        getCount(), getMean() / 1000, toMicros(getPercentile(50)),
+        toMicros(getPercentile(99)), toMicros(getMax()));
+  }
+
+  /**
+   * Convert nanoseconds to microseconds.
+   *
+   * @param nanos long
+   * @return long
+   */
+  private static long toMicros(final long nanos) {
+    return TimeUnit.NANOSECONDS.toMicros(nanos);
+  }
+}
@@ -28,6 +28,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import lombok.extern.slf4j.Slf4j;
 
 
@@ -40,7 +41,7 @@ import lombok.extern.slf4j.Slf4j;
  * data. The LRU data is always at the end of the list.
  */
 @Slf4j
-public class LruCache {
+public class LruCache implements Cache {
   /**
    * Static class Node.
    */
@@ -90,6 +91,10 @@ public class LruCache {
    * End.
    */
   private Node end;
+  /**
+   * Listener told about evicted user ids.
+   */
+  private volatile Consumer<String> evictionListener = userId -> { };
 
   /**
    * Constructor.
@@ -106,6 +111,7 @@ public class LruCache {
    * @param userId String
    * @return {@link UserAccount}
    */
+  @Override
   public UserAccount get(final String userId) {
     if (cache.containsKey(userId)) {
       var node = cache.get(userId);
@@ -157,6 +163,7 @@ public class LruCache {
    * @param userAccount {@link UserAccount}
    * @param userId      {@link String}
    */
+  @Override
   public void set(final String userId, final UserAccount userAccount) {
     if (cache.containsKey(userId)) {
       var old = cache.get(userId);
@@ -167,8 +174,10 @@ public class LruCache {
       var newNode = new Node(userId, userAccount);
       if (cache.size() >= capacity) {
         LOGGER.info("# Cache is FULL! Removing {} from cache...", end.userId);
-        cache.remove(end.userId); // remove LRU data from cache.
+        var evicted = end.userId;
+        cache.remove(evicted); // remove LRU data from cache.
         remove(end);
+        evictionListener.accept(evicted);
         setHead(newNode);
       } else {
         setHead(newNode);
@@ -183,6 +192,7 @@ public class LruCache {
    * @param userId {@link String}
    * @return boolean
    */
+  @Override
   public boolean contains(final String userId) {
     return cache.containsKey(userId);
   }
@@ -192,6 +202,7 @@ public class LruCache {
    *
    * @param userId {@link String}
    */
+  @Override
   public void invalidate(final String userId) {
     var toBeRemoved = cache.remove(userId);
     if (toBeRemoved != null) {
@@ -201,10 +212,20 @@ public class LruCache {
     }
   }
 
+  /**
+   * Number of entries in the cache.
+   * @return int
+   */
+  @Override
+  public int size() {
+    return cache.size();
+  }
+
   /**
    * Check if the cache is full.
    * @return boolean
    */
+  @Override
   public boolean isFull() {
     return cache.size() >= capacity;
   }
@@ -214,6 +235,7 @@ public class LruCache {
    *
    * @return {@link UserAccount}
    */
+  @Override
   public UserAccount getLruData() {
     return end.userAccount;
   }
@@ -221,6 +243,7 @@ public class LruCache {
   /**
    * Clear cache.
    */
+  @Override
   public void clear() {
     head = null;
     end = null;
@@ -232,6 +255,7 @@ public class LruCache {
    *
    * @return {@link List}
    */
+  @Override
   public List<UserAccount> getCacheDataInListForm() {
     var listOfCacheData = new ArrayList<UserAccount>();
     var temp = head;
@@ -247,6 +271,7 @@ public class LruCache {
    *
    * @param newCapacity int
    */
+  @Override
   public void setCapacity(final int newCapacity) {
     if (capacity > newCapacity) {
       // Behavior can be modified to accommodate
@@ -257,4 +282,9 @@ public class LruCache {
       this.capacity = newCapacity;
     }
   }
+
+  @Override
+  public void setEvictionListener(final Consumer<String> listener) {
+    this.evictionListener = listener;
+  }
 }
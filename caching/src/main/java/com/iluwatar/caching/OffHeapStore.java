@@ -0,0 +1,415 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Store of encoded user accounts in direct memory, outside of the Java heap.
+ * The memory is split into fixed-size slabs that are filled one after the
+ * other like a ring. When the ring wraps around, the oldest slab is evicted
+ * as a whole and reused, so there is no fragmentation. Overwritten records
+ * are left in place and reclaimed with their slab.
+ *
+ * <p>Each record is an int length followed by the {@link UserAccountCodec}
+ * encoding of the account, which starts with the user id.
+ *
+ * <p>The index from user id to location is off-heap as well: an open
+ * addressing table with linear probing in a direct buffer, holding the hash
+ * of the user id and the location of its record. The user ids themselves are
+ * only stored in the records, and compared there when the hashes match. An
+ * evicted slab is walked record by record to drop the index entries that
+ * still point into it, so the store keeps no objects per account on the
+ * heap.
+ */
+class OffHeapStore {
+  /**
+   * Bytes of an index slot: the location as a long, then the hash as an int.
+   */
+  private static final int SLOT_BYTES = Long.BYTES + Integer.BYTES;
+  /**
+   * Initial number of index slots, a power of two.
+   */
+  private static final int INITIAL_SLOTS = 64;
+  /**
+   * Location of an empty index slot.
+   */
+  private static final long EMPTY = 0;
+
+  /**
+   * Slabs of direct memory.
+   */
+  private final ByteBuffer[] slabs;
+  /**
+   * Lock guarding the index and the slabs.
+   */
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  /**
+   * Index slots, kept at most half full.
+   */
+  private ByteBuffer index = ByteBuffer.allocateDirect(INITIAL_SLOTS * SLOT_BYTES);
+  /**
+   * Number of index slots minus one.
+   */
+  private int mask = INITIAL_SLOTS - 1;
+  /**
+   * Number of stored user accounts.
+   */
+  private int size;
+  /**
+   * Slab currently being written.
+   */
+  private int currentSlab;
+  /**
+   * Statistics evictions are reported to.
+   */
+  private volatile CacheStats stats = CacheStats.DISABLED;
+  /**
+   * Listener told about evicted user ids, null for none.
+   */
+  private volatile Consumer<String> evictionListener;
+
+  /**
+   * Constructor.
+   *
+   * @param capacityBytes total size of the direct memory
+   * @param slabSize      size of one slab
+   */
+  OffHeapStore(final long capacityBytes, final int slabSize) {
+    var slabCount = (int) Math.max(2, Math.min(Integer.MAX_VALUE, capacityBytes / slabSize));
+    this.slabs = new ByteBuffer[slabCount];
+    for (var i = 0; i < slabCount; i++) {
+      slabs[i] = ByteBuffer.allocateDirect(slabSize);
+    }
+  }
+
+  /**
+   * Get user account.
+   *
+   * @param userId String
+   * @return {@link UserAccount} or null if it is not stored
+   */
+  UserAccount get(final String userId) {
+    var key = userId.getBytes(StandardCharsets.UTF_8);
+    lock.readLock().lock();
+    try {
+      var slot = find(key, UserAccountCodec.hash(key));
+      if (slot < 0) {
+        return null;
+      }
+      var location = locationAt(slot);
+      var buffer = slabs[slabOf(location)].duplicate();
+      buffer.position(offsetOf(location) + Integer.BYTES);
+      return UserAccountCodec.decode(buffer);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Store user account.
+   *
+   * @param userAccount {@link UserAccount}
+   * @return false if the account is too large for a slab
+   */
+  boolean put(final UserAccount userAccount) {
+    var fields = UserAccountCodec.fields(userAccount);
+    var key = fields[0];
+    var hash = UserAccountCodec.hash(key);
+    var recordSize = Integer.BYTES + UserAccountCodec.encodedSize(fields);
+    lock.writeLock().lock();
+    try {
+      if (recordSize > slabs[currentSlab].capacity()) {
+        removeKey(key, hash);
+        return false;
+      }
+      if (slabs[currentSlab].remaining() < recordSize) {
+        currentSlab = (currentSlab + 1) % slabs.length;
+        evict(currentSlab);
+      }
+      var slab = slabs[currentSlab];
+      final var offset = slab.position();
+      slab.putInt(recordSize - Integer.BYTES);
+      UserAccountCodec.encode(fields, slab);
+      var slot = find(key, hash);
+      if (slot < 0) {
+        if (2 * (size + 1) > mask + 1) {
+          resize();
+        }
+        slot = insertionSlot(hash);
+        size++;
+      }
+      index.putLong(slot * SLOT_BYTES, locationOf(currentSlab, offset));
+      index.putInt(slot * SLOT_BYTES + Long.BYTES, hash);
+      return true;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Check if the user account is stored.
+   *
+   * @param userId String
+   * @return boolean
+   */
+  boolean contains(final String userId) {
+    var key = userId.getBytes(StandardCharsets.UTF_8);
+    lock.readLock().lock();
+    try {
+      return find(key, UserAccountCodec.hash(key)) >= 0;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Remove user account.
+   *
+   * @param userId String
+   */
+  void remove(final String userId) {
+    var key = userId.getBytes(StandardCharsets.UTF_8);
+    lock.writeLock().lock();
+    try {
+      removeKey(key, UserAccountCodec.hash(key));
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Number of stored user accounts.
+   *
+   * @return int
+   */
+  int size() {
+    lock.readLock().lock();
+    try {
+      return size;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Set the statistics evictions are reported to.
+   *
+   * @param cacheStats {@link CacheStats}
+   */
+  void setStats(final CacheStats cacheStats) {
+    this.stats = cacheStats;
+  }
+
+  /**
+   * Set the listener told about the user ids evicted with their slab. It is
+   * called with the write lock held.
+   *
+   * @param listener receives the evicted user ids
+   */
+  void setEvictionListener(final Consumer<String> listener) {
+    this.evictionListener = listener;
+  }
+
+  /**
+   * Remove all user accounts.
+   */
+  void clear() {
+    lock.writeLock().lock();
+    try {
+      index = ByteBuffer.allocateDirect(INITIAL_SLOTS * SLOT_BYTES);
+      mask = INITIAL_SLOTS - 1;
+      size = 0;
+      for (var slab : slabs) {
+        slab.clear();
+      }
+      currentSlab = 0;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Empty a slab for reuse. Walks the records of the slab and drops the
+   * index entries that still point to them. Must be called with the write
+   * lock held.
+   *
+   * @param slab int
+   */
+  private void evict(final int slab) {
+    var buffer = slabs[slab];
+    var listener = evictionListener;
+    var evicted = 0;
+    var offset = 0;
+    while (offset < buffer.position()) {
+      var hash = UserAccountCodec.userIdHash(buffer, offset + Integer.BYTES);
+      var location = locationOf(slab, offset);
+      for (var slot = hash & mask; locationAt(slot) != EMPTY; slot = (slot + 1) & mask) {
+        if (locationAt(slot) == location) {
+          delete(slot);
+          evicted++;
+          if (listener != null) {
+            listener.accept(UserAccountCodec.userId(buffer, offset + Integer.BYTES));
+          }
+          break;
+        }
+      }
+      offset += Integer.BYTES + buffer.getInt(offset);
+    }
+    if (evicted > 0) {
+      stats.recordEviction(EvictionCause.SIZE, evicted);
+    }
+    buffer.clear();
+  }
+
+  /**
+   * Find the index slot of a user id.
+   *
+   * @param key  UTF-8 bytes of the user id
+   * @param hash hash of the user id
+   * @return the slot, or -1 if the user id is not stored
+   */
+  private int find(final byte[] key, final int hash) {
+    for (var slot = hash & mask; locationAt(slot) != EMPTY; slot = (slot + 1) & mask) {
+      if (index.getInt(slot * SLOT_BYTES + Long.BYTES) == hash) {
+        var location = locationAt(slot);
+        var record = offsetOf(location) + Integer.BYTES;
+        if (UserAccountCodec.hasUserId(slabs[slabOf(location)], record, key)) {
+          return slot;
+        }
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * First empty index slot of the probe sequence of a hash.
+   *
+   * @param hash int
+   * @return int
+   */
+  private int insertionSlot(final int hash) {
+    var slot = hash & mask;
+    while (locationAt(slot) != EMPTY) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  /**
+   * Remove the index entry of a user id, if any.
+   *
+   * @param key  UTF-8 bytes of the user id
+   * @param hash hash of the user id
+   */
+  private void removeKey(final byte[] key, final int hash) {
+    var slot = find(key, hash);
+    if (slot >= 0) {
+      delete(slot);
+    }
+  }
+
+  /**
+   * Empty an index slot. The entries following it in the same run are
+   * shifted back into the hole when their probe sequence passes it, so that
+   * lookups can stop at the first empty slot without tombstones.
+   *
+   * @param slot int
+   */
+  private void delete(final int slot) {
+    var hole = slot;
+    for (var next = (hole + 1) & mask; locationAt(next) != EMPTY; next = (next + 1) & mask) {
+      var home = index.getInt(next * SLOT_BYTES + Long.BYTES) & mask;
+      // distance travelled by the entry compared with the distance to the hole
+      if (((next - home) & mask) >= ((next - hole) & mask)) {
+        index.put(hole * SLOT_BYTES, index, next * SLOT_BYTES, SLOT_BYTES);
+        hole = next;
+      }
+    }
+    index.putLong(hole * SLOT_BYTES, EMPTY);
+    size--;
+  }
+
+  /**
+   * Double the number of index slots, rehashing the entries.
+   */
+  private void resize() {
+    var old = index;
+    var oldSlots = mask + 1;
+    index = ByteBuffer.allocateDirect(2 * oldSlots * SLOT_BYTES);
+    mask = 2 * oldSlots - 1;
+    for (var i = 0; i < oldSlots; i++) {
+      if (old.getLong(i * SLOT_BYTES) != EMPTY) {
+        var slot = insertionSlot(old.getInt(i * SLOT_BYTES + Long.BYTES));
+        index.put(slot * SLOT_BYTES, old, i * SLOT_BYTES, SLOT_BYTES);
+      }
+    }
+  }
+
+  /**
+   * Location stored in an index slot.
+   *
+   * @param slot int
+   * @return long, {@link #EMPTY} for an empty slot
+   */
+  private long locationAt(final int slot) {
+    return index.getLong(slot * SLOT_BYTES);
+  }
+
+  /**
+   * Location of a record, the slab plus one in the high and the offset in
+   * the low 32 bits, so that no location is {@link #EMPTY}.
+   *
+   * @param slab   int
+   * @param offset int
+   * @return long
+   */
+  private static long locationOf(final int slab, final int offset) {
+    return ((long) (slab + 1) << 32) | offset;
+  }
+
+  /**
+   * Slab of a location.
+   *
+   * @param location long
+   * @return int
+   */
+  private static int slabOf(final long location) {
+    return (int) (location >>> 32) - 1;
+  }
+
+  /**
+   * Offset of a location.
+   *
+   * @param location long
+   * @return int
+   */
+  private static int offsetOf(final long location) {
+    return (int) location;
+  }
+}
@@ -0,0 +1,253 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Two-tier cache. The first tier is a regular on-heap {@link Cache} holding
+ * the hot user accounts as objects. Below it, an {@link OffHeapStore} keeps
+ * encoded copies of the accounts in direct memory, where they do not add to
+ * the work of the garbage collector. The off-heap tier can therefore be much
+ * larger than the heap tier.
+ *
+ * <p>Every write goes to both tiers, so accounts evicted from the heap tier
+ * are still found below it. A hit in the off-heap tier promotes the account
+ * back to the heap tier. The off-heap tier evicts on its own, slab by slab.
+ */
+public class TieredCache implements Cache {
+  /**
+   * Number of locks serializing promotions with writes of the same user.
+   */
+  private static final int LOCK_STRIPES = 64;
+
+  /**
+   * Locks serializing promotions with writes of the same user.
+   */
+  private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+  /**
+   * Heap tier.
+   */
+  private final Cache heapTier;
+  /**
+   * Off-heap tier.
+   */
+  private final OffHeapStore offHeapTier;
+
+  /**
+   * Constructor.
+   *
+   * @param heapCache     heap tier
+   * @param offHeapBytes  size of the off-heap tier
+   * @param slabSize      size of one off-heap slab
+   */
+  public TieredCache(final Cache heapCache, final long offHeapBytes, final int slabSize) {
+    this.heapTier = heapCache;
+    this.offHeapTier = new OffHeapStore(offHeapBytes, slabSize);
+    for (var i = 0; i < LOCK_STRIPES; i++) {
+      locks[i] = new ReentrantLock();
+    }
+  }
+
+  /**
+   * Lock of the user.
+   *
+   * @param userId String
+   * @return {@link ReentrantLock}
+   */
+  private ReentrantLock lockFor(final String userId) {
+    return locks[(userId.hashCode() & Integer.MAX_VALUE) % LOCK_STRIPES];
+  }
+
+  /**
+   * Get user account from the heap tier, or from the off-heap tier promoting
+   * it to the heap tier.
+   *
+   * @param userId String
+   * @return {@link UserAccount}
+   */
+  @Override
+  public UserAccount get(final String userId) {
+    var userAccount = heapTier.get(userId);
+    if (userAccount != null || !offHeapTier.contains(userId)) {
+      return userAccount;
+    }
+    var lock = lockFor(userId);
+    lock.lock();
+    try {
+      // read again, a concurrent write may have replaced the account
+      userAccount = offHeapTier.get(userId);
+      if (userAccount != null) {
+        heapTier.set(userId, userAccount);
+      }
+      return userAccount;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Set user account in both tiers.
+   *
+   * @param userId      {@link String}
+   * @param userAccount {@link UserAccount}
+   */
+  @Override
+  public void set(final String userId, final UserAccount userAccount) {
+    var lock = lockFor(userId);
+    lock.lock();
+    try {
+      heapTier.set(userId, userAccount);
+      if (userAccount == null) {
+        offHeapTier.remove(userId);
+      } else {
+        offHeapTier.put(userAccount);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Check if either tier contains the userId.
+   *
+   * @param userId {@link String}
+   * @return boolean
+   */
+  @Override
+  public boolean contains(final String userId) {
+    return heapTier.contains(userId) || offHeapTier.contains(userId);
+  }
+
+  /**
+   * Invalidate both tiers for user.
+   *
+   * @param userId {@link String}
+   */
+  @Override
+  public void invalidate(final String userId) {
+    var lock = lockFor(userId);
+    lock.lock();
+    try {
+      offHeapTier.remove(userId);
+      heapTier.invalidate(userId);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Number of entries in the cache. Both tiers hold most entries, so this is
+   * the size of the larger one.
+   *
+   * @return int
+   */
+  @Override
+  public int size() {
+    return Math.max(heapTier.size(), offHeapTier.size());
+  }
+
+  /**
+   * Check if the heap tier is full.
+   *
+   * @return boolean
+   */
+  @Override
+  public boolean isFull() {
+    return heapTier.isFull();
+  }
+
+  /**
+   * Get the next eviction candidate of the heap tier.
+   *
+   * @return {@link UserAccount} or null if the heap tier is empty
+   */
+  @Override
+  public UserAccount getLruData() {
+    return heapTier.getLruData();
+  }
+
+  /**
+   * Clear both tiers.
+   */
+  @Override
+  public void clear() {
+    offHeapTier.clear();
+    heapTier.clear();
+  }
+
+  /**
+   * Returns the data of the heap tier in list form.
+   *
+   * @return {@link List}
+   */
+  @Override
+  public List<UserAccount> getCacheDataInListForm() {
+    return heapTier.getCacheDataInListForm();
+  }
+
+  /**
+   * Set the statistics. Only the off-heap tier reports evictions, as entries
+   * evicted from the heap tier are still cached below it.
+   *
+   * @param stats {@link CacheStats}
+   */
+  @Override
+  public void setStats(final CacheStats stats) {
+    offHeapTier.setStats(stats);
+  }
+
+  /**
+   * Set the eviction listener. An account evicted from one tier is only gone
+   * if the other tier does not hold it either.
+   *
+   * @param listener receives the evicted user ids
+   */
+  @Override
+  public void setEvictionListener(final Consumer<String> listener) {
+    heapTier.setEvictionListener(userId -> {
+      if (!offHeapTier.contains(userId)) {
+        listener.accept(userId);
+      }
+    });
+    offHeapTier.setEvictionListener(userId -> {
+      if (!heapTier.contains(userId)) {
+        listener.accept(userId);
+      }
+    });
+  }
+
+  /**
+   * Set capacity of the heap tier.
+   *
+   * @param newCapacity int
+   */
+  @Override
+  public void setCapacity(final int newCapacity) {
+    heapTier.setCapacity(newCapacity);
+  }
+}
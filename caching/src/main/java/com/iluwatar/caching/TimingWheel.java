@@ -0,0 +1,323 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel. Timers are kept in buckets of doubly
+ * linked-lists, so scheduling and cancelling are O(1). Level 0 has one bucket
+ * per tick; every higher level has buckets spanning a whole rotation of the
+ * level below, and its timers are cascaded down as the clock reaches them.
+ *
+ * <p>Advancing the clock jumps from one non-empty bucket to the next. The
+ * wheel counts the timers of each level, so when the lower levels are empty
+ * it skips straight to the next bucket of the lowest level holding timers.
+ *
+ * <p>The wheel is not thread-safe; callers are expected to guard it.
+ */
+class TimingWheel {
+  /**
+   * Bits of the tick used for the bucket index of one level.
+   */
+  private static final int BITS = 6;
+  /**
+   * Number of buckets per level.
+   */
+  private static final int BUCKETS = 1 << BITS;
+  /**
+   * Mask selecting the bucket index.
+   */
+  private static final int MASK = BUCKETS - 1;
+  /**
+   * Number of levels, covering 2^24 ticks.
+   */
+  private static final int LEVELS = 4;
+  /**
+   * Farthest deadline that can be placed directly, later ones are clamped and
+   * re-scheduled when they come due.
+   */
+  private static final long MAX_DELTA = (1L << (BITS * LEVELS)) - 1;
+
+  /**
+   * Timer that can be scheduled in the wheel.
+   */
+  static class Timer {
+    /**
+     * Tick at which the timer fires.
+     */
+    private long deadline;
+    /**
+     * Sentinel of the bucket the timer is in, null if not scheduled.
+     */
+    private Timer bucket;
+    /**
+     * Level of the bucket the timer is in.
+     */
+    private int level;
+    /**
+     * previous.
+     */
+    private Timer previous;
+    /**
+     * next.
+     */
+    private Timer next;
+
+    /**
+     * Check if the timer is scheduled.
+     *
+     * @return boolean
+     */
+    boolean isScheduled() {
+      return bucket != null;
+    }
+  }
+
+  /**
+   * Bucket sentinels of a circular doubly linked-list, per level.
+   */
+  private final Timer[][] wheel = new Timer[LEVELS][BUCKETS];
+  /**
+   * Current tick.
+   */
+  private long currentTick;
+  /**
+   * Number of scheduled timers.
+   */
+  private int size;
+  /**
+   * Number of scheduled timers per level.
+   */
+  private final int[] levelSizes = new int[LEVELS];
+
+  /**
+   * Constructor.
+   *
+   * @param startTick tick the wheel starts at
+   */
+  TimingWheel(final long startTick) {
+    this.currentTick = startTick;
+    for (var level = 0; level < LEVELS; level++) {
+      for (var index = 0; index < BUCKETS; index++) {
+        var sentinel = new Timer();
+        sentinel.previous = sentinel;
+        sentinel.next = sentinel;
+        wheel[level][index] = sentinel;
+      }
+    }
+  }
+
+  /**
+   * Number of scheduled timers.
+   *
+   * @return int
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Schedule the timer, replacing its previous deadline if it had one.
+   *
+   * @param timer    {@link Timer}
+   * @param deadline tick at which the timer fires
+   */
+  void schedule(final Timer timer, final long deadline) {
+    if (timer.isScheduled()) {
+      unlink(timer);
+    }
+    timer.deadline = deadline;
+    link(timer);
+  }
+
+  /**
+   * Cancel the timer if it is scheduled.
+   *
+   * @param timer {@link Timer}
+   */
+  void cancel(final Timer timer) {
+    if (timer.isScheduled()) {
+      unlink(timer);
+    }
+  }
+
+  /**
+   * Advance the clock, firing the timers whose deadline has been reached.
+   * Fired timers are unscheduled before the callback sees them, so the
+   * callback may schedule them again.
+   *
+   * @param tick    current tick
+   * @param onFired callback for fired timers
+   */
+  void advance(final long tick, final Consumer<Timer> onFired) {
+    if (size == 0) {
+      currentTick = Math.max(currentTick, tick);
+      return;
+    }
+    while (currentTick < tick) {
+      if (size == 0) {
+        currentTick = tick;
+        return;
+      }
+      currentTick = nextTick(tick);
+      for (var level = LEVELS - 1; level > 0; level--) {
+        if ((currentTick & ((1L << (BITS * level)) - 1)) == 0) {
+          cascade(level);
+        }
+      }
+      var sentinel = wheel[0][(int) (currentTick & MASK)];
+      while (sentinel.next != sentinel) {
+        var timer = sentinel.next;
+        unlink(timer);
+        if (timer.deadline > currentTick) {
+          link(timer);
+        } else {
+          onFired.accept(timer);
+        }
+      }
+    }
+  }
+
+  /**
+   * Next tick at which a bucket has to be processed, at most the given one.
+   * While the levels below a level are empty, nothing happens before the
+   * next bucket of that level is reached.
+   *
+   * @param limit tick to stop at
+   * @return tick
+   */
+  private long nextTick(final long limit) {
+    var next = currentTick + 1;
+    while (next < limit && !isDue(next)) {
+      var level = 0;
+      while (level < LEVELS - 1 && levelSizes[level] == 0) {
+        level++;
+      }
+      var span = 1L << (BITS * level);
+      next = (next / span + 1) * span;
+    }
+    return Math.min(next, limit);
+  }
+
+  /**
+   * Check if a bucket has to be processed at the tick, either fired or
+   * cascaded.
+   *
+   * @param tick long
+   * @return boolean
+   */
+  private boolean isDue(final long tick) {
+    if (!isEmpty(wheel[0][(int) (tick & MASK)])) {
+      return true;
+    }
+    for (var level = 1; level < LEVELS; level++) {
+      if ((tick & ((1L << (BITS * level)) - 1)) != 0) {
+        return false;
+      }
+      if (!isEmpty(wheel[level][(int) ((tick >>> (BITS * level)) & MASK)])) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Check if a bucket is empty.
+   *
+   * @param sentinel sentinel of the bucket
+   * @return boolean
+   */
+  private static boolean isEmpty(final Timer sentinel) {
+    return sentinel.next == sentinel;
+  }
+
+  /**
+   * Clear all timers.
+   */
+  void clear() {
+    for (var level : wheel) {
+      for (var sentinel : level) {
+        while (sentinel.next != sentinel) {
+          unlink(sentinel.next);
+        }
+      }
+    }
+  }
+
+  /**
+   * Move the timers of the current bucket of a level to lower levels.
+   *
+   * @param level int
+   */
+  private void cascade(final int level) {
+    var index = (int) ((currentTick >>> (BITS * level)) & MASK);
+    var sentinel = wheel[level][index];
+    while (sentinel.next != sentinel) {
+      var timer = sentinel.next;
+      unlink(timer);
+      link(timer);
+    }
+  }
+
+  /**
+   * Put the timer into the bucket matching its deadline.
+   *
+   * @param timer {@link Timer}
+   */
+  private void link(final Timer timer) {
+    var deadline = Math.max(timer.deadline, currentTick + 1);
+    deadline = Math.min(deadline, currentTick + MAX_DELTA);
+    var delta = deadline - currentTick;
+    var level = 0;
+    while (level < LEVELS - 1 && delta >= 1L << (BITS * (level + 1))) {
+      level++;
+    }
+    var sentinel = wheel[level][(int) ((deadline >>> (BITS * level)) & MASK)];
+    timer.bucket = sentinel;
+    timer.level = level;
+    timer.previous = sentinel.previous;
+    timer.next = sentinel;
+    sentinel.previous.next = timer;
+    sentinel.previous = timer;
+    levelSizes[level]++;
+    size++;
+  }
+
+  /**
+   * Remove the timer from its bucket.
+   *
+   * @param timer {@link Timer}
+   */
+  private void unlink(final Timer timer) {
+    timer.previous.next = timer.next;
+    timer.next.previous = timer.previous;
+    timer.previous = null;
+    timer.next = null;
+    timer.bucket = null;
+    levelSizes[timer.level]--;
+    size--;
+  }
+}
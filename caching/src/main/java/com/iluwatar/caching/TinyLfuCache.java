@@ -0,0 +1,520 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cache using the Window TinyLFU eviction policy. New entries are admitted to
+ * a small LRU window. Entries falling out of the window have to compete for a
+ * place in the main space against its eviction victim, and the one that has
+ * been accessed more often according to a {@link FrequencySketch} wins. The
+ * main space is a segmented LRU: entries start in the probation segment and
+ * are promoted to the protected segment when they are hit again.
+ *
+ * <p>This keeps one-off lookups, e.g. from a scan, from flushing frequently
+ * used entries out of the cache, which is what a plain LRU cache does.
+ *
+ * <p>Like {@link ConcurrentLruCache}, reads do not block. Hits are recorded
+ * only if the lock can be acquired without waiting.
+ */
+@Slf4j
+public class TinyLfuCache implements Cache {
+  /**
+   * Share of the capacity given to the admission window.
+   */
+  private static final int WINDOW_PERCENT = 1;
+  /**
+   * Share of the main space given to the protected segment.
+   */
+  private static final int PROTECTED_PERCENT = 80;
+
+  /**
+   * Region of the cache a node lives in.
+   */
+  enum Region {
+    /**
+     * Admission window.
+     */
+    WINDOW,
+    /**
+     * Main space, entries that have been hit only once since admission.
+     */
+    PROBATION,
+    /**
+     * Main space, entries that have been hit repeatedly.
+     */
+    PROTECTED
+  }
+
+  /**
+   * Static class Node.
+   */
+  static class Node {
+    /**
+     * user id.
+     */
+    private final String userId;
+    /**
+     * User Account.
+     */
+    private volatile UserAccount userAccount;
+    /**
+     * Region.
+     */
+    private Region region = Region.WINDOW;
+    /**
+     * previous.
+     */
+    private Node previous;
+    /**
+     * next.
+     */
+    private Node next;
+
+    /**
+     * Node definition.
+     *
+     * @param id      String
+     * @param account {@link UserAccount}
+     */
+    Node(final String id, final UserAccount account) {
+      this.userId = id;
+      this.userAccount = account;
+    }
+  }
+
+  /**
+   * Doubly linked-list ordered from most to least recently used.
+   */
+  static class AccessQueue {
+    /**
+     * Head.
+     */
+    private Node head;
+    /**
+     * End.
+     */
+    private Node end;
+    /**
+     * Number of nodes.
+     */
+    private int size;
+
+    /**
+     * Remove node from linked list.
+     *
+     * @param node {@link Node}
+     */
+    void remove(final Node node) {
+      if (node.previous != null) {
+        node.previous.next = node.next;
+      } else {
+        head = node.next;
+      }
+      if (node.next != null) {
+        node.next.previous = node.previous;
+      } else {
+        end = node.previous;
+      }
+      size--;
+    }
+
+    /**
+     * Add node to the front of the list.
+     *
+     * @param node {@link Node}
+     */
+    void setHead(final Node node) {
+      node.next = head;
+      node.previous = null;
+      if (head != null) {
+        head.previous = node;
+      }
+      head = node;
+      if (end == null) {
+        end = head;
+      }
+      size++;
+    }
+
+    /**
+     * Clear list.
+     */
+    void clear() {
+      head = null;
+      end = null;
+      size = 0;
+    }
+  }
+
+  /**
+   * Lock guarding the lists and the sketch.
+   */
+  private final ReentrantLock lock = new ReentrantLock();
+  /**
+   * Cache {@link ConcurrentHashMap}.
+   */
+  private final Map<String, Node> cache = new ConcurrentHashMap<>();
+  /**
+   * Admission window.
+   */
+  private final AccessQueue window = new AccessQueue();
+  /**
+   * Probation segment of the main space.
+   */
+  private final AccessQueue probation = new AccessQueue();
+  /**
+   * Protected segment of the main space.
+   */
+  private final AccessQueue protectedSegment = new AccessQueue();
+  /**
+   * Access frequency estimates.
+   */
+  private final FrequencySketch sketch;
+  /**
+   * Statistics evictions are reported to.
+   */
+  private volatile CacheStats stats = CacheStats.DISABLED;
+  /**
+   * Listener told about evicted user ids.
+   */
+  private volatile Consumer<String> evictionListener = userId -> { };
+  /**
+   * Capacity of Cache.
+   */
+  private int capacity;
+  /**
+   * Capacity of the window.
+   */
+  private int windowCapacity;
+  /**
+   * Capacity of the protected segment.
+   */
+  private int protectedCapacity;
+
+  /**
+   * Constructor.
+   *
+   * @param cap Integer.
+   */
+  public TinyLfuCache(final int cap) {
+    this.sketch = new FrequencySketch(cap);
+    resize(cap);
+  }
+
+  /**
+   * Split the capacity between the regions.
+   *
+   * @param cap int
+   */
+  private void resize(final int cap) {
+    capacity = cap;
+    windowCapacity = Math.max(1, (int) ((long) cap * WINDOW_PERCENT / 100));
+    var mainCapacity = Math.max(0, cap - windowCapacity);
+    protectedCapacity = (int) ((long) mainCapacity * PROTECTED_PERCENT / 100);
+  }
+
+  /**
+   * Get user account.
+   *
+   * @param userId String
+   * @return {@link UserAccount}
+   */
+  @Override
+  public UserAccount get(final String userId) {
+    var node = cache.get(userId);
+    if (node == null) {
+      return null;
+    }
+    if (lock.tryLock()) {
+      try {
+        sketch.increment(userId);
+        if (cache.get(userId) == node) {
+          onHit(node);
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+    return node.userAccount;
+  }
+
+  /**
+   * Set user account.
+   *
+   * @param userId      {@link String}
+   * @param userAccount {@link UserAccount}
+   */
+  @Override
+  public void set(final String userId, final UserAccount userAccount) {
+    lock.lock();
+    try {
+      sketch.increment(userId);
+      var old = cache.get(userId);
+      if (old != null) {
+        old.userAccount = userAccount;
+        onHit(old);
+        return;
+      }
+      var newNode = new Node(userId, userAccount);
+      window.setHead(newNode);
+      cache.put(userId, newNode);
+      evict();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Update the position of a node that has been accessed. Must be called with
+   * the lock held.
+   *
+   * @param node {@link Node}
+   */
+  private void onHit(final Node node) {
+    switch (node.region) {
+      case WINDOW -> {
+        window.remove(node);
+        window.setHead(node);
+      }
+      case PROBATION -> {
+        probation.remove(node);
+        node.region = Region.PROTECTED;
+        protectedSegment.setHead(node);
+        if (protectedSegment.size > protectedCapacity) {
+          var demoted = protectedSegment.end;
+          protectedSegment.remove(demoted);
+          demoted.region = Region.PROBATION;
+          probation.setHead(demoted);
+        }
+      }
+      default -> {
+        protectedSegment.remove(node);
+        protectedSegment.setHead(node);
+      }
+    }
+  }
+
+  /**
+   * Move the window overflow to the main space and, if the main space is full,
+   * let the candidate compete with the main space victim. Must be called with
+   * the lock held.
+   */
+  private void evict() {
+    if (window.size <= windowCapacity) {
+      return;
+    }
+    var candidate = window.end;
+    window.remove(candidate);
+    candidate.region = Region.PROBATION;
+    probation.setHead(candidate);
+    if (cache.size() <= capacity) {
+      return;
+    }
+    var victim = probation.end != candidate ? probation.end : protectedSegment.end;
+    if (victim == null || sketch.frequency(candidate.userId) <= sketch.frequency(victim.userId)) {
+      remove(candidate);
+    } else {
+      remove(victim);
+    }
+  }
+
+  /**
+   * Evict node from the cache. Must be called with the lock held.
+   *
+   * @param node {@link Node}
+   */
+  private void remove(final Node node) {
+    LOGGER.trace("# Cache is FULL! Removing {} from cache...", node.userId);
+    queueOf(node).remove(node);
+    cache.remove(node.userId);
+    stats.recordEviction(EvictionCause.SIZE, 1);
+    evictionListener.accept(node.userId);
+  }
+
+  /**
+   * List the node belongs to.
+   *
+   * @param node {@link Node}
+   * @return {@link AccessQueue}
+   */
+  private AccessQueue queueOf(final Node node) {
+    return switch (node.region) {
+      case WINDOW -> window;
+      case PROBATION -> probation;
+      default -> protectedSegment;
+    };
+  }
+
+  /**
+   * Check if Cache contains the userId.
+   *
+   * @param userId {@link String}
+   * @return boolean
+   */
+  @Override
+  public boolean contains(final String userId) {
+    return cache.containsKey(userId);
+  }
+
+  /**
+   * Invalidate cache for user.
+   *
+   * @param userId {@link String}
+   */
+  @Override
+  public void invalidate(final String userId) {
+    lock.lock();
+    try {
+      var toBeRemoved = cache.remove(userId);
+      if (toBeRemoved != null) {
+        LOGGER.trace("# {} has been updated! "
+            + "Removing older version from cache...", userId);
+        queueOf(toBeRemoved).remove(toBeRemoved);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Number of entries in the cache.
+   *
+   * @return int
+   */
+  @Override
+  public int size() {
+    return cache.size();
+  }
+
+  /**
+   * Check if the cache is full.
+   *
+   * @return boolean
+   */
+  @Override
+  public boolean isFull() {
+    return cache.size() >= capacity;
+  }
+
+  /**
+   * Get the entry that is the next candidate for eviction, i.e. the least
+   * recently used entry of the probation segment, falling back to the other
+   * regions when it is empty.
+   *
+   * @return {@link UserAccount} or null if the cache is empty
+   */
+  @Override
+  public UserAccount getLruData() {
+    lock.lock();
+    try {
+      for (var queue : List.of(probation, protectedSegment, window)) {
+        if (queue.end != null) {
+          return queue.end.userAccount;
+        }
+      }
+      return null;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Clear cache. The access frequencies are kept.
+   */
+  @Override
+  public void clear() {
+    lock.lock();
+    try {
+      window.clear();
+      probation.clear();
+      protectedSegment.clear();
+      cache.clear();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns cache data in list form: the window, then the protected and the
+   * probation segment, each from most to least recently used.
+   *
+   * @return {@link List}
+   */
+  @Override
+  public List<UserAccount> getCacheDataInListForm() {
+    lock.lock();
+    try {
+      var listOfCacheData = new ArrayList<UserAccount>(cache.size());
+      for (var queue : List.of(window, protectedSegment, probation)) {
+        var temp = queue.head;
+        while (temp != null) {
+          listOfCacheData.add(temp.userAccount);
+          temp = temp.next;
+        }
+      }
+      return listOfCacheData;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void setStats(final CacheStats cacheStats) {
+    this.stats = cacheStats;
+  }
+
+  @Override
+  public void setEvictionListener(final Consumer<String> listener) {
+    this.evictionListener = listener;
+  }
+
+  /**
+   * Set cache capacity. Shrinking the cache clears it, like {@link LruCache}
+   * does.
+   *
+   * @param newCapacity int
+   */
+  @Override
+  public void setCapacity(final int newCapacity) {
+    lock.lock();
+    try {
+      if (capacity > newCapacity) {
+        clear();
+      }
+      resize(newCapacity);
+      sketch.ensureCapacity(newCapacity);
+    } finally {
+      lock.unlock();
+    }
+  }
+}
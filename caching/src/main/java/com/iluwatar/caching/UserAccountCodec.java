@@ -0,0 +1,264 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary encoding of {@link UserAccount}. Each field is written as a
+ * variable-length size followed by its UTF-8 bytes, where size 0 stands for
+ * null and size n + 1 for a string of n bytes.
+ */
+final class UserAccountCodec {
+
+  /**
+   * Private constructor.
+   */
+  private UserAccountCodec() {
+  }
+
+  /**
+   * Number of bytes the encoded account takes.
+   *
+   * @param fields UTF-8 bytes of the fields, as returned by {@link #fields}
+   * @return int
+   */
+  static int encodedSize(final byte[][] fields) {
+    var size = 0;
+    for (var field : fields) {
+      var length = field == null ? 0 : field.length + 1;
+      size += varIntSize(length) + (field == null ? 0 : field.length);
+    }
+    return size;
+  }
+
+  /**
+   * UTF-8 bytes of the fields of the account.
+   *
+   * @param userAccount {@link UserAccount}
+   * @return byte arrays, null for null fields
+   */
+  static byte[][] fields(final UserAccount userAccount) {
+    return new byte[][] {
+        bytes(userAccount.getUserId()),
+        bytes(userAccount.getUserName()),
+        bytes(userAccount.getAdditionalInfo())
+    };
+  }
+
+  /**
+   * Write the encoded fields at the buffer's position.
+   *
+   * @param fields UTF-8 bytes of the fields, as returned by {@link #fields}
+   * @param buffer {@link ByteBuffer}
+   */
+  static void encode(final byte[][] fields, final ByteBuffer buffer) {
+    for (var field : fields) {
+      if (field == null) {
+        putVarInt(buffer, 0);
+      } else {
+        putVarInt(buffer, field.length + 1);
+        buffer.put(field);
+      }
+    }
+  }
+
+  /**
+   * Read an account from the buffer's position.
+   *
+   * @param buffer {@link ByteBuffer}
+   * @return {@link UserAccount}
+   */
+  static UserAccount decode(final ByteBuffer buffer) {
+    return new UserAccount(string(buffer), string(buffer), string(buffer));
+  }
+
+  /**
+   * Hash of the UTF-8 bytes of a user id. Computed from the bytes rather
+   * than the string, so that the hash of an encoded account can be taken
+   * without decoding it.
+   *
+   * @param userId UTF-8 bytes of the user id
+   * @return int
+   */
+  static int hash(final byte[] userId) {
+    var hash = 1;
+    for (var b : userId) {
+      hash = 31 * hash + b;
+    }
+    return hash ^ (hash >>> 16);
+  }
+
+  /**
+   * Hash of the user id of the account encoded at the index, as returned by
+   * {@link #hash}. The buffer's position is not changed.
+   *
+   * @param buffer {@link ByteBuffer}
+   * @param index  index of the encoded account
+   * @return int
+   */
+  static int userIdHash(final ByteBuffer buffer, final int index) {
+    var length = getVarInt(buffer, index) - 1;
+    var start = index + varIntSize(length + 1);
+    var hash = 1;
+    for (var i = 0; i < length; i++) {
+      hash = 31 * hash + buffer.get(start + i);
+    }
+    return hash ^ (hash >>> 16);
+  }
+
+  /**
+   * Read the user id of the account encoded at the index. The buffer's
+   * position is not changed.
+   *
+   * @param buffer {@link ByteBuffer}
+   * @param index  index of the encoded account
+   * @return String
+   */
+  static String userId(final ByteBuffer buffer, final int index) {
+    var length = getVarInt(buffer, index) - 1;
+    var bytes = new byte[length];
+    buffer.get(index + varIntSize(length + 1), bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Check if the account encoded at the index has the user id. The buffer's
+   * position is not changed.
+   *
+   * @param buffer {@link ByteBuffer}
+   * @param index  index of the encoded account
+   * @param userId UTF-8 bytes of the user id
+   * @return boolean
+   */
+  static boolean hasUserId(final ByteBuffer buffer, final int index, final byte[] userId) {
+    if (getVarInt(buffer, index) != userId.length + 1) {
+      return false;
+    }
+    var start = index + varIntSize(userId.length + 1);
+    for (var i = 0; i < userId.length; i++) {
+      if (buffer.get(start + i) != userId[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * UTF-8 bytes of a string.
+   *
+   * @param value String
+   * @return bytes, or null for null
+   */
+  private static byte[] bytes(final String value) {
+    return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Read a string from the buffer's position.
+   *
+   * @param buffer {@link ByteBuffer}
+   * @return String
+   */
+  private static String string(final ByteBuffer buffer) {
+    var length = getVarInt(buffer);
+    if (length == 0) {
+      return null;
+    }
+    var bytes = new byte[length - 1];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Number of bytes of a variable-length int.
+   *
+   * @param value non-negative int
+   * @return int
+   */
+  private static int varIntSize(final int value) {
+    var size = 1;
+    var rest = value >>> 7;
+    while (rest != 0) {
+      size++;
+      rest >>>= 7;
+    }
+    return size;
+  }
+
+  /**
+   * Write a variable-length int, seven bits per byte.
+   *
+   * @param buffer {@link ByteBuffer}
+   * @param value  non-negative int
+   */
+  private static void putVarInt(final ByteBuffer buffer, final int value) {
+    var rest = value;
+    while ((rest & ~0x7f) != 0) {
+      buffer.put((byte) ((rest & 0x7f) | 0x80));
+      rest >>>= 7;
+    }
+    buffer.put((byte) rest);
+  }
+
+  /**
+   * Read a variable-length int.
+   *
+   * @param buffer {@link ByteBuffer}
+   * @return int
+   */
+  private static int getVarInt(final ByteBuffer buffer) {
+    var value = 0;
+    var shift = 0;
+    byte current;
+    do {
+      current = buffer.get();
+      value |= (current & 0x7f) << shift;
+      shift += 7;
+    } while ((current & 0x80) != 0);
+    return value;
+  }
+
+  /**
+   * Read a variable-length int at the index, without moving the position.
+   *
+   * @param buffer {@link ByteBuffer}
+   * @param index  int
+   * @return int
+   */
+  private static int getVarInt(final ByteBuffer buffer, final int index) {
+    var value = 0;
+    var shift = 0;
+    var next = index;
+    byte current;
+    do {
+      current = buffer.get(next++);
+      value |= (current & 0x7f) << shift;
+      shift += 7;
+    } while ((current & 0x80) != 0);
+    return value;
+  }
+}
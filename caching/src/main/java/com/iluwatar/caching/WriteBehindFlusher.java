@@ -0,0 +1,356 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import com.iluwatar.caching.database.DbManager;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Background writer used by the write-behind policy. Dirty user accounts are
+ * collected in insertion order, and repeated writes to the same user are
+ * coalesced into one. A daemon thread flushes them through
+ * {@link DbManager#upsertAllDb(List)} as soon as a full batch is available,
+ * and at the latest {@code maxDelayMillis} after the oldest pending write, which
+ * bounds how stale the database can get.
+ *
+ * <p>When more than {@code maxDirty} accounts are waiting, writers block until
+ * the flusher has caught up.
+ *
+ * <p>A failed batch is put back and retried. The flusher thread logs the
+ * failure and tries again with the next batch, while {@link #flush()} and
+ * {@link #close()} give up after {@value #FLUSH_ATTEMPTS} failures in a row
+ * and throw, so accounts that never reach the database are not dropped
+ * silently.
+ */
+@Slf4j
+public class WriteBehindFlusher implements AutoCloseable {
+  /**
+   * Number of failed batches in a row after which a flush gives up.
+   */
+  static final int FLUSH_ATTEMPTS = 3;
+  /**
+   * DbManager.
+   */
+  private final DbManager dbManager;
+  /**
+   * Maximum number of accounts written in one round trip.
+   */
+  private final int batchSize;
+  /**
+   * Maximum time a dirty account waits before it is flushed.
+   */
+  private final long maxDelayMillis;
+  /**
+   * Number of dirty accounts at which writers are blocked.
+   */
+  private final int maxDirty;
+  /**
+   * Lock guarding the dirty and in-flight accounts.
+   */
+  private final ReentrantLock lock = new ReentrantLock();
+  /**
+   * Lock serializing the database writes.
+   */
+  private final ReentrantLock flushLock = new ReentrantLock();
+  /**
+   * Signalled when a batch is ready or the flusher is closed.
+   */
+  private final Condition batchReady = lock.newCondition();
+  /**
+   * Signalled when the flusher has made room for more dirty accounts.
+   */
+  private final Condition notFull = lock.newCondition();
+  /**
+   * Accounts waiting to be written, oldest first.
+   */
+  private final Map<String, UserAccount> dirty = new LinkedHashMap<>();
+  /**
+   * Accounts of the batch that is currently being written.
+   */
+  private final Map<String, UserAccount> inFlight = new HashMap<>();
+  /**
+   * Flusher thread.
+   */
+  private final Thread worker;
+  /**
+   * Whether the flusher has been closed.
+   */
+  private boolean closed;
+  /**
+   * Statistics flushes are reported to.
+   */
+  private volatile CacheStats stats = CacheStats.DISABLED;
+
+  /**
+   * Constructor.
+   *
+   * @param dataBaseManager {@link DbManager}
+   * @param batchSize       maximum number of accounts per database round trip
+   * @param maxDelayMillis  maximum time an account stays dirty
+   * @param maxDirty        number of dirty accounts at which writers block
+   */
+  public WriteBehindFlusher(final DbManager dataBaseManager, final int batchSize,
+                            final long maxDelayMillis, final int maxDirty) {
+    if (batchSize < 1 || maxDelayMillis < 1 || maxDirty < batchSize) {
+      throw new IllegalArgumentException("Invalid write-behind configuration");
+    }
+    this.dbManager = dataBaseManager;
+    this.batchSize = batchSize;
+    this.maxDelayMillis = maxDelayMillis;
+    this.maxDirty = maxDirty;
+    this.worker = new Thread(this::run, "write-behind-flusher");
+    this.worker.setDaemon(true);
+    this.worker.start();
+  }
+
+  /**
+   * Mark user account as dirty. Blocks while too many accounts are waiting to
+   * be flushed.
+   *
+   * @param userAccount {@link UserAccount}
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public void markDirty(final UserAccount userAccount) throws InterruptedException {
+    lock.lock();
+    try {
+      while (!closed && dirty.size() >= maxDirty
+          && !dirty.containsKey(userAccount.getUserId())) {
+        batchReady.signal();
+        notFull.await();
+      }
+      if (closed) {
+        throw new IllegalStateException("Write-behind flusher is closed");
+      }
+      dirty.put(userAccount.getUserId(), userAccount);
+      stats.recordWriteBehindQueueDepth(dirty.size());
+      if (dirty.size() >= batchSize) {
+        batchReady.signal();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Get the latest version of a user account that has not reached the
+   * database yet.
+   *
+   * @param userId {@link String}
+   * @return {@link UserAccount} or null if there is no pending write
+   */
+  public UserAccount getPending(final String userId) {
+    lock.lock();
+    try {
+      var pending = dirty.get(userId);
+      return pending != null ? pending : inFlight.get(userId);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Set the statistics flushes are reported to.
+   *
+   * @param cacheStats {@link CacheStats}
+   */
+  public void setStats(final CacheStats cacheStats) {
+    this.stats = cacheStats;
+  }
+
+  /**
+   * Number of accounts waiting to be flushed.
+   *
+   * @return int
+   */
+  public int getDirtyCount() {
+    lock.lock();
+    try {
+      return dirty.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Write all pending accounts to the database on the calling thread.
+   *
+   * @throws IllegalStateException if {@value #FLUSH_ATTEMPTS} batches in a row
+   *                               failed, with the accounts still pending
+   */
+  public void flush() {
+    var failures = 0;
+    while (true) {
+      try {
+        if (!flushBatch()) {
+          return;
+        }
+        failures = 0;
+      } catch (RuntimeException e) {
+        if (++failures >= FLUSH_ATTEMPTS) {
+          throw new IllegalStateException(
+              getDirtyCount() + " accounts could not be written back", e);
+        }
+        LOGGER.warn("# Write-behind flush failed, retrying", e);
+      }
+    }
+  }
+
+  /**
+   * Stop the flusher thread and flush the remaining accounts. Closing again
+   * retries the flush.
+   *
+   * @throws IllegalStateException if the remaining accounts could not be
+   *                               written back
+   */
+  @Override
+  public void close() {
+    lock.lock();
+    try {
+      closed = true;
+      batchReady.signalAll();
+      notFull.signalAll();
+    } finally {
+      lock.unlock();
+    }
+    try {
+      worker.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    flush();
+  }
+
+  /**
+   * Flusher loop.
+   */
+  private void run() {
+    var failed = false;
+    while (awaitBatch(failed)) {
+      try {
+        flush();
+        failed = false;
+      } catch (IllegalStateException e) {
+        // the accounts stay dirty and are retried after the maximum delay
+        LOGGER.error("# Write-behind flush failed", e);
+        failed = true;
+      }
+    }
+  }
+
+  /**
+   * Wait until a batch is full or the oldest dirty account is due. After a
+   * failed flush, wait for the full delay even if a batch is full.
+   *
+   * @param backOff whether the last flush failed
+   * @return false if the flusher has been closed
+   */
+  private boolean awaitBatch(final boolean backOff) {
+    lock.lock();
+    try {
+      var deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+      while (!closed && (backOff || dirty.size() < batchSize)) {
+        var remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+          break;
+        }
+        batchReady.awaitNanos(remaining);
+      }
+      return !closed;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Write at most one batch of dirty accounts.
+   *
+   * @return true if a batch was written, false if there was none
+   */
+  private boolean flushBatch() {
+    flushLock.lock();
+    try {
+      return writeBatch();
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  /**
+   * Move one batch from the dirty to the in-flight accounts and write it. Must
+   * be called with the flush lock held. A batch that fails is put back.
+   *
+   * @return true if a batch was written, false if there was none
+   */
+  private boolean writeBatch() {
+    List<UserAccount> batch;
+    lock.lock();
+    try {
+      if (dirty.isEmpty()) {
+        return false;
+      }
+      batch = new ArrayList<>(Math.min(batchSize, dirty.size()));
+      var iterator = dirty.values().iterator();
+      while (iterator.hasNext() && batch.size() < batchSize) {
+        var userAccount = iterator.next();
+        iterator.remove();
+        batch.add(userAccount);
+        inFlight.put(userAccount.getUserId(), userAccount);
+      }
+    } finally {
+      lock.unlock();
+    }
+    var written = false;
+    var start = System.nanoTime();
+    try {
+      dbManager.upsertAllDb(batch);
+      written = true;
+      stats.recordFlush(batch.size(), System.nanoTime() - start);
+    } finally {
+      lock.lock();
+      try {
+        if (!written) {
+          batch.forEach(account -> dirty.putIfAbsent(account.getUserId(), account));
+        }
+        inFlight.clear();
+        stats.recordWriteBehindQueueDepth(dirty.size());
+        notFull.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+    return true;
+  }
+}
@@ -25,6 +25,9 @@
 package com.iluwatar.caching.database;
 
 import com.iluwatar.caching.UserAccount;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 /**
  * <p>DBManager handles the communication with the underlying data store i.e.
@@ -50,6 +53,15 @@ public interface DbManager {
    */
   UserAccount readFromDb(String userId);
 
+  /**
+   * Read several records from DB in a single round trip.
+   *
+   * @param userIds {@link Collection} of {@link String}
+   * @return {@link Map} from user id to {@link UserAccount}, without the ids
+   *     that were not found
+   */
+  Map<String, UserAccount> readAllFromDb(Collection<String> userIds);
+
   /**
    * Write to DB.
    *
@@ -73,4 +85,12 @@ public interface DbManager {
    * @return {@link UserAccount}
    */
   UserAccount upsertDb(UserAccount userAccount);
+
+  /**
+   * Update records or Insert those that do not exist, in a single round trip.
+   *
+   * @param userAccounts {@link List} of {@link UserAccount}
+   * @return {@link List} of {@link UserAccount}
+   */
+  List<UserAccount> upsertAllDb(List<UserAccount> userAccounts);
 }
@@ -36,7 +36,13 @@ import com.mongodb.MongoClientOptions;
 import com.mongodb.MongoCredential;
 import com.mongodb.ServerAddress;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.UpdateOneModel;
 import com.mongodb.client.model.UpdateOptions;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
 import org.bson.Document;
 
@@ -98,6 +104,28 @@ public class MongoDb implements DbManager {
     }
   }
 
+  /**
+   * Read several records from DB with a single query.
+   *
+   * @param userIds {@link Collection} of {@link String}
+   * @return {@link Map} from user id to {@link UserAccount}
+   */
+  @Override
+  public Map<String, UserAccount> readAllFromDb(final Collection<String> userIds) {
+    var result = new HashMap<String, UserAccount>();
+    if (userIds.isEmpty()) {
+      return result;
+    }
+    db.getCollection(CachingConstants.USER_ACCOUNT)
+            .find(new Document(USER_ID, new Document("$in", List.copyOf(userIds))))
+            .forEach(doc -> {
+              String userId = doc.getString(USER_ID);
+              result.put(userId, new UserAccount(userId,
+                      doc.getString(USER_NAME), doc.getString(ADD_INFO)));
+            });
+    return result;
+  }
+
   /**
    * Write data to DB.
    *
@@ -138,18 +166,48 @@ public class MongoDb implements DbManager {
    */
   @Override
   public UserAccount upsertDb(final UserAccount userAccount) {
-    String userId = userAccount.getUserId();
-    String userName = userAccount.getUserName();
-    String additionalInfo = userAccount.getAdditionalInfo();
     db.getCollection(CachingConstants.USER_ACCOUNT).updateOne(
-            new Document(USER_ID, userId),
-            new Document("$set",
-                    new Document(USER_ID, userId)
-                            .append(USER_NAME, userName)
-                            .append(ADD_INFO, additionalInfo)
-            ),
+            new Document(USER_ID, userAccount.getUserId()),
+            upsertDocument(userAccount),
             new UpdateOptions().upsert(true)
     );
     return userAccount;
   }
+
+  /**
+   * Update or insert all records with one unordered bulk write.
+   *
+   * @param userAccounts {@link List} of {@link UserAccount}
+   * @return {@link List} of {@link UserAccount}
+   */
+  @Override
+  public List<UserAccount> upsertAllDb(final List<UserAccount> userAccounts) {
+    if (userAccounts.isEmpty()) {
+      return userAccounts;
+    }
+    var upsert = new UpdateOptions().upsert(true);
+    var requests = userAccounts.stream()
+            .map(userAccount -> new UpdateOneModel<Document>(
+                    new Document(USER_ID, userAccount.getUserId()),
+                    upsertDocument(userAccount),
+                    upsert))
+            .toList();
+    db.getCollection(CachingConstants.USER_ACCOUNT)
+            .bulkWrite(requests, new BulkWriteOptions().ordered(false));
+    return userAccounts;
+  }
+
+  /**
+   * Update document setting all fields of the account.
+   *
+   * @param userAccount {@link UserAccount}
+   * @return {@link Document}
+   */
+  private static Document upsertDocument(final UserAccount userAccount) {
+    return new Document("$set",
+            new Document(USER_ID, userAccount.getUserId())
+                    .append(USER_NAME, userAccount.getUserName())
+                    .append(ADD_INFO, userAccount.getAdditionalInfo())
+    );
+  }
 }
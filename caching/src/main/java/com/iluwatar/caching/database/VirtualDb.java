@@ -25,8 +25,11 @@
 package com.iluwatar.caching.database;
 
 import com.iluwatar.caching.UserAccount;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Implementation of DatabaseManager.
@@ -39,11 +42,12 @@ public class VirtualDb implements DbManager {
   private Map<String, UserAccount> db;
 
   /**
-   * Creates new HashMap.
+   * Creates new ConcurrentHashMap, so that the write-behind flusher can
+   * write while the application reads.
    */
   @Override
   public void connect() {
-    db = new HashMap<>();
+    db = new ConcurrentHashMap<>();
   }
 
   @Override
@@ -65,6 +69,24 @@ public class VirtualDb implements DbManager {
     return null;
   }
 
+  /**
+   * Read several records from Db.
+   *
+   * @param userIds {@link Collection} of {@link String}
+   * @return {@link Map} from user id to {@link UserAccount}
+   */
+  @Override
+  public Map<String, UserAccount> readAllFromDb(final Collection<String> userIds) {
+    var result = new HashMap<String, UserAccount>();
+    userIds.forEach(userId -> {
+      var userAccount = db.get(userId);
+      if (userAccount != null) {
+        result.put(userId, userAccount);
+      }
+    });
+    return result;
+  }
+
   /**
    * Write to DB.
    *
@@ -98,4 +120,16 @@ public class VirtualDb implements DbManager {
   public UserAccount upsertDb(final UserAccount userAccount) {
     return updateDb(userAccount);
   }
+
+  /**
+   * Update or insert all records.
+   *
+   * @param userAccounts {@link List} of {@link UserAccount}
+   * @return {@link List} of {@link UserAccount}
+   */
+  @Override
+  public List<UserAccount> upsertAllDb(final List<UserAccount> userAccounts) {
+    userAccounts.forEach(this::upsertDb);
+    return userAccounts;
+  }
 }
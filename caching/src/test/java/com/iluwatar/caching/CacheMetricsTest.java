@@ -0,0 +1,97 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import com.iluwatar.caching.database.VirtualDb;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Tests for the statistics reported by {@link CacheStore}.
+ */
+class CacheMetricsTest {
+
+  private VirtualDb db;
+
+  @BeforeEach
+  void setUp() {
+    db = new VirtualDb();
+    db.connect();
+    for (var i = 0; i < 10; i++) {
+      db.writeToDb(new UserAccount(String.valueOf(i), "user" + i, "info"));
+    }
+  }
+
+  @Test
+  void shouldCountHitsMissesAndEvictions() {
+    var store = new CacheStore(db);
+    var metrics = (CacheMetrics) store.getStats();
+    store.readThrough("1");
+    store.readThrough("1");
+    store.readThrough("2");
+    store.readThrough("3");
+    store.readThrough("4");
+    store.invalidate("4");
+    store.readThroughAll(List.of("1", "5"));
+
+    // "1" was evicted by "4", so only the second read of "1" hits
+    assertEquals(1, metrics.getHitCount());
+    assertEquals(6, metrics.getMissCount());
+    assertEquals(2, metrics.getEvictionCount(EvictionCause.SIZE));
+    assertEquals(1, metrics.getEvictionCount(EvictionCause.EXPLICIT));
+    // the batched read of "1" and "5" is a single DB round trip
+    assertEquals(5, metrics.getLoadLatency().getCount());
+    assertEquals(6, metrics.getLoadedCount());
+  }
+
+  @Test
+  void shouldRecordWriteBehindFlushes() {
+    var store = new CacheStore(db);
+    var metrics = (CacheMetrics) store.getStats();
+    for (var i = 0; i < 5; i++) {
+      store.writeBehind(new UserAccount("new" + i, "name", "info"));
+    }
+    assertEquals(5, metrics.getWriteBehindQueueDepth());
+
+    store.flushCache();
+    assertEquals(5, metrics.getFlushedCount());
+    assertEquals(1, metrics.getFlushLatency().getCount());
+    assertEquals(0, metrics.getWriteBehindQueueDepth());
+  }
+
+  @Test
+  void shouldReportToReplacedStats() {
+    var store = new CacheStore(db);
+    var metrics = new CacheMetrics();
+    store.setStats(metrics);
+    store.readThrough("1");
+    assertSame(metrics, store.getStats());
+    assertEquals(1, metrics.getMissCount());
+  }
+}
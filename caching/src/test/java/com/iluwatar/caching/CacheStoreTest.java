@@ -0,0 +1,177 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import com.iluwatar.caching.database.VirtualDb;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the read-through miss handling of {@link CacheStore}.
+ */
+class CacheStoreTest {
+
+  /**
+   * Slow in-memory DB counting its reads.
+   */
+  static class CountingDb extends VirtualDb {
+    final AtomicInteger reads = new AtomicInteger();
+    final AtomicInteger multiReads = new AtomicInteger();
+    final AtomicInteger multiReadIds = new AtomicInteger();
+    volatile boolean failing;
+
+    @Override
+    public UserAccount readFromDb(final String userId) {
+      reads.incrementAndGet();
+      pause();
+      if (failing) {
+        throw new IllegalStateException("DB is down");
+      }
+      return super.readFromDb(userId);
+    }
+
+    @Override
+    public Map<String, UserAccount> readAllFromDb(final Collection<String> userIds) {
+      multiReads.incrementAndGet();
+      multiReadIds.addAndGet(userIds.size());
+      pause();
+      return super.readAllFromDb(userIds);
+    }
+
+    private static void pause() {
+      try {
+        Thread.sleep(50);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private static final int THREADS = 32;
+
+  private CountingDb db;
+  private CacheStore store;
+  private ExecutorService executor;
+
+  @BeforeEach
+  void setUp() {
+    db = new CountingDb();
+    db.connect();
+    for (var i = 0; i < 10; i++) {
+      db.writeToDb(new UserAccount(String.valueOf(i), "user" + i, "info"));
+    }
+    store = new CacheStore(db);
+    store.initCapacity(100);
+    executor = Executors.newFixedThreadPool(THREADS);
+  }
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  private <T> List<T> runConcurrently(final Callable<T> task)
+      throws Exception {
+    var start = new CountDownLatch(1);
+    var futures = new ArrayList<Future<T>>();
+    for (var i = 0; i < THREADS; i++) {
+      futures.add(executor.submit(() -> {
+        start.await();
+        return task.call();
+      }));
+    }
+    start.countDown();
+    var results = new ArrayList<T>();
+    for (var future : futures) {
+      results.add(future.get());
+    }
+    return results;
+  }
+
+  @Test
+  void shouldLoadConcurrentMissesOnce() throws Exception {
+    var results = runConcurrently(() -> store.readThrough("1"));
+
+    assertEquals(1, db.reads.get());
+    results.forEach(account -> assertEquals("user1", account.getUserName()));
+  }
+
+  @Test
+  void shouldBatchMissesOfBulkRead() throws Exception {
+    store.readThrough("0");
+    var result = store.readThroughAll(List.of("0", "1", "2", "3", "42"));
+
+    assertEquals(1, db.reads.get());
+    assertEquals(1, db.multiReads.get());
+    assertEquals(List.of("0", "1", "2", "3"), new ArrayList<>(result.keySet()));
+    assertEquals("user3", store.get("3").getUserName());
+  }
+
+  @Test
+  void shouldShareLoadsBetweenBulkAndSingleReads() throws Exception {
+    var ids = List.of("1", "2", "3", "4", "5");
+    var results = runConcurrently(() -> store.readThroughAll(ids).size()
+        + (store.readThrough("6") == null ? 0 : 1));
+
+    results.forEach(count -> assertEquals(6, count));
+    assertEquals(1, db.reads.get());
+    // every id is read from the DB exactly once, whichever thread claimed it
+    assertEquals(5, db.multiReadIds.get());
+  }
+
+  @Test
+  void shouldPropagateFailuresToAllWaiters() throws Exception {
+    db.failing = true;
+    var results = runConcurrently(() -> {
+      try {
+        store.readThrough("1");
+        return false;
+      } catch (IllegalStateException e) {
+        return true;
+      }
+    });
+
+    results.forEach(failed -> assertTrue(failed));
+    assertTrue(db.reads.get() < THREADS);
+    db.failing = false;
+    assertEquals("user1", store.readThrough("1").getUserName());
+    assertFalse(store.readThroughAll(List.of("1")).isEmpty());
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link ConcurrentLruCache}.
+ */
+class ConcurrentLruCacheTest {
+
+  private static UserAccount account(final int id) {
+    return new UserAccount(String.valueOf(id), "user" + id, "info" + id);
+  }
+
+  @Test
+  void shouldEvictLeastRecentlyUsedEntryInSmallCache() {
+    var cache = new ConcurrentLruCache(2);
+    cache.set("1", account(1));
+    cache.set("2", account(2));
+    cache.get("1");
+    cache.set("3", account(3));
+
+    assertTrue(cache.contains("1"));
+    assertFalse(cache.contains("2"));
+    assertTrue(cache.contains("3"));
+    assertEquals(account(1), cache.getLruData());
+  }
+
+  @Test
+  void shouldInvalidateAndClear() {
+    var cache = new ConcurrentLruCache(10);
+    cache.set("1", account(1));
+    cache.set("2", account(2));
+    cache.invalidate("1");
+    assertNull(cache.get("1"));
+    assertEquals(1, cache.size());
+
+    cache.clear();
+    assertEquals(0, cache.size());
+    assertNull(cache.getLruData());
+  }
+
+  @Test
+  void shouldKeepDataWhenGrowing() {
+    var cache = new ConcurrentLruCache(3);
+    cache.set("1", account(1));
+    cache.set("2", account(2));
+    cache.setCapacity(10_000);
+
+    assertEquals(account(1), cache.get("1"));
+    assertEquals(account(2), cache.get("2"));
+    assertEquals(2, cache.getCacheDataInListForm().size());
+  }
+
+  @Test
+  void shouldNeverExceedCapacityUnderConcurrentAccess() throws Exception {
+    var capacity = 1_000;
+    var cache = new ConcurrentLruCache(capacity);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    var futures = new ArrayList<Future<?>>();
+    for (var t = 0; t < 8; t++) {
+      futures.add(executor.submit(() -> {
+        var random = ThreadLocalRandom.current();
+        for (var i = 0; i < 10_000; i++) {
+          var id = random.nextInt(2_000);
+          var cached = cache.get(String.valueOf(id));
+          if (cached == null) {
+            cache.set(String.valueOf(id), account(id));
+          } else {
+            assertEquals(String.valueOf(id), cached.getUserId());
+          }
+        }
+      }));
+    }
+    for (var future : futures) {
+      future.get();
+    }
+    executor.shutdown();
+
+    assertTrue(cache.size() <= capacity);
+    assertEquals(cache.size(), cache.getCacheDataInListForm().size());
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for {@link ExpiringCache}.
+ */
+class ExpiringCacheTest {
+
+  private final AtomicLong clock = new AtomicLong(1_000_000);
+  private final AtomicInteger loads = new AtomicInteger();
+
+  private static UserAccount account(final String id, final String name) {
+    return new UserAccount(id, name, "info");
+  }
+
+  private ExpiringCache cache(final long ttl, final long idle, final long refreshAfter) {
+    return new ExpiringCache(new ConcurrentLruCache(100), ttl, idle, refreshAfter,
+        id -> account(id, "reloaded" + loads.incrementAndGet()), Runnable::run, clock::get);
+  }
+
+  @BeforeEach
+  void setUp() {
+    loads.set(0);
+  }
+
+  @Test
+  void shouldExpireAfterTimeToLive() {
+    var cache = cache(1_000, 0, 0);
+    cache.set("1", account("1", "John"));
+    clock.addAndGet(999);
+    assertNotNull(cache.get("1"));
+    clock.addAndGet(1);
+    assertNull(cache.get("1"));
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  void shouldExpireIdleEntries() {
+    var cache = cache(0, 500, 0);
+    cache.set("1", account("1", "John"));
+    cache.set("2", account("2", "Jane"));
+    for (var i = 0; i < 10; i++) {
+      clock.addAndGet(400);
+      assertNotNull(cache.get("1"));
+    }
+    // the timing wheel removes the idle entry without it being read
+    assertEquals(1, cache.size());
+    assertEquals(1, cache.getCacheDataInListForm().size());
+    assertNull(cache.get("2"));
+  }
+
+  @Test
+  void shouldHonorPerEntryTimeToLive() {
+    var cache = cache(10_000, 0, 0);
+    cache.set("1", account("1", "John"), 100);
+    cache.set("2", account("2", "Jane"));
+    clock.addAndGet(200);
+    assertNull(cache.get("1"));
+    assertNotNull(cache.get("2"));
+  }
+
+  @Test
+  void shouldRefreshHotEntriesBeforeTheyExpire() {
+    var cache = cache(1_000, 0, 800);
+    cache.set("1", account("1", "John"));
+    clock.addAndGet(900);
+    assertEquals("John", cache.get("1").getUserName());
+    assertEquals(1, loads.get());
+    assertEquals("reloaded1", cache.get("1").getUserName());
+
+    clock.addAndGet(900);
+    assertEquals("reloaded1", cache.get("1").getUserName());
+    assertEquals("reloaded2", cache.get("1").getUserName());
+  }
+
+  @Test
+  void shouldRequireExpiry() {
+    assertThrows(IllegalArgumentException.class, () -> cache(0, 0, 100));
+  }
+
+  @Test
+  void shouldDropTheBookkeepingOfEntriesEvictedByTheBackingCache() {
+    var cache = new ExpiringCache(new ConcurrentLruCache(4), 60_000, 0, 0,
+        id -> null, Runnable::run, clock::get);
+    for (var i = 0; i < 100; i++) {
+      cache.set(String.valueOf(i), account(String.valueOf(i), "user" + i));
+    }
+    assertEquals(4, cache.size());
+    // the last eviction is dropped with the next write
+    cache.set("99", account("99", "again"));
+    assertEquals(4, cache.trackedCount());
+    assertEquals("again", cache.get("99").getUserName());
+  }
+
+  @Test
+  void shouldDropTheBookkeepingOfEntriesEvictedByBothTiers() {
+    var tiered = new TieredCache(new ConcurrentLruCache(4), 2 * 256, 256);
+    var cache = new ExpiringCache(tiered, 60_000, 0, 0, id -> null, Runnable::run, clock::get);
+    for (var i = 0; i < 100; i++) {
+      cache.set(String.valueOf(i), account(String.valueOf(i), "user" + i));
+    }
+    cache.set("99", account("99", "again"));
+    assertEquals(tiered.size(), cache.trackedCount());
+  }
+}
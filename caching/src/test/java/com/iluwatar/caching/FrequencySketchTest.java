@@ -0,0 +1,70 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link FrequencySketch}.
+ */
+class FrequencySketchTest {
+
+  @Test
+  void shouldEstimateFrequency() {
+    var sketch = new FrequencySketch(512);
+    for (var i = 0; i < 5; i++) {
+      sketch.increment("hot");
+    }
+    sketch.increment("cold");
+
+    assertEquals(5, sketch.frequency("hot"));
+    assertTrue(sketch.frequency("cold") >= 1);
+    assertTrue(sketch.frequency("hot") > sketch.frequency("cold"));
+  }
+
+  @Test
+  void shouldSaturateAtFifteen() {
+    var sketch = new FrequencySketch(512);
+    for (var i = 0; i < 100; i++) {
+      sketch.increment("hot");
+    }
+    assertEquals(15, sketch.frequency("hot"));
+  }
+
+  @Test
+  void shouldAgeCounters() {
+    var sketch = new FrequencySketch(16);
+    for (var i = 0; i < 10; i++) {
+      sketch.increment("hot");
+    }
+    for (var i = 0; i < 200; i++) {
+      sketch.increment("other" + i);
+    }
+    assertTrue(sketch.frequency("hot") < 10);
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link LatencyHistogram}.
+ */
+class LatencyHistogramTest {
+
+  @Test
+  void shouldMapValuesToBucketsWithBoundedError() {
+    for (var value = 0L; value < 1_000_000; value += 7) {
+      var upper = LatencyHistogram.upperBoundOf(LatencyHistogram.bucketOf(value));
+      assertTrue(upper >= value);
+      assertTrue(upper <= value + value / 8 + 1, "bucket of " + value + " is too wide");
+    }
+    var max = LatencyHistogram.bucketOf(Long.MAX_VALUE);
+    assertEquals(Long.MAX_VALUE, LatencyHistogram.upperBoundOf(max));
+  }
+
+  @Test
+  void shouldComputePercentiles() {
+    var histogram = new LatencyHistogram();
+    for (var i = 1; i <= 1_000; i++) {
+      histogram.record(i * 1_000L);
+    }
+    assertEquals(1_000, histogram.getCount());
+    assertEquals(500_500, histogram.getMean(), 0.001);
+    assertEquals(1_000_000, histogram.getMax());
+    assertWithin(500_000, histogram.getPercentile(50));
+    assertWithin(990_000, histogram.getPercentile(99));
+    assertEquals(1_000_000, histogram.getPercentile(100));
+  }
+
+  @Test
+  void shouldReportZeroWhenEmpty() {
+    var histogram = new LatencyHistogram();
+    assertEquals(0, histogram.getPercentile(99));
+    assertEquals(0, histogram.getMean());
+  }
+
+  private static void assertWithin(final long expected, final long actual) {
+    assertTrue(actual >= expected && actual <= expected + expected / 8,
+        actual + " is not within 12.5% above " + expected);
+  }
+}
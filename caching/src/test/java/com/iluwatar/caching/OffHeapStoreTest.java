@@ -0,0 +1,126 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.util.HashMap;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link OffHeapStore}.
+ */
+class OffHeapStoreTest {
+
+  @Test
+  void shouldRoundTripAccounts() {
+    var store = new OffHeapStore(1 << 16, 1 << 12);
+    var accounts = new UserAccount[] {
+        new UserAccount("001", "John", "He is a boy."),
+        new UserAccount("002", null, ""),
+        new UserAccount("003", "Jürgen", "x".repeat(300))
+    };
+    for (var account : accounts) {
+      assertTrue(store.put(account));
+    }
+    for (var account : accounts) {
+      assertEquals(account, store.get(account.getUserId()));
+    }
+    assertEquals(3, store.size());
+  }
+
+  @Test
+  void shouldReturnLatestVersionAfterOverwrite() {
+    var store = new OffHeapStore(1 << 16, 1 << 12);
+    store.put(new UserAccount("001", "John", "old"));
+    store.put(new UserAccount("001", "John", "new"));
+    assertEquals("new", store.get("001").getAdditionalInfo());
+    assertEquals(1, store.size());
+
+    store.remove("001");
+    assertNull(store.get("001"));
+    assertFalse(store.contains("001"));
+  }
+
+  @Test
+  void shouldEvictOldestSlabWhenFull() {
+    var store = new OffHeapStore(2 * 256, 256);
+    for (var i = 0; i < 100; i++) {
+      store.put(new UserAccount(String.valueOf(i), "user" + i, "info"));
+    }
+    assertNull(store.get("0"));
+    assertEquals("user99", store.get("99").getUserName());
+    assertTrue(store.size() < 100);
+  }
+
+  @Test
+  void shouldRejectAccountsLargerThanSlab() {
+    var store = new OffHeapStore(2 * 64, 64);
+    store.put(new UserAccount("1", "small", ""));
+    assertFalse(store.put(new UserAccount("1", "large", "x".repeat(100))));
+    assertNull(store.get("1"));
+  }
+
+  @Test
+  void shouldKeepTheIndexConsistentWithTheSlabs() {
+    var store = new OffHeapStore(4 * 1024, 1024);
+    var stats = new CacheMetrics();
+    store.setStats(stats);
+    var expected = new HashMap<String, UserAccount>();
+    var random = new Random(42);
+    for (var i = 0; i < 5000; i++) {
+      var userId = "user" + random.nextInt(300);
+      if (random.nextInt(4) == 0) {
+        store.remove(userId);
+        expected.remove(userId);
+      } else {
+        var account = new UserAccount(userId, "name" + i, "x".repeat(random.nextInt(40)));
+        assertTrue(store.put(account));
+        expected.put(userId, account);
+      }
+    }
+    // every stored account is the latest version, the others have been evicted
+    var stored = 0;
+    for (var i = 0; i < 300; i++) {
+      var userId = "user" + i;
+      var account = store.get(userId);
+      assertEquals(account != null, store.contains(userId));
+      if (account != null) {
+        assertEquals(expected.get(userId), account);
+        stored++;
+      }
+    }
+    assertEquals(stored, store.size());
+    assertTrue(stats.getEvictionCount(EvictionCause.SIZE) > 0);
+
+    store.clear();
+    assertEquals(0, store.size());
+    assertNull(store.get("user1"));
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link TieredCache}.
+ */
+class TieredCacheTest {
+
+  private static UserAccount account(final int id) {
+    return new UserAccount(String.valueOf(id), "user" + id, "info" + id);
+  }
+
+  @Test
+  void shouldPromoteAccountsEvictedFromHeapTier() {
+    var heapTier = new ConcurrentLruCache(2);
+    var cache = new TieredCache(heapTier, 1 << 20, 1 << 16);
+    for (var i = 0; i < 10; i++) {
+      cache.set(String.valueOf(i), account(i));
+    }
+    assertFalse(heapTier.contains("0"));
+
+    assertEquals(account(0), cache.get("0"));
+    assertTrue(heapTier.contains("0"));
+    assertEquals(10, cache.size());
+  }
+
+  @Test
+  void shouldInvalidateBothTiers() {
+    var cache = new TieredCache(new ConcurrentLruCache(2), 1 << 20, 1 << 16);
+    cache.set("1", account(1));
+    cache.invalidate("1");
+    assertNull(cache.get("1"));
+    assertFalse(cache.contains("1"));
+
+    cache.set("2", account(2));
+    cache.clear();
+    assertNull(cache.get("2"));
+  }
+
+  @Test
+  void shouldServeLatestWriteAfterPromotion() {
+    var cache = new TieredCache(new ConcurrentLruCache(1), 1 << 20, 1 << 16);
+    cache.set("1", account(1));
+    cache.set("2", account(2));
+    cache.set("1", new UserAccount("1", "changed", ""));
+    cache.set("3", account(3));
+    assertEquals("changed", cache.get("1").getUserName());
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link TimingWheel}.
+ */
+class TimingWheelTest {
+
+  /**
+   * Timer remembering its name and when it fired.
+   */
+  static class NamedTimer extends TimingWheel.Timer {
+    final long expected;
+    long firedAt = -1;
+
+    NamedTimer(final long expected) {
+      this.expected = expected;
+    }
+  }
+
+  @Test
+  void shouldFireTimersAtTheirDeadlineOnAllLevels() {
+    var wheel = new TimingWheel(0);
+    var timers = new ArrayList<NamedTimer>();
+    var random = new Random(7);
+    for (var i = 0; i < 2_000; i++) {
+      var deadline = 1 + (long) random.nextInt(300_000);
+      var timer = new NamedTimer(deadline);
+      wheel.schedule(timer, deadline);
+      timers.add(timer);
+    }
+    var tick = new long[1];
+    for (tick[0] = 1; tick[0] <= 300_000; tick[0] += 1 + random.nextInt(50)) {
+      wheel.advance(tick[0], timer -> ((NamedTimer) timer).firedAt = tick[0]);
+    }
+    wheel.advance(300_000, timer -> ((NamedTimer) timer).firedAt = 300_000);
+
+    assertEquals(0, wheel.size());
+    for (var timer : timers) {
+      assertTrue(timer.firedAt >= timer.expected, "fired too early");
+      assertTrue(timer.firedAt < timer.expected + 51, "fired too late");
+    }
+  }
+
+  @Test
+  void shouldRescheduleAndCancel() {
+    var wheel = new TimingWheel(100);
+    var fired = new ArrayList<TimingWheel.Timer>();
+    var first = new NamedTimer(110);
+    var second = new NamedTimer(120);
+    wheel.schedule(first, 110);
+    wheel.schedule(second, 120);
+    wheel.schedule(first, 5_000);
+    wheel.cancel(second);
+    assertFalse(second.isScheduled());
+
+    wheel.advance(4_999, fired::add);
+    assertTrue(fired.isEmpty());
+    wheel.advance(5_000, fired::add);
+    assertEquals(List.of(first), fired);
+  }
+
+  @Test
+  void shouldFireOverdueTimersOnNextTick() {
+    var wheel = new TimingWheel(1_000);
+    var fired = new ArrayList<TimingWheel.Timer>();
+    var timer = new NamedTimer(10);
+    wheel.schedule(timer, 10);
+    wheel.advance(1_001, fired::add);
+    assertEquals(List.of(timer), fired);
+  }
+
+  @Test
+  void shouldFireInDeadlineOrderWhenAdvancedInOneStep() {
+    var wheel = new TimingWheel(0);
+    var random = new Random(11);
+    for (var i = 0; i < 1_000; i++) {
+      var deadline = 1 + (long) random.nextInt(5_000_000);
+      wheel.schedule(new NamedTimer(deadline), deadline);
+    }
+    var fired = new ArrayList<NamedTimer>();
+    wheel.advance(5_000_000, timer -> fired.add((NamedTimer) timer));
+
+    assertEquals(1_000, fired.size());
+    for (var i = 1; i < fired.size(); i++) {
+      assertTrue(fired.get(i - 1).expected <= fired.get(i).expected, "fired out of order");
+    }
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link TinyLfuCache}.
+ */
+class TinyLfuCacheTest {
+
+  private static UserAccount account(final String id) {
+    return new UserAccount(id, "user" + id, "info" + id);
+  }
+
+  @Test
+  void shouldKeepFrequentlyUsedEntriesDuringScan() {
+    var cache = new TinyLfuCache(100);
+    for (var round = 0; round < 5; round++) {
+      for (var i = 0; i < 50; i++) {
+        var id = "hot" + i;
+        if (cache.get(id) == null) {
+          cache.set(id, account(id));
+        }
+      }
+    }
+    for (var i = 0; i < 1_000; i++) {
+      cache.set("scan" + i, account("scan" + i));
+    }
+
+    for (var i = 0; i < 50; i++) {
+      assertTrue(cache.contains("hot" + i), "hot" + i + " was evicted by the scan");
+    }
+    assertEquals(100, cache.size());
+  }
+
+  @Test
+  void shouldInvalidateAndClear() {
+    var cache = new TinyLfuCache(3);
+    cache.set("1", account("1"));
+    cache.set("2", account("2"));
+    cache.invalidate("1");
+    assertNull(cache.get("1"));
+    assertEquals(1, cache.size());
+
+    cache.clear();
+    assertEquals(0, cache.size());
+    assertNull(cache.getLruData());
+  }
+
+  @Test
+  void shouldNeverExceedCapacity() {
+    var cache = new TinyLfuCache(3);
+    for (var i = 0; i < 20; i++) {
+      cache.set(String.valueOf(i), account(String.valueOf(i)));
+      assertTrue(cache.size() <= 3);
+    }
+    assertEquals(3, cache.getCacheDataInListForm().size());
+  }
+
+  @Test
+  void shouldHaveHigherHitRatioThanLruOnScanHeavyTrace() {
+    var lruHits = replay(new ConcurrentLruCache(100));
+    var tinyLfuHits = replay(new TinyLfuCache(100));
+    assertTrue(tinyLfuHits > lruHits,
+        "TinyLFU hits " + tinyLfuHits + " should exceed LRU hits " + lruHits);
+  }
+
+  /**
+   * Replays a trace mixing skewed accesses to a small key set with one-off
+   * lookups and returns the number of hits.
+   */
+  private static int replay(final Cache cache) {
+    var random = new Random(42);
+    var hits = 0;
+    var scan = 0;
+    for (var i = 0; i < 20_000; i++) {
+      String id;
+      if (random.nextBoolean()) {
+        var r = random.nextDouble();
+        id = "hot" + (int) (200 * r * r * r);
+      } else {
+        id = "scan" + scan++;
+      }
+      if (cache.get(id) != null) {
+        hits++;
+      } else {
+        cache.set(id, account(id));
+      }
+    }
+    return hits;
+  }
+}
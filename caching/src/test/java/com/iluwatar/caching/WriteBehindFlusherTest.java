@@ -0,0 +1,225 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import com.iluwatar.caching.database.DbManager;
+import com.iluwatar.caching.database.VirtualDb;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link WriteBehindFlusher}.
+ */
+class WriteBehindFlusherTest {
+
+  /**
+   * In-memory DB counting the bulk upserts.
+   */
+  static class CountingDb extends VirtualDb {
+    final AtomicInteger bulkUpserts = new AtomicInteger();
+    final AtomicInteger upsertedAccounts = new AtomicInteger();
+
+    @Override
+    public List<UserAccount> upsertAllDb(final List<UserAccount> userAccounts) {
+      bulkUpserts.incrementAndGet();
+      upsertedAccounts.addAndGet(userAccounts.size());
+      return super.upsertAllDb(userAccounts);
+    }
+  }
+
+  /**
+   * In-memory DB failing the first bulk upserts.
+   */
+  static class FailingDb extends CountingDb {
+    final AtomicInteger failures;
+
+    FailingDb(final int failures) {
+      this.failures = new AtomicInteger(failures);
+    }
+
+    @Override
+    public List<UserAccount> upsertAllDb(final List<UserAccount> userAccounts) {
+      if (failures.getAndDecrement() > 0) {
+        throw new IllegalStateException("DB unavailable");
+      }
+      return super.upsertAllDb(userAccounts);
+    }
+  }
+
+  private CountingDb db;
+
+  @BeforeEach
+  void setUp() {
+    db = new CountingDb();
+    db.connect();
+  }
+
+  private static UserAccount account(final int id, final String name) {
+    return new UserAccount(String.valueOf(id), name, "info");
+  }
+
+  @Test
+  void shouldCoalesceAndBatchWrites() throws Exception {
+    var flusher = new WriteBehindFlusher(db, 100, 60_000, 1_000);
+    for (var round = 0; round < 10; round++) {
+      for (var i = 0; i < 50; i++) {
+        flusher.markDirty(account(i, "name" + round));
+      }
+    }
+    assertEquals(50, flusher.getDirtyCount());
+    assertEquals("name9", flusher.getPending("7").getUserName());
+
+    flusher.close();
+
+    assertEquals(1, db.bulkUpserts.get());
+    assertEquals(50, db.upsertedAccounts.get());
+    assertEquals("name9", db.readFromDb("7").getUserName());
+    assertNull(flusher.getPending("7"));
+  }
+
+  @Test
+  void shouldFlushWithinMaxDelay() throws Exception {
+    try (var flusher = new WriteBehindFlusher(db, 100, 50, 1_000)) {
+      flusher.markDirty(account(1, "John"));
+      var deadline = System.currentTimeMillis() + 5_000;
+      while (db.readFromDb("1") == null && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      assertEquals("John", db.readFromDb("1").getUserName());
+    }
+  }
+
+  @Test
+  void shouldApplyBackPressure() throws Exception {
+    var release = new CountDownLatch(1);
+    DbManager slowDb = new CountingDb() {
+      @Override
+      public List<UserAccount> upsertAllDb(final List<UserAccount> userAccounts) {
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return super.upsertAllDb(userAccounts);
+      }
+    };
+    slowDb.connect();
+    var flusher = new WriteBehindFlusher(slowDb, 2, 60_000, 4);
+    var written = new AtomicInteger();
+    var writer = new Thread(() -> {
+      try {
+        for (var i = 0; i < 20; i++) {
+          flusher.markDirty(account(i, "name"));
+          written.incrementAndGet();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    writer.start();
+    writer.join(500);
+
+    assertTrue(written.get() < 20, "writer should be blocked by the dirty limit");
+    release.countDown();
+    writer.join(5_000);
+    assertEquals(20, written.get());
+    flusher.close();
+    for (var i = 0; i < 20; i++) {
+      assertEquals("name", slowDb.readFromDb(String.valueOf(i)).getUserName());
+    }
+  }
+
+  @Test
+  void shouldRetryFailedBatches() throws Exception {
+    var failing = new FailingDb(WriteBehindFlusher.FLUSH_ATTEMPTS - 1);
+    failing.connect();
+    var flusher = new WriteBehindFlusher(failing, 2, 60_000, 100);
+    for (var i = 0; i < 5; i++) {
+      flusher.markDirty(account(i, "name"));
+    }
+    flusher.close();
+
+    assertEquals(0, flusher.getDirtyCount());
+    for (var i = 0; i < 5; i++) {
+      assertEquals("name", failing.readFromDb(String.valueOf(i)).getUserName());
+    }
+  }
+
+  @Test
+  void shouldReportAccountsThatCouldNotBeWritten() throws Exception {
+    var failing = new FailingDb(Integer.MAX_VALUE);
+    failing.connect();
+    var flusher = new WriteBehindFlusher(failing, 2, 60_000, 100);
+    var store = new CacheStore(failing, EvictionPolicy.LRU, flusher);
+    for (var i = 0; i < 5; i++) {
+      store.writeBehind(account(i, "name"));
+    }
+
+    var e = assertThrows(IllegalStateException.class, store::flushCache);
+    assertEquals("5 accounts could not be written back", e.getMessage());
+    assertEquals(5, flusher.getDirtyCount());
+    assertEquals("name", flusher.getPending("3").getUserName());
+
+    // closing again retries the flush
+    failing.connect();
+    failing.failures.set(0);
+    flusher.close();
+    assertEquals(0, flusher.getDirtyCount());
+    assertEquals("name", failing.readFromDb("3").getUserName());
+  }
+
+  @Test
+  void shouldRejectWritesAfterClose() {
+    var flusher = new WriteBehindFlusher(db, 10, 1_000, 100);
+    flusher.close();
+    assertThrows(IllegalStateException.class, () -> flusher.markDirty(account(1, "John")));
+  }
+
+  @Test
+  void shouldServePendingWritesThroughCacheStore() {
+    var flusher = new WriteBehindFlusher(db, 100, 60_000, 1_000);
+    var store = new CacheStore(db, EvictionPolicy.LRU, flusher);
+    var accounts = new ArrayList<UserAccount>();
+    for (var i = 0; i < 10; i++) {
+      accounts.add(account(i, "name" + i));
+      store.writeBehind(accounts.get(i));
+    }
+    // capacity is 3, so most accounts have been evicted but not yet written
+    assertNull(db.readFromDb("0"));
+    assertEquals(accounts.get(0), store.readThroughWithWriteBackPolicy("0"));
+
+    store.flushCache();
+    assertEquals(1, db.bulkUpserts.get());
+  }
+}
@@ -29,6 +29,8 @@ import com.iluwatar.caching.constants.CachingConstants;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
+import java.util.List;
 import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -100,4 +102,21 @@ class MongoDbTest {
     when(db.getCollection(CachingConstants.USER_ACCOUNT)).thenReturn(mongoCollection);
     assertDoesNotThrow(()-> {mongoDb.upsertDb(userAccount);});
   }
-}
\ No newline at end of file
+
+  @Test
+  void upsertAllDb() {
+    MongoCollection<Document> mongoCollection = mock(MongoCollection.class);
+    when(db.getCollection(CachingConstants.USER_ACCOUNT)).thenReturn(mongoCollection);
+    assertDoesNotThrow(()-> {mongoDb.upsertAllDb(List.of(userAccount));});
+    verify(mongoCollection).bulkWrite(anyList(), any(BulkWriteOptions.class));
+  }
+
+  @Test
+  void readAllFromDb() {
+    MongoCollection<Document> mongoCollection = mock(MongoCollection.class);
+    when(db.getCollection(CachingConstants.USER_ACCOUNT)).thenReturn(mongoCollection);
+    FindIterable<Document> findIterable = mock(FindIterable.class);
+    when(mongoCollection.find(any(Document.class))).thenReturn(findIterable);
+    assertDoesNotThrow(()-> {mongoDb.readAllFromDb(List.of(ID));});
+  }
+}
@@ -69,4 +69,9 @@ public class AccountCreateEvent extends DomainEvent {
     account = new Account(accountNo, owner);
     account.handleEvent(this);
   }
+
+  @Override
+  public int[] accountNos() {
+    return new int[] {accountNo};
+  }
 }
@@ -49,4 +49,12 @@ public abstract class DomainEvent implements Serializable {
    */
   public abstract void process();
 
+  /**
+   * The numbers of the accounts the event changes. Events sharing no account can be processed
+   * concurrently.
+   *
+   * @return the account numbers
+   */
+  public abstract int[] accountNos();
+
 }
@@ -67,4 +67,9 @@ public class MoneyDepositEvent extends DomainEvent {
         .orElseThrow(() -> new RuntimeException("Account not found"));
     account.handleEvent(this);
   }
+
+  @Override
+  public int[] accountNos() {
+    return new int[] {accountNo};
+  }
 }
@@ -26,6 +26,7 @@ package com.iluwatar.event.sourcing.event;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.iluwatar.event.sourcing.domain.Account;
 import com.iluwatar.event.sourcing.state.AccountAggregate;
 import java.math.BigDecimal;
 import java.util.Optional;
@@ -67,11 +68,34 @@ public class MoneyTransferEvent extends DomainEvent {
 
   @Override
   public void process() {
-    var accountFrom = Optional.ofNullable(AccountAggregate.getAccount(accountNoFrom))
-        .orElseThrow(() -> new RuntimeException("Account not found " + accountNoFrom));
-    var accountTo = Optional.ofNullable(AccountAggregate.getAccount(accountNoTo))
-        .orElseThrow(() -> new RuntimeException("Account not found " + accountNoTo));
+    var accountFrom = findAccount(accountNoFrom);
+    var accountTo = findAccount(accountNoTo);
     accountFrom.handleTransferFromEvent(this);
     accountTo.handleTransferToEvent(this);
   }
+
+  /**
+   * Processes the withdrawal from the source account only. Together with {@link
+   * #processDeposit()} this lets the two accounts be replayed independently of each other.
+   */
+  public void processWithdrawal() {
+    findAccount(accountNoFrom).handleTransferFromEvent(this);
+  }
+
+  /**
+   * Processes the deposit to the target account only.
+   */
+  public void processDeposit() {
+    findAccount(accountNoTo).handleTransferToEvent(this);
+  }
+
+  private static Account findAccount(int accountNo) {
+    return Optional.ofNullable(AccountAggregate.getAccount(accountNo))
+        .orElseThrow(() -> new RuntimeException("Account not found " + accountNo));
+  }
+
+  @Override
+  public int[] accountNos() {
+    return new int[] {accountNoFrom, accountNoTo};
+  }
 }
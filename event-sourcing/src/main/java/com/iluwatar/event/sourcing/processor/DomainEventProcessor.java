@@ -25,19 +25,70 @@
 package com.iluwatar.event.sourcing.processor;
 
 import com.iluwatar.event.sourcing.event.DomainEvent;
+import com.iluwatar.event.sourcing.processor.SnapshotStore.Snapshot;
+import com.iluwatar.event.sourcing.state.AccountAggregate;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
 
 /**
  * This is the implementation of event processor. All events are processed by this class. This
  * processor uses eventJournal to persist and recover events.
  *
+ * <p>With a {@link SnapshotStore}, a snapshot of the accounts is taken every snapshotInterval
+ * events, and recovery starts from the latest snapshot instead of the beginning of the journal.
+ * Taking a snapshot does not copy the accounts: {@link AccountAggregate#beginSnapshot()} captures
+ * them in constant time, and the snapshot is read and written in the background while events keep
+ * being processed. If the previous snapshot is still being written when the next one is due, the
+ * next one is taken as soon as the previous one is done.
+ *
  * <p>Created by Serdar Hamzaogullari on 06.08.2017.
  */
-public class DomainEventProcessor {
+@Slf4j
+public class DomainEventProcessor implements AutoCloseable {
 
   private final EventJournal eventJournal;
+  private final SnapshotStore snapshotStore;
+  private final int snapshotInterval;
+  private final ExecutorService snapshotExecutor;
+  private final AtomicBoolean snapshotInProgress = new AtomicBoolean();
+  private int eventsSinceSnapshot;
 
+  /**
+   * Instantiates a processor without snapshots.
+   *
+   * @param eventJournal the event journal
+   */
   public DomainEventProcessor(EventJournal eventJournal) {
     this.eventJournal = eventJournal;
+    this.snapshotStore = null;
+    this.snapshotInterval = 0;
+    this.snapshotExecutor = null;
+  }
+
+  /**
+   * Instantiates a processor taking snapshots of the accounts.
+   *
+   * @param eventJournal     the event journal
+   * @param snapshotStore    the snapshot store
+   * @param snapshotInterval the number of events between two snapshots
+   */
+  public DomainEventProcessor(EventJournal eventJournal, SnapshotStore snapshotStore,
+      int snapshotInterval) {
+    if (snapshotInterval <= 0) {
+      throw new IllegalArgumentException("snapshotInterval must be positive");
+    }
+    this.eventJournal = eventJournal;
+    this.snapshotStore = snapshotStore;
+    this.snapshotInterval = snapshotInterval;
+    this.snapshotExecutor = Executors.newSingleThreadExecutor(runnable -> {
+      var thread = new Thread(runnable, "snapshot-writer");
+      thread.setDaemon(true);
+      return thread;
+    });
   }
 
   /**
@@ -48,6 +99,30 @@ public class DomainEventProcessor {
   public void process(DomainEvent domainEvent) {
     domainEvent.process();
     eventJournal.write(domainEvent);
+    if (snapshotStore != null && ++eventsSinceSnapshot >= snapshotInterval) {
+      snapshot();
+    }
+  }
+
+  /**
+   * Takes a snapshot of the accounts, unless the previous one is still being written.
+   */
+  private void snapshot() {
+    if (!snapshotInProgress.compareAndSet(false, true)) {
+      return;
+    }
+    eventsSinceSnapshot = 0;
+    var position = eventJournal.endPosition();
+    var captured = AccountAggregate.beginSnapshot();
+    snapshotExecutor.execute(() -> {
+      try (captured) {
+        snapshotStore.save(new Snapshot(position, captured.accounts()));
+      } catch (RuntimeException e) {
+        LOGGER.error("Snapshot at journal position {} failed", position, e);
+      } finally {
+        snapshotInProgress.set(false);
+      }
+    });
   }
 
   /**
@@ -55,15 +130,65 @@ public class DomainEventProcessor {
    */
   public void reset() {
     eventJournal.reset();
+    if (snapshotStore != null) {
+      awaitSnapshot();
+      snapshotStore.reset();
+      eventsSinceSnapshot = 0;
+    }
   }
 
   /**
    * Recover.
    */
   public void recover() {
+    recover(1);
+  }
+
+  /**
+   * Recovers on several threads, each of which replays the events of a partition of the accounts.
+   *
+   * @param threads the number of threads
+   */
+  public void recover(int threads) {
+    if (snapshotStore != null) {
+      snapshotStore.loadLatest().ifPresent(snapshot -> {
+        AccountAggregate.restoreState(snapshot.accounts());
+        eventJournal.seek(snapshot.position());
+        LOGGER.info("Recovering from the snapshot at journal position {}", snapshot.position());
+      });
+    }
+    if (threads > 1) {
+      new PartitionedReplay(threads).replay(eventJournal);
+      return;
+    }
     DomainEvent domainEvent;
     while ((domainEvent = eventJournal.readNext()) != null) {
       domainEvent.process();
     }
   }
+
+  /**
+   * Waits for the snapshot being written, if any, and stops the snapshot writer.
+   */
+  @Override
+  public void close() {
+    if (snapshotExecutor != null) {
+      snapshotExecutor.shutdown();
+      try {
+        snapshotExecutor.awaitTermination(1, TimeUnit.MINUTES);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private void awaitSnapshot() {
+    try {
+      snapshotExecutor.submit(() -> { }).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e);
+    }
+  }
 }
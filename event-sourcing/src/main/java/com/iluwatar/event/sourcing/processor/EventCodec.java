@@ -0,0 +1,142 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import com.iluwatar.event.sourcing.event.AccountCreateEvent;
+import com.iluwatar.event.sourcing.event.DomainEvent;
+import com.iluwatar.event.sourcing.event.MoneyDepositEvent;
+import com.iluwatar.event.sourcing.event.MoneyTransferEvent;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary encoding of the domain events used by {@link SegmentedJournal}. An event is written as a
+ * type byte, the sequence id and creation time, followed by the fields of the event type. Amounts
+ * are written as their scale and unscaled value, so they are restored exactly.
+ */
+final class EventCodec {
+
+  private static final byte ACCOUNT_CREATE = 1;
+  private static final byte MONEY_DEPOSIT = 2;
+  private static final byte MONEY_TRANSFER = 3;
+
+  private EventCodec() {
+  }
+
+  /**
+   * Encodes the event at the position of the buffer.
+   *
+   * @param domainEvent the domain event.
+   * @param out         the buffer to write to.
+   * @throws java.nio.BufferOverflowException if the event does not fit into the buffer.
+   */
+  static void encode(DomainEvent domainEvent, ByteBuffer out) {
+    if (domainEvent instanceof AccountCreateEvent event) {
+      putHeader(ACCOUNT_CREATE, event, out);
+      out.putInt(event.getAccountNo());
+      putString(event.getOwner(), out);
+    } else if (domainEvent instanceof MoneyDepositEvent event) {
+      putHeader(MONEY_DEPOSIT, event, out);
+      out.putInt(event.getAccountNo());
+      putDecimal(event.getMoney(), out);
+    } else if (domainEvent instanceof MoneyTransferEvent event) {
+      putHeader(MONEY_TRANSFER, event, out);
+      out.putInt(event.getAccountNoFrom());
+      out.putInt(event.getAccountNoTo());
+      putDecimal(event.getMoney(), out);
+    } else {
+      throw new IllegalArgumentException("Journal Event not recognized");
+    }
+  }
+
+  /**
+   * Decodes the event at the position of the buffer.
+   *
+   * @param in the buffer to read from.
+   * @return the domain event.
+   */
+  static DomainEvent decode(ByteBuffer in) {
+    var type = in.get();
+    var sequenceId = in.getLong();
+    var createdTime = in.getLong();
+    return switch (type) {
+      case ACCOUNT_CREATE -> new AccountCreateEvent(sequenceId, createdTime, in.getInt(),
+          getString(in));
+      case MONEY_DEPOSIT -> new MoneyDepositEvent(sequenceId, createdTime, in.getInt(),
+          getDecimal(in));
+      case MONEY_TRANSFER -> {
+        var accountNoFrom = in.getInt();
+        var accountNoTo = in.getInt();
+        yield new MoneyTransferEvent(sequenceId, createdTime, getDecimal(in), accountNoFrom,
+            accountNoTo);
+      }
+      default -> throw new IllegalStateException("Journal Event not recognized: " + type);
+    };
+  }
+
+  private static void putHeader(byte type, DomainEvent event, ByteBuffer out) {
+    out.put(type);
+    out.putLong(event.getSequenceId());
+    out.putLong(event.getCreatedTime());
+  }
+
+  private static void putString(String value, ByteBuffer out) {
+    var bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.putInt(bytes.length);
+    out.put(bytes);
+  }
+
+  private static String getString(ByteBuffer in) {
+    var bytes = new byte[in.getInt()];
+    in.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static void putDecimal(BigDecimal value, ByteBuffer out) {
+    out.putInt(value.scale());
+    var unscaled = value.unscaledValue();
+    if (unscaled.bitLength() < Long.SIZE) {
+      out.put((byte) 0);
+      out.putLong(unscaled.longValue());
+    } else {
+      var bytes = unscaled.toByteArray();
+      out.put((byte) 1);
+      out.putInt(bytes.length);
+      out.put(bytes);
+    }
+  }
+
+  private static BigDecimal getDecimal(ByteBuffer in) {
+    var scale = in.getInt();
+    if (in.get() == 0) {
+      return BigDecimal.valueOf(in.getLong(), scale);
+    }
+    var bytes = new byte[in.getInt()];
+    in.get(bytes);
+    return new BigDecimal(new BigInteger(bytes), scale);
+  }
+}
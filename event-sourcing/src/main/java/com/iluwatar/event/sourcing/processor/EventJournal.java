@@ -58,4 +58,20 @@ public abstract class EventJournal {
    * @return the domain event.
    */
   abstract DomainEvent readNext();
+
+  /**
+   * Position behind the last event written. Positions are only meaningful to the journal that
+   * returned them.
+   *
+   * @return the position.
+   */
+  abstract long endPosition();
+
+  /**
+   * Moves the reading position, so that {@link #readNext()} continues with the event at the given
+   * position.
+   *
+   * @param position a position returned by {@link #endPosition()}.
+   */
+  abstract void seek(long position);
 }
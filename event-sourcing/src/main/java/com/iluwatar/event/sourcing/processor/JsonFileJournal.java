@@ -52,6 +52,7 @@ public class JsonFileJournal extends EventJournal {
 
   private final List<String> events = new ArrayList<>();
   private int index = 0;
+  private long written = 0;
 
   /**
    * Instantiates a new Json file journal.
@@ -86,12 +87,45 @@ public class JsonFileJournal extends EventJournal {
         new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8))) {
       var eventString = mapper.writeValueAsString(domainEvent);
       output.write(eventString + "\r\n");
+      written++;
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
   }
 
 
+  /**
+   * The position of an event is its line number, starting at zero.
+   *
+   * @return the number of events in the journal.
+   */
+  @Override
+  long endPosition() {
+    return events.size() + written;
+  }
+
+  /**
+   * Continue reading at the given line. Only the events that were in the journal when it was
+   * instantiated can be read.
+   *
+   * @param position the line number.
+   */
+  @Override
+  void seek(long position) {
+    index = (int) position;
+  }
+
+  /**
+   * Deletes the journal, including the events read when it was instantiated.
+   */
+  @Override
+  void reset() {
+    super.reset();
+    events.clear();
+    index = 0;
+    written = 0;
+  }
+
   /**
    * Read the next domain event.
    *
@@ -0,0 +1,228 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import com.iluwatar.event.sourcing.event.DomainEvent;
+import com.iluwatar.event.sourcing.event.MoneyTransferEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Replays the events of a journal on several threads. Every account belongs to one partition, and
+ * each partition is replayed by its own thread in journal order, so the events of an account are
+ * still processed one after the other.
+ *
+ * <p>A transfer between two partitions is replayed in two independent halves: the withdrawal by
+ * the thread of the source account and the deposit by the thread of the target account. The
+ * journal only holds transfers which succeeded when they were processed, so each half sees the
+ * same balance as it did then. Any other event changing the accounts of several partitions is
+ * handed to all of their threads as a barrier. The threads arriving first wait, the thread
+ * arriving last processes the event and releases the others. The reading thread hands out the
+ * barriers in journal order, so any two threads meet at their common barriers in the same order
+ * and cannot deadlock.
+ *
+ * <p>The events are handed over in batches, to keep the cost of the queues low.
+ */
+class PartitionedReplay {
+
+  private static final int BATCH_SIZE = 256;
+  private static final int QUEUE_CAPACITY = 64;
+
+  private final int partitions;
+  private final List<BlockingQueue<List<Object>>> queues = new ArrayList<>();
+  private final List<List<Object>> batches = new ArrayList<>();
+  private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+  /**
+   * Instantiates a replay.
+   *
+   * @param partitions the number of partitions, i.e. threads.
+   */
+  PartitionedReplay(int partitions) {
+    if (partitions <= 0) {
+      throw new IllegalArgumentException("partitions must be positive");
+    }
+    this.partitions = partitions;
+    for (var i = 0; i < partitions; i++) {
+      queues.add(new ArrayBlockingQueue<>(QUEUE_CAPACITY));
+      batches.add(new ArrayList<>(BATCH_SIZE));
+    }
+  }
+
+  /**
+   * Replays the events from the current position to the end of the journal. If processing an event
+   * fails, the replay stops and the failure is rethrown.
+   *
+   * @param journal the journal.
+   * @return the number of events replayed.
+   */
+  long replay(EventJournal journal) {
+    var workers = new ArrayList<Thread>();
+    for (var i = 0; i < partitions; i++) {
+      var queue = queues.get(i);
+      var worker = new Thread(() -> work(queue), "replay-" + i);
+      worker.start();
+      workers.add(worker);
+    }
+    long replayed = 0;
+    try {
+      DomainEvent domainEvent;
+      while (failure.get() == null && (domainEvent = journal.readNext()) != null) {
+        dispatch(domainEvent);
+        replayed++;
+      }
+      for (var i = 0; i < partitions; i++) {
+        flush(i);
+        // an empty batch tells the worker to stop
+        queues.get(i).put(List.of());
+      }
+      for (var worker : workers) {
+        worker.join();
+      }
+    } catch (InterruptedException e) {
+      workers.forEach(Thread::interrupt);
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Replay was interrupted", e);
+    }
+    if (failure.get() != null) {
+      throw failure.get();
+    }
+    return replayed;
+  }
+
+  private void dispatch(DomainEvent domainEvent) throws InterruptedException {
+    var accountNos = domainEvent.accountNos();
+    var owners = new int[accountNos.length];
+    var count = 0;
+    for (var accountNo : accountNos) {
+      var partition = Math.floorMod(accountNo, partitions);
+      var known = false;
+      for (var i = 0; i < count; i++) {
+        known |= owners[i] == partition;
+      }
+      if (!known) {
+        owners[count++] = partition;
+      }
+    }
+    if (count == 1) {
+      add(owners[0], domainEvent);
+      return;
+    }
+    if (domainEvent instanceof MoneyTransferEvent transfer) {
+      add(Math.floorMod(transfer.getAccountNoFrom(), partitions),
+          (Runnable) transfer::processWithdrawal);
+      add(Math.floorMod(transfer.getAccountNoTo(), partitions),
+          (Runnable) transfer::processDeposit);
+      return;
+    }
+    var barrier = new Barrier(domainEvent, count);
+    for (var i = 0; i < count; i++) {
+      batches.get(owners[i]).add(barrier);
+      flush(owners[i]);
+    }
+  }
+
+  private void add(int partition, Object item) throws InterruptedException {
+    var batch = batches.get(partition);
+    batch.add(item);
+    if (batch.size() >= BATCH_SIZE) {
+      flush(partition);
+    }
+  }
+
+  private void flush(int partition) throws InterruptedException {
+    var batch = batches.get(partition);
+    if (!batch.isEmpty()) {
+      queues.get(partition).put(batch);
+      batches.set(partition, new ArrayList<>(BATCH_SIZE));
+    }
+  }
+
+  private void work(BlockingQueue<List<Object>> queue) {
+    try {
+      List<Object> batch;
+      while (!(batch = queue.take()).isEmpty()) {
+        for (var item : batch) {
+          if (item instanceof Barrier barrier) {
+            barrier.arrive();
+          } else if (item instanceof Runnable half) {
+            process(half);
+          } else {
+            process(((DomainEvent) item)::process);
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Processes an event unless the replay has already failed. After a failure the workers keep
+   * taking their batches and arriving at the barriers, so nobody waits forever.
+   */
+  private void process(Runnable processing) {
+    if (failure.get() != null) {
+      return;
+    }
+    try {
+      processing.run();
+    } catch (RuntimeException e) {
+      failure.compareAndSet(null, e);
+    }
+  }
+
+  /**
+   * An event shared by several partitions.
+   */
+  private final class Barrier {
+
+    private final DomainEvent domainEvent;
+    private final AtomicInteger pending;
+    private final CountDownLatch processed = new CountDownLatch(1);
+
+    Barrier(DomainEvent domainEvent, int parties) {
+      this.domainEvent = domainEvent;
+      this.pending = new AtomicInteger(parties);
+    }
+
+    void arrive() throws InterruptedException {
+      if (pending.decrementAndGet() > 0) {
+        processed.await();
+        return;
+      }
+      try {
+        process(domainEvent::process);
+      } finally {
+        processed.countDown();
+      }
+    }
+  }
+}
@@ -0,0 +1,469 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import com.iluwatar.event.sourcing.event.DomainEvent;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * This is a binary implementation of event journal meant for large journals. The events are
+ * appended to fixed-size segment files in a directory, which are accessed as memory-mapped files,
+ * so an append is a copy into the page cache rather than a system call.
+ *
+ * <p>Every record is laid out as the length and the CRC32C checksum of the payload, followed by
+ * the payload encoded by {@link EventCodec}. The length is written last, so a record is not
+ * visible before it is complete, and a record whose checksum does not match marks the end of the
+ * journal, e.g. after a crash in the middle of a write. A new segment is started when a record does
+ * not fit into the current one.
+ *
+ * <p>Appended records are forced to disk by a background thread (group commit): all the records
+ * appended while the previous force was running are made durable by the next one. The journal can
+ * be configured to wait in {@link #write(DomainEvent)} until the event is durable, otherwise the
+ * events are forced at least every {@value #SYNC_INTERVAL_MILLIS} milliseconds. A waiting write
+ * that is interrupted, or whose event cannot be forced, throws an {@link UncheckedIOException};
+ * the event has been appended then, but may not be durable. Once a force has failed, the journal
+ * rejects all further writes.
+ *
+ * <p>Reading streams through the segments one record at a time, nothing is loaded up front.
+ */
+@Slf4j
+public class SegmentedJournal extends EventJournal implements AutoCloseable {
+
+  /**
+   * The default size of a segment file.
+   */
+  public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+  private static final long SYNC_INTERVAL_MILLIS = 10;
+  private static final int HEADER_SIZE = 2 * Integer.BYTES;
+  private static final String SEGMENT_SUFFIX = ".segment";
+  private static final byte[] ZEROS = new byte[4096];
+
+  private final Path directory;
+  private final int segmentSize;
+  private final boolean awaitSync;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition syncRequested = lock.newCondition();
+  private final Condition synced = lock.newCondition();
+  private final CRC32C writeChecksum = new CRC32C();
+  private MappedByteBuffer writeSegment;
+  private int writeSegmentIndex;
+  private int writeOffset;
+  private long appendedPosition;
+  private long syncedPosition;
+  private int syncWaiters;
+  private boolean closed;
+  private IOException syncFailure;
+  private final Thread syncThread;
+
+  private final CRC32C readChecksum = new CRC32C();
+  private MappedByteBuffer readSegment;
+  private int readSegmentIndex;
+  private int readOffset;
+
+  /**
+   * Instantiates a segmented journal in the Journal directory of the working directory, which does
+   * not wait for the events to be durable.
+   */
+  public SegmentedJournal() {
+    this(Path.of("Journal"), DEFAULT_SEGMENT_SIZE, false);
+  }
+
+  /**
+   * Instantiates a segmented journal, recovering the segments already in the directory.
+   *
+   * @param directory   the directory of the segment files.
+   * @param segmentSize the size of a segment file in bytes.
+   * @param awaitSync   whether {@link #write(DomainEvent)} waits for the event to be durable.
+   */
+  public SegmentedJournal(Path directory, int segmentSize, boolean awaitSync) {
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+    this.awaitSync = awaitSync;
+    this.file = directory.toFile();
+    try {
+      Files.createDirectories(directory);
+      var last = 0;
+      while (Files.exists(segmentPath(last + 1))) {
+        last++;
+      }
+      openWriteSegment(last);
+      writeOffset = endOf(writeSegment);
+      appendedPosition = position(writeSegmentIndex, writeOffset);
+      syncedPosition = appendedPosition;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    syncThread = new Thread(this::syncLoop, "journal-sync");
+    syncThread.setDaemon(true);
+    syncThread.start();
+  }
+
+  /**
+   * Write.
+   *
+   * @param domainEvent the domain event.
+   */
+  @Override
+  public void write(DomainEvent domainEvent) {
+    long position;
+    lock.lock();
+    try {
+      if (closed) {
+        throw new IllegalStateException("Journal is closed");
+      }
+      if (syncFailure != null) {
+        throw new UncheckedIOException("Journal could not be synced", syncFailure);
+      }
+      if (!tryAppend(domainEvent)) {
+        openWriteSegment(writeSegmentIndex + 1);
+        if (!tryAppend(domainEvent)) {
+          throw new IllegalArgumentException("Event does not fit into a segment");
+        }
+      }
+      position = appendedPosition;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      lock.unlock();
+    }
+    if (awaitSync) {
+      awaitSynced(position);
+    }
+  }
+
+  /**
+   * Read the next domain event.
+   *
+   * @return the domain event, or null if there are no more events.
+   */
+  @Override
+  public DomainEvent readNext() {
+    try {
+      while (true) {
+        if (readSegment == null) {
+          if (!Files.exists(segmentPath(readSegmentIndex))) {
+            return null;
+          }
+          readSegment = map(readSegmentIndex, FileChannel.MapMode.READ_ONLY);
+        }
+        var length = recordLength(readSegment, readOffset, readChecksum);
+        if (length > 0) {
+          var payload = readSegment.slice(readOffset + HEADER_SIZE, length);
+          readOffset += HEADER_SIZE + length;
+          var domainEvent = EventCodec.decode(payload);
+          domainEvent.setRealTime(false);
+          return domainEvent;
+        }
+        if (length < 0 || !Files.exists(segmentPath(readSegmentIndex + 1))) {
+          return null;
+        }
+        readSegment = null;
+        readSegmentIndex++;
+        readOffset = 0;
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * The position of an event is its segment index times the segment size plus its offset in the
+   * segment.
+   *
+   * @return the position behind the last event written.
+   */
+  @Override
+  long endPosition() {
+    lock.lock();
+    try {
+      return appendedPosition;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  void seek(long position) {
+    readSegment = null;
+    readSegmentIndex = (int) (position / segmentSize);
+    readOffset = (int) (position % segmentSize);
+  }
+
+  /**
+   * Deletes all the segments and starts over with an empty journal.
+   */
+  @Override
+  void reset() {
+    lock.lock();
+    try {
+      try (var segments = Files.list(directory)) {
+        for (var segment : segments.filter(path -> path.toString().endsWith(SEGMENT_SUFFIX))
+            .toList()) {
+          Files.delete(segment);
+        }
+      }
+      openWriteSegment(0);
+      appendedPosition = 0;
+      syncedPosition = 0;
+      readSegment = null;
+      readSegmentIndex = 0;
+      readOffset = 0;
+      LOGGER.info("Journal cleared successfully............");
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Forces the events written so far to disk and stops the background sync.
+   */
+  @Override
+  public void close() {
+    lock.lock();
+    try {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      writeSegment.force();
+      syncedPosition = appendedPosition;
+    } finally {
+      // writers still waiting after a failed force find their event not synced and throw
+      synced.signalAll();
+      syncRequested.signalAll();
+      lock.unlock();
+    }
+    try {
+      syncThread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /*
+   * Encodes the event into the current segment. Must be called with the lock held.
+   */
+  private boolean tryAppend(DomainEvent domainEvent) {
+    var start = writeOffset;
+    if (segmentSize - start <= HEADER_SIZE) {
+      return false;
+    }
+    var buffer = writeSegment;
+    buffer.limit(segmentSize).position(start + HEADER_SIZE);
+    try {
+      EventCodec.encode(domainEvent, buffer);
+    } catch (BufferOverflowException e) {
+      return false;
+    }
+    var end = buffer.position();
+    writeChecksum.reset();
+    writeChecksum.update(buffer.position(start + HEADER_SIZE).limit(end));
+    buffer.putInt(start + Integer.BYTES, (int) writeChecksum.getValue());
+    // publishing the length makes the record visible
+    buffer.putInt(start, end - start - HEADER_SIZE);
+    writeOffset = end;
+    appendedPosition = position(writeSegmentIndex, end);
+    return true;
+  }
+
+  /*
+   * Forces the current segment and maps the segment with the given index for writing. Must be
+   * called with the lock held.
+   */
+  private void openWriteSegment(int index) throws IOException {
+    if (writeSegment != null) {
+      writeSegment.force();
+    }
+    writeSegment = map(index, FileChannel.MapMode.READ_WRITE);
+    writeSegmentIndex = index;
+    writeOffset = 0;
+  }
+
+  /*
+   * Returns the offset behind the last valid record of the segment.
+   */
+  private int endOf(MappedByteBuffer segment) {
+    var checksum = new CRC32C();
+    var offset = 0;
+    int length;
+    while ((length = recordLength(segment, offset, checksum)) > 0) {
+      offset += HEADER_SIZE + length;
+    }
+    if (length < 0) {
+      LOGGER.warn("Discarding torn record at offset {} of segment {}", offset, writeSegmentIndex);
+      for (var zeroed = offset; zeroed < segmentSize; zeroed += ZEROS.length) {
+        segment.put(zeroed, ZEROS, 0, Math.min(ZEROS.length, segmentSize - zeroed));
+      }
+    }
+    return offset;
+  }
+
+  /*
+   * Returns the length of the payload of the record at the offset, 0 if there is no record and -1
+   * if the record is corrupt.
+   */
+  private int recordLength(MappedByteBuffer segment, int offset, CRC32C checksum) {
+    if (offset + HEADER_SIZE > segmentSize) {
+      return 0;
+    }
+    var length = segment.getInt(offset);
+    if (length == 0) {
+      return 0;
+    }
+    if (length < 0 || length > segmentSize - offset - HEADER_SIZE) {
+      return -1;
+    }
+    checksum.reset();
+    checksum.update(segment.slice(offset + HEADER_SIZE, length));
+    return (int) checksum.getValue() == segment.getInt(offset + Integer.BYTES) ? length : -1;
+  }
+
+  private MappedByteBuffer map(int index, FileChannel.MapMode mode) throws IOException {
+    var options = mode == FileChannel.MapMode.READ_ONLY
+        ? new StandardOpenOption[] {StandardOpenOption.READ}
+        : new StandardOpenOption[] {StandardOpenOption.READ, StandardOpenOption.WRITE,
+            StandardOpenOption.CREATE};
+    try (var channel = FileChannel.open(segmentPath(index), options)) {
+      // the mapping stays valid after the channel is closed
+      return channel.map(mode, 0, segmentSize);
+    }
+  }
+
+  private Path segmentPath(int index) {
+    return directory.resolve(String.format("%010d%s", index, SEGMENT_SUFFIX));
+  }
+
+  private long position(int segmentIndex, int offset) {
+    return (long) segmentIndex * segmentSize + offset;
+  }
+
+  /*
+   * Waits until the event ending at the position has been forced, and throws if it has not been
+   * forced when the wait ends, because of an interrupt, a failed force or the journal being closed.
+   */
+  private void awaitSynced(long position) {
+    lock.lock();
+    try {
+      syncWaiters++;
+      syncRequested.signal();
+      while (syncedPosition < position && !closed && syncFailure == null) {
+        synced.await();
+      }
+      if (syncFailure != null && syncedPosition < position) {
+        throw new UncheckedIOException("Journal could not be synced", syncFailure);
+      }
+      if (syncedPosition < position) {
+        throw new UncheckedIOException(
+            new IOException("Journal closed before the event was synced"));
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new UncheckedIOException(
+          new InterruptedIOException("Interrupted while waiting for the event to be synced"));
+    } finally {
+      syncWaiters--;
+      lock.unlock();
+    }
+  }
+
+  /*
+   * Forces the current segment after the sync interval, or right away while writers are waiting
+   * for it. Writers arriving during a force are covered by the next one. The segments before the
+   * current one have been forced when the journal moved on from them.
+   *
+   * The range appended since the last force is taken under the lock, and forced on a duplicate of
+   * the segment, as writers keep moving the position and limit of the segment meanwhile. If a force
+   * fails, the failure is recorded for the writers and the loop stops.
+   */
+  private void syncLoop() {
+    while (true) {
+      MappedByteBuffer segment;
+      long position;
+      int from;
+      int to;
+      boolean dirty;
+      lock.lock();
+      try {
+        if (!closed && syncWaiters == 0) {
+          syncRequested.await(SYNC_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        if (closed) {
+          return;
+        }
+        segment = writeSegment.duplicate();
+        position = appendedPosition;
+        from = (int) Math.max(0, syncedPosition - position(writeSegmentIndex, 0));
+        to = writeOffset;
+        dirty = position > syncedPosition;
+      } catch (InterruptedException e) {
+        return;
+      } finally {
+        lock.unlock();
+      }
+      IOException failure = null;
+      if (dirty) {
+        try {
+          segment.force(from, to - from);
+        } catch (UncheckedIOException e) {
+          failure = e.getCause();
+        } catch (RuntimeException e) {
+          failure = new IOException(e);
+        }
+      }
+      lock.lock();
+      try {
+        if (failure != null) {
+          LOGGER.error("Syncing the journal failed", failure);
+          syncFailure = failure;
+        } else {
+          syncedPosition = Math.max(syncedPosition, position);
+        }
+        synced.signalAll();
+      } finally {
+        lock.unlock();
+      }
+      if (failure != null) {
+        return;
+      }
+    }
+  }
+}
@@ -0,0 +1,204 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import com.iluwatar.event.sourcing.domain.Account;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * This class stores snapshots of the accounts in a directory. A snapshot holds the state of all
+ * the accounts after the events up to a position of the journal were processed, so recovery only
+ * has to replay the events behind that position.
+ *
+ * <p>A snapshot is written to a temporary file which is then moved into place, so a crash while
+ * writing never leaves a partial snapshot behind. Every snapshot ends with a CRC32C checksum, and
+ * a snapshot that fails the check is skipped in favour of the previous one, which is why the last
+ * {@value #RETAINED_SNAPSHOTS} snapshots are kept.
+ */
+@Slf4j
+public class SnapshotStore {
+
+  private static final int MAGIC = 0x534e4150;
+  private static final int RETAINED_SNAPSHOTS = 2;
+  private static final String SNAPSHOT_SUFFIX = ".snapshot";
+
+  private final Path directory;
+
+  /**
+   * A snapshot of the accounts.
+   *
+   * @param position the journal position the snapshot covers.
+   * @param accounts the accounts.
+   */
+  public record Snapshot(long position, List<Account> accounts) {
+  }
+
+  /**
+   * Instantiates a snapshot store.
+   *
+   * @param directory the directory of the snapshot files.
+   */
+  public SnapshotStore(Path directory) {
+    this.directory = directory;
+    try {
+      Files.createDirectories(directory);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Writes a snapshot and deletes the snapshots that are no longer retained.
+   *
+   * @param snapshot the snapshot.
+   */
+  public void save(Snapshot snapshot) {
+    var target = snapshotPath(snapshot.position());
+    var temp = directory.resolve(target.getFileName() + ".tmp");
+    try {
+      var checksum = new CRC32C();
+      try (var file = new FileOutputStream(temp.toFile());
+          var out = new DataOutputStream(new CheckedOutputStream(
+              new BufferedOutputStream(file), checksum))) {
+        out.writeInt(MAGIC);
+        out.writeLong(snapshot.position());
+        out.writeInt(snapshot.accounts().size());
+        for (var account : snapshot.accounts()) {
+          out.writeInt(account.getAccountNo());
+          out.writeUTF(account.getOwner());
+          var unscaled = account.getMoney().unscaledValue().toByteArray();
+          out.writeInt(account.getMoney().scale());
+          out.writeInt(unscaled.length);
+          out.write(unscaled);
+        }
+        out.writeInt((int) checksum.getValue());
+        out.flush();
+        file.getFD().sync();
+      }
+      Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+      var snapshots = list();
+      for (var i = RETAINED_SNAPSHOTS; i < snapshots.size(); i++) {
+        Files.deleteIfExists(snapshots.get(i));
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    LOGGER.info("Snapshot of {} accounts at journal position {} saved",
+        snapshot.accounts().size(), snapshot.position());
+  }
+
+  /**
+   * Loads the latest valid snapshot.
+   *
+   * @return the snapshot, or empty if there is no valid snapshot.
+   */
+  public Optional<Snapshot> loadLatest() {
+    for (var path : list()) {
+      try {
+        return Optional.of(load(path));
+      } catch (IOException e) {
+        LOGGER.warn("Skipping invalid snapshot {}", path, e);
+      }
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Deletes all the snapshots.
+   */
+  public void reset() {
+    try {
+      for (var path : list()) {
+        Files.deleteIfExists(path);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private Snapshot load(Path path) throws IOException {
+    var checksum = new CRC32C();
+    try (var in = new DataInputStream(new CheckedInputStream(
+        new BufferedInputStream(Files.newInputStream(path)), checksum))) {
+      if (in.readInt() != MAGIC) {
+        throw new IOException("Not a snapshot");
+      }
+      var position = in.readLong();
+      var count = in.readInt();
+      var accounts = new ArrayList<Account>(count);
+      for (var i = 0; i < count; i++) {
+        var account = new Account(in.readInt(), in.readUTF());
+        var scale = in.readInt();
+        var unscaled = new byte[in.readInt()];
+        in.readFully(unscaled);
+        account.setMoney(new BigDecimal(new BigInteger(unscaled), scale));
+        accounts.add(account);
+      }
+      var expected = (int) checksum.getValue();
+      if (in.readInt() != expected) {
+        throw new IOException("Checksum mismatch");
+      }
+      return new Snapshot(position, accounts);
+    }
+  }
+
+  /**
+   * Lists the snapshot files, latest first.
+   */
+  private List<Path> list() {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.filter(path -> path.getFileName().toString().endsWith(SNAPSHOT_SUFFIX))
+          .sorted(Comparator.comparing(Path::getFileName).reversed())
+          .toList();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private Path snapshotPath(long position) {
+    return directory.resolve(String.format("%020d%s", position, SNAPSHOT_SUFFIX));
+  }
+}
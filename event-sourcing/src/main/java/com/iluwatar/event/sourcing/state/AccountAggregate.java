@@ -25,18 +25,29 @@
 package com.iluwatar.event.sourcing.state;
 
 import com.iluwatar.event.sourcing.domain.Account;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * This is the static accounts map holder class. This class holds the state of the accounts.
+ * This is the static accounts map holder class. This class holds the state of the accounts. The
+ * map is concurrent, so events of different accounts can be processed by different threads.
+ *
+ * <p>An account in the map is never changed in place: readers get copies, and events put a new
+ * account instead. This lets {@link #beginSnapshot()} capture the state without copying it. While
+ * a snapshot is open, the first put of each account keeps the account it replaces, so the snapshot
+ * can be read in the background while events keep being processed.
  *
  * <p>Created by Serdar Hamzaogullari on 06.08.2017.
  */
 public class AccountAggregate {
 
-  private static Map<Integer, Account> accounts = new HashMap<>();
+  private static volatile Map<Integer, Account> accounts = new ConcurrentHashMap<>();
+
+  private static volatile CapturedState capture;
 
   private AccountAggregate() {
   }
@@ -47,6 +58,10 @@ public class AccountAggregate {
    * @param account the account
    */
   public static void putAccount(Account account) {
+    var open = capture;
+    if (open != null) {
+      open.preserve(account.getAccountNo());
+    }
     accounts.put(account.getAccountNo(), account);
   }
 
@@ -63,10 +78,96 @@ public class AccountAggregate {
         .orElse(null);
   }
 
+  /**
+   * Gets all accounts.
+   *
+   * @return the copies of all the accounts
+   */
+  public static List<Account> getAccounts() {
+    return accounts.values().stream().map(Account::copy).toList();
+  }
+
+  /**
+   * Replaces the state with the given accounts, e.g. the accounts of a snapshot.
+   *
+   * @param restored the accounts
+   */
+  public static void restoreState(Collection<Account> restored) {
+    var state = new ConcurrentHashMap<Integer, Account>();
+    restored.forEach(account -> state.put(account.getAccountNo(), account.copy()));
+    accounts = state;
+  }
+
+  /**
+   * Captures the current state. Capturing takes constant time, and only one snapshot can be open
+   * at a time.
+   *
+   * @return the snapshot, to be closed once it has been read
+   */
+  public static synchronized CapturedState beginSnapshot() {
+    if (capture != null) {
+      throw new IllegalStateException("A snapshot is already open");
+    }
+    capture = new CapturedState(accounts);
+    return capture;
+  }
+
   /**
    * Reset state.
    */
   public static void resetState() {
-    accounts = new HashMap<>();
+    accounts = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * The state of the accounts when the snapshot was begun.
+   */
+  public static final class CapturedState implements AutoCloseable {
+
+    private static final Account ABSENT = new Account(0, "");
+
+    private final Map<Integer, Account> state;
+    private final Map<Integer, Account> replaced = new ConcurrentHashMap<>();
+
+    private CapturedState(Map<Integer, Account> state) {
+      this.state = state;
+    }
+
+    /**
+     * Keeps the account about to be replaced, unless an older one is kept already. Only the thread
+     * processing the account's events puts it, so nothing changes it between reading and putting.
+     */
+    private void preserve(int accountNo) {
+      if (!replaced.containsKey(accountNo)) {
+        replaced.put(accountNo, Optional.ofNullable(state.get(accountNo)).orElse(ABSENT));
+      }
+    }
+
+    /**
+     * Reads the captured accounts. A replaced account is preserved before it is replaced, so when
+     * the current account is newer than the snapshot, its predecessor is found.
+     *
+     * @return the accounts, which must not be changed
+     */
+    public List<Account> accounts() {
+      var result = new ArrayList<Account>(state.size());
+      state.forEach((accountNo, current) -> {
+        var account = replaced.getOrDefault(accountNo, current);
+        if (account != ABSENT) {
+          result.add(account);
+        }
+      });
+      return result;
+    }
+
+    /**
+     * Stops preserving replaced accounts.
+     */
+    @Override
+    public void close() {
+      if (capture == this) {
+        capture = null;
+      }
+    }
   }
 }
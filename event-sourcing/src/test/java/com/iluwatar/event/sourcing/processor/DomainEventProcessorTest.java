@@ -0,0 +1,197 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.iluwatar.event.sourcing.domain.Account;
+import com.iluwatar.event.sourcing.event.AccountCreateEvent;
+import com.iluwatar.event.sourcing.event.DomainEvent;
+import com.iluwatar.event.sourcing.event.MoneyDepositEvent;
+import com.iluwatar.event.sourcing.event.MoneyTransferEvent;
+import com.iluwatar.event.sourcing.processor.SnapshotStore.Snapshot;
+import com.iluwatar.event.sourcing.state.AccountAggregate;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for the snapshots taken by {@link DomainEventProcessor}.
+ */
+class DomainEventProcessorTest {
+
+  @TempDir
+  Path directory;
+
+  @AfterEach
+  void tearDown() throws IOException {
+    AccountAggregate.resetState();
+    Files.deleteIfExists(Path.of("Journal.json"));
+  }
+
+  @Test
+  void shouldRecoverFromTheLatestSnapshotAndTheTail() {
+    var snapshotStore = new SnapshotStore(directory.resolve("snapshots"));
+    try (var journal = new SegmentedJournal(directory.resolve("journal"), 1024, false);
+        var processor = new DomainEventProcessor(journal, snapshotStore, 10)) {
+      processor.process(new AccountCreateEvent(0, 0, 1, "Daenerys Targaryen"));
+      processor.process(new AccountCreateEvent(1, 1, 2, "Jon Snow"));
+      for (var i = 2; i < 45; i++) {
+        processor.process(i % 3 == 0
+            ? new MoneyTransferEvent(i, i, new BigDecimal("10"), 1, 2)
+            : new MoneyDepositEvent(i, i, 1, new BigDecimal("100.5")));
+      }
+    }
+    var expected = AccountAggregate.getAccounts().toString();
+    var snapshot = snapshotStore.loadLatest().orElseThrow();
+    assertTrue(snapshot.position() > 0);
+    AccountAggregate.resetState();
+
+    try (var journal = new CountingJournal(
+        new SegmentedJournal(directory.resolve("journal"), 1024, false));
+        var processor = new DomainEventProcessor(journal, snapshotStore, 10)) {
+      processor.recover();
+      assertEquals(expected, AccountAggregate.getAccounts().toString());
+      // only the events behind the snapshot were replayed
+      assertTrue(journal.read < 45, "replayed " + journal.read + " events");
+    }
+  }
+
+  @Test
+  void shouldReadTheAccountsAsTheyWereWhenTheSnapshotBegan() {
+    new AccountCreateEvent(0, 0, 1, "Daenerys Targaryen").process();
+    new MoneyDepositEvent(1, 1, 1, new BigDecimal("100")).process();
+    var expected = AccountAggregate.getAccounts().toString();
+
+    try (var captured = AccountAggregate.beginSnapshot()) {
+      new MoneyDepositEvent(2, 2, 1, new BigDecimal("50")).process();
+      new AccountCreateEvent(3, 3, 2, "Jon Snow").process();
+      new MoneyDepositEvent(4, 4, 1, new BigDecimal("25")).process();
+      assertEquals(expected, captured.accounts().toString());
+    }
+    assertEquals(new BigDecimal("175"), AccountAggregate.getAccount(1).getMoney());
+    assertEquals(2, AccountAggregate.getAccounts().size());
+  }
+
+  @Test
+  void shouldRecoverAfterResettingAJournalWithEvents() {
+    var snapshotStore = new SnapshotStore(directory);
+    try (var processor = new DomainEventProcessor(new JsonFileJournal(), snapshotStore, 2)) {
+      processor.process(new AccountCreateEvent(0, 0, 7, "Arya Stark"));
+      processor.process(new MoneyDepositEvent(1, 1, 7, new BigDecimal("1000")));
+      processor.process(new MoneyDepositEvent(2, 2, 7, new BigDecimal("1000")));
+    }
+    AccountAggregate.resetState();
+
+    // the journal reads the events written above, which the reset must drop
+    try (var processor = new DomainEventProcessor(new JsonFileJournal(), snapshotStore, 2)) {
+      processor.reset();
+      processor.process(new AccountCreateEvent(0, 0, 1, "Daenerys Targaryen"));
+      processor.process(new MoneyDepositEvent(1, 1, 1, new BigDecimal("100")));
+      processor.process(new MoneyDepositEvent(2, 2, 1, new BigDecimal("10")));
+    }
+    var expected = AccountAggregate.getAccounts().toString();
+    assertEquals(2, snapshotStore.loadLatest().orElseThrow().position());
+    AccountAggregate.resetState();
+
+    try (var processor = new DomainEventProcessor(new JsonFileJournal(), snapshotStore, 2)) {
+      processor.recover();
+    }
+    assertEquals(expected, AccountAggregate.getAccounts().toString());
+    assertEquals(new BigDecimal("110"), AccountAggregate.getAccount(1).getMoney());
+  }
+
+  @Test
+  void shouldFallBackToThePreviousSnapshotIfTheLatestIsCorrupt() throws IOException {
+    var snapshotStore = new SnapshotStore(directory);
+    var account = new Account(1, "Jon Snow");
+    account.setMoney(new BigDecimal("12.34"));
+    snapshotStore.save(new Snapshot(10, List.of(account)));
+    snapshotStore.save(new Snapshot(20, List.of(account)));
+    snapshotStore.save(new Snapshot(30, List.of(account)));
+    try (var files = Files.list(directory)) {
+      assertEquals(2, files.count());
+    }
+
+    var latest = directory.resolve(String.format("%020d.snapshot", 30));
+    try (var channel = FileChannel.open(latest, StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.wrap(new byte[] {42}), 20);
+    }
+    var snapshot = snapshotStore.loadLatest().orElseThrow();
+    assertEquals(20, snapshot.position());
+    assertEquals(new BigDecimal("12.34"), snapshot.accounts().get(0).getMoney());
+  }
+
+  /**
+   * Journal counting the events read.
+   */
+  private static class CountingJournal extends EventJournal implements AutoCloseable {
+
+    private final SegmentedJournal journal;
+    private int read;
+
+    CountingJournal(SegmentedJournal journal) {
+      this.journal = journal;
+    }
+
+    @Override
+    void write(DomainEvent domainEvent) {
+      journal.write(domainEvent);
+    }
+
+    @Override
+    DomainEvent readNext() {
+      var domainEvent = journal.readNext();
+      if (domainEvent != null) {
+        read++;
+      }
+      return domainEvent;
+    }
+
+    @Override
+    long endPosition() {
+      return journal.endPosition();
+    }
+
+    @Override
+    void seek(long position) {
+      journal.seek(position);
+    }
+
+    @Override
+    public void close() {
+      journal.close();
+    }
+  }
+}
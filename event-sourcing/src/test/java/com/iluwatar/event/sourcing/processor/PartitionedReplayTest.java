@@ -0,0 +1,225 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.iluwatar.event.sourcing.domain.Account;
+import com.iluwatar.event.sourcing.event.AccountCreateEvent;
+import com.iluwatar.event.sourcing.event.DomainEvent;
+import com.iluwatar.event.sourcing.event.MoneyDepositEvent;
+import com.iluwatar.event.sourcing.event.MoneyTransferEvent;
+import com.iluwatar.event.sourcing.state.AccountAggregate;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for {@link PartitionedReplay}.
+ */
+@Slf4j
+class PartitionedReplayTest {
+
+  private static final int ACCOUNTS = 64;
+
+  @TempDir
+  Path directory;
+
+  @AfterEach
+  void tearDown() {
+    AccountAggregate.resetState();
+  }
+
+  @Test
+  void shouldRecoverTheSameStateAsTheSequentialReplay() {
+    writeJournal(20_000);
+    var expected = recover(1);
+    for (var threads : new int[] {2, 3, 8}) {
+      assertEquals(expected, recover(threads), "with " + threads + " threads");
+    }
+  }
+
+  @Test
+  void shouldProcessEventsOfSeveralPartitionsBehindABarrier() {
+    var events = new ArrayList<DomainEvent>();
+    for (var i = 0; i < ACCOUNTS; i++) {
+      events.add(new AccountCreateEvent(i, i, i, "owner" + i));
+    }
+    var random = new Random(42);
+    for (var i = ACCOUNTS; i < 20_000; i++) {
+      var accountNo = random.nextInt(ACCOUNTS);
+      events.add(random.nextInt(4) == 0
+          ? new PoolingEvent(i, new int[] {accountNo, random.nextInt(ACCOUNTS)})
+          : new MoneyDepositEvent(i, i, accountNo, BigDecimal.ONE));
+    }
+    new DomainEventProcessor(new ListJournal(events)).recover(1);
+    var expected = accounts();
+    for (var threads : new int[] {2, 3, 8}) {
+      AccountAggregate.resetState();
+      new DomainEventProcessor(new ListJournal(events)).recover(threads);
+      assertEquals(expected, accounts(), "with " + threads + " threads");
+    }
+  }
+
+  @Test
+  void shouldRethrowAFailingEvent() {
+    try (var journal = new SegmentedJournal(directory, 1024 * 1024, false)) {
+      journal.write(new AccountCreateEvent(0, 0, 1, "Daenerys Targaryen"));
+      journal.write(new AccountCreateEvent(1, 1, 2, "Jon Snow"));
+      journal.write(new MoneyTransferEvent(2, 2, new BigDecimal("10"), 1, 2));
+      for (var i = 3; i < 1000; i++) {
+        journal.write(new MoneyDepositEvent(i, i, 2, BigDecimal.ONE));
+      }
+    }
+    try (var journal = new SegmentedJournal(directory, 1024 * 1024, false)) {
+      var processor = new DomainEventProcessor(journal);
+      var exception = assertThrows(RuntimeException.class, () -> processor.recover(4));
+      assertEquals("Insufficient Account Balance", exception.getMessage());
+    }
+  }
+
+  /**
+   * Logs the replay time for 1 to 8 threads. The number of events can be raised with
+   * {@code -Dreplay.benchmark.events=10000000}.
+   */
+  @Test
+  void shouldReportReplayTimes() {
+    var events = Integer.getInteger("replay.benchmark.events", 200_000);
+    writeJournal(events);
+    for (var threads : new int[] {1, 2, 4, 8}) {
+      var start = System.nanoTime();
+      recover(threads);
+      var millis = (System.nanoTime() - start) / 1_000_000;
+      LOGGER.info("Replayed {} events on {} threads in {} ms", events, threads, millis);
+    }
+  }
+
+  private void writeJournal(int events) {
+    var random = new Random(42);
+    try (var journal = new SegmentedJournal(directory, SegmentedJournal.DEFAULT_SEGMENT_SIZE,
+        false)) {
+      for (var i = 0; i < ACCOUNTS; i++) {
+        journal.write(new AccountCreateEvent(i, i, i, "owner" + i));
+        journal.write(new MoneyDepositEvent(i, i, i, new BigDecimal("1000000")));
+      }
+      for (var i = 2 * ACCOUNTS; i < events; i++) {
+        var accountNo = random.nextInt(ACCOUNTS);
+        journal.write(random.nextInt(4) == 0
+            ? new MoneyTransferEvent(i, i, new BigDecimal("0.5"), accountNo,
+                random.nextInt(ACCOUNTS))
+            : new MoneyDepositEvent(i, i, accountNo, new BigDecimal("1.25")));
+      }
+    }
+  }
+
+  private String recover(int threads) {
+    AccountAggregate.resetState();
+    try (var journal = new SegmentedJournal(directory, SegmentedJournal.DEFAULT_SEGMENT_SIZE,
+        false)) {
+      new DomainEventProcessor(journal).recover(threads);
+    }
+    return accounts();
+  }
+
+  private static String accounts() {
+    return AccountAggregate.getAccounts().stream()
+        .sorted(Comparator.comparingInt(Account::getAccountNo))
+        .toList()
+        .toString();
+  }
+
+  /**
+   * Event setting the money of all its accounts to their sum, so the result depends on the order
+   * of the events of all the accounts.
+   */
+  private static class PoolingEvent extends DomainEvent {
+
+    private final int[] accountNos;
+
+    PoolingEvent(long sequenceId, int[] accountNos) {
+      super(sequenceId, sequenceId, "PoolingEvent");
+      this.accountNos = accountNos;
+    }
+
+    @Override
+    public void process() {
+      var sum = BigDecimal.ZERO;
+      for (var accountNo : accountNos) {
+        sum = sum.add(AccountAggregate.getAccount(accountNo).getMoney());
+      }
+      for (var accountNo : accountNos) {
+        var account = AccountAggregate.getAccount(accountNo);
+        account.setMoney(sum);
+        AccountAggregate.putAccount(account);
+      }
+    }
+
+    @Override
+    public int[] accountNos() {
+      return accountNos;
+    }
+  }
+
+  /**
+   * Journal reading the events of a list.
+   */
+  private static class ListJournal extends EventJournal {
+
+    private final Iterator<DomainEvent> events;
+
+    ListJournal(List<DomainEvent> events) {
+      this.events = events.iterator();
+    }
+
+    @Override
+    void write(DomainEvent domainEvent) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    DomainEvent readNext() {
+      return events.hasNext() ? events.next() : null;
+    }
+
+    @Override
+    long endPosition() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    void seek(long position) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -0,0 +1,213 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.iluwatar.event.sourcing.event.AccountCreateEvent;
+import com.iluwatar.event.sourcing.event.DomainEvent;
+import com.iluwatar.event.sourcing.event.MoneyDepositEvent;
+import com.iluwatar.event.sourcing.event.MoneyTransferEvent;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for {@link SegmentedJournal}.
+ */
+@Slf4j
+class SegmentedJournalTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void shouldReadBackEveryEventType() {
+    try (var journal = new SegmentedJournal(directory, 4096, false)) {
+      journal.write(new AccountCreateEvent(0, 10, 1, "Daenerys Targaryen"));
+      journal.write(new MoneyDepositEvent(1, 11, 1, new BigDecimal("100000.25")));
+      journal.write(new MoneyTransferEvent(2, 12, new BigDecimal("1e40"), 1, 2));
+
+      var created = (AccountCreateEvent) journal.readNext();
+      assertEquals(0, created.getSequenceId());
+      assertEquals(10, created.getCreatedTime());
+      assertEquals("Daenerys Targaryen", created.getOwner());
+      assertFalse(created.isRealTime());
+      var deposit = (MoneyDepositEvent) journal.readNext();
+      assertEquals(new BigDecimal("100000.25"), deposit.getMoney());
+      var transfer = (MoneyTransferEvent) journal.readNext();
+      assertEquals(new BigDecimal("1e40"), transfer.getMoney());
+      assertEquals(1, transfer.getAccountNoFrom());
+      assertEquals(2, transfer.getAccountNoTo());
+      assertNull(journal.readNext());
+    }
+  }
+
+  @Test
+  void shouldRollOverSegmentsAndRecoverAfterRestart() throws IOException {
+    try (var journal = new SegmentedJournal(directory, 1024, false)) {
+      for (var i = 0; i < 100; i++) {
+        journal.write(deposit(i));
+      }
+    }
+    assertTrue(countSegments() > 1);
+
+    try (var journal = new SegmentedJournal(directory, 1024, false)) {
+      journal.write(deposit(100));
+      for (var i = 0; i <= 100; i++) {
+        assertEquals(i, journal.readNext().getSequenceId());
+      }
+      assertNull(journal.readNext());
+    }
+  }
+
+  @Test
+  void shouldStopAtTornRecordAndOverwriteIt() throws IOException {
+    try (var journal = new SegmentedJournal(directory, 4096, false)) {
+      for (var i = 0; i < 3; i++) {
+        journal.write(deposit(i));
+      }
+    }
+    // corrupt the payload of the last record, as if the process died while writing it
+    var segment = directory.resolve("0000000000.segment");
+    var recordSize = recordSize();
+    try (var channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.wrap(new byte[] {42}), 2L * recordSize + recordSize - 1);
+    }
+
+    try (var journal = new SegmentedJournal(directory, 4096, false)) {
+      assertEquals(0, journal.readNext().getSequenceId());
+      assertEquals(1, journal.readNext().getSequenceId());
+      assertNull(journal.readNext());
+      journal.write(deposit(3));
+      assertEquals(3, journal.readNext().getSequenceId());
+    }
+  }
+
+  @Test
+  void shouldMakeConcurrentWritesDurable() throws Exception {
+    try (var journal = new SegmentedJournal(directory, 1024 * 1024, true)) {
+      var executor = Executors.newFixedThreadPool(4);
+      for (var i = 0; i < 400; i++) {
+        var sequenceId = i;
+        executor.execute(() -> journal.write(deposit(sequenceId)));
+      }
+      executor.shutdown();
+      assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+      var read = 0;
+      while (journal.readNext() != null) {
+        read++;
+      }
+      assertEquals(400, read);
+    }
+  }
+
+  /**
+   * Compares the append throughput and replay time with the {@link JsonFileJournal}. The number of
+   * events can be raised with {@code -Djournal.benchmark.events=10000000}; the JSON journal gets at
+   * most 2000 of them, as it reopens its file for every event.
+   */
+  @Test
+  void shouldThrowWhenInterruptedBeforeTheEventIsSynced() {
+    try (var journal = new SegmentedJournal(directory, 4096, true)) {
+      Thread.currentThread().interrupt();
+      var e = assertThrows(UncheckedIOException.class,
+          () -> journal.write(new AccountCreateEvent(0, 0, 1, "Daenerys Targaryen")));
+      assertInstanceOf(InterruptedIOException.class, e.getCause());
+      assertTrue(Thread.interrupted());
+
+      // the event has been appended and a later write waits for both
+      journal.write(new AccountCreateEvent(1, 1, 2, "Jon Snow"));
+      journal.seek(0);
+      assertEquals(0, journal.readNext().getSequenceId());
+      assertEquals(1, journal.readNext().getSequenceId());
+    }
+  }
+
+  @Test
+  void shouldOutperformTheJsonJournal() {
+    var events = Integer.getInteger("journal.benchmark.events", 200_000);
+    try (var journal = new SegmentedJournal(directory, SegmentedJournal.DEFAULT_SEGMENT_SIZE,
+        false)) {
+      report("SegmentedJournal", journal, events);
+    }
+    var jsonJournal = new JsonFileJournal();
+    try {
+      jsonJournal.reset();
+      report("JsonFileJournal", jsonJournal, Math.min(events, 2_000));
+    } finally {
+      jsonJournal.reset();
+    }
+  }
+
+  private static void report(String name, EventJournal journal, int events) {
+    var start = System.nanoTime();
+    for (var i = 0; i < events; i++) {
+      journal.write(deposit(i));
+    }
+    var appended = System.nanoTime();
+    var replayJournal = journal instanceof JsonFileJournal ? new JsonFileJournal() : journal;
+    var replayed = 0;
+    while (replayJournal.readNext() != null) {
+      replayed++;
+    }
+    var end = System.nanoTime();
+    assertEquals(events, replayed);
+    LOGGER.info("{}: {} events, append {} events/s, replay {} events/s", name, events,
+        events * 1_000_000_000L / (appended - start), events * 1_000_000_000L / (end - appended));
+  }
+
+  private static DomainEvent deposit(long sequenceId) {
+    return new MoneyDepositEvent(sequenceId, sequenceId, 1, new BigDecimal("100"));
+  }
+
+  private int recordSize() {
+    var buffer = ByteBuffer.allocate(256);
+    EventCodec.encode(deposit(0), buffer);
+    return 2 * Integer.BYTES + buffer.position();
+  }
+
+  private long countSegments() throws IOException {
+    try (var files = Files.list(directory)) {
+      return files.count();
+    }
+  }
+}
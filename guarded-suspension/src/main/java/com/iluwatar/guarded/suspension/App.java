@@ -34,9 +34,9 @@ import lombok.extern.slf4j.Slf4j;
  * The implementation utilizes a GuardedQueue, which features two primary methods: `get` and `put`.
  * The key condition governing these operations is that elements cannot be retrieved (`get`) from
  * an empty queue. When a thread attempts to retrieve an element under this condition, it triggers
- * the invocation of the `wait` method from the Object class, causing the thread to pause.
- * Conversely, when an element is added (`put`) to the queue by another thread, it invokes the
- * `notify` method. This notifies the waiting thread that it can now successfully retrieve an
+ * the thread to await the queue's not-empty condition, causing the thread to pause.
+ * Conversely, when an element is added (`put`) to the queue by another thread, it signals the
+ * condition. This notifies the waiting thread that it can now successfully retrieve an
  * element from the queue.
  */
 @Slf4j
@@ -51,7 +51,14 @@ public class App {
     var executorService = Executors.newFixedThreadPool(3);
 
     //here we create first thread which is supposed to get from guardedQueue
-    executorService.execute(guardedQueue::get);
+    executorService.execute(() -> {
+      try {
+        LOGGER.info("waiting");
+        LOGGER.info("got {}", guardedQueue.get());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
 
     // here we wait two seconds to show that the thread which is trying
     // to get from guardedQueue will be waiting
@@ -62,7 +69,14 @@ public class App {
     }
     // now we execute second thread which will put number to guardedQueue
     // and notify first thread that it could get
-    executorService.execute(() -> guardedQueue.put(20));
+    executorService.execute(() -> {
+      try {
+        LOGGER.info("putting");
+        guardedQueue.put(20);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
     executorService.shutdown();
     try {
       executorService.awaitTermination(30, TimeUnit.SECONDS);
@@ -24,52 +24,191 @@
  */
 package com.iluwatar.guarded.suspension;
 
-import java.util.LinkedList;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Objects;
 import java.util.Queue;
-import lombok.extern.slf4j.Slf4j;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Guarded Queue is an implementation for Guarded Suspension Pattern Guarded suspension pattern is
  * used to handle a situation when you want to execute a method on an object which is not in a
  * proper state.
  *
+ * <p>Taking an element is guarded by the queue not being empty, and putting one by the queue not
+ * being full, so a fast producer is held back until consumers catch up. Each guard has its own
+ * {@link Condition}, so a put only wakes a consumer and a take only wakes a producer. Consumers
+ * can wait for a limited time with {@link #poll(long, TimeUnit)}, and pick up all waiting elements
+ * at once with {@link #drainTo(Collection, int)}.
+ *
  * @see <a href="http://java-design-patterns.com/patterns/guarded-suspension/">http://java-design-patterns.com/patterns/guarded-suspension/</a>
  */
-@Slf4j
 public class GuardedQueue {
   private final Queue<Integer> sourceList;
+  private final int capacity;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition notEmpty = lock.newCondition();
+  private final Condition notFull = lock.newCondition();
 
+  /**
+   * Create an unbounded queue.
+   */
   public GuardedQueue() {
-    this.sourceList = new LinkedList<>();
+    this(Integer.MAX_VALUE);
+  }
+
+  /**
+   * Create a queue holding at most {@code capacity} elements.
+   *
+   * @param capacity maximum number of elements
+   */
+  public GuardedQueue(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be positive");
+    }
+    this.capacity = capacity;
+    this.sourceList = new ArrayDeque<>(Math.min(capacity, 16));
+  }
+
+  /**
+   * Take the first element of the queue, waiting until there is one.
+   *
+   * @return first element of the queue
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public Integer get() throws InterruptedException {
+    lock.lockInterruptibly();
+    try {
+      while (sourceList.isEmpty()) {
+        notEmpty.await();
+      }
+      return dequeue();
+    } finally {
+      lock.unlock();
+    }
   }
 
   /**
-   * Get the last element of the queue if exists.
+   * Take the first element of the queue, waiting at most the given time until there is one.
    *
-   * @return last element of a queue if queue is not empty
+   * @param timeout how long to wait
+   * @param unit    unit of the timeout
+   * @return first element of the queue, or null if the queue stayed empty
+   * @throws InterruptedException if interrupted while waiting
    */
-  public synchronized Integer get() {
-    while (sourceList.isEmpty()) {
-      try {
-        LOGGER.info("waiting");
-        wait();
-      } catch (InterruptedException e) {
-        LOGGER.error("Error occurred: ", e);
+  public Integer poll(long timeout, TimeUnit unit) throws InterruptedException {
+    var nanos = unit.toNanos(timeout);
+    lock.lockInterruptibly();
+    try {
+      while (sourceList.isEmpty()) {
+        if (nanos <= 0) {
+          return null;
+        }
+        nanos = notEmpty.awaitNanos(nanos);
       }
+      return dequeue();
+    } finally {
+      lock.unlock();
     }
-    LOGGER.info("getting");
-    return sourceList.peek();
   }
 
   /**
-   * Put a value in the queue.
+   * Move up to {@code maxElements} elements to the collection without waiting.
+   *
+   * @param collection  collection to add the elements to
+   * @param maxElements maximum number of elements to move
+   * @return number of elements moved
+   */
+  public int drainTo(Collection<? super Integer> collection, int maxElements) {
+    Objects.requireNonNull(collection);
+    lock.lock();
+    try {
+      var drained = 0;
+      while (drained < maxElements && !sourceList.isEmpty()) {
+        collection.add(sourceList.remove());
+        drained++;
+      }
+      if (drained > 1) {
+        notFull.signalAll();
+      } else if (drained == 1) {
+        notFull.signal();
+      }
+      return drained;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Put a value in the queue, waiting while the queue is full.
    *
    * @param e number which we want to put to our queue
+   * @throws InterruptedException if interrupted while waiting
    */
-  public synchronized void put(Integer e) {
-    LOGGER.info("putting");
+  public void put(Integer e) throws InterruptedException {
+    Objects.requireNonNull(e);
+    lock.lockInterruptibly();
+    try {
+      while (sourceList.size() == capacity) {
+        notFull.await();
+      }
+      enqueue(e);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Put a value in the queue, waiting at most the given time while the queue is full.
+   *
+   * @param e       number which we want to put to our queue
+   * @param timeout how long to wait
+   * @param unit    unit of the timeout
+   * @return false if the queue stayed full
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public boolean offer(Integer e, long timeout, TimeUnit unit) throws InterruptedException {
+    Objects.requireNonNull(e);
+    var nanos = unit.toNanos(timeout);
+    lock.lockInterruptibly();
+    try {
+      while (sourceList.size() == capacity) {
+        if (nanos <= 0) {
+          return false;
+        }
+        nanos = notFull.awaitNanos(nanos);
+      }
+      enqueue(e);
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Number of elements in the queue.
+   *
+   * @return int
+   */
+  public int size() {
+    lock.lock();
+    try {
+      return sourceList.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void enqueue(Integer e) {
     sourceList.add(e);
-    LOGGER.info("notifying");
-    notify();
+    notEmpty.signal();
+  }
+
+  private Integer dequeue() {
+    var e = sourceList.remove();
+    notFull.signal();
+    return e;
   }
 }
@@ -25,9 +25,18 @@
 package com.iluwatar.guarded.suspension;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
 
@@ -43,7 +52,10 @@ class GuardedQueueTest {
     var g = new GuardedQueue();
     var executorService = Executors.newFixedThreadPool(2);
     executorService.submit(() -> value = g.get());
-    executorService.submit(() -> g.put(10));
+    executorService.submit(() -> {
+      g.put(10);
+      return null;
+    });
     executorService.shutdown();
     try {
       executorService.awaitTermination(30, TimeUnit.SECONDS);
@@ -54,10 +66,105 @@ class GuardedQueueTest {
   }
 
   @Test
-  void testPut() {
+  void testPut() throws InterruptedException {
     var g = new GuardedQueue();
     g.put(12);
     assertEquals(Integer.valueOf(12), g.get());
   }
 
+  @Test
+  void shouldRemoveTakenElements() throws InterruptedException {
+    var g = new GuardedQueue();
+    g.put(1);
+    g.put(2);
+    assertEquals(Integer.valueOf(1), g.get());
+    assertEquals(Integer.valueOf(2), g.get());
+    assertEquals(0, g.size());
+  }
+
+  @Test
+  void shouldTimeOutWhenEmptyOrFull() throws InterruptedException {
+    var g = new GuardedQueue(1);
+    assertNull(g.poll(10, TimeUnit.MILLISECONDS));
+    assertTrue(g.offer(1, 10, TimeUnit.MILLISECONDS));
+    assertFalse(g.offer(2, 10, TimeUnit.MILLISECONDS));
+    assertEquals(Integer.valueOf(1), g.poll(10, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  void shouldDrainUpToMaxElements() throws InterruptedException {
+    var g = new GuardedQueue();
+    for (var i = 0; i < 5; i++) {
+      g.put(i);
+    }
+    var batch = new ArrayList<Integer>();
+    assertEquals(3, g.drainTo(batch, 3));
+    assertEquals(List.of(0, 1, 2), batch);
+    assertEquals(2, g.size());
+  }
+
+  @Test
+  void shouldHoldBackProducerWhileFull() throws Exception {
+    var g = new GuardedQueue(2);
+    g.put(1);
+    g.put(2);
+    var executorService = Executors.newSingleThreadExecutor();
+    try {
+      var put = executorService.submit(() -> {
+        g.put(3);
+        return null;
+      });
+      assertThrows(TimeoutException.class, () -> put.get(50, TimeUnit.MILLISECONDS));
+      assertEquals(Integer.valueOf(1), g.get());
+      put.get(10, TimeUnit.SECONDS);
+      assertEquals(2, g.size());
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  @Test
+  void shouldHandEachElementToOneOfManyWaitingConsumers() throws Exception {
+    var items = 20_000;
+    var g = new GuardedQueue(16);
+    var seen = new AtomicIntegerArray(items);
+    var executorService = Executors.newFixedThreadPool(34);
+    try {
+      var consumers = new ArrayList<Future<?>>();
+      for (var c = 0; c < 32; c++) {
+        var batched = c % 2 == 0;
+        consumers.add(executorService.submit(() -> {
+          var batch = new ArrayList<Integer>();
+          Integer first;
+          while ((first = g.poll(1, TimeUnit.SECONDS)) != null) {
+            batch.add(first);
+            if (batched) {
+              g.drainTo(batch, 7);
+            }
+            batch.forEach(seen::incrementAndGet);
+            batch.clear();
+          }
+          return null;
+        }));
+      }
+      for (var p = 0; p < 2; p++) {
+        var from = p;
+        executorService.submit(() -> {
+          for (var i = from; i < items; i += 2) {
+            g.put(i);
+          }
+          return null;
+        });
+      }
+      for (var consumer : consumers) {
+        consumer.get(1, TimeUnit.MINUTES);
+      }
+      for (var i = 0; i < items; i++) {
+        assertEquals(1, seen.get(i), "element " + i);
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
 }
@@ -0,0 +1,132 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.guarded.suspension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Measures the throughput of {@link GuardedQueue} with many waiting consumers, taking elements one
+ * at a time and in batches. The number of elements can be raised with the {@code
+ * guarded.queue.benchmark.items} property. Only runs with the benchmark profile, e.g. {@code mvn
+ * test -Pbenchmark -Dtest=GuardedQueueThroughputTest}.
+ */
+@Slf4j
+@Tag("benchmark")
+class GuardedQueueThroughputTest {
+
+  private static final int ITEMS = Integer.getInteger("guarded.queue.benchmark.items", 200_000);
+
+  private static final int PRODUCERS = 4;
+
+  private static final int CONSUMERS = 32;
+
+  private static final int CAPACITY = 256;
+
+  private static final int BATCH = 64;
+
+  @Test
+  void compareSingleAndBatchedConsumers() throws Exception {
+    run("poll", false);
+    run("drainTo", true);
+  }
+
+  private void run(String name, boolean batched) throws Exception {
+    measure(batched);
+    var elapsed = measure(batched);
+    LOGGER.info("{} with {} producers and {} consumers: {} items/s", name, PRODUCERS, CONSUMERS,
+        ITEMS * TimeUnit.SECONDS.toNanos(1) / Math.max(1, elapsed));
+  }
+
+  /**
+   * Run producers and consumers, checking that every element is taken exactly once.
+   */
+  private long measure(boolean batched) throws Exception {
+    var queue = new GuardedQueue(CAPACITY);
+    var seen = new AtomicIntegerArray(ITEMS);
+    var remaining = new CountDownLatch(ITEMS);
+    var start = new CountDownLatch(1);
+    var executor = Executors.newFixedThreadPool(PRODUCERS + CONSUMERS);
+    try {
+      var producers = new ArrayList<Future<?>>();
+      for (var p = 0; p < PRODUCERS; p++) {
+        var first = p;
+        producers.add(executor.submit(() -> {
+          start.await();
+          for (var i = first; i < ITEMS; i += PRODUCERS) {
+            queue.put(i);
+          }
+          return null;
+        }));
+      }
+      for (var c = 0; c < CONSUMERS; c++) {
+        executor.submit(() -> consume(queue, batched, seen, remaining));
+      }
+      var begin = System.nanoTime();
+      start.countDown();
+      for (var producer : producers) {
+        producer.get(5, TimeUnit.MINUTES);
+      }
+      remaining.await(5, TimeUnit.MINUTES);
+      var elapsed = System.nanoTime() - begin;
+      for (var i = 0; i < ITEMS; i++) {
+        assertEquals(1, seen.get(i), "element " + i);
+      }
+      return elapsed;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static Void consume(GuardedQueue queue, boolean batched, AtomicIntegerArray seen,
+                              CountDownLatch remaining) throws InterruptedException {
+    var batch = new ArrayList<Integer>(BATCH);
+    while (remaining.getCount() > 0) {
+      var first = queue.poll(10, TimeUnit.MILLISECONDS);
+      if (first == null) {
+        continue;
+      }
+      batch.add(first);
+      if (batched) {
+        queue.drainTo(batch, BATCH - 1);
+      }
+      for (var e : batch) {
+        seen.incrementAndGet(e);
+        remaining.countDown();
+      }
+      batch.clear();
+    }
+    return null;
+  }
+}
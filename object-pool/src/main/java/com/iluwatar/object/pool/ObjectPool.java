@@ -24,41 +24,494 @@
  */
 package com.iluwatar.object.pool;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
 
 /**
- * Generic object pool.
+ * Generic object pool. The pool can be bounded, in which case a check out waits until another
+ * thread checks an object in. Objects are checked out and in without locking: every pooled object
+ * carries its own state, which a borrower claims with a compare-and-set. Each thread remembers the
+ * last object it used, so a thread that checks the same object out and in again only touches that
+ * object. Every idle object is also kept on a shared stack, the most recently used on top, where
+ * the other threads find it. Objects are looked up by identity when they are checked in.
+ *
+ * <p>A borrower that finds no idle object while the pool is full, because the missing objects are
+ * still being created in the background, waits until one is published instead of spinning.
+ *
+ * <p>An object is validated before it is handed out and discarded if it is no longer valid.
+ * Objects idle for longer than the idle timeout are evicted in the background.
+ *
+ * <p>A pool with a minimum number of idle objects creates objects in the background, so checking
+ * out rarely pays for {@link #create()}. It creates the minimum set once {@link #prewarm()} is
+ * called or the first object is checked out. After that it keeps enough idle objects for the
+ * check outs expected while another object is being created, judging by the observed borrow
+ * rate, hold time and create latency. Objects beyond the minimum are evicted once they have been
+ * idle for longer than the idle timeout.
  *
  * @param <T> Type T of Object in the Pool
  */
-public abstract class ObjectPool<T> {
+@Slf4j
+public abstract class ObjectPool<T> implements AutoCloseable {
+
+  private static final int IDLE = 0;
+  private static final int IN_USE = 1;
+  private static final int REMOVED = 2;
+
+  private static final long MAINTENANCE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+  private static final double RATE_SMOOTHING = 0.3;
+
+  private final int minIdle;
+  private final int maxSize;
+  private final long idleTimeoutNanos;
+
+  private final Map<Identity, PooledObject<T>> all = new ConcurrentHashMap<>();
+  private final ConcurrentLinkedDeque<PooledObject<T>> shared = new ConcurrentLinkedDeque<>();
+  private final ThreadLocal<PooledObject<T>> local = new ThreadLocal<>();
+  private final Semaphore permits;
+  private final AtomicInteger size = new AtomicInteger();
+  private final AtomicInteger idle = new AtomicInteger();
+  private final ScheduledExecutorService maintainer;
+  private final PoolMetrics metrics = new PoolMetrics(idle::get, size::get);
+  private final AtomicBoolean fillRequested = new AtomicBoolean();
+  private final AtomicLong published = new AtomicLong();
+  private final AtomicInteger waiters = new AtomicInteger();
+  private final ReentrantLock waitLock = new ReentrantLock();
+  private final Condition objectPublished = waitLock.newCondition();
+  private volatile boolean warm;
+
+  // only used by the maintainer thread
+  private long lastBorrowCount;
+  private long lastSampleNanos;
+  private double borrowRate;
+
+  /**
+   * Create an unbounded pool which never evicts idle objects.
+   */
+  protected ObjectPool() {
+    this(Integer.MAX_VALUE, Duration.ZERO);
+  }
+
+  /**
+   * Create a pool of at most {@code maxSize} objects. Objects idle for longer than {@code
+   * idleTimeout} are evicted, unless the timeout is zero.
+   */
+  protected ObjectPool(int maxSize, Duration idleTimeout) {
+    this(0, maxSize, idleTimeout);
+  }
 
-  private final Set<T> available = new HashSet<>();
-  private final Set<T> inUse = new HashSet<>();
+  /**
+   * Create a pool of at most {@code maxSize} objects which keeps at least {@code minIdle} idle
+   * objects, creating them in the background. Objects idle for longer than {@code idleTimeout}
+   * are evicted down to the minimum, unless the timeout is zero.
+   */
+  protected ObjectPool(int minIdle, int maxSize, Duration idleTimeout) {
+    if (minIdle < 0 || minIdle > maxSize || maxSize < 1 || idleTimeout.isNegative()) {
+      throw new IllegalArgumentException("Invalid pool size or idle timeout");
+    }
+    this.minIdle = minIdle;
+    this.maxSize = maxSize;
+    this.idleTimeoutNanos = idleTimeout.toNanos();
+    this.permits = new Semaphore(maxSize);
+    if (idleTimeout.isZero() && minIdle == 0) {
+      this.maintainer = null;
+    } else {
+      this.maintainer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        var thread = new Thread(runnable, "object-pool-maintainer");
+        thread.setDaemon(true);
+        return thread;
+      });
+      var period = idleTimeout.isZero()
+          ? MAINTENANCE_NANOS : Math.max(1, Math.min(idleTimeoutNanos / 2, MAINTENANCE_NANOS));
+      maintainer.scheduleWithFixedDelay(this::maintain, period, period, TimeUnit.NANOSECONDS);
+    }
+  }
 
   protected abstract T create();
 
   /**
-   * Checkout object from pool.
+   * Check whether a pooled object may still be handed out.
    */
-  public synchronized T checkOut() {
-    if (available.isEmpty()) {
-      available.add(create());
+  protected boolean validate(T instance) {
+    return true;
+  }
+
+  /**
+   * Release the resources of an object that leaves the pool.
+   */
+  protected void destroy(T instance) {
+    // nothing to release by default
+  }
+
+  /**
+   * Checkout object from pool, waiting as long as it takes when the pool is exhausted.
+   */
+  public T checkOut() {
+    var start = System.nanoTime();
+    var interrupted = false;
+    try {
+      while (true) {
+        permits.acquireUninterruptibly();
+        try {
+          return borrow(start, Long.MAX_VALUE);
+        } catch (InterruptedException e) {
+          // keep waiting, the interrupt is restored once an object is handed out
+          interrupted = true;
+        }
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
     }
-    var instance = available.iterator().next();
-    available.remove(instance);
-    inUse.add(instance);
-    return instance;
   }
 
-  public synchronized void checkIn(T instance) {
-    inUse.remove(instance);
-    available.add(instance);
+  /**
+   * Checkout object from pool, waiting at most the given timeout when the pool is exhausted or
+   * the object is still being created.
+   *
+   * @return the object, or empty when none became available in time
+   * @throws InterruptedException if the thread is interrupted while waiting
+   */
+  public Optional<T> checkOut(Duration timeout) throws InterruptedException {
+    var start = System.nanoTime();
+    var nanos = timeout.toNanos();
+    if (!permits.tryAcquire(nanos, TimeUnit.NANOSECONDS)) {
+      return Optional.empty();
+    }
+    return Optional.ofNullable(borrow(start, nanos));
   }
 
+  /**
+   * Return an object to the pool.
+   *
+   * @throws IllegalArgumentException if the object is not checked out from this pool
+   */
+  public void checkIn(T instance) {
+    var cached = local.get();
+    var pooled = cached != null && cached.instance == instance
+        ? cached : all.get(new Identity(instance));
+    if (pooled == null) {
+      throw new IllegalArgumentException(instance + " is not checked out from this pool");
+    }
+    var now = System.nanoTime();
+    final var borrowed = pooled.lastUsed;
+    pooled.lastUsed = now;
+    idle.incrementAndGet();
+    if (!pooled.state.compareAndSet(IN_USE, IDLE)) {
+      idle.decrementAndGet();
+      throw new IllegalArgumentException(instance + " is not checked out from this pool");
+    }
+    metrics.recordHold(now - borrowed);
+    if (pooled != cached && (cached == null || cached.state.get() != IDLE)) {
+      local.set(pooled);
+    }
+    share(pooled);
+    permits.release();
+  }
+
+  /**
+   * Create the minimum set of idle objects in the background, and keep the pool ahead of demand
+   * from now on.
+   *
+   * @return a future completed once the idle objects are created
+   */
+  public CompletableFuture<Void> prewarm() {
+    warm = true;
+    if (maintainer == null) {
+      return CompletableFuture.completedFuture(null);
+    }
+    return CompletableFuture.runAsync(this::fill, maintainer);
+  }
+
+  public PoolMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Evict the objects which have been idle for longer than the idle timeout, keeping the minimum
+   * number of idle objects.
+   */
+  public void evictIdle() {
+    var now = System.nanoTime();
+    for (var pooled : all.values()) {
+      if (now - pooled.lastUsed > idleTimeoutNanos && pooled.state.get() == IDLE
+          && idle.get() > minIdle && pooled.state.compareAndSet(IDLE, REMOVED)) {
+        idle.decrementAndGet();
+        discard(pooled);
+      }
+    }
+  }
+
+  /**
+   * Stop evicting idle objects and destroy the ones currently idle.
+   */
   @Override
-  public synchronized String toString() {
-    return String.format("Pool available=%d inUse=%d", available.size(), inUse.size());
+  public void close() {
+    if (maintainer != null) {
+      maintainer.shutdownNow();
+    }
+    for (var pooled : all.values()) {
+      if (pooled.state.compareAndSet(IDLE, REMOVED)) {
+        idle.decrementAndGet();
+        discard(pooled);
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    var available = idle.get();
+    return String.format("Pool available=%d inUse=%d", available, size.get() - available);
+  }
+
+  /**
+   * Hand out an object once a permit is held. A permit guarantees that an idle object exists, that
+   * another one may be created, or that one is being created in the background. In the last case
+   * the borrower waits until an object is published or the timeout, counted from the start of the
+   * check out, has passed. The permit is released unless an object is handed out.
+   *
+   * @return the object, or null when the timeout has passed
+   */
+  private T borrow(long start, long timeoutNanos) throws InterruptedException {
+    if (!warm) {
+      warm = true;
+    }
+    try {
+      while (true) {
+        var seen = published.get();
+        var pooled = claimIdle();
+        if (pooled == null) {
+          requestFill();
+          pooled = tryCreate(true);
+        }
+        if (pooled == null) {
+          var remaining = timeoutNanos - (System.nanoTime() - start);
+          if (remaining <= 0) {
+            permits.release();
+            return null;
+          }
+          awaitPublished(seen, remaining);
+          continue;
+        }
+        if (validate(pooled.instance)) {
+          local.set(pooled);
+          var now = System.nanoTime();
+          pooled.lastUsed = now;
+          metrics.recordWait(now - start);
+          return pooled.instance;
+        }
+        LOGGER.debug("Discarding invalid {}", pooled.instance);
+        pooled.state.set(REMOVED);
+        discard(pooled);
+      }
+    } catch (RuntimeException | InterruptedException e) {
+      permits.release();
+      throw e;
+    }
+  }
+
+  private PooledObject<T> claimIdle() {
+    var cached = local.get();
+    if (cached != null && claim(cached)) {
+      return cached;
+    }
+    PooledObject<T> pooled;
+    while ((pooled = shared.poll()) != null) {
+      // cleared before the state is read, so that a concurrent check in shares the object again
+      pooled.shared.set(false);
+      if (claim(pooled)) {
+        return pooled;
+      }
+    }
+    return null;
+  }
+
+  /*
+   * Puts an idle object on the shared stack unless it is there already. An object stays on the
+   * stack while its last user checks it out and in again, so that costs no push.
+   */
+  private void share(PooledObject<T> pooled) {
+    if (!pooled.shared.get() && pooled.shared.compareAndSet(false, true)) {
+      shared.push(pooled);
+    }
+  }
+
+  /*
+   * Waits until an object has been published since the borrower last looked for one, i.e. created
+   * in the background or discarded to make room for another one. The wait is bounded as a guard
+   * against a missed signal.
+   */
+  private void awaitPublished(long seen, long timeoutNanos) throws InterruptedException {
+    waitLock.lock();
+    waiters.incrementAndGet();
+    try {
+      var nanos = Math.min(timeoutNanos, MAINTENANCE_NANOS);
+      while (published.get() == seen && nanos > 0) {
+        nanos = objectPublished.awaitNanos(nanos);
+      }
+    } finally {
+      waiters.decrementAndGet();
+      waitLock.unlock();
+    }
+  }
+
+  /*
+   * Wakes up the borrowers waiting for an object. The counter is incremented before the waiters
+   * are read, and a borrower registers as a waiter before it reads the counter, so either the
+   * borrower sees the new count or it is signalled.
+   */
+  private void publish() {
+    published.incrementAndGet();
+    if (waiters.get() > 0) {
+      waitLock.lock();
+      try {
+        objectPublished.signalAll();
+      } finally {
+        waitLock.unlock();
+      }
+    }
+  }
+
+  private boolean claim(PooledObject<T> pooled) {
+    if (pooled.state.get() == IDLE && pooled.state.compareAndSet(IDLE, IN_USE)) {
+      idle.decrementAndGet();
+      return true;
+    }
+    return false;
+  }
+
+  private PooledObject<T> tryCreate(boolean inline) {
+    var current = size.get();
+    while (current < maxSize) {
+      if (size.compareAndSet(current, current + 1)) {
+        try {
+          var start = System.nanoTime();
+          var pooled = new PooledObject<>(create());
+          metrics.recordCreate(System.nanoTime() - start, inline);
+          all.put(new Identity(pooled.instance), pooled);
+          return pooled;
+        } catch (RuntimeException e) {
+          size.decrementAndGet();
+          publish();
+          throw e;
+        }
+      }
+      current = size.get();
+    }
+    return null;
+  }
+
+  private void maintain() {
+    var now = System.nanoTime();
+    var borrows = metrics.getBorrowCount();
+    if (lastSampleNanos != 0) {
+      var rate = (double) (borrows - lastBorrowCount) / Math.max(1, now - lastSampleNanos);
+      borrowRate = RATE_SMOOTHING * rate + (1 - RATE_SMOOTHING) * borrowRate;
+    }
+    lastBorrowCount = borrows;
+    lastSampleNanos = now;
+    evictIdle();
+    if (warm) {
+      fill();
+    }
+  }
+
+  private void requestFill() {
+    if (maintainer != null && fillRequested.compareAndSet(false, true)) {
+      try {
+        maintainer.execute(this::fill);
+      } catch (RejectedExecutionException e) {
+        LOGGER.debug("Pool is closed, not creating objects in the background");
+      }
+    }
+  }
+
+  /**
+   * Create idle objects until there are enough for the check outs expected while one more is
+   * created, and at least the minimum.
+   */
+  private void fill() {
+    fillRequested.set(false);
+    try {
+      while (!Thread.currentThread().isInterrupted() && idle.get() < targetIdle()) {
+        var pooled = tryCreate(false);
+        if (pooled == null) {
+          return;
+        }
+        pooled.lastUsed = System.nanoTime();
+        idle.incrementAndGet();
+        pooled.state.set(IDLE);
+        share(pooled);
+        publish();
+      }
+    } catch (RuntimeException e) {
+      LOGGER.warn("Failed to create a pooled object in the background", e);
+    }
+  }
+
+  private int targetIdle() {
+    var inUse = size.get() - idle.get();
+    var expected = borrowRate
+        * (metrics.getMeanHoldTime() + metrics.getMeanCreateTime());
+    var target = Math.min(maxSize, Math.max(inUse + minIdle, (long) Math.ceil(expected)));
+    return (int) Math.max(0, target - inUse);
+  }
+
+  private void discard(PooledObject<T> pooled) {
+    all.remove(new Identity(pooled.instance));
+    shared.remove(pooled);
+    size.decrementAndGet();
+    publish();
+    try {
+      destroy(pooled.instance);
+    } catch (RuntimeException e) {
+      LOGGER.warn("Failed to destroy {}", pooled.instance, e);
+    }
+  }
+
+  /**
+   * An object in the pool together with its state.
+   */
+  private static final class PooledObject<T> {
+
+    private final T instance;
+    private final AtomicInteger state = new AtomicInteger(IN_USE);
+    private final AtomicBoolean shared = new AtomicBoolean();
+    private volatile long lastUsed = System.nanoTime();
+
+    private PooledObject(T instance) {
+      this.instance = instance;
+    }
+  }
+
+  /**
+   * Key comparing pooled instances by identity, as their equals method may not.
+   */
+  private record Identity(Object instance) {
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Identity other && other.instance == instance;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(instance);
+    }
   }
 }
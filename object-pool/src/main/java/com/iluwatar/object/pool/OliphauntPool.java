@@ -24,11 +24,25 @@
  */
 package com.iluwatar.object.pool;
 
+import java.time.Duration;
+
 /**
  * Oliphaunt object pool.
  */
 public class OliphauntPool extends ObjectPool<Oliphaunt> {
 
+  public OliphauntPool() {
+    super();
+  }
+
+  public OliphauntPool(int maxSize, Duration idleTimeout) {
+    super(maxSize, idleTimeout);
+  }
+
+  public OliphauntPool(int minIdle, int maxSize, Duration idleTimeout) {
+    super(minIdle, maxSize, idleTimeout);
+  }
+
   @Override
   protected Oliphaunt create() {
     return new Oliphaunt();
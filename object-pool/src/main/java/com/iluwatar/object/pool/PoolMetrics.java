@@ -0,0 +1,200 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.object.pool;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Statistics of an {@link ObjectPool}. Latencies are kept as sums and counts in {@link LongAdder}s,
+ * so recording never blocks the threads using the pool.
+ */
+public class PoolMetrics {
+  /**
+   * Total time from asking for an object to getting it, including any wait and inline creation.
+   */
+  private final LongAdder waitNanos = new LongAdder();
+  /**
+   * Number of check outs.
+   */
+  private final LongAdder borrows = new LongAdder();
+  /**
+   * Longest time a check out took.
+   */
+  private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+  /**
+   * Total time between checking objects out and checking them in.
+   */
+  private final LongAdder holdNanos = new LongAdder();
+  /**
+   * Number of check ins.
+   */
+  private final LongAdder holds = new LongAdder();
+  /**
+   * Total time spent in {@link ObjectPool#create()}.
+   */
+  private final LongAdder createNanos = new LongAdder();
+  /**
+   * Number of objects created.
+   */
+  private final LongAdder creates = new LongAdder();
+  /**
+   * Objects created by a thread checking out, rather than in the background.
+   */
+  private final LongAdder inlineCreates = new LongAdder();
+  /**
+   * Number of idle objects.
+   */
+  private final IntSupplier idle;
+  /**
+   * Number of objects, idle or in use.
+   */
+  private final IntSupplier size;
+
+  PoolMetrics(final IntSupplier idle, final IntSupplier size) {
+    this.idle = idle;
+    this.size = size;
+  }
+
+  void recordWait(final long nanos) {
+    waitNanos.add(nanos);
+    borrows.increment();
+    maxWaitNanos.accumulate(nanos);
+  }
+
+  void recordHold(final long nanos) {
+    holdNanos.add(nanos);
+    holds.increment();
+  }
+
+  void recordCreate(final long nanos, final boolean inline) {
+    createNanos.add(nanos);
+    creates.increment();
+    if (inline) {
+      inlineCreates.increment();
+    }
+  }
+
+  /**
+   * Mean time from asking for an object to getting it, in nanoseconds.
+   *
+   * @return double, 0 if nothing was checked out
+   */
+  public double getMeanWaitTime() {
+    var n = borrows.sum();
+    return n == 0 ? 0 : (double) waitNanos.sum() / n;
+  }
+
+  /**
+   * Longest time from asking for an object to getting it, in nanoseconds.
+   *
+   * @return long
+   */
+  public long getMaxWaitTime() {
+    return maxWaitNanos.get();
+  }
+
+  /**
+   * Mean time objects are checked out for, in nanoseconds.
+   *
+   * @return double, 0 if nothing was checked in
+   */
+  public double getMeanHoldTime() {
+    var n = holds.sum();
+    return n == 0 ? 0 : (double) holdNanos.sum() / n;
+  }
+
+  /**
+   * Number of check ins.
+   *
+   * @return long
+   */
+  public long getReturnCount() {
+    return holds.sum();
+  }
+
+  /**
+   * Mean time spent creating an object, in nanoseconds.
+   *
+   * @return double, 0 if nothing was created
+   */
+  public double getMeanCreateTime() {
+    var n = creates.sum();
+    return n == 0 ? 0 : (double) createNanos.sum() / n;
+  }
+
+  /**
+   * Number of objects created.
+   *
+   * @return long
+   */
+  public long getCreateCount() {
+    return creates.sum();
+  }
+
+  /**
+   * Number of objects created while a thread was checking out.
+   *
+   * @return long
+   */
+  public long getInlineCreateCount() {
+    return inlineCreates.sum();
+  }
+
+  /**
+   * Number of check outs.
+   *
+   * @return long
+   */
+  public long getBorrowCount() {
+    return borrows.sum();
+  }
+
+  /**
+   * Share of the pooled objects currently in use.
+   *
+   * @return double between 0 and 1, 0 if the pool is empty
+   */
+  public double getUtilization() {
+    var total = size.getAsInt();
+    return total == 0 ? 0 : (double) Math.max(0, total - idle.getAsInt()) / total;
+  }
+
+  /**
+   * Summary of the statistics.
+   *
+   * @return String
+   */
+  @Override
+  public String toString() {
+    return String.format("utilization=%.3f, meanWait=%.1fus, maxWait=%dus, meanHold=%.1fus, "
+            + "creates=%d, meanCreate=%.1fus, inlineCreates=%d", getUtilization(),
+        getMeanWaitTime() / 1000, TimeUnit.NANOSECONDS.toMicros(getMaxWaitTime()),
+        getMeanHoldTime() / 1000, getCreateCount(), getMeanCreateTime() / 1000,
+        getInlineCreateCount());
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.object.pool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Measures check out and check in at 64 threads, comparing {@link ObjectPool} with a pool which
+ * synchronizes on its monitor like the original implementation did. The number of cycles per
+ * thread can be raised with the {@code object.pool.benchmark.cycles} property. Only runs with
+ * the benchmark profile, e.g. {@code mvn test -Pbenchmark -Dtest=ObjectPoolContentionTest}.
+ */
+@Slf4j
+@Tag("benchmark")
+class ObjectPoolContentionTest {
+
+  private static final int THREADS = 64;
+
+  private static final int CYCLES = Integer.getInteger("object.pool.benchmark.cycles", 2_000);
+
+  @Test
+  void compareWithSynchronizedPool() throws Exception {
+    var synchronizedPool = new SynchronizedPool();
+    run("synchronized", synchronizedPool::checkOut, synchronizedPool::checkIn);
+    try (var unbounded = new ObjectPool<Object>() {
+      @Override
+      protected Object create() {
+        return new Object();
+      }
+    }) {
+      run("lock-free unbounded", unbounded::checkOut, unbounded::checkIn);
+    }
+    try (var bounded = new ObjectPool<Object>(16, Duration.ZERO) {
+      @Override
+      protected Object create() {
+        return new Object();
+      }
+    }) {
+      run("lock-free bounded to 16", bounded::checkOut, bounded::checkIn);
+      assertTrue(bounded.toString().endsWith(" inUse=0"));
+    }
+  }
+
+  private void run(String name, Supplier<Object> checkOut, Consumer<Object> checkIn)
+      throws Exception {
+    measure(checkOut, checkIn);
+    var elapsed = measure(checkOut, checkIn);
+    LOGGER.info("{} pool with {} threads: {} cycles/s", name, THREADS,
+        (long) THREADS * CYCLES * TimeUnit.SECONDS.toNanos(1) / Math.max(1, elapsed));
+  }
+
+  private long measure(Supplier<Object> checkOut, Consumer<Object> checkIn) throws Exception {
+    var start = new CountDownLatch(1);
+    var cycles = new AtomicLong();
+    var executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      var futures = new ArrayList<Future<?>>();
+      for (var t = 0; t < THREADS; t++) {
+        futures.add(executor.submit(() -> {
+          start.await();
+          for (var i = 0; i < CYCLES; i++) {
+            checkIn.accept(checkOut.get());
+          }
+          cycles.addAndGet(CYCLES);
+          return null;
+        }));
+      }
+      var begin = System.nanoTime();
+      start.countDown();
+      for (var future : futures) {
+        future.get(5, TimeUnit.MINUTES);
+      }
+      var elapsed = System.nanoTime() - begin;
+      assertEquals((long) THREADS * CYCLES, cycles.get());
+      return elapsed;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * The pool as it was before, one monitor guarding two sets.
+   */
+  private static final class SynchronizedPool {
+
+    private final Set<Object> available = new HashSet<>();
+    private final Set<Object> inUse = new HashSet<>();
+
+    synchronized Object checkOut() {
+      if (available.isEmpty()) {
+        available.add(new Object());
+      }
+      var instance = available.iterator().next();
+      available.remove(instance);
+      inUse.add(instance);
+      return instance;
+    }
+
+    synchronized void checkIn(Object instance) {
+      inUse.remove(instance);
+      available.add(instance);
+    }
+  }
+}
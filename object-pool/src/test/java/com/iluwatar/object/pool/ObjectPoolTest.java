@@ -0,0 +1,313 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.object.pool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the bounds, validation and eviction of {@link ObjectPool}.
+ */
+class ObjectPoolTest {
+
+  @Test
+  void shouldWaitForCheckInWhenExhausted() throws Exception {
+    try (var pool = new ResourcePool(2, Duration.ZERO)) {
+      var first = pool.checkOut();
+      pool.checkOut();
+      assertTrue(pool.checkOut(Duration.ofMillis(20)).isEmpty());
+      assertEquals(2, pool.created.get());
+
+      var executor = Executors.newSingleThreadExecutor();
+      try {
+        var waiting = executor.submit(() -> pool.checkOut(Duration.ofSeconds(10)));
+        Thread.sleep(20);
+        pool.checkIn(first);
+        assertSame(first, waiting.get(10, TimeUnit.SECONDS).orElseThrow());
+      } finally {
+        executor.shutdownNow();
+      }
+      assertEquals("Pool available=0 inUse=2", pool.toString());
+    }
+  }
+
+  @Test
+  void shouldDiscardInvalidObjects() {
+    try (var pool = new ResourcePool(2, Duration.ZERO)) {
+      var resource = pool.checkOut();
+      pool.checkIn(resource);
+      resource.valid = false;
+
+      var replacement = pool.checkOut();
+      assertNotSame(resource, replacement);
+      assertTrue(resource.destroyed);
+      assertEquals("Pool available=0 inUse=1", pool.toString());
+    }
+  }
+
+  @Test
+  void shouldEvictIdleObjects() throws Exception {
+    try (var pool = new ResourcePool(4, Duration.ofMillis(20))) {
+      var idle = pool.checkOut();
+      var busy = pool.checkOut();
+      pool.checkIn(idle);
+
+      var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+      while (!idle.destroyed && System.nanoTime() < deadline) {
+        Thread.sleep(10);
+      }
+      assertTrue(idle.destroyed);
+      assertFalse(busy.destroyed);
+      assertEquals("Pool available=0 inUse=1", pool.toString());
+      assertNotSame(idle, pool.checkOut());
+    }
+  }
+
+  @Test
+  void shouldPrewarmMinimumIdleSetInBackground() throws Exception {
+    try (var pool = new ResourcePool(3, 8, Duration.ZERO)) {
+      pool.prewarm().get(10, TimeUnit.SECONDS);
+      assertEquals("Pool available=3 inUse=0", pool.toString());
+
+      var resources = List.of(pool.checkOut(), pool.checkOut(), pool.checkOut());
+      var metrics = pool.getMetrics();
+      assertEquals(0, metrics.getInlineCreateCount());
+      assertEquals(3, metrics.getBorrowCount());
+      assertEquals(3, metrics.getCreateCount());
+      assertEquals(1.0, metrics.getUtilization());
+
+      // the maintainer tops the idle set up again
+      var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+      while (!pool.toString().equals("Pool available=3 inUse=3")
+          && System.nanoTime() < deadline) {
+        Thread.sleep(10);
+      }
+      assertEquals("Pool available=3 inUse=3", pool.toString());
+      resources.forEach(pool::checkIn);
+      assertEquals(3, metrics.getReturnCount());
+    }
+  }
+
+  @Test
+  void shouldShrinkToMinimumIdleSet() throws Exception {
+    try (var pool = new ResourcePool(1, 4, Duration.ofMillis(20))) {
+      var resources = List.of(pool.checkOut(), pool.checkOut(), pool.checkOut());
+      resources.forEach(pool::checkIn);
+
+      var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+      while (!pool.toString().equals("Pool available=1 inUse=0")
+          && System.nanoTime() < deadline) {
+        Thread.sleep(10);
+      }
+      assertEquals("Pool available=1 inUse=0", pool.toString());
+      assertEquals(0.0, pool.getMetrics().getUtilization());
+    }
+  }
+
+  @Test
+  void shouldWaitForAnObjectCreatedInBackground() throws Exception {
+    try (var pool = new ResourcePool(1, 1, Duration.ZERO)) {
+      pool.createDelayMillis = 100;
+      var prewarm = pool.prewarm();
+      var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+      while (pool.created.get() == 0 && System.nanoTime() < deadline) {
+        Thread.sleep(1);
+      }
+
+      // the pool is full while the object is being created, so the borrower waits for it
+      var resource = pool.checkOut(Duration.ofSeconds(10)).orElseThrow();
+      prewarm.get(10, TimeUnit.SECONDS);
+      assertEquals(1, pool.created.get());
+      assertEquals(0, pool.getMetrics().getInlineCreateCount());
+      pool.checkIn(resource);
+      assertEquals("Pool available=1 inUse=0", pool.toString());
+    }
+  }
+
+  @Test
+  void shouldStopWaitingForAnObjectCreatedInBackground() throws Exception {
+    try (var pool = new ResourcePool(1, 1, Duration.ZERO)) {
+      pool.createDelayMillis = 500;
+      var prewarm = pool.prewarm();
+      var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+      while (pool.created.get() == 0 && System.nanoTime() < deadline) {
+        Thread.sleep(1);
+      }
+
+      // the timeout also covers the wait for the object, not only for the permit
+      var start = System.nanoTime();
+      assertTrue(pool.checkOut(Duration.ofMillis(50)).isEmpty());
+      assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(400));
+
+      var executor = Executors.newSingleThreadExecutor();
+      try {
+        var borrower = executor.submit(() -> pool.checkOut(Duration.ofSeconds(10)));
+        Thread.sleep(50);
+        executor.shutdownNow();
+        var e = assertThrows(ExecutionException.class, () -> borrower.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(InterruptedException.class, e.getCause());
+      } finally {
+        executor.shutdownNow();
+      }
+
+      // the untimed check out keeps waiting and restores the interrupt
+      Thread.currentThread().interrupt();
+      var resource = pool.checkOut();
+      assertTrue(Thread.interrupted());
+      prewarm.get(10, TimeUnit.SECONDS);
+      assertEquals(1, pool.created.get());
+      pool.checkIn(resource);
+      assertEquals("Pool available=1 inUse=0", pool.toString());
+    }
+  }
+
+  @Test
+  void shouldCheckInObjectsBorrowedByOtherThreads() throws Exception {
+    try (var pool = new ResourcePool(4, Duration.ZERO)) {
+      var executor = Executors.newSingleThreadExecutor();
+      try {
+        var resources = executor.submit(() -> List.of(pool.checkOut(), pool.checkOut(),
+            pool.checkOut())).get(10, TimeUnit.SECONDS);
+        resources.forEach(pool::checkIn);
+        assertEquals("Pool available=3 inUse=0", pool.toString());
+
+        // objects cached by the other thread are found on the shared stack
+        var borrowed = List.of(pool.checkOut(), pool.checkOut(), pool.checkOut());
+        assertEquals(Set.copyOf(resources), Set.copyOf(borrowed));
+        assertEquals(3, pool.created.get());
+      } finally {
+        executor.shutdownNow();
+      }
+    }
+  }
+
+  @Test
+  void shouldRejectForeignAndDuplicateCheckIns() {
+    try (var pool = new ResourcePool(2, Duration.ZERO)) {
+      assertThrows(IllegalArgumentException.class, () -> pool.checkIn(new Resource()));
+      var resource = pool.checkOut();
+      pool.checkIn(resource);
+      assertThrows(IllegalArgumentException.class, () -> pool.checkIn(resource));
+    }
+  }
+
+  @Test
+  void shouldNeverLendAnObjectTwice() throws Exception {
+    final var threads = 16;
+    try (var pool = new ResourcePool(4, Duration.ZERO)) {
+      var executor = Executors.newFixedThreadPool(threads);
+      var seen = ConcurrentHashMap.<Resource>newKeySet();
+      try {
+        var futures = new ArrayList<Future<?>>();
+        for (var t = 0; t < threads; t++) {
+          futures.add(executor.submit(() -> borrowRepeatedly(pool, seen)));
+        }
+        for (var future : futures) {
+          future.get(60, TimeUnit.SECONDS);
+        }
+      } finally {
+        executor.shutdownNow();
+      }
+      assertTrue(seen.size() <= 4);
+      assertEquals("Pool available=" + seen.size() + " inUse=0", pool.toString());
+    }
+  }
+
+  private static Void borrowRepeatedly(ResourcePool pool, Set<Resource> seen) {
+    for (var i = 0; i < 2_000; i++) {
+      var resource = pool.checkOut();
+      seen.add(resource);
+      if (!resource.inUse.compareAndSet(false, true)) {
+        throw new AssertionError(resource + " is lent twice");
+      }
+      Thread.yield();
+      resource.inUse.set(false);
+      pool.checkIn(resource);
+    }
+    return null;
+  }
+
+  private static final class Resource {
+
+    private final AtomicBoolean inUse = new AtomicBoolean();
+    private volatile boolean valid = true;
+    private volatile boolean destroyed;
+  }
+
+  private static final class ResourcePool extends ObjectPool<Resource> {
+
+    private final AtomicInteger created = new AtomicInteger();
+    private volatile long createDelayMillis;
+
+    private ResourcePool(int maxSize, Duration idleTimeout) {
+      super(maxSize, idleTimeout);
+    }
+
+    private ResourcePool(int minIdle, int maxSize, Duration idleTimeout) {
+      super(minIdle, maxSize, idleTimeout);
+    }
+
+    @Override
+    protected Resource create() {
+      created.incrementAndGet();
+      if (createDelayMillis > 0) {
+        try {
+          Thread.sleep(createDelayMillis);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      return new Resource();
+    }
+
+    @Override
+    protected boolean validate(Resource instance) {
+      return instance.valid;
+    }
+
+    @Override
+    protected void destroy(Resource instance) {
+      instance.destroyed = true;
+    }
+  }
+}
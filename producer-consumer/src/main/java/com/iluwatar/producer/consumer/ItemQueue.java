@@ -28,7 +28,9 @@ import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 
 /**
- * Class as a channel for {@link Producer}-{@link Consumer} exchange.
+ * Class as a channel for {@link Producer}-{@link Consumer} exchange. By default it is backed by
+ * a small {@link LinkedBlockingQueue}; a {@link RingBuffer} can be used instead when many items
+ * per second pass through, since it neither locks nor allocates per item.
  */
 public class ItemQueue {
 
@@ -39,6 +41,16 @@ public class ItemQueue {
     queue = new LinkedBlockingQueue<>(5);
   }
 
+  public ItemQueue(int capacity, WaitStrategy waitStrategy) {
+
+    queue = new RingBuffer<>(capacity, waitStrategy);
+  }
+
+  public ItemQueue(BlockingQueue<Item> queue) {
+
+    this.queue = queue;
+  }
+
   public void put(Item item) throws InterruptedException {
 
     queue.put(item);
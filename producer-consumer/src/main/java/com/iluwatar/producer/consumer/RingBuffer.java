@@ -0,0 +1,387 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.producer.consumer;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded multi-producer, multi-consumer queue that neither locks nor allocates once it is
+ * created. Every slot carries a sequence number which tells producers whether it is free and
+ * consumers whether it is filled, so a slot is claimed with a single compare-and-set of the tail
+ * or the head. Waiting for a full or an empty buffer is left to a {@link WaitStrategy}.
+ *
+ * <p>The head and the tail live in the same array, far enough apart to sit on different cache
+ * lines, so producers and consumers do not invalidate each other's line on every operation. The
+ * sequence numbers of the slots, which waiting threads keep reading, are one cache line apart as
+ * well, so a producer filling a slot does not disturb a consumer waiting on the slot next to it.
+ *
+ * <p>Iteration is weakly consistent: the iterator visits the elements from the head on, skips the
+ * slots consumed while it runs, and never throws a {@link
+ * java.util.ConcurrentModificationException}. Removing an element from the middle leaves a
+ * tombstone in its slot, which the consumers skip.
+ *
+ * @param <E> the type of elements held in the buffer
+ */
+public class RingBuffer<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+  private static final int CACHE_LINE_LONGS = 16;
+
+  private static final int SEQUENCE_STRIDE = 8;
+
+  private static final Object REMOVED = new Object();
+
+  private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(Object[].class);
+
+  private static final int TAIL = CACHE_LINE_LONGS;
+
+  private static final int HEAD = 2 * CACHE_LINE_LONGS;
+
+  private final AtomicLongArray counters = new AtomicLongArray(3 * CACHE_LINE_LONGS);
+
+  private final AtomicLongArray sequences;
+
+  private final Object[] slots;
+
+  private final int mask;
+
+  private final WaitStrategy waitStrategy;
+
+  /**
+   * Create a buffer holding at least the given number of elements. The capacity is rounded up to
+   * a power of two, and is at least two, as a single slot could not tell full from free.
+   */
+  public RingBuffer(int capacity, WaitStrategy waitStrategy) {
+    if (capacity < 1 || capacity > 1 << 27) {
+      throw new IllegalArgumentException("Capacity out of range: " + capacity);
+    }
+    var size = Math.max(2, Integer.highestOneBit(capacity));
+    if (size < capacity) {
+      size <<= 1;
+    }
+    this.slots = new Object[size];
+    this.sequences = new AtomicLongArray(size * SEQUENCE_STRIDE);
+    for (var i = 0; i < size; i++) {
+      sequences.set(i * SEQUENCE_STRIDE, i);
+    }
+    this.mask = size - 1;
+    this.waitStrategy = Objects.requireNonNull(waitStrategy);
+  }
+
+  public int capacity() {
+    return slots.length;
+  }
+
+  @Override
+  public boolean offer(E e) {
+    Objects.requireNonNull(e);
+    var position = counters.get(TAIL);
+    while (true) {
+      var index = (int) position & mask;
+      var difference = sequences.getAcquire(index * SEQUENCE_STRIDE) - position;
+      if (difference == 0) {
+        if (counters.weakCompareAndSetVolatile(TAIL, position, position + 1)) {
+          slots[index] = e;
+          sequences.setRelease(index * SEQUENCE_STRIDE, position + 1);
+          return true;
+        }
+      } else if (difference < 0) {
+        return false;
+      }
+      position = counters.get(TAIL);
+    }
+  }
+
+  @Override
+  public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+    var deadline = System.nanoTime() + unit.toNanos(timeout);
+    var attempt = 0;
+    while (!offer(e)) {
+      if (System.nanoTime() - deadline >= 0) {
+        return false;
+      }
+      attempt = idle(attempt);
+    }
+    return true;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public E poll() {
+    var position = counters.get(HEAD);
+    while (true) {
+      var index = (int) position & mask;
+      var difference = sequences.getAcquire(index * SEQUENCE_STRIDE) - (position + 1);
+      if (difference == 0) {
+        if (counters.weakCompareAndSetVolatile(HEAD, position, position + 1)) {
+          var e = release(index, position);
+          if (e != REMOVED) {
+            return (E) e;
+          }
+        }
+      } else if (difference < 0) {
+        return null;
+      }
+      position = counters.get(HEAD);
+    }
+  }
+
+  @Override
+  public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+    var deadline = System.nanoTime() + unit.toNanos(timeout);
+    var attempt = 0;
+    var e = poll();
+    while (e == null) {
+      if (System.nanoTime() - deadline >= 0) {
+        return null;
+      }
+      attempt = idle(attempt);
+      e = poll();
+    }
+    return e;
+  }
+
+  /*
+   * Takes the element out of a slot claimed by a consumer and hands the slot back to the producers.
+   * The element is swapped out atomically, so that it is either taken here or by a concurrent
+   * removal, never by both.
+   */
+  private Object release(int index, long position) {
+    var e = SLOTS.getAndSet(slots, index, null);
+    sequences.setRelease(index * SEQUENCE_STRIDE, position + slots.length);
+    return e;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public E peek() {
+    while (true) {
+      var position = counters.get(HEAD);
+      var index = (int) position & mask;
+      if (sequences.getAcquire(index * SEQUENCE_STRIDE) != position + 1) {
+        return null;
+      }
+      var e = SLOTS.getAcquire(slots, index);
+      if (e == REMOVED) {
+        // consume the tombstone, the element behind it is the head
+        if (counters.compareAndSet(HEAD, position, position + 1)) {
+          release(index, position);
+        }
+      } else if (e != null && counters.get(HEAD) == position) {
+        return (E) e;
+      }
+    }
+  }
+
+  @Override
+  public void put(E e) throws InterruptedException {
+    var attempt = 0;
+    while (!offer(e)) {
+      attempt = idle(attempt);
+    }
+  }
+
+  @Override
+  public E take() throws InterruptedException {
+    var attempt = 0;
+    var e = poll();
+    while (e == null) {
+      attempt = idle(attempt);
+      e = poll();
+    }
+    return e;
+  }
+
+  /*
+   * Waits once and returns the next attempt.
+   */
+  private int idle(int attempt) throws InterruptedException {
+    if (Thread.interrupted()) {
+      throw new InterruptedException();
+    }
+    waitStrategy.idle(attempt);
+    return WaitStrategy.next(attempt);
+  }
+
+  /**
+   * The number of elements, which may already be stale when several threads use the buffer.
+   * Removed elements are counted until a consumer has skipped their slot.
+   */
+  @Override
+  public int size() {
+    while (true) {
+      var head = counters.get(HEAD);
+      var tail = counters.get(TAIL);
+      if (counters.get(HEAD) == head) {
+        return (int) Math.max(0, Math.min(tail - head, slots.length));
+      }
+    }
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return peek() == null;
+  }
+
+  @Override
+  public int remainingCapacity() {
+    return slots.length - size();
+  }
+
+  @Override
+  public int drainTo(Collection<? super E> c) {
+    return drainTo(c, Integer.MAX_VALUE);
+  }
+
+  @Override
+  public int drainTo(Collection<? super E> c, int maxElements) {
+    Objects.requireNonNull(c);
+    if (c == this) {
+      throw new IllegalArgumentException();
+    }
+    var drained = 0;
+    E e;
+    while (drained < maxElements && (e = poll()) != null) {
+      c.add(e);
+      drained++;
+    }
+    return drained;
+  }
+
+  /**
+   * Removes a single instance of the element, if it is present. Its slot is left as a tombstone
+   * which the consumers skip.
+   */
+  @Override
+  public boolean remove(Object o) {
+    if (o == null) {
+      return false;
+    }
+    var iterator = new Itr();
+    while (iterator.hasNext()) {
+      if (o.equals(iterator.next()) && iterator.removeLast()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns a weakly consistent iterator over the elements, from the head to the tail.
+   */
+  @Override
+  public Iterator<E> iterator() {
+    return new Itr();
+  }
+
+  /**
+   * Weakly consistent iterator. A slot is read like a seqlock: the element is only returned if the
+   * sequence of the slot still tells that it holds the element at the position visited once the
+   * element has been read.
+   */
+  private final class Itr implements Iterator<E> {
+
+    private long position = counters.get(HEAD);
+
+    private E next;
+
+    private long nextPosition;
+
+    private E last;
+
+    private long lastPosition;
+
+    @Override
+    public boolean hasNext() {
+      if (next == null) {
+        advance();
+      }
+      return next != null;
+    }
+
+    @Override
+    public E next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      last = next;
+      lastPosition = nextPosition;
+      next = null;
+      return last;
+    }
+
+    @Override
+    public void remove() {
+      if (last == null) {
+        throw new IllegalStateException();
+      }
+      removeLast();
+    }
+
+    /*
+     * Replaces the element last returned by a tombstone, unless it has been consumed meanwhile.
+     */
+    boolean removeLast() {
+      var index = (int) lastPosition & mask;
+      var removed = sequences.getAcquire(index * SEQUENCE_STRIDE) == lastPosition + 1
+          && SLOTS.compareAndSet(slots, index, last, REMOVED);
+      last = null;
+      return removed;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void advance() {
+      while (true) {
+        position = Math.max(position, counters.get(HEAD));
+        var index = (int) position & mask;
+        var sequence = sequences.getAcquire(index * SEQUENCE_STRIDE);
+        if (sequence < position + 1) {
+          // not filled yet, the tail has been reached
+          return;
+        }
+        if (sequence == position + 1) {
+          var e = SLOTS.getAcquire(slots, index);
+          if (sequences.getAcquire(index * SEQUENCE_STRIDE) == position + 1) {
+            position++;
+            if (e != null && e != REMOVED) {
+              next = (E) e;
+              nextPosition = position - 1;
+              return;
+            }
+          }
+        }
+        // the slot has been consumed, and the head has moved past it
+      }
+    }
+  }
+}
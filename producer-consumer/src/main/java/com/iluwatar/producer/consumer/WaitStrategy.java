@@ -0,0 +1,103 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.producer.consumer;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * How a thread waits while the {@link RingBuffer} it wants to use is full or empty. Each strategy
+ * trades CPU time for the latency of noticing that the buffer changed.
+ */
+public enum WaitStrategy {
+
+  /**
+   * Busy-spin. The lowest latency, but it keeps a core busy and should only be used when there
+   * are more cores than waiting threads.
+   */
+  SPIN {
+    @Override
+    void idle(int attempt) {
+      Thread.onSpinWait();
+    }
+  },
+
+  /**
+   * Spin briefly, then give the core to other threads.
+   */
+  YIELD {
+    @Override
+    void idle(int attempt) {
+      if (attempt < SPIN_TRIES) {
+        Thread.onSpinWait();
+      } else {
+        Thread.yield();
+      }
+    }
+  },
+
+  /**
+   * Spin and yield briefly, then park for a growing interval. The cheapest strategy for threads
+   * that wait a long time.
+   */
+  PARK {
+    @Override
+    void idle(int attempt) {
+      if (attempt < SPIN_TRIES) {
+        Thread.onSpinWait();
+      } else if (attempt < YIELD_TRIES) {
+        Thread.yield();
+      } else {
+        var shift = Math.min(attempt - YIELD_TRIES, MAX_PARK_SHIFT);
+        LockSupport.parkNanos(MIN_PARK_NANOS << shift);
+      }
+    }
+  };
+
+  private static final int SPIN_TRIES = 100;
+
+  private static final int YIELD_TRIES = 200;
+
+  private static final long MIN_PARK_NANOS = 1_000;
+
+  private static final int MAX_PARK_SHIFT = 10;
+
+  /**
+   * Every strategy waits the same way from this attempt on.
+   */
+  static final int MAX_ATTEMPT = YIELD_TRIES + MAX_PARK_SHIFT;
+
+  /**
+   * Wait once after the given number of failed attempts.
+   */
+  abstract void idle(int attempt);
+
+  /**
+   * The attempt after the given one. The count stops at {@link #MAX_ATTEMPT}, so that a thread
+   * waiting for a long time does not overflow it and start spinning again.
+   */
+  static int next(int attempt) {
+    return attempt < MAX_ATTEMPT ? attempt + 1 : MAX_ATTEMPT;
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.producer.consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares the throughput of {@link ItemQueue} backed by a {@link LinkedBlockingQueue} with the
+ * one backed by a {@link RingBuffer} for several numbers of producers and consumers. The number
+ * of items per run can be raised with the {@code producer.consumer.benchmark.items} property.
+ * Only runs with the benchmark profile, e.g. {@code mvn test -Pbenchmark
+ * -Dtest=ItemQueueThroughputTest}.
+ */
+@Slf4j
+@Tag("benchmark")
+class ItemQueueThroughputTest {
+
+  private static final int ITEMS = Integer.getInteger("producer.consumer.benchmark.items", 100_000);
+
+  private static final int CAPACITY = 1024;
+
+  private static final int[] THREADS = {1, 2, 4};
+
+  @Test
+  void compareBackends() throws Exception {
+    var cores = Runtime.getRuntime().availableProcessors();
+    for (var threads : THREADS) {
+      run("LinkedBlockingQueue", threads,
+          () -> new ItemQueue(new LinkedBlockingQueue<>(CAPACITY)));
+      for (var waitStrategy : WaitStrategy.values()) {
+        if (waitStrategy == WaitStrategy.SPIN && 2 * threads > cores) {
+          LOGGER.info("Skipping SPIN with {} threads on {} cores", 2 * threads, cores);
+          continue;
+        }
+        run("RingBuffer/" + waitStrategy, threads, () -> new ItemQueue(CAPACITY, waitStrategy));
+      }
+    }
+  }
+
+  private void run(String name, int threads, Supplier<ItemQueue> queues) throws Exception {
+    measure(queues.get(), threads);
+    var elapsed = measure(queues.get(), threads);
+    LOGGER.info("{} with {} producers and {} consumers: {} items/s", name, threads, threads,
+        ITEMS * TimeUnit.SECONDS.toNanos(1) / Math.max(1, elapsed));
+  }
+
+  private long measure(ItemQueue queue, int threads) throws Exception {
+    var perThread = ITEMS / threads;
+    var start = new CountDownLatch(1);
+    var consumed = new AtomicLong();
+    var executor = Executors.newFixedThreadPool(2 * threads);
+    try {
+      var futures = new ArrayList<Future<?>>();
+      for (var t = 0; t < threads; t++) {
+        futures.add(executor.submit(() -> {
+          start.await();
+          for (var id = 0; id < perThread; id++) {
+            queue.put(new Item("producer", id));
+          }
+          return null;
+        }));
+        futures.add(executor.submit(() -> {
+          start.await();
+          for (var i = 0; i < perThread; i++) {
+            queue.take();
+          }
+          consumed.addAndGet(perThread);
+          return null;
+        }));
+      }
+      var begin = System.nanoTime();
+      start.countDown();
+      for (var future : futures) {
+        future.get(5, TimeUnit.MINUTES);
+      }
+      var elapsed = System.nanoTime() - begin;
+      assertEquals((long) perThread * threads, consumed.get());
+      return elapsed;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,218 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.producer.consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Tests for {@link RingBuffer}.
+ */
+class RingBufferTest {
+
+  @Test
+  void shouldRoundCapacityUpToPowerOfTwo() {
+    assertEquals(8, new RingBuffer<Item>(5, WaitStrategy.SPIN).capacity());
+    assertEquals(2, new RingBuffer<Item>(1, WaitStrategy.SPIN).capacity());
+    assertThrows(IllegalArgumentException.class, () -> new RingBuffer<Item>(0, WaitStrategy.SPIN));
+  }
+
+  @Test
+  void shouldKeepFifoOrderAcrossWrapAround() {
+    var buffer = new RingBuffer<Integer>(4, WaitStrategy.SPIN);
+    for (var round = 0; round < 3; round++) {
+      for (var i = 0; i < 4; i++) {
+        assertTrue(buffer.offer(round * 4 + i));
+      }
+      assertFalse(buffer.offer(-1));
+      assertEquals(4, buffer.size());
+      assertEquals(round * 4, buffer.peek());
+      for (var i = 0; i < 4; i++) {
+        assertEquals(round * 4 + i, buffer.poll());
+      }
+      assertNull(buffer.poll());
+      assertEquals(0, buffer.size());
+    }
+  }
+
+  @Test
+  void shouldTimeOutWhenFullOrEmpty() throws Exception {
+    var buffer = new RingBuffer<Integer>(1, WaitStrategy.PARK);
+    assertNull(buffer.poll(10, TimeUnit.MILLISECONDS));
+    buffer.put(1);
+    buffer.put(2);
+    assertFalse(buffer.offer(3, 10, TimeUnit.MILLISECONDS));
+    assertEquals(0, buffer.remainingCapacity());
+  }
+
+  @Test
+  void shouldStopCountingAttemptsOnceTheWaitNoLongerChanges() {
+    var attempt = 0;
+    for (var i = 0; i < 1_000; i++) {
+      attempt = WaitStrategy.next(attempt);
+    }
+    assertEquals(WaitStrategy.MAX_ATTEMPT, attempt);
+    assertEquals(WaitStrategy.MAX_ATTEMPT, WaitStrategy.next(Integer.MAX_VALUE));
+  }
+
+  @Test
+  void shouldDrainUpToMaxElements() {
+    var buffer = new RingBuffer<Integer>(8, WaitStrategy.SPIN);
+    for (var i = 0; i < 5; i++) {
+      buffer.offer(i);
+    }
+    var drained = new ArrayList<Integer>();
+    assertEquals(3, buffer.drainTo(drained, 3));
+    assertEquals(2, buffer.drainTo(drained));
+    assertEquals(5, drained.size());
+    assertTrue(buffer.isEmpty());
+  }
+
+  @Test
+  void shouldIterateAndRemoveFromTheMiddle() {
+    var buffer = new RingBuffer<Integer>(4, WaitStrategy.SPIN);
+    // wrap around, so the elements do not start at the first slot
+    buffer.offer(-1);
+    buffer.offer(-2);
+    buffer.poll();
+    buffer.poll();
+    for (var i = 0; i < 4; i++) {
+      buffer.offer(i);
+    }
+    assertTrue(buffer.contains(2));
+    assertFalse(buffer.contains(-1));
+    assertEquals("[0, 1, 2, 3]", buffer.toString());
+
+    assertTrue(buffer.remove(2));
+    assertFalse(buffer.remove(2));
+    var iterator = buffer.iterator();
+    assertEquals(0, iterator.next());
+    iterator.remove();
+    assertEquals(List.of(1, 3), List.of(buffer.toArray()));
+
+    assertEquals(1, buffer.peek());
+    assertEquals(1, buffer.poll());
+    assertEquals(3, buffer.poll());
+    assertNull(buffer.poll());
+    assertTrue(buffer.isEmpty());
+  }
+
+  @Test
+  void shouldRemoveEachElementOnceWhileConsumersRun() throws Exception {
+    var buffer = new RingBuffer<Integer>(1024, WaitStrategy.SPIN);
+    final var count = 1000;
+    for (var i = 0; i < count; i++) {
+      buffer.offer(i);
+    }
+    var executor = Executors.newSingleThreadExecutor();
+    try {
+      var consumer = executor.submit(() -> {
+        var polled = 0;
+        while (buffer.poll() != null) {
+          polled++;
+        }
+        return polled;
+      });
+      var removed = 0;
+      for (var i = count - 1; i >= 0; i -= 2) {
+        if (buffer.remove(i)) {
+          removed++;
+        }
+      }
+      assertEquals(count, removed + consumer.get(10, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void shouldStopWaitingWhenInterrupted() throws Exception {
+    var buffer = new RingBuffer<Integer>(1, WaitStrategy.PARK);
+    var executor = Executors.newSingleThreadExecutor();
+    try {
+      var take = executor.submit(buffer::take);
+      Thread.sleep(50);
+      take.cancel(true);
+      executor.shutdown();
+      assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @ParameterizedTest
+  @EnumSource(value = WaitStrategy.class, names = {"YIELD", "PARK"})
+  void shouldDeliverEveryItemExactlyOnce(WaitStrategy waitStrategy) throws Exception {
+    final var producers = 3;
+    final var consumers = 3;
+    final var perProducer = 20_000;
+    var queue = new ItemQueue(16, waitStrategy);
+    var seen = new AtomicIntegerArray(producers * perProducer);
+    ExecutorService executor = Executors.newFixedThreadPool(producers + consumers);
+    try {
+      var futures = new ArrayList<Future<?>>();
+      for (var p = 0; p < producers; p++) {
+        var name = String.valueOf(p);
+        futures.add(executor.submit(() -> {
+          for (var id = 0; id < perProducer; id++) {
+            queue.put(new Item(name, id));
+          }
+          return null;
+        }));
+      }
+      for (var c = 0; c < consumers; c++) {
+        futures.add(executor.submit(() -> {
+          for (var i = 0; i < perProducer; i++) {
+            var item = queue.take();
+            seen.incrementAndGet(Integer.parseInt(item.producer()) * perProducer + item.id());
+          }
+          return null;
+        }));
+      }
+      for (var future : futures) {
+        future.get(60, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    for (var i = 0; i < seen.length(); i++) {
+      assertEquals(1, seen.get(i), "item " + i);
+    }
+  }
+}
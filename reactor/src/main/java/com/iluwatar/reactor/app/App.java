@@ -92,6 +92,7 @@ public class App {
   private NioReactor reactor;
   private final List<AbstractNioChannel> channels = new ArrayList<>();
   private final Dispatcher dispatcher;
+  private final int ioReactorCount;
 
   /**
    * Creates an instance of App which will use provided dispatcher for dispatching events on
@@ -100,7 +101,20 @@ public class App {
    * @param dispatcher the dispatcher that will be used to dispatch events.
    */
   public App(Dispatcher dispatcher) {
+    this(dispatcher, 0);
+  }
+
+  /**
+   * Creates an instance of App which accepts connections on one reactor and serves them on
+   * {@code ioReactorCount} IO reactors.
+   *
+   * @param dispatcher     the dispatcher that will be used to dispatch events.
+   * @param ioReactorCount the number of IO reactors, zero to serve connections on the accepting
+   *                       reactor.
+   */
+  public App(Dispatcher dispatcher, int ioReactorCount) {
     this.dispatcher = dispatcher;
+    this.ioReactorCount = ioReactorCount;
   }
 
   /**
@@ -119,7 +133,7 @@ public class App {
     /*
      * The application can customize its event dispatching mechanism.
      */
-    reactor = new NioReactor(dispatcher);
+    reactor = new NioReactor(dispatcher, ioReactorCount);
 
     /*
      * This represents application specific business logic that dispatcher will call on appropriate
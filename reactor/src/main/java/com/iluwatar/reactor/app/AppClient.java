@@ -36,6 +36,7 @@ import java.net.UnknownHostException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -46,6 +47,7 @@ import lombok.extern.slf4j.Slf4j;
 public class AppClient {
 
   private final ExecutorService service = Executors.newFixedThreadPool(4);
+  private final AtomicInteger replies = new AtomicInteger();
 
   /**
    * App client entry.
@@ -64,10 +66,19 @@ public class AppClient {
    */
   public void start() throws IOException {
     LOGGER.info("Starting logging clients");
-    service.execute(new TcpLoggingClient("Client 1", 16666));
-    service.execute(new TcpLoggingClient("Client 2", 16667));
-    service.execute(new UdpLoggingClient("Client 3", 16668));
-    service.execute(new UdpLoggingClient("Client 4", 16669));
+    service.execute(new TcpLoggingClient("Client 1", 16666, replies));
+    service.execute(new TcpLoggingClient("Client 2", 16667, replies));
+    service.execute(new UdpLoggingClient("Client 3", 16668, replies));
+    service.execute(new UdpLoggingClient("Client 4", 16669, replies));
+  }
+
+  /**
+   * Get the number of replies received by all clients so far.
+   *
+   * @return the number of logging requests the reactor replied to.
+   */
+  public int getReplyCount() {
+    return replies.get();
   }
 
   /**
@@ -101,16 +112,19 @@ public class AppClient {
 
     private final int serverPort;
     private final String clientName;
+    private final AtomicInteger replies;
 
     /**
      * Creates a new TCP logging client.
      *
      * @param clientName the name of the client to be sent in logging requests.
      * @param serverPort the port on which client will send logging requests.
+     * @param replies    the counter of replies received.
      */
-    public TcpLoggingClient(String clientName, int serverPort) {
+    public TcpLoggingClient(String clientName, int serverPort, AtomicInteger replies) {
       this.clientName = clientName;
       this.serverPort = serverPort;
+      this.replies = replies;
     }
 
     @Override
@@ -132,9 +146,10 @@ public class AppClient {
 
         var data = new byte[1024];
         var read = inputStream.read(data, 0, data.length);
-        if (read == 0) {
+        if (read <= 0) {
           LOGGER.info("Read zero bytes");
         } else {
+          replies.incrementAndGet();
           LOGGER.info(new String(data, 0, read));
         }
 
@@ -150,17 +165,21 @@ public class AppClient {
   static class UdpLoggingClient implements Runnable {
     private final String clientName;
     private final InetSocketAddress remoteAddress;
+    private final AtomicInteger replies;
 
     /**
      * Creates a new UDP logging client.
      *
      * @param clientName the name of the client to be sent in logging requests.
      * @param port       the port on which client will send logging requests.
+     * @param replies    the counter of replies received.
      * @throws UnknownHostException if localhost is unknown
      */
-    public UdpLoggingClient(String clientName, int port) throws UnknownHostException {
+    public UdpLoggingClient(String clientName, int port, AtomicInteger replies)
+        throws UnknownHostException {
       this.clientName = clientName;
       this.remoteAddress = new InetSocketAddress(InetAddress.getLocalHost(), port);
+      this.replies = replies;
     }
 
     @Override
@@ -180,6 +199,7 @@ public class AppClient {
           if (reply.getLength() == 0) {
             LOGGER.info("Read zero bytes");
           } else {
+            replies.incrementAndGet();
             LOGGER.info(new String(reply.getData(), 0, reply.getLength()));
           }
 
@@ -26,20 +26,46 @@ package com.iluwatar.reactor.app;
 
 import com.iluwatar.reactor.framework.AbstractNioChannel;
 import com.iluwatar.reactor.framework.ChannelHandler;
+import com.iluwatar.reactor.framework.FrameCodec;
+import com.iluwatar.reactor.framework.FramingHandler;
 import com.iluwatar.reactor.framework.NioDatagramChannel.DatagramPacket;
+import com.iluwatar.reactor.framework.PooledBuffer;
 import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
+import java.nio.charset.StandardCharsets;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Logging server application logic. It logs the incoming requests on standard console and returns a
  * canned acknowledgement back to the remote peer.
+ *
+ * <p>Behind a {@link FramingHandler} the handler receives each frame as a {@link ByteBuffer}, and
+ * acknowledges every frame with a frame of its own, encoded by the codec it was created with.
  */
 @Slf4j
 public class LoggingHandler implements ChannelHandler {
 
   private static final byte[] ACK = "Data logged successfully".getBytes();
 
+  private final FrameCodec replyCodec;
+
+  /**
+   * Creates a handler for unframed data.
+   */
+  public LoggingHandler() {
+    this(null);
+  }
+
+  /**
+   * Creates a handler for the frames decoded by a {@link FramingHandler}.
+   *
+   * @param replyCodec the codec the acknowledgements of frames are encoded with, or null to write
+   *                   them unframed.
+   */
+  public LoggingHandler(FrameCodec replyCodec) {
+    this.replyCodec = replyCodec;
+  }
+
   /**
    * Decodes the received data and logs it on standard console.
    */
@@ -47,11 +73,15 @@ public class LoggingHandler implements ChannelHandler {
   public void handleChannelRead(AbstractNioChannel channel, Object readObject, SelectionKey key) {
     /*
      * As this handler is attached with both TCP and UDP channels we need to check whether the data
-     * received is a ByteBuffer (from TCP channel) or a DatagramPacket (from UDP channel).
+     * received is a PooledBuffer (from TCP channel), a ByteBuffer (a frame decoded from a TCP
+     * channel) or a DatagramPacket (from UDP channel).
      */
-    if (readObject instanceof ByteBuffer) {
-      doLogging((ByteBuffer) readObject);
+    if (readObject instanceof PooledBuffer pooled) {
+      doLogging(pooled.buffer());
       sendReply(channel, key);
+    } else if (readObject instanceof ByteBuffer frame) {
+      doLogging(frame);
+      sendFrameReply(channel, key);
     } else if (readObject instanceof DatagramPacket datagram) {
       doLogging(datagram.getData());
       sendReply(channel, datagram, key);
@@ -80,8 +110,16 @@ public class LoggingHandler implements ChannelHandler {
     channel.write(buffer, key);
   }
 
+  private void sendFrameReply(AbstractNioChannel channel, SelectionKey key) {
+    if (replyCodec == null) {
+      sendReply(channel, key);
+    } else {
+      replyCodec.write(channel, ByteBuffer.wrap(ACK), key);
+    }
+  }
+
   private static void doLogging(ByteBuffer data) {
     // assuming UTF-8 :(
-    LOGGER.info(new String(data.array(), 0, data.limit()));
+    LOGGER.info(StandardCharsets.UTF_8.decode(data.duplicate()).toString());
   }
 }
@@ -32,6 +32,8 @@ import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import lombok.Getter;
 
 /**
@@ -43,14 +45,24 @@ import lombok.Getter;
  * the concrete implementation. It provides a block writing mechanism wherein when any {@link
  * ChannelHandler} wants to write data back, it queues the data in pending write queue and clears it
  * in block manner. This provides better throughput.
+ *
+ * <p>The channel keeps track of the number of bytes queued for each connection. Once they exceed
+ * the high watermark the connection is reported as not writable, until the reactor has flushed
+ * them below the low watermark. Producers use {@link #isWritable(SelectionKey)} or {@link
+ * ChannelHandler#handleWritabilityChanged(AbstractNioChannel, SelectionKey, boolean)} to stop
+ * queueing data for slow peers instead of letting the queue grow without bounds.
  */
 public abstract class AbstractNioChannel {
 
   private final SelectableChannel channel;
   @Getter
   private final ChannelHandler handler;
-  private final Map<SelectableChannel, Queue<Object>> channelToPendingWrites;
+  @Getter
+  private final BufferPool bufferPool;
+  private final Map<SelectableChannel, PendingWrites> channelToPendingWrites;
   private NioReactor reactor;
+  private volatile int lowWatermark = 32 * 1024;
+  private volatile int highWatermark = 64 * 1024;
 
   /**
    * Creates a new channel.
@@ -59,8 +71,21 @@ public abstract class AbstractNioChannel {
    * @param channel a NIO channel to be wrapped.
    */
   public AbstractNioChannel(ChannelHandler handler, SelectableChannel channel) {
+    this(handler, channel, BufferPool.DEFAULT);
+  }
+
+  /**
+   * Creates a new channel which reads into buffers of the given pool.
+   *
+   * @param handler    which will handle events occurring on this channel.
+   * @param channel    a NIO channel to be wrapped.
+   * @param bufferPool the pool the buffers for incoming data are acquired from.
+   */
+  public AbstractNioChannel(ChannelHandler handler, SelectableChannel channel,
+      BufferPool bufferPool) {
     this.handler = handler;
     this.channel = channel;
+    this.bufferPool = bufferPool;
     this.channelToPendingWrites = new ConcurrentHashMap<>();
   }
 
@@ -98,7 +123,8 @@ public abstract class AbstractNioChannel {
 
   /**
    * Reads the data using the key and returns the read data. The underlying channel should be
-   * fetched using {@link SelectionKey#channel()}.
+   * fetched using {@link SelectionKey#channel()}. If the data is {@link ReferenceCounted}, the
+   * dispatcher releases it once the handler has handled it.
    *
    * @param key the key on which read event occurred.
    * @return data read.
@@ -107,32 +133,132 @@ public abstract class AbstractNioChannel {
   public abstract Object read(SelectionKey key) throws IOException;
 
   /*
-   * Called from the context of reactor thread when the key becomes writable. The channel writes the
-   * whole pending block of data at once.
+   * Called from the context of reactor thread when the key becomes writable. The channel writes as
+   * much of the pending block of data as the underlying channel accepts, and stays interested in
+   * writing until all of it has been written.
    */
   void flush(SelectionKey key) throws IOException {
     var pendingWrites = channelToPendingWrites.get(key.channel());
+    if (pendingWrites != null) {
+      var written = doFlush(pendingWrites.queue, key);
+      if (pendingWrites.bytes.addAndGet(-written) <= lowWatermark
+          && pendingWrites.writable.compareAndSet(false, true)) {
+        handler.handleWritabilityChanged(this, key, true);
+      }
+      if (!pendingWrites.queue.isEmpty()) {
+        return;
+      }
+    }
+    /*
+     * We don't have anything more to write so channel is interested in reading more data. The ops
+     * are changed right away, as a change queued behind a concurrent write request would undo it.
+     * Once the flag is cleared, data queued meanwhile is picked up either here or by the write
+     * request's own change.
+     */
+    key.interestOps(SelectionKey.OP_READ);
+    if (pendingWrites != null) {
+      pendingWrites.flushRequested.set(false);
+      if (!pendingWrites.queue.isEmpty()
+          && pendingWrites.flushRequested.compareAndSet(false, true)) {
+        key.interestOps(SelectionKey.OP_WRITE);
+      }
+    }
+  }
+
+  /**
+   * Writes as much of the pending data as the channel accepts without blocking, removing and
+   * releasing the data that has been written completely. Data that has only been written in part
+   * is left at the head of the queue.
+   *
+   * <p>The default implementation writes the pending data one by one using {@link
+   * #doWrite(Object, SelectionKey)}. Stream oriented channels override it to write several
+   * buffers with a single gathering write.
+   *
+   * @param pendingWrites the queue of data to be written, oldest first.
+   * @param key           the key which is writable.
+   * @return the number of bytes written.
+   * @throws IOException if any I/O error occurs.
+   */
+  protected long doFlush(Queue<Object> pendingWrites, SelectionKey key) throws IOException {
+    var written = 0L;
     Object pendingWrite;
-    while ((pendingWrite = pendingWrites.poll()) != null) {
+    while ((pendingWrite = pendingWrites.peek()) != null) {
+      var size = sizeOf(pendingWrite);
       // ask the concrete channel to make sense of data and write it to java channel
-      doWrite(pendingWrite, key);
+      if (!doWrite(pendingWrite, key)) {
+        break;
+      }
+      written += size;
+      pendingWrites.poll();
+      ReferenceCounted.release(pendingWrite);
     }
-    // We don't have anything more to write so channel is interested in reading more data
-    reactor.changeOps(key, SelectionKey.OP_READ);
+    return written;
   }
 
   /**
-   * Writes the data to the channel.
+   * Writes the data to the channel. The data is released by the caller once it has been written
+   * completely.
    *
    * @param pendingWrite the data to be written on channel.
    * @param key          the key which is writable.
+   * @return true if the data has been written completely, false if the channel did not accept all
+   *     of it and the rest has to be written once the channel is writable again.
    * @throws IOException if any I/O error occurs.
    */
-  protected abstract void doWrite(Object pendingWrite, SelectionKey key) throws IOException;
+  protected abstract boolean doWrite(Object pendingWrite, SelectionKey key) throws IOException;
+
+  /**
+   * Returns the number of bytes the data occupies in the pending write queue, which is checked
+   * against the watermarks.
+   *
+   * @param pendingWrite the data to be written on channel.
+   * @return the number of bytes to be written.
+   */
+  protected abstract int sizeOf(Object pendingWrite);
+
+  /**
+   * Sets the watermarks of the pending write queue of each connection.
+   *
+   * @param low  the number of queued bytes below which a connection becomes writable again.
+   * @param high the number of queued bytes above which a connection is no longer writable.
+   */
+  public void setWriteBufferWatermarks(int low, int high) {
+    if (low < 0 || low > high) {
+      throw new IllegalArgumentException("Invalid watermarks: low " + low + ", high " + high);
+    }
+    this.lowWatermark = low;
+    this.highWatermark = high;
+  }
+
+  /**
+   * Checks whether data can be queued for the connection without exceeding the high watermark.
+   * The data is still queued if it does, it is up to the producer to slow down.
+   *
+   * @param key the key of the connection.
+   * @return false if the bytes pending on the connection have exceeded the high watermark and have
+   *     not been flushed below the low watermark yet.
+   */
+  public boolean isWritable(SelectionKey key) {
+    var pendingWrites = channelToPendingWrites.get(key.channel());
+    return pendingWrites == null || pendingWrites.writable.get();
+  }
+
+  /*
+   * Called by the reactor when a connection has been closed, drops the data still pending on it
+   * and lets the handler clean up.
+   */
+  void channelClosed(SelectionKey key) {
+    handler.handleChannelClosed(this, key);
+    var pendingWrites = channelToPendingWrites.remove(key.channel());
+    if (pendingWrites != null) {
+      pendingWrites.discard();
+    }
+  }
 
   /**
    * Queues the data for writing. The data is not guaranteed to be written on underlying channel
-   * when this method returns. It will be written when the channel is flushed.
+   * when this method returns. It will be written when the channel is flushed. Data written to a
+   * connection that has been closed is dropped, and released if it is {@link ReferenceCounted}.
    *
    * <p>This method is used by the {@link ChannelHandler} to send reply back to the client. <br>
    * Example:
@@ -141,7 +267,7 @@ public abstract class AbstractNioChannel {
    * <code>
    * {@literal @}Override
    * public void handleChannelRead(AbstractNioChannel channel, Object readObj, SelectionKey key) {
-   *   byte[] data = ((ByteBuffer)readObj).array();
+   *   ByteBuffer data = ((PooledBuffer)readObj).buffer();
    *   ByteBuffer buffer = ByteBuffer.wrap("Server reply".getBytes());
    *   channel.write(buffer, key);
    * }
@@ -152,13 +278,53 @@ public abstract class AbstractNioChannel {
    * @param key  the key which is writable.
    */
   public void write(Object data, SelectionKey key) {
+    if (!key.channel().isOpen()) {
+      ReferenceCounted.release(data);
+      return;
+    }
     var pendingWrites = this.channelToPendingWrites.get(key.channel());
     if (pendingWrites == null) {
-      synchronized (this.channelToPendingWrites) {
-        pendingWrites = this.channelToPendingWrites.computeIfAbsent(key.channel(), k -> new ConcurrentLinkedQueue<>());
+      pendingWrites = this.channelToPendingWrites.computeIfAbsent(key.channel(),
+          k -> new PendingWrites());
+    }
+    pendingWrites.queue.add(data);
+    if (!key.channel().isOpen()) {
+      /*
+       * The connection was closed while the data was being queued. The reactor closes the channel
+       * before it discards the pending data, so either it has seen the data or we do.
+       */
+      channelToPendingWrites.remove(key.channel(), pendingWrites);
+      pendingWrites.discard();
+      return;
+    }
+    if (pendingWrites.bytes.addAndGet(sizeOf(data)) > highWatermark
+        && pendingWrites.writable.compareAndSet(true, false)) {
+      handler.handleWritabilityChanged(this, key, false);
+    }
+    // only the write that finds no flush pending asks the reactor for one
+    if (pendingWrites.flushRequested.compareAndSet(false, true)) {
+      reactor.changeOps(key, SelectionKey.OP_WRITE);
+    }
+  }
+
+  /**
+   * The data queued for one connection.
+   */
+  private static class PendingWrites {
+    private final Queue<Object> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicBoolean writable = new AtomicBoolean(true);
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    /*
+     * Drops the data still queued. Each element is polled once, so concurrent callers do not
+     * release the same data twice.
+     */
+    void discard() {
+      Object pendingWrite;
+      while ((pendingWrite = queue.poll()) != null) {
+        ReferenceCounted.release(pendingWrite);
       }
     }
-    pendingWrites.add(data);
-    reactor.changeOps(key, SelectionKey.OP_WRITE);
   }
 }
@@ -0,0 +1,162 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of direct {@link ByteBuffer}s in power of two size classes, from {@value #MIN_CAPACITY}
+ * bytes up to {@value #MAX_CAPACITY} bytes. A request is served from the smallest class that fits
+ * it. Requests larger than the biggest class get an unpooled buffer which is left to the garbage
+ * collector once released.
+ *
+ * <p>Reading into pooled direct buffers keeps the read path of the reactor free of allocations:
+ * the socket reads straight into native memory, and neither the buffer nor its {@link
+ * PooledBuffer} wrapper is allocated once the pool has warmed up.
+ *
+ * <p>Each size class keeps at most a configured number of free buffers, more are dropped on
+ * release. The free lists are plain array stacks guarded by their own lock, as a lock free linked
+ * queue would allocate a node on every release.
+ */
+public class BufferPool {
+
+  /**
+   * Capacity of the smallest size class.
+   */
+  public static final int MIN_CAPACITY = 512;
+  /**
+   * Capacity of the biggest size class.
+   */
+  public static final int MAX_CAPACITY = 64 * 1024;
+
+  private static final int MIN_SHIFT = Integer.numberOfTrailingZeros(MIN_CAPACITY);
+  private static final int SIZE_CLASSES =
+      Integer.numberOfTrailingZeros(MAX_CAPACITY) - MIN_SHIFT + 1;
+
+  /**
+   * Pool shared by the channels that are not given a pool of their own.
+   */
+  public static final BufferPool DEFAULT = new BufferPool(64);
+
+  private final SizeClass[] sizeClasses = new SizeClass[SIZE_CLASSES];
+  private final AtomicInteger allocated = new AtomicInteger();
+
+  /**
+   * Creates a pool.
+   *
+   * @param maxPooledPerClass the maximum number of free buffers kept per size class.
+   */
+  public BufferPool(int maxPooledPerClass) {
+    if (maxPooledPerClass < 0) {
+      throw new IllegalArgumentException("maxPooledPerClass must not be negative");
+    }
+    for (var i = 0; i < SIZE_CLASSES; i++) {
+      sizeClasses[i] = new SizeClass(maxPooledPerClass);
+    }
+  }
+
+  /**
+   * Acquires a cleared buffer with a capacity of at least {@code minCapacity} bytes and a reference
+   * count of one.
+   *
+   * @param minCapacity the minimum capacity needed.
+   * @return the buffer, which has to be released when no longer needed.
+   */
+  public PooledBuffer acquire(int minCapacity) {
+    var sizeClass = sizeClassOf(minCapacity);
+    PooledBuffer pooled;
+    if (sizeClass < 0) {
+      pooled = new PooledBuffer(this, -1, ByteBuffer.allocateDirect(minCapacity));
+    } else {
+      pooled = sizeClasses[sizeClass].poll();
+      if (pooled == null) {
+        allocated.incrementAndGet();
+        pooled = new PooledBuffer(this, sizeClass,
+            ByteBuffer.allocateDirect(MIN_CAPACITY << sizeClass));
+      }
+    }
+    pooled.acquired();
+    return pooled;
+  }
+
+  /**
+   * Get the number of pooled buffers allocated so far. Stays flat once the pool has warmed up.
+   *
+   * @return the number of buffers allocated by this pool, not counting unpooled ones.
+   */
+  public int getAllocatedCount() {
+    return allocated.get();
+  }
+
+  /*
+   * Called when the reference count of the buffer has dropped to zero.
+   */
+  void recycle(PooledBuffer pooled) {
+    if (pooled.sizeClass() >= 0) {
+      sizeClasses[pooled.sizeClass()].offer(pooled);
+    }
+  }
+
+  /*
+   * Returns the index of the smallest size class fitting the capacity, or -1 if it is too big.
+   */
+  static int sizeClassOf(int capacity) {
+    if (capacity > MAX_CAPACITY) {
+      return -1;
+    }
+    if (capacity <= MIN_CAPACITY) {
+      return 0;
+    }
+    return 32 - Integer.numberOfLeadingZeros(capacity - 1) - MIN_SHIFT;
+  }
+
+  /**
+   * The free buffers of one size class.
+   */
+  private static class SizeClass {
+    private final PooledBuffer[] free;
+    private int size;
+
+    SizeClass(int maxPooled) {
+      this.free = new PooledBuffer[maxPooled];
+    }
+
+    synchronized PooledBuffer poll() {
+      if (size == 0) {
+        return null;
+      }
+      var pooled = free[--size];
+      free[size] = null;
+      return pooled;
+    }
+
+    synchronized void offer(PooledBuffer pooled) {
+      if (size < free.length) {
+        free[size++] = pooled;
+      }
+    }
+  }
+}
@@ -44,4 +44,31 @@ public interface ChannelHandler {
    * @param key        the key on which read event occurred.
    */
   void handleChannelRead(AbstractNioChannel channel, Object readObject, SelectionKey key);
+
+  /**
+   * Called when the data queued for writing on a connection crosses the high watermark, or drops
+   * below the low watermark again. A handler producing data for many or slow peers stops writing
+   * to a connection while it is not writable. Does nothing by default.
+   *
+   * @param channel  the channel of the connection.
+   * @param key      the key of the connection.
+   * @param writable whether the connection is writable again.
+   * @see AbstractNioChannel#setWriteBufferWatermarks(int, int)
+   */
+  default void handleWritabilityChanged(AbstractNioChannel channel, SelectionKey key,
+      boolean writable) {
+    // no-op
+  }
+
+  /**
+   * Called by the reactor when a connection of the {@code channel} has been closed, so that the
+   * handler can free any state it keeps for the connection. Read events of the connection that are
+   * still being dispatched may arrive afterwards. Does nothing by default.
+   *
+   * @param channel the channel of the connection.
+   * @param key     the key of the connection, which is no longer valid.
+   */
+  default void handleChannelClosed(AbstractNioChannel channel, SelectionKey key) {
+    // no-op
+  }
 }
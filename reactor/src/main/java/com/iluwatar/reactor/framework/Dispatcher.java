@@ -38,6 +38,8 @@ import java.nio.channels.SelectionKey;
  *
  * @see SameThreadDispatcher
  * @see ThreadPoolDispatcher
+ * @see PartitionedDispatcher
+ * @see VirtualThreadDispatcher
  */
 public interface Dispatcher {
   /**
@@ -0,0 +1,74 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+
+/**
+ * Splits a stream of bytes into frames and turns frames back into bytes. Stream oriented channels
+ * deliver whatever the socket had available, so one read may hold part of a message or several
+ * messages. A codec restores the message boundaries, see {@link FramingHandler}.
+ *
+ * <p>Codecs hold no per-connection state and can be shared by all connections.
+ */
+public interface FrameCodec {
+
+  /**
+   * Decodes the next frame from the readable bytes of {@code in}. The frame is returned as a slice
+   * sharing the memory of {@code in}, and the position of {@code in} is moved past the frame. If
+   * {@code in} does not hold a complete frame yet, nothing is consumed.
+   *
+   * @param in the buffer to decode from.
+   * @return the frame, or null if more data is needed.
+   * @throws IOException if the data is not a valid frame, e.g. it exceeds the maximum length.
+   */
+  ByteBuffer decode(ByteBuffer in) throws IOException;
+
+  /**
+   * Encodes a frame. The frame itself is not copied, it is returned along with the buffers making
+   * up the header or trailer, so that they can be written with a single gathering write.
+   *
+   * @param frame the frame to be encoded.
+   * @return the buffers to be written, in order.
+   */
+  ByteBuffer[] encode(ByteBuffer frame);
+
+  /**
+   * Encodes a frame and queues it for writing on the connection. The buffers of one frame are
+   * queued one after the other, so the frames of a connection should be written by one thread at a
+   * time.
+   *
+   * @param channel the channel of the connection.
+   * @param frame   the frame to be written.
+   * @param key     the key of the connection.
+   */
+  default void write(AbstractNioChannel channel, ByteBuffer frame, SelectionKey key) {
+    for (var buffer : encode(frame)) {
+      channel.write(buffer, key);
+    }
+  }
+}
@@ -0,0 +1,179 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A {@link ChannelHandler} that restores the message boundaries of a stream oriented channel before
+ * passing the data on. It decodes the data read from each connection into frames using a {@link
+ * FrameCodec}, and calls the next handler once per frame with the frame as a {@link ByteBuffer}.
+ *
+ * <p>Frames are not copied: they are slices of the buffer the data was read into, and only valid
+ * until the next handler returns. A handler that keeps a frame, hands it to another thread or
+ * writes it back has to copy it. Only the bytes of an incomplete frame at the end of a read are
+ * copied, into an accumulation buffer of the connection that the next read is appended to.
+ *
+ * <p>The reads of a connection have to be handled in order, so this handler is meant to be used
+ * with the {@link SameThreadDispatcher} or the {@link PartitionedDispatcher}. Data that is not read
+ * from a stream, like datagram packets, is passed on unchanged. Replies are written with {@link
+ * FrameCodec#write(AbstractNioChannel, ByteBuffer, SelectionKey)}.
+ */
+@Slf4j
+public class FramingHandler implements ChannelHandler {
+
+  private final FrameCodec codec;
+  private final ChannelHandler next;
+  private final Map<SelectableChannel, Accumulator> accumulators = new ConcurrentHashMap<>();
+
+  /**
+   * Creates a framing handler.
+   *
+   * @param codec the codec used to split the data of each connection into frames.
+   * @param next  the handler called for each frame.
+   */
+  public FramingHandler(FrameCodec codec, ChannelHandler next) {
+    this.codec = codec;
+    this.next = next;
+  }
+
+  /**
+   * Decodes the frames of the data read and passes them to the next handler. A connection sending
+   * invalid frames is closed.
+   */
+  @Override
+  public void handleChannelRead(AbstractNioChannel channel, Object readObject, SelectionKey key) {
+    if (!(readObject instanceof PooledBuffer pooled)) {
+      next.handleChannelRead(channel, readObject, key);
+      return;
+    }
+    var accumulator = accumulators.computeIfAbsent(key.channel(),
+        k -> new Accumulator(channel.getBufferPool()));
+    synchronized (accumulator) {
+      try {
+        accumulator.decode(pooled.buffer(), channel, key);
+      } catch (IOException e) {
+        LOGGER.error("closing connection sending invalid frames", e);
+        close(key);
+      }
+      if (!key.channel().isOpen()) {
+        // the connection was closed while the data was being handled
+        handleChannelClosed(channel, key);
+      }
+    }
+  }
+
+  @Override
+  public void handleWritabilityChanged(AbstractNioChannel channel, SelectionKey key,
+      boolean writable) {
+    next.handleWritabilityChanged(channel, key, writable);
+  }
+
+  @Override
+  public void handleChannelClosed(AbstractNioChannel channel, SelectionKey key) {
+    var accumulator = accumulators.remove(key.channel());
+    if (accumulator != null) {
+      synchronized (accumulator) {
+        accumulator.release();
+      }
+    }
+    next.handleChannelClosed(channel, key);
+  }
+
+  private static void close(SelectionKey key) {
+    try {
+      key.channel().close();
+    } catch (IOException e) {
+      LOGGER.error("error closing channel", e);
+    }
+  }
+
+  /**
+   * The bytes of an incomplete frame received on a connection.
+   */
+  private class Accumulator {
+    private final BufferPool bufferPool;
+    private PooledBuffer cumulation;
+
+    Accumulator(BufferPool bufferPool) {
+      this.bufferPool = bufferPool;
+    }
+
+    /*
+     * Decodes the frames straight from the buffer read if nothing is pending, and from the
+     * accumulation buffer otherwise. Leaves the bytes of an incomplete frame in the accumulation
+     * buffer, which is in write mode between reads.
+     */
+    void decode(ByteBuffer in, AbstractNioChannel channel, SelectionKey key) throws IOException {
+      if (cumulation == null) {
+        decodeFrames(in, channel, key);
+        if (in.hasRemaining()) {
+          cumulation = bufferPool.acquire(in.remaining());
+          cumulation.buffer().put(in);
+        }
+        return;
+      }
+      ensureWritable(in.remaining());
+      var buffer = cumulation.buffer().put(in).flip();
+      decodeFrames(buffer, channel, key);
+      if (buffer.hasRemaining()) {
+        buffer.compact();
+      } else {
+        release();
+      }
+    }
+
+    private void decodeFrames(ByteBuffer in, AbstractNioChannel channel, SelectionKey key)
+        throws IOException {
+      ByteBuffer frame;
+      while ((frame = codec.decode(in)) != null) {
+        next.handleChannelRead(channel, frame, key);
+      }
+    }
+
+    private void ensureWritable(int length) {
+      var buffer = cumulation.buffer();
+      if (buffer.remaining() < length) {
+        var bigger = bufferPool.acquire(buffer.position() + length);
+        bigger.buffer().put(buffer.flip());
+        cumulation.release();
+        cumulation = bigger;
+      }
+    }
+
+    void release() {
+      if (cumulation != null) {
+        cumulation.release();
+        cumulation = null;
+      }
+    }
+  }
+}
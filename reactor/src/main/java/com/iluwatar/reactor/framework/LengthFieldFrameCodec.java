@@ -0,0 +1,72 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link FrameCodec} for frames prefixed with their length as a four byte big-endian integer.
+ * The length does not include the prefix itself, and it is not part of the decoded frame.
+ */
+public class LengthFieldFrameCodec implements FrameCodec {
+
+  private static final int LENGTH_FIELD_SIZE = Integer.BYTES;
+
+  private final int maxFrameLength;
+
+  /**
+   * Creates a length field codec.
+   *
+   * @param maxFrameLength the maximum length of a frame, longer frames are rejected.
+   */
+  public LengthFieldFrameCodec(int maxFrameLength) {
+    this.maxFrameLength = maxFrameLength;
+  }
+
+  @Override
+  public ByteBuffer decode(ByteBuffer in) throws IOException {
+    if (in.remaining() < LENGTH_FIELD_SIZE) {
+      return null;
+    }
+    var start = in.position();
+    var length = in.getInt(start);
+    if (length < 0 || length > maxFrameLength) {
+      throw new IOException("Invalid frame length " + length + ", maximum is " + maxFrameLength);
+    }
+    if (in.remaining() < LENGTH_FIELD_SIZE + length) {
+      return null;
+    }
+    var frame = in.slice(start + LENGTH_FIELD_SIZE, length);
+    in.position(start + LENGTH_FIELD_SIZE + length);
+    return frame;
+  }
+
+  @Override
+  public ByteBuffer[] encode(ByteBuffer frame) {
+    var header = ByteBuffer.allocate(LENGTH_FIELD_SIZE).putInt(0, frame.remaining());
+    return new ByteBuffer[] {header, frame};
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link FrameCodec} for text lines terminated by {@code \n} or {@code \r\n}, like the requests
+ * sent by the TCP logging clients. The terminator is not part of the decoded frame.
+ */
+public class LineFrameCodec implements FrameCodec {
+
+  private static final ByteBuffer DELIMITER = ByteBuffer.wrap(new byte[] {'\n'}).asReadOnlyBuffer();
+
+  private final int maxLineLength;
+
+  /**
+   * Creates a line codec.
+   *
+   * @param maxLineLength the maximum length of a line without its terminator, longer lines are
+   *                      rejected.
+   */
+  public LineFrameCodec(int maxLineLength) {
+    this.maxLineLength = maxLineLength;
+  }
+
+  @Override
+  public ByteBuffer decode(ByteBuffer in) throws IOException {
+    var start = in.position();
+    var end = Math.min(in.limit(), start + maxLineLength + 2);
+    for (var i = start; i < end; i++) {
+      if (in.get(i) == '\n') {
+        var length = i - start;
+        if (length > 0 && in.get(i - 1) == '\r') {
+          length--;
+        }
+        if (length > maxLineLength) {
+          break;
+        }
+        var frame = in.slice(start, length);
+        in.position(i + 1);
+        return frame;
+      }
+    }
+    if (end - start >= maxLineLength + 2) {
+      throw new IOException("Line exceeds the maximum length of " + maxLineLength);
+    }
+    return null;
+  }
+
+  @Override
+  public ByteBuffer[] encode(ByteBuffer frame) {
+    return new ByteBuffer[] {frame, DELIMITER.duplicate()};
+  }
+}
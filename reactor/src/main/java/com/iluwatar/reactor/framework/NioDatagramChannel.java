@@ -31,6 +31,7 @@ import java.net.SocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.DatagramChannel;
 import java.nio.channels.SelectionKey;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
@@ -41,6 +42,11 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class NioDatagramChannel extends AbstractNioChannel {
 
+  /**
+   * Largest payload of a UDP datagram, which fits the biggest size class of the buffer pool.
+   */
+  private static final int MAX_DATAGRAM_SIZE = 65_507;
+
   private final int port;
 
   /**
@@ -55,7 +61,21 @@ public class NioDatagramChannel extends AbstractNioChannel {
    * @throws IOException if any I/O error occurs.
    */
   public NioDatagramChannel(int port, ChannelHandler handler) throws IOException {
-    super(handler, DatagramChannel.open());
+    this(port, handler, BufferPool.DEFAULT);
+  }
+
+  /**
+   * Creates a {@link DatagramChannel} which reads incoming datagrams into buffers of the given
+   * pool.
+   *
+   * @param port       the port to be bound to listen for incoming datagram requests.
+   * @param handler    the handler to be used for handling incoming requests on this channel.
+   * @param bufferPool the pool the buffers for incoming data are acquired from.
+   * @throws IOException if any I/O error occurs.
+   */
+  public NioDatagramChannel(int port, ChannelHandler handler, BufferPool bufferPool)
+      throws IOException {
+    super(handler, DatagramChannel.open(), bufferPool);
     this.port = port;
   }
 
@@ -68,21 +88,33 @@ public class NioDatagramChannel extends AbstractNioChannel {
   }
 
   /**
-   * Reads and returns a {@link DatagramPacket} from the underlying channel.
+   * Reads and returns a {@link DatagramPacket} from the underlying channel. The datagram is
+   * received straight into a {@link PooledBuffer} which the packet holds, limited to the size of
+   * the datagram.
+   *
+   * <p>The size of a datagram is not known before it is received, and a datagram that does not fit
+   * the buffer is truncated, so the buffer is taken from the size class of the largest datagram.
+   * Once the pool has warmed up this neither copies nor allocates.
    *
    * @return the datagram packet read having the sender address.
    */
   @Override
   public DatagramPacket read(SelectionKey key) throws IOException {
-    var buffer = ByteBuffer.allocate(1024);
-    var sender = ((DatagramChannel) key.channel()).receive(buffer);
+    var pooled = getBufferPool().acquire(MAX_DATAGRAM_SIZE);
+    SocketAddress sender;
+    try {
+      sender = ((DatagramChannel) key.channel()).receive(pooled.buffer());
+    } catch (IOException | RuntimeException e) {
+      pooled.release();
+      throw e;
+    }
+    pooled.buffer().flip();
 
     /*
      * It is required to create a DatagramPacket because we need to preserve which socket address
      * acts as destination for sending reply packets.
      */
-    buffer.flip();
-    var packet = new DatagramPacket(buffer);
+    var packet = new DatagramPacket(pooled);
     packet.setSender(sender);
 
     return packet;
@@ -112,12 +144,19 @@ public class NioDatagramChannel extends AbstractNioChannel {
 
   /**
    * Writes the pending {@link DatagramPacket} to the underlying channel sending data to the
-   * intended receiver of the packet.
+   * intended receiver of the packet. A datagram is either sent as a whole or, if the socket buffer
+   * is full, not at all.
    */
   @Override
-  protected void doWrite(Object pendingWrite, SelectionKey key) throws IOException {
+  protected boolean doWrite(Object pendingWrite, SelectionKey key) throws IOException {
     var pendingPacket = (DatagramPacket) pendingWrite;
-    getJavaChannel().send(pendingPacket.getData(), pendingPacket.getReceiver());
+    var data = pendingPacket.getData();
+    return getJavaChannel().send(data, pendingPacket.getReceiver()) > 0 || !data.hasRemaining();
+  }
+
+  @Override
+  protected int sizeOf(Object pendingWrite) {
+    return ((DatagramPacket) pendingWrite).getData().remaining();
   }
 
   /**
@@ -131,11 +170,15 @@ public class NioDatagramChannel extends AbstractNioChannel {
   }
 
   /**
-   * Container of data used for {@link NioDatagramChannel} to communicate with remote peer.
+   * Container of data used for {@link NioDatagramChannel} to communicate with remote peer. Packets
+   * read from the channel hold their data in a {@link PooledBuffer} and have to be released, which
+   * is a no-op for packets created from a plain buffer.
    */
   @Getter
-  public static class DatagramPacket {
+  public static class DatagramPacket implements ReferenceCounted {
     private final ByteBuffer data;
+    @Getter(AccessLevel.NONE)
+    private final PooledBuffer pooled;
     @Setter
     private SocketAddress sender;
     @Setter
@@ -148,6 +191,35 @@ public class NioDatagramChannel extends AbstractNioChannel {
      */
     public DatagramPacket(ByteBuffer data) {
       this.data = data;
+      this.pooled = null;
+    }
+
+    /**
+     * Creates a container with underlying pooled data, which is released along with the packet.
+     *
+     * @param pooled the underlying message to be written on channel.
+     */
+    public DatagramPacket(PooledBuffer pooled) {
+      this.data = pooled.buffer();
+      this.pooled = pooled;
+    }
+
+    @Override
+    public int refCnt() {
+      return pooled == null ? 1 : pooled.refCnt();
+    }
+
+    @Override
+    public DatagramPacket retain() {
+      if (pooled != null) {
+        pooled.retain();
+      }
+      return this;
+    }
+
+    @Override
+    public boolean release() {
+      return pooled != null && pooled.release();
     }
   }
 }
@@ -28,6 +28,7 @@ import java.io.IOException;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
@@ -46,6 +47,12 @@ import lombok.extern.slf4j.Slf4j;
  * #start()} method. {@link NioReactor} uses {@link Selector} for realizing Synchronous Event
  * De-multiplexing.
  *
+ * <p>A reactor can also run in boss/worker mode, see {@link #NioReactor(Dispatcher, int)}. The
+ * boss reactor then only accepts connections and hands every accepted {@link SocketChannel} over
+ * to one of its IO reactors in round-robin order. Each IO reactor has its own {@link Selector},
+ * event loop thread and pending command queue, so reads and writes of different connections are
+ * spread across all cores instead of being serialized on a single thread.
+ *
  * <p>NOTE: This is one of the ways to implement NIO reactor, and it does not take care of all
  * possible edge cases which are required in a real application. This implementation is meant to
  * demonstrate the fundamental concepts that lie behind Reactor pattern.
@@ -63,6 +70,12 @@ public class NioReactor {
    */
   private final Queue<Runnable> pendingCommands = new ConcurrentLinkedQueue<>();
   private final ExecutorService reactorMain = Executors.newSingleThreadExecutor();
+  /**
+   * The reactors accepted connections are handed to. Empty if this reactor serves the accepted
+   * connections itself.
+   */
+  private final NioReactor[] ioReactors;
+  private int nextIoReactor;
 
   /**
    * Creates a reactor which will use provided {@code dispatcher} to dispatch events. The
@@ -72,14 +85,38 @@ public class NioReactor {
    * @throws IOException if any I/O error occurs.
    */
   public NioReactor(Dispatcher dispatcher) throws IOException {
+    this(dispatcher, 0);
+  }
+
+  /**
+   * Creates a boss reactor which accepts connections on the registered server channels and
+   * distributes them round-robin over {@code ioReactorCount} IO reactors. Each IO reactor runs its
+   * own event loop, so a single server can make use of all cores. A count of zero creates a
+   * reactor which serves the accepted connections in its own event loop.
+   *
+   * @param dispatcher     a non-null dispatcher used to dispatch events on registered channels.
+   * @param ioReactorCount the number of IO reactors, usually the number of available processors.
+   * @throws IOException if any I/O error occurs.
+   */
+  public NioReactor(Dispatcher dispatcher, int ioReactorCount) throws IOException {
+    if (ioReactorCount < 0) {
+      throw new IllegalArgumentException("ioReactorCount must not be negative: " + ioReactorCount);
+    }
     this.dispatcher = dispatcher;
     this.selector = Selector.open();
+    this.ioReactors = new NioReactor[ioReactorCount];
+    for (var i = 0; i < ioReactorCount; i++) {
+      ioReactors[i] = new NioReactor(dispatcher);
+    }
   }
 
   /**
    * Starts the reactor event loop in a new thread.
    */
   public void start() {
+    for (var ioReactor : ioReactors) {
+      ioReactor.start();
+    }
     reactorMain.execute(() -> {
       try {
         LOGGER.info("Reactor started, waiting for events...");
@@ -99,6 +136,9 @@ public class NioReactor {
   public void stop() throws InterruptedException, IOException {
     reactorMain.shutdown();
     selector.wakeup();
+    for (var ioReactor : ioReactors) {
+      ioReactor.stop();
+    }
     if (!reactorMain.awaitTermination(4, TimeUnit.SECONDS)) {
       reactorMain.shutdownNow();
     }
@@ -124,8 +164,8 @@ public class NioReactor {
   }
 
   private void eventLoop() throws IOException {
-    // honor interrupt request
-    while (!Thread.interrupted()) {
+    // honor interrupt and stop requests
+    while (!Thread.interrupted() && !reactorMain.isShutdown()) {
       // honor any pending commands first
       processPendingCommands();
 
@@ -176,9 +216,13 @@ public class NioReactor {
     }
   }
 
-  private static void onChannelWritable(SelectionKey key) throws IOException {
+  private static void onChannelWritable(SelectionKey key) {
     var channel = (AbstractNioChannel) key.attachment();
-    channel.flush(key);
+    try {
+      channel.flush(key);
+    } catch (IOException e) {
+      close(key);
+    }
   }
 
   private void onChannelReadable(SelectionKey key) {
@@ -187,12 +231,17 @@ public class NioReactor {
       var readObject = ((AbstractNioChannel) key.attachment()).read(key);
       dispatchReadEvent(key, readObject);
     } catch (IOException e) {
-      try {
-        key.channel().close();
-      } catch (IOException e1) {
-        LOGGER.error("error closing channel", e1);
-      }
+      close(key);
+    }
+  }
+
+  private static void close(SelectionKey key) {
+    try {
+      key.channel().close();
+    } catch (IOException e1) {
+      LOGGER.error("error closing channel", e1);
     }
+    ((AbstractNioChannel) key.attachment()).channelClosed(key);
   }
 
   /*
@@ -205,14 +254,57 @@ public class NioReactor {
   private void onChannelAcceptable(SelectionKey key) throws IOException {
     var serverSocketChannel = (ServerSocketChannel) key.channel();
     var socketChannel = serverSocketChannel.accept();
+    if (socketChannel == null) {
+      return;
+    }
     socketChannel.configureBlocking(false);
-    var readKey = socketChannel.register(selector, SelectionKey.OP_READ);
-    readKey.attach(key.attachment());
+    if (ioReactors.length == 0) {
+      var readKey = socketChannel.register(selector, SelectionKey.OP_READ);
+      readKey.attach(key.attachment());
+    } else {
+      var ioReactor = ioReactors[nextIoReactor];
+      nextIoReactor = (nextIoReactor + 1) % ioReactors.length;
+      ioReactor.registerAccepted(socketChannel, (AbstractNioChannel) key.attachment());
+    }
+  }
+
+  /*
+   * Called from the boss reactor thread. The registration has to happen in the context of this
+   * reactor's event loop, as registering with a selector blocks while it is selecting.
+   */
+  private void registerAccepted(SocketChannel socketChannel, AbstractNioChannel channel) {
+    pendingCommands.add(() -> {
+      try {
+        var readKey = socketChannel.register(selector, SelectionKey.OP_READ);
+        readKey.attach(channel);
+      } catch (IOException e) {
+        LOGGER.error("error registering accepted connection", e);
+        try {
+          socketChannel.close();
+        } catch (IOException e1) {
+          LOGGER.error("error closing channel", e1);
+        }
+      }
+    });
+    selector.wakeup();
+  }
+
+  /*
+   * Finds the reactor whose selector the key is registered with.
+   */
+  private NioReactor ownerOf(SelectionKey key) {
+    for (var ioReactor : ioReactors) {
+      if (key.selector() == ioReactor.selector) {
+        return ioReactor;
+      }
+    }
+    return this;
   }
 
   /**
    * Queues the change of operations request of a channel, which will change the interested
-   * operations of the channel sometime in the future.
+   * operations of the channel sometime in the future. The command is run by the reactor that owns
+   * the key, which is one of the IO reactors for connections accepted in boss/worker mode.
    *
    * <p>This is a non-blocking method and does not guarantee that the operations have changed when
    * this method returns.
@@ -221,8 +313,9 @@ public class NioReactor {
    * @param interestedOps the new interest operations.
    */
   public void changeOps(SelectionKey key, int interestedOps) {
-    pendingCommands.add(new ChangeKeyOpsCommand(key, interestedOps));
-    selector.wakeup();
+    var owner = ownerOf(key);
+    owner.pendingCommands.add(new ChangeKeyOpsCommand(key, interestedOps));
+    owner.selector.wakeup();
   }
 
   /**
@@ -238,7 +331,10 @@ public class NioReactor {
     }
 
     public void run() {
-      key.interestOps(interestedOps);
+      // the connection may have been closed since the command was queued
+      if (key.isValid()) {
+        key.interestOps(interestedOps);
+      }
     }
 
     @Override
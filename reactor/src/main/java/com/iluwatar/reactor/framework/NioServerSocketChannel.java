@@ -31,6 +31,8 @@ import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Queue;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -40,6 +42,21 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class NioServerSocketChannel extends AbstractNioChannel {
 
+  /**
+   * Size of the buffer a read starts with. It is doubled as long as the socket fills it, up to
+   * {@link BufferPool#MAX_CAPACITY}.
+   */
+  private static final int INITIAL_READ_SIZE = 1024;
+  /**
+   * Maximum number of buffers written with a single gathering write.
+   */
+  private static final int MAX_GATHERED_BUFFERS = 64;
+  /**
+   * Buffer array for gathering writes, one per reactor thread.
+   */
+  private static final ThreadLocal<ByteBuffer[]> GATHERED_BUFFERS =
+      ThreadLocal.withInitial(() -> new ByteBuffer[MAX_GATHERED_BUFFERS]);
+
   private final int port;
 
   /**
@@ -54,7 +71,22 @@ public class NioServerSocketChannel extends AbstractNioChannel {
    * @throws IOException if any I/O error occurs.
    */
   public NioServerSocketChannel(int port, ChannelHandler handler) throws IOException {
-    super(handler, ServerSocketChannel.open());
+    this(port, handler, BufferPool.DEFAULT);
+  }
+
+  /**
+   * Creates a {@link ServerSocketChannel} which reads incoming data into buffers of the given
+   * pool.
+   *
+   * @param port       the port on which channel will be bound to accept incoming connection
+   *                   requests.
+   * @param handler    the handler that will handle incoming requests on this channel.
+   * @param bufferPool the pool the buffers for incoming data are acquired from.
+   * @throws IOException if any I/O error occurs.
+   */
+  public NioServerSocketChannel(int port, ChannelHandler handler, BufferPool bufferPool)
+      throws IOException {
+    super(handler, ServerSocketChannel.open(), bufferPool);
     this.port = port;
   }
 
@@ -76,20 +108,38 @@ public class NioServerSocketChannel extends AbstractNioChannel {
   }
 
   /**
-   * Reads and returns {@link ByteBuffer} from the underlying {@link SocketChannel} represented by
-   * the <code>key</code>. Due to the fact that there is a dedicated channel for each client
+   * Reads and returns a {@link PooledBuffer} from the underlying {@link SocketChannel} represented
+   * by the <code>key</code>. Due to the fact that there is a dedicated channel for each client
    * connection we don't need to store the sender.
+   *
+   * <p>The read starts with a small buffer and moves on to the next bigger size class whenever the
+   * socket fills it, so large messages are not truncated. Anything beyond the biggest size class
+   * is left in the socket and delivered by the next read event.
    */
   @Override
-  public ByteBuffer read(SelectionKey key) throws IOException {
+  public PooledBuffer read(SelectionKey key) throws IOException {
     var socketChannel = (SocketChannel) key.channel();
-    var buffer = ByteBuffer.allocate(1024);
-    var read = socketChannel.read(buffer);
-    buffer.flip();
-    if (read == -1) {
-      throw new IOException("Socket closed");
+    var pooled = getBufferPool().acquire(INITIAL_READ_SIZE);
+    try {
+      var read = socketChannel.read(pooled.buffer());
+      if (read == -1) {
+        throw new IOException("Socket closed");
+      }
+      while (!pooled.buffer().hasRemaining() && pooled.capacity() < BufferPool.MAX_CAPACITY) {
+        var bigger = getBufferPool().acquire(pooled.capacity() * 2);
+        bigger.buffer().put(pooled.buffer().flip());
+        pooled.release();
+        pooled = bigger;
+        if (socketChannel.read(pooled.buffer()) <= 0) {
+          break;
+        }
+      }
+      pooled.buffer().flip();
+      return pooled;
+    } catch (IOException e) {
+      pooled.release();
+      throw e;
     }
-    return buffer;
   }
 
   /**
@@ -105,13 +155,65 @@ public class NioServerSocketChannel extends AbstractNioChannel {
     LOGGER.info("Bound TCP socket at port: {}", port);
   }
 
+  /**
+   * Writes the pending {@link ByteBuffer}s and {@link PooledBuffer}s to the underlying channel with
+   * gathering writes of up to {@value #MAX_GATHERED_BUFFERS} buffers each, so that many small
+   * replies cost a single system call. Stops as soon as the socket does not accept all the bytes
+   * offered to it.
+   */
+  @Override
+  protected long doFlush(Queue<Object> pendingWrites, SelectionKey key) throws IOException {
+    var socketChannel = (SocketChannel) key.channel();
+    var buffers = GATHERED_BUFFERS.get();
+    var written = 0L;
+    while (true) {
+      var count = 0;
+      var offered = 0L;
+      for (var pendingWrite : pendingWrites) {
+        if (count == buffers.length) {
+          break;
+        }
+        buffers[count] = bufferOf(pendingWrite);
+        offered += buffers[count++].remaining();
+      }
+      if (count == 0) {
+        return written;
+      }
+      var result = socketChannel.write(buffers, 0, count);
+      written += result;
+      Arrays.fill(buffers, 0, count, null);
+      // remove the data that has been written completely, the rest stays at the head of the queue
+      Object head;
+      while ((head = pendingWrites.peek()) != null && !bufferOf(head).hasRemaining()) {
+        pendingWrites.poll();
+        ReferenceCounted.release(head);
+      }
+      if (result < offered) {
+        return written;
+      }
+    }
+  }
+
   /**
    * Writes the pending {@link ByteBuffer} to the underlying channel sending data to the intended
    * receiver of the packet.
    */
   @Override
-  protected void doWrite(Object pendingWrite, SelectionKey key) throws IOException {
-    var pendingBuffer = (ByteBuffer) pendingWrite;
-    ((SocketChannel) key.channel()).write(pendingBuffer);
+  protected boolean doWrite(Object pendingWrite, SelectionKey key) throws IOException {
+    var buffer = bufferOf(pendingWrite);
+    ((SocketChannel) key.channel()).write(buffer);
+    return !buffer.hasRemaining();
+  }
+
+  @Override
+  protected int sizeOf(Object pendingWrite) {
+    return bufferOf(pendingWrite).remaining();
+  }
+
+  private static ByteBuffer bufferOf(Object pendingWrite) {
+    if (pendingWrite instanceof PooledBuffer pooled) {
+      return pooled.buffer();
+    }
+    return (ByteBuffer) pendingWrite;
   }
 }
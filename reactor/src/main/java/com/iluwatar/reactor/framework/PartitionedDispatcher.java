@@ -0,0 +1,101 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.nio.channels.SelectionKey;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An implementation that pins every connection to one of a fixed number of single threaded
+ * workers. The events of a connection are therefore handled one after the other, in the order the
+ * data was read, while different connections are still handled in parallel. A handler keeping
+ * per-connection state needs no locks, as it is only ever accessed by the same worker.
+ *
+ * <p>A slow event delays the later events of all the connections pinned to the same worker, so
+ * the handler should not block for long. For blocking handlers use {@link
+ * VirtualThreadDispatcher}.
+ */
+public class PartitionedDispatcher implements Dispatcher {
+
+  private final ExecutorService[] workers;
+
+  /**
+   * Creates a partitioned dispatcher.
+   *
+   * @param partitions number of workers the connections are spread over.
+   */
+  public PartitionedDispatcher(int partitions) {
+    if (partitions <= 0) {
+      throw new IllegalArgumentException("partitions must be positive: " + partitions);
+    }
+    this.workers = new ExecutorService[partitions];
+    for (var i = 0; i < partitions; i++) {
+      workers[i] = Executors.newSingleThreadExecutor();
+    }
+  }
+
+  /**
+   * Submits the work of dispatching the read event to the worker owning the connection. <br> Note
+   * that this is a non-blocking call and returns immediately. The read data is released once the
+   * handler has handled it.
+   */
+  @Override
+  public void onChannelReadEvent(AbstractNioChannel channel, Object readObject, SelectionKey key) {
+    workerFor(key).execute(() -> {
+      try {
+        channel.getHandler().handleChannelRead(channel, readObject, key);
+      } finally {
+        ReferenceCounted.release(readObject);
+      }
+    });
+  }
+
+  /*
+   * All the events of a connection share the same underlying channel and hence the same worker.
+   */
+  private ExecutorService workerFor(SelectionKey key) {
+    var hash = System.identityHashCode(key.channel());
+    return workers[Math.floorMod(hash ^ (hash >>> 16), workers.length)];
+  }
+
+  /**
+   * Stops the workers.
+   *
+   * @throws InterruptedException if interrupted while stopping the workers.
+   */
+  @Override
+  public void stop() throws InterruptedException {
+    for (var worker : workers) {
+      worker.shutdown();
+    }
+    for (var worker : workers) {
+      if (!worker.awaitTermination(4, TimeUnit.SECONDS)) {
+        worker.shutdownNow();
+      }
+    }
+  }
+}
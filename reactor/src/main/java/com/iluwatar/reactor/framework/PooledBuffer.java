@@ -0,0 +1,111 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A direct {@link ByteBuffer} borrowed from a {@link BufferPool}. The buffer goes back to the pool
+ * when its reference count drops to zero, after which it must not be used anymore.
+ *
+ * <p>The wrapper itself is pooled along with the buffer, so acquiring and releasing a pooled
+ * buffer does not allocate.
+ */
+public final class PooledBuffer implements ReferenceCounted {
+
+  private final BufferPool pool;
+  private final int sizeClass;
+  private final ByteBuffer buffer;
+  private final AtomicInteger refCnt = new AtomicInteger();
+
+  PooledBuffer(BufferPool pool, int sizeClass, ByteBuffer buffer) {
+    this.pool = pool;
+    this.sizeClass = sizeClass;
+    this.buffer = buffer;
+  }
+
+  /**
+   * Get the buffer.
+   *
+   * @return the underlying buffer. Its position and limit are not reset by the pool until the
+   *     buffer is acquired again.
+   */
+  public ByteBuffer buffer() {
+    return buffer;
+  }
+
+  /**
+   * Get capacity.
+   *
+   * @return the capacity of the underlying buffer.
+   */
+  public int capacity() {
+    return buffer.capacity();
+  }
+
+  int sizeClass() {
+    return sizeClass;
+  }
+
+  /*
+   * Called by the pool when the buffer is handed out.
+   */
+  void acquired() {
+    buffer.clear();
+    refCnt.set(1);
+  }
+
+  @Override
+  public int refCnt() {
+    return refCnt.get();
+  }
+
+  @Override
+  public PooledBuffer retain() {
+    int count;
+    do {
+      count = refCnt.get();
+      if (count <= 0) {
+        throw new IllegalStateException("Buffer has already been released");
+      }
+    } while (!refCnt.compareAndSet(count, count + 1));
+    return this;
+  }
+
+  @Override
+  public boolean release() {
+    var count = refCnt.decrementAndGet();
+    if (count < 0) {
+      refCnt.incrementAndGet();
+      throw new IllegalStateException("Buffer has already been released");
+    }
+    if (count == 0) {
+      pool.recycle(this);
+      return true;
+    }
+    return false;
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+/**
+ * An object whose lifetime is governed by a reference count rather than by the garbage collector,
+ * such as a {@link PooledBuffer} that has to go back to its {@link BufferPool}.
+ *
+ * <p>The object starts with a count of one, owned by whoever created it. Every party that keeps
+ * the object beyond the call it received it in calls {@link #retain()}, and every owner calls
+ * {@link #release()} exactly once when it is done with the object.
+ *
+ * <p>The data read by the reactor is owned by the {@link Dispatcher}, which releases it when the
+ * {@link ChannelHandler} returns. A handler that hands the data to another thread or writes it
+ * back to the channel has to retain it first.
+ */
+public interface ReferenceCounted {
+
+  /**
+   * Get reference count.
+   *
+   * @return the current reference count.
+   */
+  int refCnt();
+
+  /**
+   * Increments the reference count by one.
+   *
+   * @return this object.
+   * @throws IllegalStateException if the object has already been released.
+   */
+  ReferenceCounted retain();
+
+  /**
+   * Decrements the reference count by one, freeing the object when it drops to zero.
+   *
+   * @return true if the object was freed by this call.
+   * @throws IllegalStateException if the object has already been released.
+   */
+  boolean release();
+
+  /**
+   * Releases the object if it is reference counted, does nothing otherwise. Used by the
+   * dispatchers which do not know the type of the data read by a channel.
+   *
+   * @param object the object to be released.
+   */
+  static void release(Object object) {
+    if (object instanceof ReferenceCounted counted) {
+      counted.release();
+    }
+  }
+}
@@ -33,6 +33,10 @@ import java.util.concurrent.TimeUnit;
  * An implementation that uses a pool of worker threads to dispatch the events. This provides better
  * scalability as the application specific processing is not performed in the context of I/O
  * (reactor) thread.
+ *
+ * <p>Events are handed to whichever worker is free, so two events of the same connection may be
+ * handled concurrently and out of order. Use {@link PartitionedDispatcher} if the handler relies
+ * on the order of the data.
  */
 public class ThreadPoolDispatcher implements Dispatcher {
 
@@ -50,11 +54,18 @@ public class ThreadPoolDispatcher implements Dispatcher {
   /**
    * Submits the work of dispatching the read event to worker pool, where it gets picked up by
    * worker threads. <br> Note that this is a non-blocking call and returns immediately. It is not
-   * guaranteed that the event has been handled by associated handler.
+   * guaranteed that the event has been handled by associated handler. The read data is released
+   * once the handler has handled it.
    */
   @Override
   public void onChannelReadEvent(AbstractNioChannel channel, Object readObject, SelectionKey key) {
-    executorService.execute(() -> channel.getHandler().handleChannelRead(channel, readObject, key));
+    executorService.execute(() -> {
+      try {
+        channel.getHandler().handleChannelRead(channel, readObject, key);
+      } finally {
+        ReferenceCounted.release(readObject);
+      }
+    });
   }
 
   /**
@@ -65,7 +76,7 @@ public class ThreadPoolDispatcher implements Dispatcher {
   @Override
   public void stop() throws InterruptedException {
     executorService.shutdown();
-    if (executorService.awaitTermination(4, TimeUnit.SECONDS)) {
+    if (!executorService.awaitTermination(4, TimeUnit.SECONDS)) {
       executorService.shutdownNow();
     }
   }
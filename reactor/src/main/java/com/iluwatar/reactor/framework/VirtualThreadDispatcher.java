@@ -0,0 +1,98 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.channels.SelectionKey;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * An implementation that handles every read event in a thread of its own. This suits handlers
+ * that block, e.g. on a database or a remote service: a blocked handler only holds up its own
+ * event, and the number of events in progress is not capped by a pool size.
+ *
+ * <p>On runtimes supporting virtual threads (Java 21 and later) each event gets a virtual thread,
+ * which is cheap enough to create per event and does not hold on to an OS thread while blocked.
+ * On older runtimes the dispatcher falls back to a cached pool of platform threads, which reuses
+ * idle threads but creates a new one whenever all of them are blocked.
+ *
+ * <p>Events are handled concurrently and in no particular order, see {@link
+ * PartitionedDispatcher} for ordered handling.
+ */
+@Slf4j
+public class VirtualThreadDispatcher implements Dispatcher {
+
+  private final ExecutorService executorService = newThreadPerTaskExecutor();
+
+  /**
+   * Creates an executor starting a virtual thread per task, or a cached thread pool if virtual
+   * threads are not available. The factory method is looked up at runtime, so the code compiles
+   * against older class libraries.
+   */
+  private static ExecutorService newThreadPerTaskExecutor() {
+    try {
+      var factory = MethodHandles.publicLookup().findStatic(Executors.class,
+          "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class));
+      return (ExecutorService) factory.invoke();
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      LOGGER.info("Virtual threads are not available, using a cached thread pool");
+      return Executors.newCachedThreadPool();
+    } catch (Throwable e) {
+      throw new IllegalStateException("Could not create a virtual thread executor", e);
+    }
+  }
+
+  /**
+   * Starts a new thread handling the read event. <br> Note that this is a non-blocking call and
+   * returns immediately. The read data is released once the handler has handled it.
+   */
+  @Override
+  public void onChannelReadEvent(AbstractNioChannel channel, Object readObject, SelectionKey key) {
+    executorService.execute(() -> {
+      try {
+        channel.getHandler().handleChannelRead(channel, readObject, key);
+      } finally {
+        ReferenceCounted.release(readObject);
+      }
+    });
+  }
+
+  /**
+   * Stops accepting events and waits for the events in progress.
+   *
+   * @throws InterruptedException if interrupted while waiting for the events in progress.
+   */
+  @Override
+  public void stop() throws InterruptedException {
+    executorService.shutdown();
+    if (!executorService.awaitTermination(4, TimeUnit.SECONDS)) {
+      executorService.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.iluwatar.reactor.framework.BufferPool;
+import com.iluwatar.reactor.framework.FramingHandler;
+import com.iluwatar.reactor.framework.LengthFieldFrameCodec;
+import com.iluwatar.reactor.framework.NioReactor;
+import com.iluwatar.reactor.framework.NioServerSocketChannel;
+import com.iluwatar.reactor.framework.SameThreadDispatcher;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link LoggingHandler}.
+ */
+class LoggingHandlerTest {
+
+  @Test
+  void shouldAcknowledgeEveryFrameDecodedInFrontOfIt() throws Exception {
+    var codec = new LengthFieldFrameCodec(1024);
+    var reactor = new NioReactor(new SameThreadDispatcher());
+    var server = new NioServerSocketChannel(0,
+        new FramingHandler(codec, new LoggingHandler(codec)), new BufferPool(4));
+    server.bind();
+    reactor.registerChannel(server).start();
+    try (var client = SocketChannel.open(
+        (InetSocketAddress) server.getJavaChannel().getLocalAddress())) {
+      var request = ByteBuffer.allocate(64);
+      for (var message : new String[] {"first log", "second log"}) {
+        request.putInt(message.length()).put(message.getBytes(StandardCharsets.UTF_8));
+      }
+      // the second frame is split across two reads
+      client.write(request.flip().slice(0, 20));
+      Thread.sleep(50);
+      client.write(request.position(20));
+
+      var ack = "Data logged successfully";
+      var replies = ByteBuffer.allocate(2 * (4 + ack.length()));
+      while (replies.hasRemaining()) {
+        assertTrue(client.read(replies) >= 0);
+      }
+      replies.flip();
+      for (var i = 0; i < 2; i++) {
+        assertEquals(ack.length(), replies.getInt());
+        var frame = replies.slice(replies.position(), ack.length());
+        assertEquals(ack, StandardCharsets.UTF_8.decode(frame).toString());
+        replies.position(replies.position() + ack.length());
+      }
+    } finally {
+      reactor.stop();
+      server.getJavaChannel().close();
+    }
+  }
+}
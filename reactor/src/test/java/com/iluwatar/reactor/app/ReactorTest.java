@@ -24,11 +24,13 @@
  */
 package com.iluwatar.reactor.app;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 import com.iluwatar.reactor.framework.SameThreadDispatcher;
 import com.iluwatar.reactor.framework.ThreadPoolDispatcher;
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
 
@@ -39,6 +41,11 @@ import org.junit.jupiter.api.Test;
 @Slf4j
 class ReactorTest {
 
+  /**
+   * Four clients sending four logging requests each.
+   */
+  private static final int REPLIES = 16;
+
   /**
    * Test the application using pooled thread dispatcher.
    *
@@ -58,16 +65,12 @@ class ReactorTest {
 
     assertNotNull(client);
 
-    // allow clients to send requests. Artificial delay.
-    try {
-      Thread.sleep(2000);
-    } catch (InterruptedException e) {
-      LOGGER.error("sleep interrupted", e);
-    }
+    awaitReplies(client);
 
     client.stop();
 
     app.stop();
+    assertEquals(REPLIES, client.getReplyCount());
     LOGGER.info("testAppUsingThreadPoolDispatcher stop");
   }
 
@@ -90,16 +93,51 @@ class ReactorTest {
 
     assertNotNull(client);
 
-    // allow clients to send requests. Artificial delay.
-    try {
-      Thread.sleep(2000);
-    } catch (InterruptedException e) {
-      LOGGER.error("sleep interrupted", e);
-    }
+    awaitReplies(client);
 
     client.stop();
 
     app.stop();
+    assertEquals(REPLIES, client.getReplyCount());
     LOGGER.info("testAppUsingSameThreadDispatcher stop");
   }
+
+  /**
+   * Test the application accepting connections on one reactor and serving them on two IO
+   * reactors.
+   *
+   * @throws IOException          if any I/O error occurs.
+   * @throws InterruptedException if interrupted while stopping the application.
+   */
+  @Test
+  void testAppUsingIoReactors() throws IOException, InterruptedException {
+    LOGGER.info("testAppUsingIoReactors start");
+    var app = new App(new ThreadPoolDispatcher(2), 2);
+    app.start();
+
+    assertNotNull(app);
+
+    var client = new AppClient();
+    client.start();
+
+    assertNotNull(client);
+
+    awaitReplies(client);
+
+    client.stop();
+
+    app.stop();
+    assertEquals(REPLIES, client.getReplyCount());
+    LOGGER.info("testAppUsingIoReactors stop");
+  }
+
+  /*
+   * Waits until every logging request of the clients has been replied to, or for ten seconds.
+   */
+  private static void awaitReplies(AppClient client) throws InterruptedException {
+    var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (client.getReplyCount() < REPLIES && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+  }
 }
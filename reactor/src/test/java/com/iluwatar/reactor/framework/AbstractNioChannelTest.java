@@ -0,0 +1,160 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the write path of {@link AbstractNioChannel}: replies much larger than the socket buffer
+ * are written in several partial gathering writes, in order, and the producer is told when the
+ * connection crosses the watermarks.
+ */
+class AbstractNioChannelTest {
+
+  private static final int REPLIES = 4_000;
+  private static final int REPLY_SIZE = 256;
+
+  private final List<Boolean> writabilityChanges = new CopyOnWriteArrayList<>();
+  private final CountDownLatch queued = new CountDownLatch(1);
+  private NioReactor reactor;
+  private NioServerSocketChannel server;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    reactor = new NioReactor(new SameThreadDispatcher());
+    server = new NioServerSocketChannel(0, new ChannelHandler() {
+      @Override
+      public void handleChannelRead(AbstractNioChannel channel, Object readObject,
+          SelectionKey key) {
+        for (var i = 0; i < REPLIES; i++) {
+          var reply = ByteBuffer.allocate(REPLY_SIZE);
+          while (reply.hasRemaining()) {
+            reply.putInt(i);
+          }
+          channel.write(reply.flip(), key);
+        }
+        queued.countDown();
+      }
+
+      @Override
+      public void handleWritabilityChanged(AbstractNioChannel channel, SelectionKey key,
+          boolean writable) {
+        writabilityChanges.add(writable);
+      }
+    });
+    server.setWriteBufferWatermarks(16 * 1024, 64 * 1024);
+    server.bind();
+    reactor.registerChannel(server).start();
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    reactor.stop();
+    server.getJavaChannel().close();
+  }
+
+  @Test
+  void shouldWriteEverythingInOrderAndSignalBackPressure() throws Exception {
+    var address = (InetSocketAddress) server.getJavaChannel().getLocalAddress();
+    try (var client = SocketChannel.open(address)) {
+      client.write(ByteBuffer.wrap(new byte[] {1}));
+      assertTrue(queued.await(5, TimeUnit.SECONDS));
+      assertEquals(Boolean.FALSE, writabilityChanges.get(0));
+
+      var reply = ByteBuffer.allocate(REPLY_SIZE);
+      for (var i = 0; i < REPLIES; i++) {
+        reply.clear();
+        while (reply.hasRemaining()) {
+          assertTrue(client.read(reply) >= 0);
+        }
+        reply.flip();
+        while (reply.hasRemaining()) {
+          assertEquals(i, reply.getInt());
+        }
+      }
+    }
+    assertEquals(List.of(false, true), writabilityChanges);
+  }
+
+  @Test
+  void shouldRequestOneFlushForConsecutiveWrites() throws Exception {
+    var changes = new AtomicInteger();
+    var channel = new NioServerSocketChannel(0, (ch, readObject, key) -> { });
+    channel.setReactor(new NioReactor(new SameThreadDispatcher()) {
+      @Override
+      public void changeOps(SelectionKey key, int interestedOps) {
+        changes.incrementAndGet();
+      }
+    });
+    try (var selector = Selector.open()) {
+      var pipe = Pipe.open();
+      pipe.source().configureBlocking(false);
+      var key = pipe.source().register(selector, SelectionKey.OP_READ);
+      for (var i = 0; i < 100; i++) {
+        channel.write(ByteBuffer.allocate(16), key);
+      }
+      assertEquals(1, changes.get());
+      pipe.source().close();
+      pipe.sink().close();
+    }
+  }
+
+  @Test
+  void shouldReleaseDataWrittenToAClosedConnection() throws Exception {
+    var pool = new BufferPool(4);
+    var channel = new NioServerSocketChannel(0, (ch, readObject, key) -> { }, pool);
+    try (var selector = Selector.open()) {
+      var pipe = Pipe.open();
+      pipe.source().configureBlocking(false);
+      var key = pipe.source().register(selector, SelectionKey.OP_READ);
+      pipe.source().close();
+      pipe.sink().close();
+
+      var data = pool.acquire(16);
+      channel.write(data, key);
+      assertEquals(0, data.refCnt());
+      assertTrue(channel.isWritable(key));
+      assertFalse(key.isValid());
+    }
+  }
+}
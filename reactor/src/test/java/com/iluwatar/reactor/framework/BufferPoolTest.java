@@ -0,0 +1,88 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link BufferPool} and {@link PooledBuffer}.
+ */
+class BufferPoolTest {
+
+  @Test
+  void shouldServeRequestsFromTheSmallestFittingSizeClass() {
+    assertEquals(0, BufferPool.sizeClassOf(1));
+    assertEquals(0, BufferPool.sizeClassOf(BufferPool.MIN_CAPACITY));
+    assertEquals(1, BufferPool.sizeClassOf(BufferPool.MIN_CAPACITY + 1));
+    assertEquals(-1, BufferPool.sizeClassOf(BufferPool.MAX_CAPACITY + 1));
+
+    var pool = new BufferPool(4);
+    var buffer = pool.acquire(1500);
+    assertEquals(2048, buffer.capacity());
+    assertTrue(buffer.buffer().isDirect());
+    assertEquals(1, buffer.refCnt());
+  }
+
+  @Test
+  void shouldRecycleReleasedBuffers() {
+    var pool = new BufferPool(4);
+    var first = pool.acquire(100);
+    first.buffer().putInt(42);
+    assertTrue(first.release());
+
+    var second = pool.acquire(200);
+    assertSame(first, second);
+    assertEquals(0, second.buffer().position());
+    assertEquals(1, pool.getAllocatedCount());
+  }
+
+  @Test
+  void shouldKeepRetainedBuffersUntilTheLastRelease() {
+    var pool = new BufferPool(4);
+    var buffer = pool.acquire(100).retain();
+    assertFalse(buffer.release());
+    assertNotSame(buffer, pool.acquire(100));
+    assertTrue(buffer.release());
+    assertThrows(IllegalStateException.class, buffer::release);
+    assertThrows(IllegalStateException.class, buffer::retain);
+  }
+
+  @Test
+  void shouldNotPoolOversizedBuffers() {
+    var pool = new BufferPool(4);
+    var buffer = pool.acquire(BufferPool.MAX_CAPACITY * 2);
+    assertEquals(BufferPool.MAX_CAPACITY * 2, buffer.capacity());
+    buffer.release();
+    assertNotSame(buffer, pool.acquire(BufferPool.MAX_CAPACITY * 2));
+    assertEquals(0, pool.getAllocatedCount());
+  }
+}
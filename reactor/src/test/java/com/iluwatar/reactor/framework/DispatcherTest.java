@@ -0,0 +1,169 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.Pipe;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * Tests the {@link Dispatcher} implementations, and compares their handler latency when the
+ * handler blocks. The events are dispatched directly, without a reactor, on the keys of a few
+ * pipes standing in for connections.
+ */
+@Slf4j
+class DispatcherTest {
+
+  private static final int CONNECTIONS = 10;
+  private static final int EVENTS_PER_CONNECTION = 20;
+
+  private Selector selector;
+  private final List<Pipe> pipes = new ArrayList<>();
+  private final List<SelectionKey> keys = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() throws IOException {
+    selector = Selector.open();
+    for (var i = 0; i < CONNECTIONS; i++) {
+      var pipe = Pipe.open();
+      pipe.source().configureBlocking(false);
+      keys.add(pipe.source().register(selector, SelectionKey.OP_READ));
+      pipes.add(pipe);
+    }
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    for (var pipe : pipes) {
+      pipe.source().close();
+      pipe.sink().close();
+    }
+    selector.close();
+  }
+
+  @Test
+  void shouldHandleEventsOfAConnectionInOrderOnOneThread() throws Exception {
+    var handled = new ConcurrentHashMap<SelectionKey, List<Integer>>();
+    var threads = new ConcurrentHashMap<SelectionKey, Thread>();
+    var done = new CountDownLatch(CONNECTIONS * EVENTS_PER_CONNECTION);
+    var channel = channel((ch, readObject, key) -> {
+      handled.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).add((Integer) readObject);
+      assertEquals(threads.computeIfAbsent(key, k -> Thread.currentThread()),
+          Thread.currentThread());
+      done.countDown();
+    });
+
+    var dispatcher = new PartitionedDispatcher(4);
+    for (var i = 0; i < EVENTS_PER_CONNECTION; i++) {
+      for (var key : keys) {
+        dispatcher.onChannelReadEvent(channel, i, key);
+      }
+    }
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    dispatcher.stop();
+
+    var expected = Stream.iterate(0, i -> i + 1).limit(EVENTS_PER_CONNECTION).toList();
+    keys.forEach(key -> assertEquals(expected, handled.get(key)));
+  }
+
+  @Test
+  void shouldReleaseReadData() throws Exception {
+    var pool = new BufferPool(1);
+    var dispatcher = new VirtualThreadDispatcher();
+    var done = new CountDownLatch(1);
+    var buffer = pool.acquire(16);
+    dispatcher.onChannelReadEvent(channel((ch, readObject, key) -> done.countDown()), buffer,
+        keys.get(0));
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    dispatcher.stop();
+    assertEquals(0, buffer.refCnt());
+  }
+
+  static Stream<Arguments> dispatchers() {
+    return Stream.of(
+        Arguments.of("ThreadPoolDispatcher(4)",
+            (Supplier<Dispatcher>) () -> new ThreadPoolDispatcher(4)),
+        Arguments.of("PartitionedDispatcher(4)",
+            (Supplier<Dispatcher>) () -> new PartitionedDispatcher(4)),
+        Arguments.of("VirtualThreadDispatcher",
+            (Supplier<Dispatcher>) VirtualThreadDispatcher::new));
+  }
+
+  @ParameterizedTest(name = "{0}")
+  @MethodSource("dispatchers")
+  void shouldHandleEveryEventOfBlockingHandlers(String name, Supplier<Dispatcher> factory)
+      throws Exception {
+    var latencies = new ConcurrentHashMap<Integer, Long>();
+    var done = new CountDownLatch(CONNECTIONS * EVENTS_PER_CONNECTION);
+    var channel = channel((ch, readObject, key) -> {
+      try {
+        Thread.sleep(10);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      var event = (long[]) readObject;
+      latencies.put((int) event[0], System.nanoTime() - event[1]);
+      done.countDown();
+    });
+
+    var dispatcher = factory.get();
+    var event = 0;
+    for (var i = 0; i < EVENTS_PER_CONNECTION; i++) {
+      for (var key : keys) {
+        dispatcher.onChannelReadEvent(channel, new long[] {event++, System.nanoTime()}, key);
+      }
+    }
+    assertTrue(done.await(30, TimeUnit.SECONDS));
+    dispatcher.stop();
+
+    var sorted = latencies.values().stream().mapToLong(Long::longValue).sorted().toArray();
+    assertEquals(CONNECTIONS * EVENTS_PER_CONNECTION, sorted.length);
+    LOGGER.info("{}: handler latency p50 {} ms, p99 {} ms", name,
+        sorted[sorted.length / 2] / 1_000_000, sorted[(int) (sorted.length * 0.99)] / 1_000_000);
+  }
+
+  private static AbstractNioChannel channel(ChannelHandler handler) throws IOException {
+    return new NioServerSocketChannel(0, handler);
+  }
+}
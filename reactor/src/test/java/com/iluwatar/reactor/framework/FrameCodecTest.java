@@ -0,0 +1,102 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link LengthFieldFrameCodec} and {@link LineFrameCodec}.
+ */
+class FrameCodecTest {
+
+  @Test
+  void shouldDecodeLengthPrefixedFrames() throws IOException {
+    var codec = new LengthFieldFrameCodec(16);
+    var in = ByteBuffer.allocate(32).putInt(3).put("abc".getBytes()).putInt(2).put("d".getBytes());
+    in.flip();
+
+    assertEquals("abc", text(codec.decode(in)));
+    assertEquals(7, in.position());
+    assertNull(codec.decode(in));
+    assertEquals(7, in.position());
+  }
+
+  @Test
+  void shouldRejectTooLongLengthPrefixedFrames() {
+    var codec = new LengthFieldFrameCodec(16);
+    var in = ByteBuffer.allocate(4).putInt(0, 17);
+    assertThrows(IOException.class, () -> codec.decode(in));
+  }
+
+  @Test
+  void shouldEncodeLengthPrefixedFramesWithoutCopying() {
+    var frame = ByteBuffer.wrap("abc".getBytes());
+    var encoded = new LengthFieldFrameCodec(16).encode(frame);
+    assertEquals(2, encoded.length);
+    assertEquals(3, encoded[0].getInt(0));
+    assertEquals(frame, encoded[1]);
+  }
+
+  @Test
+  void shouldDecodeLines() throws IOException {
+    var codec = new LineFrameCodec(8);
+    var in = ByteBuffer.wrap("one\r\ntwo\nthr".getBytes());
+
+    assertEquals("one", text(codec.decode(in)));
+    assertEquals("two", text(codec.decode(in)));
+    assertNull(codec.decode(in));
+    assertEquals("thr", text(in));
+  }
+
+  @Test
+  void shouldRejectTooLongLines() throws IOException {
+    var codec = new LineFrameCodec(4);
+    assertEquals("four", text(codec.decode(ByteBuffer.wrap("four\r\n".getBytes()))));
+    assertNull(codec.decode(ByteBuffer.wrap("four\r".getBytes())));
+    assertThrows(IOException.class, () -> codec.decode(ByteBuffer.wrap("fives\r\n".getBytes())));
+    assertThrows(IOException.class, () -> codec.decode(ByteBuffer.wrap("sixsix".getBytes())));
+  }
+
+  @Test
+  void shouldEncodeLines() {
+    var encoded = new LineFrameCodec(8).encode(ByteBuffer.wrap("abc".getBytes()));
+    assertEquals(2, encoded.length);
+    var bytes = new byte[encoded[1].remaining()];
+    encoded[1].get(bytes);
+    assertArrayEquals(new byte[] {'\n'}, bytes);
+  }
+
+  private static String text(ByteBuffer buffer) {
+    return StandardCharsets.UTF_8.decode(buffer).toString();
+  }
+}
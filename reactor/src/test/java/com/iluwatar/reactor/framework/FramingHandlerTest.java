@@ -0,0 +1,119 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link FramingHandler}.
+ */
+class FramingHandlerTest {
+
+  private final BufferPool pool = new BufferPool(4);
+  private final List<String> frames = new ArrayList<>();
+
+  @Test
+  void shouldReassembleFramesSplitAcrossReads() throws IOException {
+    var handler = new FramingHandler(new LengthFieldFrameCodec(1024),
+        (channel, readObject, key) -> frames.add(text((ByteBuffer) readObject)));
+    var stream = ByteBuffer.allocate(64);
+    for (var message : List.of("first", "", "second message", "third")) {
+      stream.putInt(message.length()).put(message.getBytes());
+    }
+    stream.flip();
+
+    try (var selector = Selector.open()) {
+      var pipe = Pipe.open();
+      pipe.source().configureBlocking(false);
+      var key = pipe.source().register(selector, SelectionKey.OP_READ);
+      var channel = new NioServerSocketChannel(0, handler, pool);
+
+      // deliver the stream in chunks of 3 bytes, so frames and headers are split
+      while (stream.hasRemaining()) {
+        var read = pool.acquire(3);
+        read.buffer().put(stream.slice(stream.position(), Math.min(3, stream.remaining())));
+        stream.position(stream.position() + read.buffer().position());
+        read.buffer().flip();
+        handler.handleChannelRead(channel, read, key);
+        read.release();
+      }
+      assertEquals(List.of("first", "", "second message", "third"), frames);
+
+      pipe.source().close();
+      pipe.sink().close();
+      handler.handleChannelClosed(channel, key);
+    }
+  }
+
+  @Test
+  void shouldFrameLinesOverTheReactor() throws Exception {
+    var codec = new LineFrameCodec(64);
+    var reactor = new NioReactor(new SameThreadDispatcher());
+    var server = new NioServerSocketChannel(0, new FramingHandler(codec, (ch, readObject, key) -> {
+      // echo every line upper-cased, copying the frame as it is only valid during the call
+      var reply = StandardCharsets.UTF_8.encode(text((ByteBuffer) readObject).toUpperCase());
+      codec.write(ch, reply, key);
+    }), pool);
+    server.bind();
+    reactor.registerChannel(server).start();
+    try (var client = SocketChannel.open(
+        (InetSocketAddress) server.getJavaChannel().getLocalAddress())) {
+      client.write(ByteBuffer.wrap("hello\nwor".getBytes()));
+      Thread.sleep(50);
+      client.write(ByteBuffer.wrap("ld\r\nagain\n".getBytes()));
+
+      var expected = "HELLO\nWORLD\nAGAIN\n";
+      var reply = ByteBuffer.allocate(expected.length());
+      while (reply.hasRemaining()) {
+        assertTrue(client.read(reply) >= 0);
+      }
+      assertEquals(expected, text(reply.flip()));
+
+      // a line longer than the maximum gets the connection closed
+      client.write(ByteBuffer.wrap(new byte[100]));
+      assertEquals(-1, client.read(ByteBuffer.allocate(1)));
+    } finally {
+      reactor.stop();
+      server.getJavaChannel().close();
+    }
+  }
+
+  private static String text(ByteBuffer buffer) {
+    return StandardCharsets.UTF_8.decode(buffer).toString();
+  }
+}
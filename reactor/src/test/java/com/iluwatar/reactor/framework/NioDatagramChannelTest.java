@@ -0,0 +1,69 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the read path of {@link NioDatagramChannel}.
+ */
+class NioDatagramChannelTest {
+
+  @Test
+  void shouldReceiveDatagramsIntoPooledBuffers() throws IOException {
+    var pool = new BufferPool(4);
+    var channel = new NioDatagramChannel(0, (ch, readObject, key) -> { }, pool);
+    channel.bind();
+    try (var selector = Selector.open(); var sender = DatagramChannel.open()) {
+      var key = channel.getJavaChannel().register(selector, SelectionKey.OP_READ);
+      var address = channel.getJavaChannel().getLocalAddress();
+      for (var size : new int[] {1, 1_000, 60_000}) {
+        sender.send(ByteBuffer.wrap(new byte[size]).put(size - 1, (byte) 42), address);
+        assertTrue(selector.select(5_000) > 0);
+        selector.selectedKeys().clear();
+
+        var packet = channel.read(key);
+        assertEquals(size, packet.getData().remaining());
+        assertEquals(42, packet.getData().get(size - 1));
+        assertEquals(((InetSocketAddress) sender.getLocalAddress()).getPort(),
+            ((InetSocketAddress) packet.getSender()).getPort());
+        assertTrue(packet.release());
+      }
+      // every datagram was received straight into the same pooled buffer
+      assertEquals(1, pool.getAllocatedCount());
+    } finally {
+      channel.getJavaChannel().close();
+    }
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * Compares the throughput and latency of a single reactor with the boss/worker mode of {@link
+ * NioReactor} for an increasing number of connections. Every connection sends a request and waits
+ * for the acknowledgement before sending the next one, like the clients of the logging app do.
+ *
+ * <p>The clients are plain socket channels, as the app's {@code AppClient} paces its requests.
+ * That the logging app works in the boss/worker mode is tested by {@code ReactorTest}.
+ *
+ * <p>The connection counts can be overridden with the {@code reactor.benchmark.connections}
+ * system property, e.g. {@code -Dreactor.benchmark.connections=1,100,1000,10000}. Large counts
+ * need a correspondingly high limit of open files.
+ */
+@Slf4j
+class NioReactorBenchmarkTest {
+
+  private static final byte[] REQUEST = "log request\n".getBytes();
+  private static final byte[] ACK = "ack\n".getBytes();
+  private static final int REQUESTS_PER_RUN = 20_000;
+  private static final int CLIENT_THREADS = 8;
+
+  static Stream<Arguments> connectionCounts() {
+    var counts = System.getProperty("reactor.benchmark.connections", "1,10,100");
+    var ioReactors = Math.max(2, Runtime.getRuntime().availableProcessors());
+    return Arrays.stream(counts.split(","))
+        .map(String::trim)
+        .map(Integer::parseInt)
+        .flatMap(count -> Stream.of(Arguments.of(count, 0), Arguments.of(count, ioReactors)));
+  }
+
+  @ParameterizedTest(name = "{0} connections, {1} IO reactors")
+  @MethodSource("connectionCounts")
+  void shouldAcknowledgeEveryRequest(int connections, int ioReactors) throws Exception {
+    var reactor = new NioReactor(new SameThreadDispatcher(), ioReactors);
+    var server = new NioServerSocketChannel(0, (channel, readObject, key) ->
+        channel.write(ByteBuffer.wrap(ACK), key));
+    server.bind();
+    reactor.registerChannel(server).start();
+    var address = (InetSocketAddress) server.getJavaChannel().getLocalAddress();
+
+    var clients = new ArrayList<SocketChannel>(connections);
+    try {
+      for (var i = 0; i < connections; i++) {
+        clients.add(SocketChannel.open(address));
+      }
+      var rounds = Math.max(5, REQUESTS_PER_RUN / connections);
+      var threads = Math.min(connections, CLIENT_THREADS);
+      var executor = Executors.newFixedThreadPool(threads);
+      var tasks = new ArrayList<Callable<long[]>>();
+      for (var t = 0; t < threads; t++) {
+        var owned = new ArrayList<SocketChannel>();
+        for (var i = t; i < connections; i += threads) {
+          owned.add(clients.get(i));
+        }
+        tasks.add(() -> sendRequests(owned, rounds));
+      }
+
+      var start = System.nanoTime();
+      var latencies = new ArrayList<long[]>();
+      for (var future : executor.invokeAll(tasks)) {
+        latencies.add(future.get());
+      }
+      var elapsed = System.nanoTime() - start;
+      executor.shutdown();
+
+      var all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+      assertEquals((long) connections * rounds, all.length);
+      LOGGER.info("{} connections, {} IO reactors: {} req/s, p50 {} us, p99 {} us",
+          connections, ioReactors, all.length * 1_000_000_000L / elapsed,
+          all[all.length / 2] / 1000, all[(int) (all.length * 0.99)] / 1000);
+    } finally {
+      for (var client : clients) {
+        client.close();
+      }
+      reactor.stop();
+      server.getJavaChannel().close();
+    }
+  }
+
+  /*
+   * Sends one request on every connection, then collects the acknowledgements, for the given
+   * number of rounds. Returns the round trip time of every request.
+   */
+  private static long[] sendRequests(List<SocketChannel> clients, int rounds) throws IOException {
+    var latencies = new long[clients.size() * rounds];
+    var sentAt = new long[clients.size()];
+    var reply = ByteBuffer.allocate(ACK.length);
+    var index = 0;
+    for (var round = 0; round < rounds; round++) {
+      for (var i = 0; i < clients.size(); i++) {
+        sentAt[i] = System.nanoTime();
+        clients.get(i).write(ByteBuffer.wrap(REQUEST));
+      }
+      for (var i = 0; i < clients.size(); i++) {
+        reply.clear();
+        while (reply.hasRemaining()) {
+          if (clients.get(i).read(reply) < 0) {
+            throw new IOException("Connection closed by reactor");
+          }
+        }
+        latencies[index++] = System.nanoTime() - sentAt[i];
+      }
+    }
+    return latencies;
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the read path of {@link NioServerSocketChannel}.
+ */
+class NioServerSocketChannelTest {
+
+  private final BufferPool pool = new BufferPool(16);
+  private final AtomicInteger bytesRead = new AtomicInteger();
+  private final AtomicInteger largestRead = new AtomicInteger();
+  private volatile CountDownLatch received;
+  private NioReactor reactor;
+  private NioServerSocketChannel server;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    reactor = new NioReactor(new SameThreadDispatcher());
+    server = new NioServerSocketChannel(0, (channel, readObject, key) -> {
+      var buffer = ((PooledBuffer) readObject).buffer();
+      bytesRead.addAndGet(buffer.remaining());
+      largestRead.accumulateAndGet(buffer.remaining(), Math::max);
+      for (var i = 0; i < buffer.remaining(); i++) {
+        received.countDown();
+      }
+    }, pool);
+    server.bind();
+    reactor.registerChannel(server).start();
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    reactor.stop();
+    server.getJavaChannel().close();
+  }
+
+  @Test
+  void shouldNotTruncateLargeMessages() throws Exception {
+    var message = new byte[48 * 1024];
+    received = new CountDownLatch(message.length);
+    try (var client = SocketChannel.open(address())) {
+      client.write(ByteBuffer.wrap(message));
+      assertTrue(received.await(5, TimeUnit.SECONDS));
+    }
+    assertEquals(message.length, bytesRead.get());
+    assertTrue(largestRead.get() > 1024, "read was not grown: " + largestRead.get());
+  }
+
+  @Test
+  void shouldReuseBuffersAcrossReads() throws Exception {
+    var messages = 1_000;
+    received = new CountDownLatch(messages * 100);
+    try (var client = SocketChannel.open(address())) {
+      for (var i = 0; i < messages; i++) {
+        client.write(ByteBuffer.wrap(new byte[100]));
+      }
+      assertTrue(received.await(5, TimeUnit.SECONDS));
+    }
+    assertTrue(pool.getAllocatedCount() <= 16, "allocated " + pool.getAllocatedCount());
+  }
+
+  private InetSocketAddress address() throws IOException {
+    return (InetSocketAddress) server.getJavaChannel().getLocalAddress();
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.sharding;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Thread-safe hash map from int keys to objects, striped over several {@link IntObjectHashMap}s
+ * each guarded by its own {@link StampedLock}. Writers to different stripes do not contend, and
+ * readers do not lock at all unless a writer of their stripe got in the way.
+ *
+ * @param <V> type of the values, which must not be null
+ */
+final class ConcurrentIntObjectMap<V> {
+
+  private static final int STRIPES = 16;
+
+  private final StampedLock[] locks = new StampedLock[STRIPES];
+
+  private final List<IntObjectHashMap<V>> maps = new ArrayList<>(STRIPES);
+
+  ConcurrentIntObjectMap() {
+    for (var i = 0; i < STRIPES; i++) {
+      locks[i] = new StampedLock();
+      maps.add(new IntObjectHashMap<>());
+    }
+  }
+
+  V get(final int key) {
+    var stripe = stripeOf(key);
+    var lock = locks[stripe];
+    var map = maps.get(stripe);
+    var stamp = lock.tryOptimisticRead();
+    if (stamp != 0) {
+      var value = map.get(key);
+      if (lock.validate(stamp)) {
+        return value;
+      }
+    }
+    stamp = lock.readLock();
+    try {
+      return map.get(key);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  V put(final int key, final V value) {
+    var stripe = stripeOf(key);
+    var stamp = locks[stripe].writeLock();
+    try {
+      return maps.get(stripe).put(key, value);
+    } finally {
+      locks[stripe].unlockWrite(stamp);
+    }
+  }
+
+  V remove(final int key) {
+    var stripe = stripeOf(key);
+    var stamp = locks[stripe].writeLock();
+    try {
+      return maps.get(stripe).remove(key);
+    } finally {
+      locks[stripe].unlockWrite(stamp);
+    }
+  }
+
+  int size() {
+    var size = 0;
+    for (var stripe = 0; stripe < STRIPES; stripe++) {
+      var stamp = locks[stripe].readLock();
+      try {
+        size += maps.get(stripe).size();
+      } finally {
+        locks[stripe].unlockRead(stamp);
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Number of slots in the key and value arrays of all stripes.
+   */
+  long capacity() {
+    var capacity = 0L;
+    for (var stripe = 0; stripe < STRIPES; stripe++) {
+      var stamp = locks[stripe].readLock();
+      try {
+        capacity += maps.get(stripe).capacity();
+      } finally {
+        locks[stripe].unlockRead(stamp);
+      }
+    }
+    return capacity;
+  }
+
+  List<V> values() {
+    var values = new ArrayList<V>();
+    for (var stripe = 0; stripe < STRIPES; stripe++) {
+      var stamp = locks[stripe].readLock();
+      try {
+        maps.get(stripe).forEachValue(values::add);
+      } finally {
+        locks[stripe].unlockRead(stamp);
+      }
+    }
+    return values;
+  }
+
+  void clear() {
+    for (var stripe = 0; stripe < STRIPES; stripe++) {
+      var stamp = locks[stripe].writeLock();
+      try {
+        maps.get(stripe).clear();
+      } finally {
+        locks[stripe].unlockWrite(stamp);
+      }
+    }
+  }
+
+  /**
+   * Picks the stripe from the low bits of a different hash than the one placing the key within
+   * the stripe, which uses the high bits of the Fibonacci hash.
+   */
+  private static int stripeOf(final int key) {
+    var hash = key ^ (key >>> 16);
+    hash *= 0x85ebca6b;
+    hash ^= hash >>> 13;
+    return hash & (STRIPES - 1);
+  }
+}
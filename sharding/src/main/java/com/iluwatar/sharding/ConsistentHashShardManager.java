@@ -0,0 +1,398 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.sharding;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ShardManager with consistent hashing strategy. Every shard is placed on a hash ring at a number
+ * of points (virtual nodes) proportional to its weight, and a key belongs to the shard of the first
+ * point following the hash of the key. Adding or removing a shard therefore only moves the keys
+ * next to its points, which is about 1/N of the keys, instead of almost every key like the modulo
+ * of the {@link HashShardManager} does.
+ *
+ * <p>The data of the moved keys is migrated by a background thread in small batches, so reads and
+ * writes keep being served during the rebalancing. Until the migration is done, a key missing from
+ * its new shard is looked up in the shards that owned it before, and a write removes the copies the
+ * previous owners still hold.
+ *
+ * <p>Topology changes, writes and migration batches are serialised on the manager. Reads outside of
+ * a rebalancing do not lock: they go straight to the owning shard, and only fall back to the locked
+ * path if the ring changed in the meantime.
+ */
+@Slf4j
+public class ConsistentHashShardManager extends ShardManager {
+
+  /**
+   * The default number of points on the ring per unit of weight.
+   */
+  public static final int DEFAULT_VIRTUAL_NODES = 128;
+
+  private static final int MIGRATION_BATCH_SIZE = 1024;
+
+  private final int virtualNodes;
+
+  private final Map<Integer, Integer> weights = new HashMap<>();
+
+  private final Map<Integer, Shard> drainingShards = new HashMap<>();
+
+  private final Deque<Ring> previousRings = new ArrayDeque<>();
+
+  private final ThreadPoolExecutor migrator;
+
+  private volatile Ring ring = Ring.EMPTY;
+
+  private volatile int pendingMigrations;
+
+  public ConsistentHashShardManager() {
+    this(DEFAULT_VIRTUAL_NODES);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param virtualNodes number of points on the ring per unit of weight
+   */
+  public ConsistentHashShardManager(final int virtualNodes) {
+    if (virtualNodes <= 0) {
+      throw new IllegalArgumentException("virtualNodes must be positive");
+    }
+    this.virtualNodes = virtualNodes;
+    this.migrator = new ThreadPoolExecutor(0, 1, 1, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(), runnable -> {
+          var thread = new Thread(runnable, "shard-migrator");
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  @Override
+  public synchronized boolean addNewShard(final Shard shard) {
+    return addNewShard(shard, 1);
+  }
+
+  /**
+   * Add a provided shard instance with a weight. A shard with twice the weight gets about twice
+   * the keys.
+   *
+   * @param shard  new shard instance.
+   * @param weight weight of the shard.
+   * @return {@code true} if succeed to add the new instance. {@code false} if the shardId is
+   *         already existed or the shard with that id is still being drained.
+   */
+  public synchronized boolean addNewShard(final Shard shard, final int weight) {
+    if (weight <= 0) {
+      throw new IllegalArgumentException("weight must be positive");
+    }
+    if (drainingShards.containsKey(shard.getId()) || !super.addNewShard(shard)) {
+      return false;
+    }
+    weights.put(shard.getId(), weight);
+    rebuildRing();
+    return true;
+  }
+
+  /**
+   * Remove a shard instance by provided Id. Its data is migrated to the remaining shards in the
+   * background. The last shard cannot be removed, as its data would have nowhere to go.
+   *
+   * @param shardId Id of shard instance to remove.
+   * @return {@code true} if removed. {@code false} if the shardId is not existed or it is the last
+   *         shard.
+   */
+  @Override
+  public synchronized boolean removeShardById(final int shardId) {
+    var shard = shardMap.get(shardId);
+    if (shard == null || shardMap.size() == 1) {
+      return false;
+    }
+    weights.remove(shardId);
+    drainingShards.put(shardId, shard);
+    // the new ring is published first, so a lock-free read that still uses the old ring and finds
+    // no shard for a key notices the change and retries on the locked path
+    rebuildRing();
+    super.removeShardById(shardId);
+    return true;
+  }
+
+  @Override
+  public synchronized int storeData(final Data data) {
+    var shardId = allocateShard(data);
+    shardMap.get(shardId).storeData(data);
+    for (var previous : previousRings) {
+      var previousId = previous.owner(data.getKey());
+      if (previousId != shardId) {
+        shardOf(previousId).removeDataById(data.getKey());
+      }
+    }
+    LOGGER.debug("{} is stored in Shard {}", data, shardId);
+    return shardId;
+  }
+
+  /**
+   * Get the data stored under the provided key.
+   *
+   * @param key data key
+   * @return the data, or {@code null} if there is none
+   */
+  public Data getData(final int key) {
+    var current = ring;
+    if (pendingMigrations == 0 && !current.isEmpty()) {
+      var shard = shardMap.get(current.owner(key));
+      if (shard != null) {
+        var data = shard.getDataById(key);
+        if (data != null || ring == current) {
+          return data;
+        }
+      }
+    }
+    synchronized (this) {
+      return getDataWhileLocked(key);
+    }
+  }
+
+  @Override
+  public synchronized void storeAll(final Collection<Data> batch) {
+    if (pendingMigrations > 0) {
+      batch.forEach(this::storeData);
+    } else {
+      super.storeAll(batch);
+    }
+  }
+
+  @Override
+  public Map<Integer, Data> getAll(final Collection<Integer> keys) {
+    var current = ring;
+    if (pendingMigrations == 0) {
+      var found = super.getAll(keys);
+      if (ring == current) {
+        return found;
+      }
+    }
+    synchronized (this) {
+      var found = new HashMap<Integer, Data>();
+      for (var key : keys) {
+        var data = getDataWhileLocked(key);
+        if (data != null) {
+          found.put(key, data);
+        }
+      }
+      return found;
+    }
+  }
+
+  @Override
+  protected Collection<Shard> locateShards(final int key) {
+    var current = ring;
+    var shard = current.isEmpty() ? null : shardMap.get(current.owner(key));
+    return shard == null ? List.of() : List.of(shard);
+  }
+
+  private Data getDataWhileLocked(final int key) {
+    if (!ring.isEmpty()) {
+      var data = shardMap.get(ring.owner(key)).getDataById(key);
+      if (data != null || previousRings.isEmpty()) {
+        return data;
+      }
+    }
+    for (var previous : previousRings) {
+      var data = shardOf(previous.owner(key)).getDataById(key);
+      if (data != null) {
+        return data;
+      }
+    }
+    return null;
+  }
+
+  @Override
+  protected synchronized int allocateShard(final Data data) {
+    if (ring.isEmpty()) {
+      throw new IllegalStateException("No shard to allocate");
+    }
+    return ring.owner(data.getKey());
+  }
+
+  /**
+   * Check whether data is still being migrated after adding or removing a shard.
+   *
+   * @return {@code true} while a migration is pending
+   */
+  public boolean isRebalancing() {
+    return pendingMigrations > 0;
+  }
+
+  /**
+   * Wait until all the data is stored in the shard owning it.
+   *
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public synchronized void awaitRebalancing() throws InterruptedException {
+    while (pendingMigrations > 0) {
+      wait();
+    }
+  }
+
+  private Shard shardOf(final int shardId) {
+    var shard = shardMap.get(shardId);
+    return shard != null ? shard : drainingShards.get(shardId);
+  }
+
+  private void rebuildRing() {
+    if (!ring.isEmpty()) {
+      previousRings.addFirst(ring);
+    }
+    if (!previousRings.isEmpty()) {
+      // counted before the new ring is published, so lock-free readers never miss a migration
+      pendingMigrations++;
+      migrator.execute(this::migrate);
+    }
+    ring = Ring.of(weights, virtualNodes);
+  }
+
+  /**
+   * Moves all the data which is not stored in the shard owning it, one batch per lock acquisition.
+   */
+  private void migrate() {
+    var moved = 0;
+    try {
+      List<Shard> sources;
+      synchronized (this) {
+        sources = new ArrayList<>(shardMap.values());
+        sources.addAll(drainingShards.values());
+      }
+      for (var source : sources) {
+        List<Data> candidates;
+        synchronized (this) {
+          candidates = source.getAllData();
+        }
+        for (var from = 0; from < candidates.size(); from += MIGRATION_BATCH_SIZE) {
+          var to = Math.min(from + MIGRATION_BATCH_SIZE, candidates.size());
+          synchronized (this) {
+            for (var data : candidates.subList(from, to)) {
+              moved += moveIfMisplaced(source, data.getKey()) ? 1 : 0;
+            }
+          }
+        }
+      }
+    } finally {
+      synchronized (this) {
+        if (--pendingMigrations == 0) {
+          previousRings.clear();
+          drainingShards.values().removeIf(shard -> shard.getAllData().isEmpty());
+          notifyAll();
+        }
+      }
+    }
+    LOGGER.info("Rebalancing moved {} keys", moved);
+  }
+
+  private boolean moveIfMisplaced(final Shard source, final int key) {
+    if (ring.isEmpty()) {
+      return false;
+    }
+    var owner = ring.owner(key);
+    if (owner == source.getId()) {
+      return false;
+    }
+    var data = source.removeDataById(key);
+    if (data == null) {
+      return false;
+    }
+    shardMap.get(owner).storeData(data);
+    return true;
+  }
+
+  /**
+   * Immutable hash ring, the points are sorted so the owner of a key is found by binary search.
+   */
+  private static final class Ring {
+
+    static final Ring EMPTY = new Ring(new long[0], new int[0]);
+
+    private static final long NODE_SEED = 0x9E3779B97F4A7C15L;
+
+    private final long[] points;
+
+    private final int[] shardIds;
+
+    private Ring(final long[] points, final int[] shardIds) {
+      this.points = points;
+      this.shardIds = shardIds;
+    }
+
+    static Ring of(final Map<Integer, Integer> weights, final int virtualNodes) {
+      var sorted = new TreeMap<Long, Integer>();
+      weights.forEach((shardId, weight) -> {
+        for (var node = 0; node < weight * virtualNodes; node++) {
+          sorted.put(mix(((long) shardId << 32 | node) ^ NODE_SEED), shardId);
+        }
+      });
+      var points = new long[sorted.size()];
+      var shardIds = new int[sorted.size()];
+      var index = 0;
+      for (var entry : sorted.entrySet()) {
+        points[index] = entry.getKey();
+        shardIds[index++] = entry.getValue();
+      }
+      return new Ring(points, shardIds);
+    }
+
+    boolean isEmpty() {
+      return points.length == 0;
+    }
+
+    int owner(final int key) {
+      var index = Arrays.binarySearch(points, mix(key));
+      if (index < 0) {
+        index = -index - 1;
+      }
+      return shardIds[index == points.length ? 0 : index];
+    }
+
+    /**
+     * The finalizer of MurmurHash3, spreads consecutive keys over the whole ring.
+     */
+    private static long mix(long hash) {
+      hash ^= hash >>> 33;
+      hash *= 0xff51afd7ed558ccdL;
+      hash ^= hash >>> 33;
+      hash *= 0xc4ceb9fe1a85ec53L;
+      hash ^= hash >>> 33;
+      return hash;
+    }
+  }
+}
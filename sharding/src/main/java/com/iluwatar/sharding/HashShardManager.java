@@ -24,6 +24,8 @@
  */
 package com.iluwatar.sharding;
 
+import java.util.Collection;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -46,8 +48,18 @@ public class HashShardManager extends ShardManager {
 
   @Override
   protected int allocateShard(Data data) {
+    return shardIdOf(data.getKey());
+  }
+
+  @Override
+  protected Collection<Shard> locateShards(int key) {
+    var shard = shardMap.get(shardIdOf(key));
+    return shard == null ? List.of() : List.of(shard);
+  }
+
+  private int shardIdOf(int key) {
     var shardCount = shardMap.size();
-    var hash = data.getKey() % shardCount;
+    var hash = key % shardCount;
     return hash == 0 ? hash + shardCount : hash;
   }
 
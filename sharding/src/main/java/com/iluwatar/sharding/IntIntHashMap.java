@@ -0,0 +1,139 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.sharding;
+
+/**
+ * Hash map from int keys to int values using open addressing, so neither keys nor values are
+ * boxed. It works like {@link IntObjectHashMap}, without removal, and is not thread-safe either.
+ */
+final class IntIntHashMap {
+
+  private static final int FREE = 0;
+
+  private static final int MIN_CAPACITY = 4;
+
+  private int[] keys;
+
+  private int[] values;
+
+  private int shift;
+
+  private int size;
+
+  private boolean hasZeroKey;
+
+  private int zeroValue;
+
+  IntIntHashMap() {
+    allocate(MIN_CAPACITY);
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * Number of slots in the key and value arrays.
+   */
+  int capacity() {
+    return keys.length;
+  }
+
+  /**
+   * Get the value of a key.
+   *
+   * @param key          the key
+   * @param missingValue the value returned if the key is not in the map
+   * @return the value of the key, or missingValue
+   */
+  int get(final int key, final int missingValue) {
+    if (key == FREE) {
+      return hasZeroKey ? zeroValue : missingValue;
+    }
+    var keys = this.keys;
+    var values = this.values;
+    if (keys.length != values.length) {
+      return missingValue;
+    }
+    var mask = keys.length - 1;
+    var index = IntObjectHashMap.slot(key, shift) & mask;
+    for (var probes = 0; probes <= mask; probes++) {
+      var candidate = keys[index];
+      if (candidate == key) {
+        return values[index];
+      }
+      if (candidate == FREE) {
+        return missingValue;
+      }
+      index = (index + 1) & mask;
+    }
+    return missingValue;
+  }
+
+  void put(final int key, final int value) {
+    if (key == FREE) {
+      size += hasZeroKey ? 0 : 1;
+      hasZeroKey = true;
+      zeroValue = value;
+      return;
+    }
+    var mask = keys.length - 1;
+    var index = IntObjectHashMap.slot(key, shift);
+    while (keys[index] != FREE) {
+      if (keys[index] == key) {
+        values[index] = value;
+        return;
+      }
+      index = (index + 1) & mask;
+    }
+    keys[index] = key;
+    values[index] = value;
+    if (++size > keys.length / 4 * 3) {
+      allocate(keys.length * 2);
+    }
+  }
+
+  private void allocate(final int capacity) {
+    var newKeys = new int[capacity];
+    var newValues = new int[capacity];
+    var newShift = Integer.numberOfLeadingZeros(capacity) + 1;
+    if (keys != null) {
+      var mask = capacity - 1;
+      for (var index = 0; index < keys.length; index++) {
+        if (keys[index] != FREE) {
+          var slot = IntObjectHashMap.slot(keys[index], newShift);
+          while (newKeys[slot] != FREE) {
+            slot = (slot + 1) & mask;
+          }
+          newKeys[slot] = keys[index];
+          newValues[slot] = values[index];
+        }
+      }
+    }
+    shift = newShift;
+    keys = newKeys;
+    values = newValues;
+  }
+}
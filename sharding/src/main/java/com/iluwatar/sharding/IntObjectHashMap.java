@@ -0,0 +1,212 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.sharding;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Hash map from int keys to objects using open addressing. An entry costs an int and a reference
+ * in two parallel arrays, instead of a node, a boxed key and a reference as in a {@link
+ * java.util.HashMap}. Keys are placed by Fibonacci hashing and collisions are resolved by linear
+ * probing, removal shifts the following entries back instead of leaving tombstones.
+ *
+ * <p>The map is not thread-safe. {@link #get(int)} never fails on a map modified concurrently, it
+ * only may return a wrong result, so it can be used for optimistic reads that are validated
+ * afterwards.
+ *
+ * @param <V> type of the values, which must not be null
+ */
+final class IntObjectHashMap<V> {
+
+  static final int GOLDEN_RATIO = 0x9E3779B9;
+
+  private static final int FREE = 0;
+
+  private static final int MIN_CAPACITY = 4;
+
+  private int[] keys;
+
+  private Object[] values;
+
+  private int shift;
+
+  private int size;
+
+  private V zeroValue;
+
+  IntObjectHashMap() {
+    allocate(MIN_CAPACITY);
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * Number of slots in the key and value arrays.
+   */
+  int capacity() {
+    return keys.length;
+  }
+
+  V get(final int key) {
+    if (key == FREE) {
+      return zeroValue;
+    }
+    var keys = this.keys;
+    var values = this.values;
+    if (keys.length != values.length) {
+      return null;
+    }
+    var mask = keys.length - 1;
+    var index = slot(key, shift) & mask;
+    for (var probes = 0; probes <= mask; probes++) {
+      var candidate = keys[index];
+      if (candidate == key) {
+        @SuppressWarnings("unchecked")
+        var value = (V) values[index];
+        return value;
+      }
+      if (candidate == FREE) {
+        return null;
+      }
+      index = (index + 1) & mask;
+    }
+    return null;
+  }
+
+  V put(final int key, final V value) {
+    if (value == null) {
+      throw new IllegalArgumentException("value must not be null");
+    }
+    if (key == FREE) {
+      var previous = zeroValue;
+      zeroValue = value;
+      size += previous == null ? 1 : 0;
+      return previous;
+    }
+    var mask = keys.length - 1;
+    var index = slot(key, shift);
+    while (keys[index] != FREE) {
+      if (keys[index] == key) {
+        @SuppressWarnings("unchecked")
+        var previous = (V) values[index];
+        values[index] = value;
+        return previous;
+      }
+      index = (index + 1) & mask;
+    }
+    keys[index] = key;
+    values[index] = value;
+    if (++size > keys.length / 4 * 3) {
+      allocate(keys.length * 2);
+    }
+    return null;
+  }
+
+  V remove(final int key) {
+    if (key == FREE) {
+      var previous = zeroValue;
+      zeroValue = null;
+      size -= previous == null ? 0 : 1;
+      return previous;
+    }
+    var mask = keys.length - 1;
+    var index = slot(key, shift);
+    while (keys[index] != key) {
+      if (keys[index] == FREE) {
+        return null;
+      }
+      index = (index + 1) & mask;
+    }
+    @SuppressWarnings("unchecked")
+    final var previous = (V) values[index];
+    // move back every following entry whose home slot is not between the gap and itself
+    var gap = index;
+    var next = (index + 1) & mask;
+    while (keys[next] != FREE) {
+      var home = slot(keys[next], shift);
+      if (((next - home) & mask) >= ((next - gap) & mask)) {
+        keys[gap] = keys[next];
+        values[gap] = values[next];
+        gap = next;
+      }
+      next = (next + 1) & mask;
+    }
+    keys[gap] = FREE;
+    values[gap] = null;
+    size--;
+    return previous;
+  }
+
+  @SuppressWarnings("unchecked")
+  void forEachValue(final Consumer<? super V> action) {
+    if (zeroValue != null) {
+      action.accept(zeroValue);
+    }
+    for (var index = 0; index < keys.length; index++) {
+      if (keys[index] != FREE) {
+        action.accept((V) values[index]);
+      }
+    }
+  }
+
+  void clear() {
+    Arrays.fill(keys, FREE);
+    Arrays.fill(values, null);
+    zeroValue = null;
+    size = 0;
+  }
+
+  static int slot(final int key, final int shift) {
+    return (key * GOLDEN_RATIO) >>> shift;
+  }
+
+  /**
+   * Rehashes into new arrays, which are only published when filled.
+   */
+  private void allocate(final int capacity) {
+    var newKeys = new int[capacity];
+    var newValues = new Object[capacity];
+    var newShift = Integer.numberOfLeadingZeros(capacity) + 1;
+    if (keys != null) {
+      var mask = capacity - 1;
+      for (var index = 0; index < keys.length; index++) {
+        if (keys[index] != FREE) {
+          var slot = slot(keys[index], newShift);
+          while (newKeys[slot] != FREE) {
+            slot = (slot + 1) & mask;
+          }
+          newKeys[slot] = keys[index];
+          newValues[slot] = values[index];
+        }
+      }
+    }
+    shift = newShift;
+    keys = newKeys;
+    values = newValues;
+  }
+}
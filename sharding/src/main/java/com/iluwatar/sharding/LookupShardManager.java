@@ -25,38 +25,83 @@
 package com.iluwatar.sharding;
 
 import java.security.SecureRandom;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.StampedLock;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * ShardManager with lookup strategy. In this strategy the sharding logic implements
  * a map that routes a request for data to the shard that contains that data by using
- * the shard key.
+ * the shard key. The map does not box keys nor values, and is read without locking unless a new
+ * key is being recorded at the same time.
  */
 @Slf4j
 public class LookupShardManager extends ShardManager {
 
-  private final Map<Integer, Integer> lookupMap = new HashMap<>();
+  private static final int UNALLOCATED = Integer.MIN_VALUE;
+
+  private final IntIntHashMap lookupMap = new IntIntHashMap();
+
+  private final StampedLock lookupLock = new StampedLock();
+
+  private final SecureRandom random = new SecureRandom();
 
   @Override
   public int storeData(Data data) {
     var shardId = allocateShard(data);
-    lookupMap.put(data.getKey(), shardId);
     var shard = shardMap.get(shardId);
     shard.storeData(data);
     LOGGER.info(data + " is stored in Shard " + shardId);
     return shardId;
   }
 
+  /**
+   * Allocate the shard recorded for the key, or record a random shard for a new key. Recording
+   * is atomic, so concurrent writes of a new key agree on its shard.
+   */
   @Override
   protected int allocateShard(Data data) {
     var key = data.getKey();
-    if (lookupMap.containsKey(key)) {
-      return lookupMap.get(key);
-    } else {
-      var shardCount = shardMap.size();
-      return new SecureRandom().nextInt(shardCount - 1) + 1;
+    var shardId = lookup(key);
+    if (shardId != UNALLOCATED) {
+      return shardId;
+    }
+    var stamp = lookupLock.writeLock();
+    try {
+      shardId = lookupMap.get(key, UNALLOCATED);
+      if (shardId == UNALLOCATED) {
+        shardId = random.nextInt(shardMap.size() - 1) + 1;
+        lookupMap.put(key, shardId);
+      }
+      return shardId;
+    } finally {
+      lookupLock.unlockWrite(stamp);
+    }
+  }
+
+  @Override
+  protected Collection<Shard> locateShards(int key) {
+    var shardId = lookup(key);
+    return Optional.ofNullable(shardId == UNALLOCATED ? null : shardMap.get(shardId))
+        .map(List::of)
+        .orElse(List.of());
+  }
+
+  private int lookup(int key) {
+    var stamp = lookupLock.tryOptimisticRead();
+    if (stamp != 0) {
+      var shardId = lookupMap.get(key, UNALLOCATED);
+      if (lookupLock.validate(stamp)) {
+        return shardId;
+      }
+    }
+    stamp = lookupLock.readLock();
+    try {
+      return lookupMap.get(key, UNALLOCATED);
+    } finally {
+      lookupLock.unlockRead(stamp);
     }
   }
 
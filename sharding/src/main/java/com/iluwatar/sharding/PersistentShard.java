@@ -0,0 +1,491 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.sharding;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32C;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Shard that survives restarts. The data is appended to a log file, and a memory-mapped hash index
+ * maps every key to the offset of its latest record in the log. Overwriting a key appends a new
+ * record and removing it appends a tombstone, the log is never modified in place.
+ *
+ * <p>Every record is laid out as the length and the CRC32C checksum of the payload, followed by
+ * the key, the type and the value of the data. The index is an open-addressing table of key and
+ * offset slots behind a header, which records whether the shard was closed cleanly and how much of
+ * the log the index covers. After a clean shutdown the index is used as it is, so a restart does
+ * not read the log at all. Otherwise the index is rebuilt by scanning the log, which only checks
+ * the records and reads their keys, and the log is truncated at the first damaged record.
+ *
+ * <p>Reads take a shared lock and read the log with positional reads, writes are exclusive.
+ */
+@Slf4j
+public class PersistentShard extends Shard implements AutoCloseable {
+
+  private static final String LOG_FILE = "data.log";
+
+  private static final String INDEX_FILE = "index.map";
+
+  private static final int MAGIC = 0x53484958;
+
+  private static final int MAGIC_OFFSET = 0;
+
+  private static final int CAPACITY_OFFSET = 4;
+
+  private static final int SIZE_OFFSET = 8;
+
+  private static final int CLEAN_OFFSET = 12;
+
+  private static final int COVERED_OFFSET = 16;
+
+  private static final int INDEX_HEADER_SIZE = 32;
+
+  private static final int SLOT_SIZE = Integer.BYTES + Long.BYTES;
+
+  private static final int MIN_CAPACITY = 1024;
+
+  private static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+
+  private static final byte TOMBSTONE = -1;
+
+  private static final byte NO_TYPE = -2;
+
+  private final Path directory;
+
+  private final FileChannel log;
+
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private final CRC32C checksum = new CRC32C();
+
+  private MappedByteBuffer index;
+
+  private int capacity;
+
+  private int shift;
+
+  private int size;
+
+  private long logLength;
+
+  private boolean indexRebuilt;
+
+  /**
+   * Opens the shard stored in a directory, creating it if needed.
+   *
+   * @param id        id of the shard
+   * @param directory directory of the log and index files, one per shard
+   */
+  public PersistentShard(final int id, final Path directory) {
+    super(id, null);
+    this.directory = directory;
+    try {
+      Files.createDirectories(directory);
+      log = FileChannel.open(directory.resolve(LOG_FILE), StandardOpenOption.CREATE,
+          StandardOpenOption.READ, StandardOpenOption.WRITE);
+      logLength = log.size();
+      if (!loadIndex()) {
+        rebuildIndex();
+      }
+      index.putInt(CLEAN_OFFSET, 0);
+      index.force();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public void storeData(final Data data) {
+    lock.writeLock().lock();
+    try {
+      var offset = append(data.getKey(), data);
+      indexPut(data.getKey(), offset);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public Data getDataById(final int id) {
+    lock.readLock().lock();
+    try {
+      var offset = indexGet(id);
+      return offset < 0 ? null : readRecord(offset);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public Data removeDataById(final int id) {
+    lock.writeLock().lock();
+    try {
+      var offset = indexGet(id);
+      if (offset < 0) {
+        return null;
+      }
+      var previous = readRecord(offset);
+      append(id, null);
+      indexRemove(id);
+      return previous;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public List<Data> getAllData() {
+    lock.readLock().lock();
+    try {
+      var all = new ArrayList<Data>(size);
+      for (var slot = 0; slot < capacity; slot++) {
+        var stored = index.getLong(slotOffset(slot) + Integer.BYTES);
+        if (stored != 0) {
+          all.add(readRecord(stored - 1));
+        }
+      }
+      return all;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public void clearData() {
+    lock.writeLock().lock();
+    try {
+      log.truncate(0);
+      logLength = 0;
+      // dropped first, so that none of its entries is carried over
+      index = null;
+      createIndex(MIN_CAPACITY);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Forces the log and the index to disk.
+   */
+  public void flush() {
+    lock.writeLock().lock();
+    try {
+      force();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Forces the log and the index to disk and marks the index as clean, so the next start can use
+   * it without reading the log.
+   */
+  @Override
+  public void close() {
+    lock.writeLock().lock();
+    try {
+      force();
+      index.putInt(CLEAN_OFFSET, 1);
+      index.force();
+      log.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Whether the index had to be rebuilt from the log on start, because the shard was not closed
+   * cleanly.
+   */
+  boolean isIndexRebuilt() {
+    return indexRebuilt;
+  }
+
+  private void force() throws IOException {
+    log.force(false);
+    index.putInt(SIZE_OFFSET, size);
+    index.putLong(COVERED_OFFSET, logLength);
+    index.force();
+  }
+
+  private long append(final int key, final Data data) throws IOException {
+    var value = data == null || data.getValue() == null
+        ? null : data.getValue().getBytes(StandardCharsets.UTF_8);
+    var payloadSize = Integer.BYTES + 1 + Integer.BYTES + (value == null ? 0 : value.length);
+    var buffer = ByteBuffer.allocate(RECORD_HEADER_SIZE + payloadSize);
+    buffer.putInt(payloadSize).putInt(0).putInt(key);
+    if (data == null) {
+      buffer.put(TOMBSTONE);
+    } else {
+      buffer.put(data.getType() == null ? NO_TYPE : (byte) data.getType().ordinal());
+    }
+    buffer.putInt(value == null ? -1 : value.length);
+    if (value != null) {
+      buffer.put(value);
+    }
+    checksum.reset();
+    checksum.update(buffer.array(), RECORD_HEADER_SIZE, payloadSize);
+    buffer.putInt(Integer.BYTES, (int) checksum.getValue());
+    buffer.flip();
+    var offset = logLength;
+    while (buffer.hasRemaining()) {
+      logLength += log.write(buffer, logLength);
+    }
+    return offset;
+  }
+
+  private Data readRecord(final long offset) throws IOException {
+    var header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+    readFully(header, offset);
+    var payload = ByteBuffer.allocate(header.getInt(0));
+    readFully(payload, offset + RECORD_HEADER_SIZE);
+    payload.flip();
+    var key = payload.getInt();
+    var type = payload.get();
+    var valueLength = payload.getInt();
+    String value = null;
+    if (valueLength >= 0) {
+      value = new String(payload.array(), payload.position(), valueLength, StandardCharsets.UTF_8);
+    }
+    return new Data(key, value, type == NO_TYPE ? null : Data.DataType.values()[type]);
+  }
+
+  private void readFully(final ByteBuffer buffer, final long offset) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (log.read(buffer, offset + buffer.position()) < 0) {
+        throw new IOException("Unexpected end of the log at " + offset);
+      }
+    }
+  }
+
+  /**
+   * Maps the existing index if the shard was closed cleanly and the index covers the whole log.
+   */
+  private boolean loadIndex() throws IOException {
+    var path = directory.resolve(INDEX_FILE);
+    if (!Files.exists(path) || Files.size(path) < INDEX_HEADER_SIZE) {
+      return false;
+    }
+    try (var channel = FileChannel.open(path, StandardOpenOption.READ,
+        StandardOpenOption.WRITE)) {
+      var header = channel.map(FileChannel.MapMode.READ_ONLY, 0, INDEX_HEADER_SIZE);
+      var storedCapacity = header.getInt(CAPACITY_OFFSET);
+      if (header.getInt(MAGIC_OFFSET) != MAGIC || header.getInt(CLEAN_OFFSET) != 1
+          || header.getLong(COVERED_OFFSET) != logLength
+          || Integer.bitCount(storedCapacity) != 1
+          || channel.size() != INDEX_HEADER_SIZE + (long) storedCapacity * SLOT_SIZE) {
+        LOGGER.info("Index of shard {} is stale", getId());
+        return false;
+      }
+      index = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+      capacity = storedCapacity;
+      shift = Integer.numberOfLeadingZeros(capacity) + 1;
+      size = index.getInt(SIZE_OFFSET);
+      return true;
+    }
+  }
+
+  /**
+   * Rebuilds the index by scanning the log. Only the key of every record is read, and the log is
+   * truncated at the first record which is incomplete or does not match its checksum.
+   */
+  private void rebuildIndex() throws IOException {
+    createIndex(MIN_CAPACITY);
+    var header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+    var payload = ByteBuffer.allocate(256);
+    var end = log.size();
+    var offset = 0L;
+    while (offset + RECORD_HEADER_SIZE <= end) {
+      header.clear();
+      readFully(header, offset);
+      var length = header.getInt(0);
+      if (length < Integer.BYTES + 1 || offset + RECORD_HEADER_SIZE + length > end) {
+        break;
+      }
+      if (payload.capacity() < length) {
+        payload = ByteBuffer.allocate(Math.max(length, payload.capacity() * 2));
+      }
+      payload.clear().limit(length);
+      readFully(payload, offset + RECORD_HEADER_SIZE);
+      checksum.reset();
+      checksum.update(payload.array(), 0, length);
+      if ((int) checksum.getValue() != header.getInt(Integer.BYTES)) {
+        break;
+      }
+      var key = payload.getInt(0);
+      if (payload.get(Integer.BYTES) == TOMBSTONE) {
+        indexRemove(key);
+      } else {
+        indexPut(key, offset);
+      }
+      offset += RECORD_HEADER_SIZE + length;
+    }
+    if (offset < end) {
+      LOGGER.warn("Truncating the log of shard {} from {} to {} bytes", getId(), end, offset);
+      log.truncate(offset);
+    }
+    logLength = offset;
+    indexRebuilt = true;
+    LOGGER.info("Rebuilt the index of shard {} with {} keys", getId(), size);
+  }
+
+  /**
+   * Creates an index file of the given capacity with the entries of the current index, and
+   * replaces the current index with it.
+   */
+  private void createIndex(final int newCapacity) throws IOException {
+    var temp = directory.resolve(INDEX_FILE + ".tmp");
+    Files.deleteIfExists(temp);
+    MappedByteBuffer mapped;
+    try (var channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW,
+        StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+          INDEX_HEADER_SIZE + (long) newCapacity * SLOT_SIZE);
+    }
+    mapped.putInt(MAGIC_OFFSET, MAGIC);
+    mapped.putInt(CAPACITY_OFFSET, newCapacity);
+    final var previous = index;
+    var previousCapacity = capacity;
+    var previousShift = shift;
+    index = mapped;
+    capacity = newCapacity;
+    shift = Integer.numberOfLeadingZeros(newCapacity) + 1;
+    size = 0;
+    if (previous != null) {
+      for (var slot = 0; slot < previousCapacity; slot++) {
+        var offset = slotOffset(slot);
+        var stored = previous.getLong(offset + Integer.BYTES);
+        if (stored != 0) {
+          indexPut(previous.getInt(offset), stored - 1);
+        }
+      }
+    }
+    Files.move(temp, directory.resolve(INDEX_FILE), StandardCopyOption.ATOMIC_MOVE,
+        StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  private long indexGet(final int key) {
+    var mask = capacity - 1;
+    var slot = IntObjectHashMap.slot(key, shift);
+    while (true) {
+      var offset = slotOffset(slot);
+      var stored = index.getLong(offset + Integer.BYTES);
+      if (stored == 0) {
+        return -1;
+      }
+      if (index.getInt(offset) == key) {
+        return stored - 1;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  /**
+   * Records the log offset of a key. Offsets are stored plus one, so a zero marks a free slot.
+   */
+  private void indexPut(final int key, final long logOffset) throws IOException {
+    var mask = capacity - 1;
+    var slot = IntObjectHashMap.slot(key, shift);
+    while (true) {
+      var offset = slotOffset(slot);
+      if (index.getLong(offset + Integer.BYTES) == 0) {
+        index.putInt(offset, key);
+        index.putLong(offset + Integer.BYTES, logOffset + 1);
+        if (++size > capacity / 4 * 3) {
+          createIndex(capacity * 2);
+        }
+        return;
+      }
+      if (index.getInt(offset) == key) {
+        index.putLong(offset + Integer.BYTES, logOffset + 1);
+        return;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  /**
+   * Removes a key, shifting back the following slots like {@link IntObjectHashMap} does.
+   */
+  private void indexRemove(final int key) {
+    var mask = capacity - 1;
+    var gap = IntObjectHashMap.slot(key, shift);
+    while (index.getInt(slotOffset(gap)) != key) {
+      if (index.getLong(slotOffset(gap) + Integer.BYTES) == 0) {
+        return;
+      }
+      gap = (gap + 1) & mask;
+    }
+    if (index.getLong(slotOffset(gap) + Integer.BYTES) == 0) {
+      return;
+    }
+    var next = (gap + 1) & mask;
+    while (index.getLong(slotOffset(next) + Integer.BYTES) != 0) {
+      var nextKey = index.getInt(slotOffset(next));
+      var home = IntObjectHashMap.slot(nextKey, shift);
+      if (((next - home) & mask) >= ((next - gap) & mask)) {
+        index.putInt(slotOffset(gap), nextKey);
+        index.putLong(slotOffset(gap) + Integer.BYTES,
+            index.getLong(slotOffset(next) + Integer.BYTES));
+        gap = next;
+      }
+      next = (next + 1) & mask;
+    }
+    index.putInt(slotOffset(gap), 0);
+    index.putLong(slotOffset(gap) + Integer.BYTES, 0);
+    size--;
+  }
+
+  private static int slotOffset(final int slot) {
+    return INDEX_HEADER_SIZE + slot * SLOT_SIZE;
+  }
+}
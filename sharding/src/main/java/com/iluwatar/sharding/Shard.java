@@ -24,23 +24,32 @@
  */
 package com.iluwatar.sharding;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 import lombok.Getter;
 
 /**
- * The Shard class stored data in a HashMap.
+ * The Shard class stored data in a {@link ConcurrentIntObjectMap}, so it can be read and written
+ * by several threads at once. Writes only lock the stripe of the key and reads usually do not lock
+ * at all. The keys are not boxed, which keeps large shards small.
  */
 public class Shard {
 
   @Getter
   private final int id;
 
-  private final Map<Integer, Data> dataStore;
+  private final ConcurrentIntObjectMap<Data> dataStore;
 
   public Shard(final int id) {
+    this(id, new ConcurrentIntObjectMap<>());
+  }
+
+  /**
+   * Constructor for shards keeping their data elsewhere, which pass no data store and override
+   * all methods accessing the data.
+   */
+  Shard(final int id, final ConcurrentIntObjectMap<Data> dataStore) {
     this.id = id;
-    this.dataStore = new HashMap<>();
+    this.dataStore = dataStore;
   }
 
   public void storeData(Data data) {
@@ -54,4 +63,12 @@ public class Shard {
   public Data getDataById(final int id) {
     return dataStore.get(id);
   }
+
+  public Data removeDataById(final int id) {
+    return dataStore.remove(id);
+  }
+
+  public List<Data> getAllData() {
+    return dataStore.values();
+  }
 }
@@ -24,20 +24,32 @@
  */
 package com.iluwatar.sharding;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiFunction;
 import lombok.extern.slf4j.Slf4j;
 
 /**
- * Abstract class for ShardManager.
+ * Abstract class for ShardManager. The shards are kept in a concurrent map and {@link Shard} is
+ * thread-safe, so a manager can be shared by several threads. The batch operations fan out to the
+ * shards involved in parallel, on the common fork-join pool. Small batches are not worth the
+ * hand-off and are processed by the calling thread.
  */
 @Slf4j
 public abstract class ShardManager {
 
+  private static final int MIN_KEYS_PER_TASK = 256;
+
   protected Map<Integer, Shard> shardMap;
 
   public ShardManager() {
-    shardMap = new HashMap<>();
+    shardMap = new ConcurrentHashMap<>();
   }
 
   /**
@@ -48,13 +60,7 @@ public abstract class ShardManager {
    *         {@code false} if the shardId is already existed.
    */
   public boolean addNewShard(final Shard shard) {
-    var shardId = shard.getId();
-    if (!shardMap.containsKey(shardId)) {
-      shardMap.put(shardId, shard);
-      return true;
-    } else {
-      return false;
-    }
+    return shardMap.putIfAbsent(shard.getId(), shard) == null;
   }
 
   /**
@@ -64,12 +70,7 @@ public abstract class ShardManager {
    * @return {@code true} if removed. {@code false} if the shardId is not existed.
    */
   public boolean removeShardById(final int shardId) {
-    if (shardMap.containsKey(shardId)) {
-      shardMap.remove(shardId);
-      return true;
-    } else {
-      return false;
-    }
+    return shardMap.remove(shardId) != null;
   }
 
   /**
@@ -90,6 +91,49 @@ public abstract class ShardManager {
    */
   public abstract int storeData(final Data data);
 
+  /**
+   * Store a batch of data. The data is grouped by shard, and the groups are stored in parallel.
+   *
+   * @param batch new data
+   */
+  public void storeAll(final Collection<Data> batch) {
+    var groups = new HashMap<Shard, List<Data>>();
+    for (var data : batch) {
+      var shard = shardMap.get(allocateShard(data));
+      groups.computeIfAbsent(shard, s -> new ArrayList<>()).add(data);
+    }
+    fanOut(groups, batch.size(), (shard, group) -> {
+      group.forEach(shard::storeData);
+      return Map.<Integer, Data>of();
+    });
+  }
+
+  /**
+   * Get the data of several keys. The keys are grouped by the shards which can hold them, the
+   * shards are queried in parallel and the results are merged.
+   *
+   * @param keys data keys
+   * @return the data found, by key
+   */
+  public Map<Integer, Data> getAll(final Collection<Integer> keys) {
+    var groups = new HashMap<Shard, List<Integer>>();
+    for (var key : keys) {
+      for (var shard : locateShards(key)) {
+        groups.computeIfAbsent(shard, s -> new ArrayList<>()).add(key);
+      }
+    }
+    return fanOut(groups, keys.size(), (shard, group) -> {
+      var found = new HashMap<Integer, Data>();
+      for (var key : group) {
+        var data = shard.getDataById(key);
+        if (data != null) {
+          found.put(key, data);
+        }
+      }
+      return found;
+    });
+  }
+
   /**
    * Allocate proper shard to provided data.
    *
@@ -98,4 +142,52 @@ public abstract class ShardManager {
    */
   protected abstract int allocateShard(final Data data);
 
+  /**
+   * Find the shards which can hold the data of a key. By default, this is every shard, which is
+   * right for strategies that do not allocate by key.
+   *
+   * @param key data key
+   * @return the shards to look into
+   */
+  protected Collection<Shard> locateShards(final int key) {
+    return shardMap.values();
+  }
+
+  /**
+   * Run the task for every shard and merge the results. The shards are dealt out to as many
+   * parallel tasks as the size of the batch and the common pool warrant, the first of which is run
+   * by the calling thread.
+   */
+  private static <T> Map<Integer, Data> fanOut(final Map<Shard, List<T>> groups, final int size,
+      final BiFunction<Shard, List<T>, Map<Integer, Data>> task) {
+    var parallelism = Math.min(ForkJoinPool.getCommonPoolParallelism() + 1,
+        Math.min(groups.size(), size / MIN_KEYS_PER_TASK));
+    var parts = new ArrayList<List<Map.Entry<Shard, List<T>>>>();
+    for (var i = 0; i < Math.max(parallelism, 1); i++) {
+      parts.add(new ArrayList<>());
+    }
+    var index = 0;
+    for (var group : groups.entrySet()) {
+      parts.get(index++ % parts.size()).add(group);
+    }
+    var futures = new ArrayList<CompletableFuture<Map<Integer, Data>>>(parts.size());
+    for (var part : parts.subList(1, parts.size())) {
+      futures.add(CompletableFuture.supplyAsync(() -> runAll(part, task)));
+    }
+    var result = runAll(parts.get(0), task);
+    for (var future : futures) {
+      result.putAll(future.join());
+    }
+    return result;
+  }
+
+  private static <T> Map<Integer, Data> runAll(final List<Map.Entry<Shard, List<T>>> part,
+      final BiFunction<Shard, List<T>, Map<Integer, Data>> task) {
+    var result = new HashMap<Integer, Data>();
+    for (var group : part) {
+      result.putAll(task.apply(group.getKey(), group.getValue()));
+    }
+    return result;
+  }
+
 }
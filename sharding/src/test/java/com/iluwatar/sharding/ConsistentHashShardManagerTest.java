@@ -0,0 +1,226 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.sharding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for ConsistentHashShardManager class.
+ */
+class ConsistentHashShardManagerTest {
+
+  private static final int KEYS = 20_000;
+
+  private ConsistentHashShardManager manager;
+
+  /**
+   * Initialize manager instance with four shards.
+   */
+  @BeforeEach
+  void setup() {
+    manager = new ConsistentHashShardManager();
+    for (var i = 1; i <= 4; i++) {
+      manager.addNewShard(new Shard(i));
+    }
+  }
+
+  @Test
+  void testStoreData() {
+    var data = new Data(1, "test", Data.DataType.TYPE_1);
+    var shardId = manager.storeData(data);
+    assertEquals(data, manager.getShardById(shardId).getDataById(1));
+    assertEquals(data, manager.getData(1));
+    assertNull(manager.getData(2));
+  }
+
+  @Test
+  void shouldBalanceKeysByWeight() {
+    manager.addNewShard(new Shard(5), 2);
+    var counts = new HashMap<Integer, Integer>();
+    for (var key = 0; key < KEYS; key++) {
+      counts.merge(manager.allocateShard(data(key)), 1, Integer::sum);
+    }
+    // six units of weight in total
+    for (var shardId = 1; shardId <= 4; shardId++) {
+      assertEquals(KEYS / 6.0, counts.get(shardId), KEYS / 6.0 * 0.25);
+    }
+    assertEquals(KEYS / 3.0, counts.get(5), KEYS / 3.0 * 0.25);
+  }
+
+  @Test
+  void shouldMoveOnlyTheKeysOfTheNewShard() throws InterruptedException {
+    for (var key = 0; key < KEYS; key++) {
+      manager.storeData(data(key));
+    }
+    var before = new int[KEYS];
+    for (var key = 0; key < KEYS; key++) {
+      before[key] = manager.allocateShard(data(key));
+    }
+    manager.addNewShard(new Shard(5));
+    manager.awaitRebalancing();
+
+    var moved = 0;
+    for (var key = 0; key < KEYS; key++) {
+      var owner = manager.allocateShard(data(key));
+      if (owner != before[key]) {
+        assertEquals(5, owner);
+        moved++;
+      }
+      assertNotNull(manager.getShardById(owner).getDataById(key));
+    }
+    assertEquals(KEYS / 5.0, moved, KEYS / 5.0 * 0.25);
+    assertEquals(moved, manager.getShardById(5).getAllData().size());
+  }
+
+  @Test
+  void shouldServeReadsAndWritesWhileRebalancing() throws Exception {
+    for (var key = 0; key < KEYS; key++) {
+      manager.storeData(data(key));
+    }
+    var running = new AtomicBoolean(true);
+    var misses = new AtomicInteger();
+    var reader = new Thread(() -> {
+      while (running.get()) {
+        for (var key = 0; key < KEYS; key += 7) {
+          if (manager.getData(key) == null) {
+            misses.incrementAndGet();
+          }
+        }
+      }
+    });
+    reader.start();
+    manager.addNewShard(new Shard(5), 2);
+    assertTrue(manager.removeShardById(1));
+    for (var key = 0; key < KEYS; key += 3) {
+      manager.storeData(new Data(key, "updated", Data.DataType.TYPE_2));
+    }
+    manager.awaitRebalancing();
+    running.set(false);
+    reader.join();
+
+    assertEquals(0, misses.get());
+    assertFalse(manager.isRebalancing());
+    assertNull(manager.getShardById(1));
+    var stored = 0;
+    for (var shardId = 2; shardId <= 5; shardId++) {
+      stored += manager.getShardById(shardId).getAllData().size();
+    }
+    assertEquals(KEYS, stored);
+    for (var key = 0; key < KEYS; key++) {
+      var data = manager.getShardById(manager.allocateShard(data(key))).getDataById(key);
+      assertEquals(key % 3 == 0 ? "updated" : "data" + key, data.getValue());
+    }
+  }
+
+  @Test
+  void shouldFindAllKeysWhileAShardIsRemoved() throws Exception {
+    var removed = new CountDownLatch(1);
+    var read = new CountDownLatch(1);
+    // holds the removal of a shard from the shard map until a read ran or a second passed
+    var pausing = new ConsistentHashShardManager() {
+      {
+        shardMap = new ConcurrentHashMap<>() {
+          @Override
+          public Shard remove(Object key) {
+            var shard = super.remove(key);
+            removed.countDown();
+            try {
+              read.await(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            return shard;
+          }
+        };
+      }
+    };
+    var keys = new ArrayList<Integer>();
+    for (var i = 1; i <= 4; i++) {
+      pausing.addNewShard(new Shard(i));
+    }
+    for (var key = 0; key < KEYS; key++) {
+      pausing.storeData(data(key));
+      keys.add(key);
+    }
+
+    var found = new AtomicInteger();
+    var reader = new Thread(() -> {
+      try {
+        removed.await();
+        found.set(pausing.getAll(keys).size());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        read.countDown();
+      }
+    });
+    reader.start();
+    assertTrue(pausing.removeShardById(1));
+    reader.join();
+    pausing.awaitRebalancing();
+
+    assertEquals(KEYS, found.get());
+    assertEquals(KEYS, pausing.getAll(keys).size());
+  }
+
+  @Test
+  void shouldKeepTheLastShardAndItsData() throws InterruptedException {
+    for (var key = 0; key < KEYS; key++) {
+      manager.storeData(data(key));
+    }
+    for (var shardId = 1; shardId <= 3; shardId++) {
+      assertTrue(manager.removeShardById(shardId));
+    }
+    assertFalse(manager.removeShardById(4));
+    manager.awaitRebalancing();
+    assertEquals(KEYS, manager.getShardById(4).getAllData().size());
+
+    // the removed ids can be added again once their data has been drained
+    assertTrue(manager.addNewShard(new Shard(1)));
+    manager.awaitRebalancing();
+    assertTrue(manager.removeShardById(4));
+    manager.awaitRebalancing();
+    assertEquals(KEYS, manager.getShardById(1).getAllData().size());
+    assertEquals("data42", manager.getData(42).getValue());
+  }
+
+  private static Data data(int key) {
+    return new Data(key, "data" + key, Data.DataType.TYPE_1);
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.sharding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the primitive hash maps.
+ */
+class IntObjectHashMapTest {
+
+  @Test
+  void shouldBehaveLikeHashMap() {
+    var random = new Random(42);
+    var map = new IntObjectHashMap<Integer>();
+    var expected = new HashMap<Integer, Integer>();
+    for (var i = 0; i < 200_000; i++) {
+      // a small key range, so keys collide, are overwritten and removed often
+      var key = random.nextInt(4_000) - 2_000;
+      if (random.nextInt(3) == 0) {
+        assertEquals(expected.remove(key), map.remove(key));
+      } else {
+        assertEquals(expected.put(key, i), map.put(key, i));
+      }
+      assertEquals(expected.size(), map.size());
+    }
+    for (var key = -2_000; key < 2_000; key++) {
+      assertEquals(expected.get(key), map.get(key));
+    }
+    var values = new HashSet<Integer>();
+    map.forEachValue(values::add);
+    assertEquals(new HashSet<>(expected.values()), values);
+
+    map.clear();
+    assertEquals(0, map.size());
+    assertNull(map.get(0));
+  }
+
+  @Test
+  void shouldMapIntToInt() {
+    var map = new IntIntHashMap();
+    for (var key = -50_000; key < 50_000; key++) {
+      map.put(key * 31, key);
+    }
+    assertEquals(100_000, map.size());
+    for (var key = -50_000; key < 50_000; key++) {
+      assertEquals(key, map.get(key * 31, Integer.MIN_VALUE));
+    }
+    assertEquals(Integer.MIN_VALUE, map.get(1, Integer.MIN_VALUE));
+    map.put(0, 7);
+    assertEquals(7, map.get(0, Integer.MIN_VALUE));
+  }
+
+  @Test
+  void shouldStripeConcurrentMap() {
+    var map = new ConcurrentIntObjectMap<String>();
+    for (var key = 0; key < 10_000; key++) {
+      map.put(key, "value" + key);
+    }
+    assertEquals(10_000, map.size());
+    assertEquals(10_000, map.values().size());
+    assertEquals("value1234", map.remove(1234));
+    assertNull(map.get(1234));
+    assertEquals("value4321", map.get(4321));
+  }
+}
@@ -27,7 +27,6 @@ package com.iluwatar.sharding;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.fail;
 
-import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -59,8 +58,8 @@ class LookupShardManagerTest {
       lookupShardManager.storeData(data);
       var field = LookupShardManager.class.getDeclaredField("lookupMap");
       field.setAccessible(true);
-      var lookupMap = (Map<Integer, Integer>) field.get(lookupShardManager);
-      var shardId = lookupMap.get(1);
+      var lookupMap = (IntIntHashMap) field.get(lookupShardManager);
+      var shardId = lookupMap.get(1, -1);
       var shard = lookupShardManager.getShardById(shardId);
       assertEquals(data, shard.getDataById(1));
     } catch (NoSuchFieldException | IllegalAccessException e) {
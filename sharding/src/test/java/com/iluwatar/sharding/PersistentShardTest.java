@@ -0,0 +1,129 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.sharding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for PersistentShard class.
+ */
+class PersistentShardTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void shouldStoreOverwriteAndRemoveData() {
+    try (var shard = new PersistentShard(1, directory)) {
+      shard.storeData(new Data(1, "first", Data.DataType.TYPE_1));
+      shard.storeData(new Data(2, null, null));
+      shard.storeData(new Data(1, "second", Data.DataType.TYPE_2));
+
+      var data = shard.getDataById(1);
+      assertEquals("second", data.getValue());
+      assertEquals(Data.DataType.TYPE_2, data.getType());
+      assertNull(shard.getDataById(2).getValue());
+      assertEquals("second", shard.removeDataById(1).getValue());
+      assertNull(shard.getDataById(1));
+      assertNull(shard.removeDataById(1));
+      assertEquals(1, shard.getAllData().size());
+
+      shard.clearData();
+      assertNull(shard.getDataById(2));
+      assertTrue(shard.getAllData().isEmpty());
+    }
+  }
+
+  @Test
+  void shouldLoadTheIndexAfterACleanShutdown() {
+    try (var shard = new PersistentShard(1, directory)) {
+      IntStream.range(0, 5_000).forEach(key -> shard.storeData(data(key)));
+      IntStream.range(0, 5_000).filter(key -> key % 10 == 0).forEach(shard::removeDataById);
+    }
+    try (var shard = new PersistentShard(1, directory)) {
+      assertFalse(shard.isIndexRebuilt());
+      assertEquals(4_500, shard.getAllData().size());
+      for (var key = 0; key < 5_000; key++) {
+        var data = shard.getDataById(key);
+        if (key % 10 == 0) {
+          assertNull(data);
+        } else {
+          assertEquals("data" + key, data.getValue());
+        }
+      }
+    }
+  }
+
+  @Test
+  void shouldRebuildTheIndexAndDropATornRecordAfterACrash() throws IOException {
+    // the first shard is never closed, as if the process died
+    var crashed = new PersistentShard(1, directory);
+    IntStream.range(0, 1_000).forEach(key -> crashed.storeData(data(key)));
+    crashed.removeDataById(7);
+    crashed.flush();
+    Files.write(directory.resolve("data.log"), new byte[] {0, 0, 0, 42, 1, 2, 3},
+        StandardOpenOption.APPEND);
+
+    try (var shard = new PersistentShard(1, directory)) {
+      assertTrue(shard.isIndexRebuilt());
+      assertEquals(999, shard.getAllData().size());
+      assertNull(shard.getDataById(7));
+      assertEquals("data999", shard.getDataById(999).getValue());
+      shard.storeData(data(1_000));
+      assertEquals("data1000", shard.getDataById(1_000).getValue());
+    }
+  }
+
+  @Test
+  void shouldServeAShardManager() {
+    var manager = new HashShardManager();
+    var shards = IntStream.rangeClosed(1, 3)
+        .mapToObj(id -> new PersistentShard(id, directory.resolve("shard-" + id)))
+        .toList();
+    try {
+      shards.forEach(manager::addNewShard);
+      manager.storeAll(IntStream.range(0, 3_000).mapToObj(PersistentShardTest::data).toList());
+      var found = manager.getAll(IntStream.range(0, 3_000).boxed().toList());
+      assertEquals(3_000, found.size());
+    } finally {
+      shards.forEach(PersistentShard::close);
+    }
+  }
+
+  private static Data data(int key) {
+    return new Data(key, "data" + key, Data.DataType.TYPE_3);
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.sharding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntPredicate;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares the heap footprint and lookup time of the primitive maps with the boxed maps they
+ * replace. The footprint is computed from the sizes of the arrays and objects the maps hold, for
+ * a 64-bit JVM with compressed references, so it does not depend on the garbage collector.
+ *
+ * <p>Both maps double their tables at different sizes, so the ratio between them depends on the
+ * number of entries: it is about three at the default million entries but drops to about 2.75
+ * just after the primitive tables have doubled. The tests therefore assert the worst ratio seen
+ * while the maps fill up, not the ratio at the final size. The number of entries can be raised
+ * with {@code -Dsharding.footprint.entries=100000000} given enough heap.
+ */
+@Slf4j
+class PrimitiveMapFootprintTest {
+
+  private static final Data DATA = new Data(1, "data", Data.DataType.TYPE_1);
+
+  private static final int ENTRIES = Integer.getInteger("sharding.footprint.entries", 1_000_000);
+
+  /**
+   * Below this size the fixed cost of the sixteen stripes dominates the footprint.
+   */
+  private static final int MIN_ENTRIES = 1 << 16;
+
+  /**
+   * The smallest ratio between the boxed and primitive footprint across all resize points.
+   */
+  private static final double WORST_RATIO = 2.5;
+
+  private static final int REFERENCE_BYTES = 4;
+
+  /**
+   * A ConcurrentHashMap node: header, hash, key, value and next.
+   */
+  private static final int NODE_BYTES = align(12 + 4 + 3 * REFERENCE_BYTES);
+
+  /**
+   * An Integer: header and value.
+   */
+  private static final int INTEGER_BYTES = align(12 + 4);
+
+  @Test
+  void shouldShrinkTheShardStorageAtEverySize() {
+    var boxedMap = new ConcurrentHashMap<Integer, Data>();
+    var primitiveMap = new ConcurrentIntObjectMap<Data>();
+    var worst = Double.MAX_VALUE;
+    for (var key = 0; key < ENTRIES; key++) {
+      boxedMap.put(key * 7, DATA);
+      primitiveMap.put(key * 7, DATA);
+      if (key >= MIN_ENTRIES) {
+        // every key is boxed, the values are shared
+        worst = Math.min(worst, (double) boxedFootprint(key + 1, key + 1)
+            / (primitiveMap.capacity() * (4L + REFERENCE_BYTES)));
+      }
+    }
+    var boxed = boxedFootprint(boxedMap.size(), ENTRIES);
+    var primitive = primitiveMap.capacity() * (4L + REFERENCE_BYTES);
+    lookUp("ConcurrentHashMap<Integer, Data>", boxed, key -> boxedMap.get(key * 7) != null);
+    lookUp("ConcurrentIntObjectMap<Data>", primitive, key -> primitiveMap.get(key * 7) != null);
+    assertSmallerAtEverySize(boxed, primitive, worst);
+  }
+
+  @Test
+  void shouldShrinkTheLookupMapAtEverySize() {
+    var boxedMap = new ConcurrentHashMap<Integer, Integer>();
+    var primitiveMap = new IntIntHashMap();
+    var boxedValues = 0;
+    var worst = Double.MAX_VALUE;
+    for (var key = 0; key < ENTRIES; key++) {
+      var value = 1 + key % 1000;
+      boxedMap.put(key * 7, value);
+      primitiveMap.put(key * 7, value);
+      // Integer.valueOf caches the small values
+      boxedValues += value > 127 ? 1 : 0;
+      if (key >= MIN_ENTRIES) {
+        worst = Math.min(worst, (double) boxedFootprint(key + 1, key + 1 + boxedValues)
+            / (primitiveMap.capacity() * 8L));
+      }
+    }
+    var boxed = boxedFootprint(boxedMap.size(), ENTRIES + boxedValues);
+    var primitive = primitiveMap.capacity() * 8L;
+    lookUp("ConcurrentHashMap<Integer, Integer>", boxed, key -> boxedMap.get(key * 7) != null);
+    lookUp("IntIntHashMap", primitive, key -> primitiveMap.get(key * 7, -1) != -1);
+    assertSmallerAtEverySize(boxed, primitive, worst);
+  }
+
+  /**
+   * Footprint of a ConcurrentHashMap: the table, one node per entry and the boxed integers. The
+   * table doubles once it is three quarters full.
+   */
+  private static long boxedFootprint(int size, int integers) {
+    var table = 16L;
+    while (size >= table / 4 * 3) {
+      table *= 2;
+    }
+    return table * REFERENCE_BYTES + (long) size * NODE_BYTES + (long) integers * INTEGER_BYTES;
+  }
+
+  /**
+   * Logs the footprint and lookup time of a map.
+   */
+  private static void lookUp(String name, long footprint, IntPredicate contains) {
+    var nanosPerLookup = 0.0;
+    // the first rounds warm up the JIT compiler
+    for (var round = 0; round < 3; round++) {
+      var found = 0;
+      var start = System.nanoTime();
+      for (var key = 0; key < ENTRIES; key++) {
+        found += contains.test(key) ? 1 : 0;
+      }
+      nanosPerLookup = (double) (System.nanoTime() - start) / ENTRIES;
+      assertEquals(ENTRIES, found);
+    }
+    LOGGER.info("{}: {} bytes per entry, {} ns per lookup", name,
+        String.format("%.1f", (double) footprint / ENTRIES), String.format("%.1f", nanosPerLookup));
+  }
+
+  private static void assertSmallerAtEverySize(long boxed, long primitive, double worst) {
+    LOGGER.info("The primitive map is {} times smaller at {} entries and at least {} times smaller "
+            + "from {} entries", String.format("%.2f", (double) boxed / primitive), ENTRIES,
+        String.format("%.2f", worst), MIN_ENTRIES);
+    assertTrue(worst >= WORST_RATIO, "the primitive map is only " + worst + " times smaller");
+  }
+
+  private static int align(int bytes) {
+    return (bytes + 7) & -8;
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.sharding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the batch operations of {@link ShardManager} used by several threads.
+ */
+@Slf4j
+class ScatterGatherTest {
+
+  private static final int THREADS = 8;
+
+  private static final int BATCH_SIZE = 512;
+
+  @Test
+  void shouldStoreAndGetBatchesConcurrently() throws InterruptedException {
+    List<Supplier<ShardManager>> managers = List.of(HashShardManager::new,
+        LookupShardManager::new, RangeShardManager::new, ConsistentHashShardManager::new);
+    for (var factory : managers) {
+      var manager = withShards(factory.get(), 3);
+      var executor = Executors.newFixedThreadPool(THREADS);
+      for (var thread = 0; thread < THREADS; thread++) {
+        var first = thread * 1000;
+        executor.execute(() -> manager.storeAll(
+            IntStream.range(first, first + 1000).mapToObj(ScatterGatherTest::data).toList()));
+      }
+      executor.shutdown();
+      assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+      var keys = IntStream.range(0, THREADS * 1000 + 10).boxed().toList();
+      var found = manager.getAll(keys);
+      assertEquals(THREADS * 1000, found.size(), manager.getClass().getSimpleName());
+      found.forEach((key, data) -> assertEquals("data" + key, data.getValue()));
+    }
+  }
+
+  /**
+   * Logs the throughput of batched writes and reads by {@value #THREADS} threads for 1 to 64
+   * shards. The number of batches per thread can be raised with
+   * {@code -Dsharding.benchmark.batches=100000}.
+   */
+  @Test
+  void shouldReportThroughputByShardCount() throws InterruptedException {
+    var batches = Integer.getInteger("sharding.benchmark.batches", 200);
+    for (var shards = 1; shards <= 64; shards *= 2) {
+      var manager = withShards(new HashShardManager(), shards);
+      var executor = Executors.newFixedThreadPool(THREADS);
+      var start = System.nanoTime();
+      for (var thread = 0; thread < THREADS; thread++) {
+        executor.execute(() -> {
+          var random = ThreadLocalRandom.current();
+          for (var i = 0; i < batches; i++) {
+            var keys = new ArrayList<Integer>(BATCH_SIZE);
+            for (var j = 0; j < BATCH_SIZE; j++) {
+              keys.add(random.nextInt(1_000_000));
+            }
+            if (i % 2 == 0) {
+              manager.storeAll(keys.stream().map(ScatterGatherTest::data).toList());
+            } else {
+              manager.getAll(keys);
+            }
+          }
+        });
+      }
+      executor.shutdown();
+      assertTrue(executor.awaitTermination(5, TimeUnit.MINUTES));
+      var nanos = System.nanoTime() - start;
+      LOGGER.info("{} shards: {} keys/s", shards,
+          (long) THREADS * batches * BATCH_SIZE * 1_000_000_000L / nanos);
+    }
+  }
+
+  private static ShardManager withShards(ShardManager manager, int count) {
+    for (var id = 1; id <= count; id++) {
+      manager.addNewShard(new Shard(id));
+    }
+    return manager;
+  }
+
+  private static Data data(int key) {
+    return new Data(key, "data" + key, Data.DataType.values()[key % 3]);
+  }
+}
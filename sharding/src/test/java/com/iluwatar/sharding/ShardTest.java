@@ -27,8 +27,6 @@ package com.iluwatar.sharding;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.fail;
 
-import java.util.HashMap;
-import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -54,7 +52,7 @@ class ShardTest {
       shard.storeData(data);
       var field = Shard.class.getDeclaredField("dataStore");
       field.setAccessible(true);
-      var dataMap = (Map<Integer, Data>) field.get(shard);
+      var dataMap = (ConcurrentIntObjectMap<Data>) field.get(shard);
       assertEquals(1, dataMap.size());
       assertEquals(data, dataMap.get(1));
     } catch (NoSuchFieldException | IllegalAccessException e) {
@@ -66,13 +64,13 @@ class ShardTest {
   @Test
   void testClearData() {
     try {
-      var dataMap = new HashMap<Integer, Data>();
+      var dataMap = new ConcurrentIntObjectMap<Data>();
       dataMap.put(1, data);
       var field = Shard.class.getDeclaredField("dataStore");
       field.setAccessible(true);
       field.set(shard, dataMap);
       shard.clearData();
-      dataMap = (HashMap<Integer, Data>) field.get(shard);
+      dataMap = (ConcurrentIntObjectMap<Data>) field.get(shard);
       assertEquals(0, dataMap.size());
     } catch (NoSuchFieldException | IllegalAccessException e) {
       fail("Fail to modify field access.");
@@ -0,0 +1,118 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.threadpool;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free statistics of latencies in nanoseconds. Besides the count, mean and maximum it keeps
+ * one counter per power of two, so percentiles are estimated to within a factor of two. That is
+ * enough to tell a queue wait of microseconds from one of milliseconds.
+ */
+public class LatencyStats {
+
+  private final LongAdder[] counts = new LongAdder[Long.SIZE];
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+  /**
+   * Constructor.
+   */
+  public LatencyStats() {
+    for (var i = 0; i < counts.length; i++) {
+      counts[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * Record a latency, negative values count as 0.
+   */
+  public void record(long nanos) {
+    var value = Math.max(0, nanos);
+    counts[Long.SIZE - Long.numberOfLeadingZeros(value) - (value == 0 ? 0 : 1)].increment();
+    count.increment();
+    sum.add(value);
+    max.accumulate(value);
+  }
+
+  /**
+   * Number of recorded latencies.
+   */
+  public long getCount() {
+    return count.sum();
+  }
+
+  /**
+   * Mean latency in nanoseconds, 0 if nothing was recorded.
+   */
+  public double getMean() {
+    var n = count.sum();
+    return n == 0 ? 0 : (double) sum.sum() / n;
+  }
+
+  /**
+   * Largest latency in nanoseconds.
+   */
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * Estimate of the latency below which the given share of the recorded latencies lies. The
+   * estimate is the next power of two minus one, but at most the largest latency.
+   *
+   * @param percentile between 0 and 100
+   * @return latency in nanoseconds, 0 if nothing was recorded
+   */
+  public long getPercentile(double percentile) {
+    var total = count.sum();
+    if (total == 0) {
+      return 0;
+    }
+    var rank = Math.max(1, (long) Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100));
+    var seen = 0L;
+    for (var i = 0; i < counts.length - 1; i++) {
+      seen += counts[i].sum();
+      if (seen >= rank) {
+        return Math.min((2L << i) - 1, getMax());
+      }
+    }
+    return getMax();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("count=%d, mean=%.1fus, p50<=%dus, p99<=%dus, max=%dus", getCount(),
+        getMean() / 1000, toMicros(getPercentile(50)), toMicros(getPercentile(99)),
+        toMicros(getMax()));
+  }
+
+  private static long toMicros(long nanos) {
+    return TimeUnit.NANOSECONDS.toMicros(nanos);
+  }
+}
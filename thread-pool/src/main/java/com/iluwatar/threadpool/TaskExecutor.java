@@ -0,0 +1,267 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.threadpool;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Executes {@link Task}s on a fixed number of threads, running the most urgent task first. Tasks
+ * are ordered by their {@link TaskPriority} and, within a priority class, shortest job first.
+ *
+ * <p>Every worker thread has its own queue, so submitting and taking tasks rarely contend. Tasks
+ * submitted from outside the executor are spread over the queues round-robin, while tasks
+ * submitted by a worker go to its own queue. A worker whose queue is empty steals the most urgent
+ * task of another worker, and parks when there is nothing to steal.
+ *
+ * <p>The time tasks wait in a queue and the time they run are recorded per priority class.
+ * Shortest job first minimizes the mean completion time, but a steady stream of short tasks can
+ * delay long ones indefinitely.
+ */
+@Slf4j
+public class TaskExecutor implements AutoCloseable {
+
+  private static final Comparator<ScheduledTask> ORDER = Comparator
+      .comparing(ScheduledTask::priority)
+      .thenComparingInt(scheduled -> scheduled.task().getTimeMs())
+      .thenComparingLong(ScheduledTask::sequence);
+
+  private final WorkerThread[] workers;
+  private final ConcurrentLinkedQueue<WorkerThread> idleWorkers = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger nextWorker = new AtomicInteger();
+  private final AtomicLong sequence = new AtomicLong();
+  private final AtomicInteger pending = new AtomicInteger();
+  private final Map<TaskPriority, LatencyStats> queueWait = new EnumMap<>(TaskPriority.class);
+  private final Map<TaskPriority, LatencyStats> runTime = new EnumMap<>(TaskPriority.class);
+  private volatile boolean shutdown;
+
+  /**
+   * Create an executor and start its worker threads.
+   */
+  public TaskExecutor(int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("At least one thread is needed");
+    }
+    for (var priority : TaskPriority.values()) {
+      queueWait.put(priority, new LatencyStats());
+      runTime.put(priority, new LatencyStats());
+    }
+    workers = new WorkerThread[threads];
+    for (var i = 0; i < threads; i++) {
+      workers[i] = new WorkerThread("task-executor-" + i);
+    }
+    for (var worker : workers) {
+      worker.start();
+    }
+  }
+
+  /**
+   * Queue a task.
+   *
+   * @return a future completed once the task has run
+   * @throws RejectedExecutionException if the executor is shut down
+   */
+  public CompletableFuture<Void> submit(Task task) {
+    pending.incrementAndGet();
+    if (shutdown) {
+      pending.decrementAndGet();
+      throw new RejectedExecutionException("TaskExecutor is shut down");
+    }
+    var scheduled = new ScheduledTask(task, TaskPriority.of(task), sequence.getAndIncrement(),
+        System.nanoTime(), new CompletableFuture<>());
+    var current = Thread.currentThread();
+    var worker = current instanceof WorkerThread own && own.executor() == this
+        ? own : workers[Math.floorMod(nextWorker.getAndIncrement(), workers.length)];
+    worker.queue.add(scheduled);
+    signalWork();
+    return scheduled.future();
+  }
+
+  /**
+   * Time tasks of a priority class waited in a queue.
+   */
+  public LatencyStats getQueueWait(TaskPriority priority) {
+    return queueWait.get(priority);
+  }
+
+  /**
+   * Time tasks of a priority class ran.
+   */
+  public LatencyStats getRunTime(TaskPriority priority) {
+    return runTime.get(priority);
+  }
+
+  /**
+   * Stop accepting tasks. The tasks already queued still run.
+   */
+  public void shutdown() {
+    shutdown = true;
+    for (var worker : workers) {
+      LockSupport.unpark(worker);
+    }
+  }
+
+  /**
+   * Wait until all queued tasks ran and the worker threads stopped.
+   *
+   * @return false if the timeout elapsed first
+   */
+  public boolean awaitTermination(Duration timeout) throws InterruptedException {
+    var deadline = System.nanoTime() + timeout.toNanos();
+    for (var worker : workers) {
+      var remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        return !worker.isAlive();
+      }
+      worker.join(Math.max(1, remaining / 1_000_000));
+      if (worker.isAlive()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Shut down and wait for the queued tasks.
+   */
+  @Override
+  public void close() throws InterruptedException {
+    shutdown();
+    for (var worker : workers) {
+      worker.join();
+    }
+  }
+
+  private void signalWork() {
+    WorkerThread worker;
+    while ((worker = idleWorkers.poll()) != null) {
+      if (worker.parked.compareAndSet(true, false)) {
+        LockSupport.unpark(worker);
+        return;
+      }
+    }
+  }
+
+  private ScheduledTask steal(WorkerThread thief) {
+    var start = ThreadLocalRandom.current().nextInt(workers.length);
+    for (var i = 0; i < workers.length; i++) {
+      var victim = workers[(start + i) % workers.length];
+      if (victim != thief) {
+        var scheduled = victim.queue.pollFirst();
+        if (scheduled != null) {
+          return scheduled;
+        }
+      }
+    }
+    return null;
+  }
+
+  private void execute(ScheduledTask scheduled) {
+    var start = System.nanoTime();
+    queueWait.get(scheduled.priority()).record(start - scheduled.submittedAt());
+    try {
+      new Worker(scheduled.task()).run();
+      scheduled.future().complete(null);
+    } catch (RuntimeException e) {
+      LOGGER.error("Task {} failed", scheduled.task(), e);
+      scheduled.future().completeExceptionally(e);
+    } finally {
+      runTime.get(scheduled.priority()).record(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * A queued task with the keys it is ordered by.
+   */
+  private record ScheduledTask(Task task, TaskPriority priority, long sequence, long submittedAt,
+                               CompletableFuture<Void> future) {
+  }
+
+  /**
+   * A worker thread with its own queue of tasks, most urgent first.
+   */
+  private final class WorkerThread extends Thread {
+
+    private final ConcurrentSkipListSet<ScheduledTask> queue = new ConcurrentSkipListSet<>(ORDER);
+    private final AtomicBoolean parked = new AtomicBoolean();
+
+    private WorkerThread(String name) {
+      super(name);
+      setDaemon(true);
+    }
+
+    private TaskExecutor executor() {
+      return TaskExecutor.this;
+    }
+
+    @Override
+    public void run() {
+      while (true) {
+        var scheduled = queue.pollFirst();
+        if (scheduled == null) {
+          scheduled = steal(this);
+        }
+        if (scheduled != null) {
+          pending.decrementAndGet();
+          execute(scheduled);
+        } else if (shutdown && pending.get() == 0) {
+          return;
+        } else {
+          awaitWork();
+        }
+      }
+    }
+
+    /**
+     * Park until work is signalled. The worker registers as idle before looking at the pending
+     * count, so a task submitted after the check finds it in the idle queue.
+     */
+    private void awaitWork() {
+      if (parked.compareAndSet(false, true)) {
+        idleWorkers.add(this);
+      }
+      if (pending.get() > 0 || shutdown) {
+        if (parked.compareAndSet(true, false)) {
+          idleWorkers.remove(this);
+        }
+        Thread.yield();
+        return;
+      }
+      LockSupport.park(this);
+    }
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.threadpool;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Executes every {@link Task} in a thread of its own, which suits tasks that block, as a
+ * {@link Worker} does while it sleeps. A blocked task only holds up itself, and the number of
+ * tasks in progress is not capped by a pool size but by a configurable concurrency limit. Once
+ * the limit is reached, {@link #submit(Task)} waits for a running task to finish.
+ *
+ * <p>On runtimes supporting virtual threads (Java 21 and later) each task gets a virtual thread,
+ * which is cheap enough to create per task and does not hold on to an OS thread while blocked, so
+ * the limit can be in the millions. On older runtimes the executor falls back to a cached pool of
+ * platform threads, where the limit also bounds the number of OS threads.
+ */
+@Slf4j
+public class VirtualThreadTaskExecutor implements AutoCloseable {
+
+  private final ExecutorService executorService;
+
+  private final Semaphore permits;
+
+  /**
+   * Whether tasks run on virtual threads.
+   */
+  @Getter
+  private final boolean virtual;
+
+  /**
+   * Create an executor running at most {@code maxConcurrency} tasks at the same time.
+   */
+  public VirtualThreadTaskExecutor(int maxConcurrency) {
+    if (maxConcurrency < 1) {
+      throw new IllegalArgumentException("The concurrency limit must be positive");
+    }
+    this.permits = new Semaphore(maxConcurrency);
+    var virtualExecutor = newVirtualThreadPerTaskExecutor();
+    this.virtual = virtualExecutor != null;
+    this.executorService = virtual ? virtualExecutor : Executors.newCachedThreadPool();
+  }
+
+  /**
+   * Creates an executor starting a virtual thread per task, or returns null if virtual threads
+   * are not available. The factory method is looked up at runtime, so the code compiles against
+   * older class libraries.
+   */
+  private static ExecutorService newVirtualThreadPerTaskExecutor() {
+    try {
+      var factory = MethodHandles.publicLookup().findStatic(Executors.class,
+          "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class));
+      return (ExecutorService) factory.invoke();
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      LOGGER.info("Virtual threads are not available, using a cached thread pool");
+      return null;
+    } catch (Throwable e) {
+      throw new IllegalStateException("Could not create a virtual thread executor", e);
+    }
+  }
+
+  /**
+   * Start a thread running the task, waiting first if the concurrency limit is reached.
+   *
+   * @return a future completed once the task has run
+   * @throws InterruptedException if interrupted while waiting for a running task to finish
+   */
+  public CompletableFuture<Void> submit(Task task) throws InterruptedException {
+    var worker = new Worker(task);
+    permits.acquire();
+    try {
+      return CompletableFuture.runAsync(() -> {
+        try {
+          worker.run();
+        } finally {
+          permits.release();
+        }
+      }, executorService);
+    } catch (RejectedExecutionException e) {
+      permits.release();
+      throw e;
+    }
+  }
+
+  /**
+   * Stops accepting tasks and waits for the tasks in progress.
+   *
+   * @throws InterruptedException if interrupted while waiting for the tasks in progress
+   */
+  @Override
+  public void close() throws InterruptedException {
+    executorService.shutdown();
+    while (!executorService.awaitTermination(1, TimeUnit.MINUTES)) {
+      LOGGER.info("Waiting for tasks in progress");
+    }
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.threadpool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link LatencyStats}.
+ */
+class LatencyStatsTest {
+
+  @Test
+  void shouldEstimatePercentilesWithinAFactorOfTwo() {
+    var stats = new LatencyStats();
+    for (var i = 1; i <= 100; i++) {
+      stats.record(i * 1_000L);
+    }
+    stats.record(-5);
+
+    assertEquals(101, stats.getCount());
+    assertEquals(100_000, stats.getMax());
+    assertEquals(50_000, stats.getMean(), 0.001);
+    // the 51st value is 50us, which lies between 32768 and 65535ns
+    assertEquals(65_535, stats.getPercentile(50));
+    assertEquals(100_000, stats.getPercentile(99));
+    assertEquals(1, stats.getPercentile(0.5));
+  }
+
+  @Test
+  void shouldReportZeroWhenEmpty() {
+    var stats = new LatencyStats();
+    assertEquals(0, stats.getPercentile(99));
+    assertEquals(0.0, stats.getMean());
+  }
+}
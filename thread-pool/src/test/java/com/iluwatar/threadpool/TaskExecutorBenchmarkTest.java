@@ -0,0 +1,113 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.threadpool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares the completion times of a burst of short and long tasks on {@link TaskExecutor} with
+ * a fixed thread pool. The number of tasks can be raised with the {@code
+ * thread.pool.benchmark.tasks} property.
+ */
+@Slf4j
+class TaskExecutorBenchmarkTest {
+
+  private static final int TASKS = Integer.getInteger("thread.pool.benchmark.tasks", 200);
+
+  private static final int THREADS = 4;
+
+  private static final int SHORT_MS = 1;
+
+  private static final int LONG_MS = 20;
+
+  @Test
+  void compareWithFixedThreadPool() throws Exception {
+    var fixed = runFixedThreadPool(workload());
+    var prioritized = runTaskExecutor(workload());
+    LOGGER.info("Fixed thread pool completion: {}", fixed);
+    LOGGER.info("TaskExecutor completion: {}", prioritized);
+    assertEquals(TASKS, fixed.getCount());
+    assertEquals(TASKS, prioritized.getCount());
+  }
+
+  /**
+   * Four short tasks for every long one, in a fixed random order.
+   */
+  private static List<Task> workload() {
+    var tasks = new ArrayList<Task>();
+    for (var i = 0; i < TASKS; i++) {
+      tasks.add(new TaskExecutorTest.TimedTask(i % 5 == 0 ? LONG_MS : SHORT_MS));
+    }
+    Collections.shuffle(tasks, new Random(42));
+    return tasks;
+  }
+
+  private static LatencyStats runFixedThreadPool(List<Task> tasks) throws Exception {
+    var completion = new LatencyStats();
+    var done = new CountDownLatch(tasks.size());
+    var executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      for (var task : tasks) {
+        var submitted = System.nanoTime();
+        var worker = new Worker(task);
+        executor.execute(() -> {
+          worker.run();
+          completion.record(System.nanoTime() - submitted);
+          done.countDown();
+        });
+      }
+      done.await(5, TimeUnit.MINUTES);
+    } finally {
+      executor.shutdownNow();
+    }
+    return completion;
+  }
+
+  private static LatencyStats runTaskExecutor(List<Task> tasks) throws Exception {
+    var completion = new LatencyStats();
+    var done = new CountDownLatch(tasks.size());
+    try (var executor = new TaskExecutor(THREADS)) {
+      for (var task : tasks) {
+        var submitted = System.nanoTime();
+        executor.submit(task).thenRun(() -> {
+          completion.record(System.nanoTime() - submitted);
+          done.countDown();
+        });
+      }
+      done.await(5, TimeUnit.MINUTES);
+    }
+    return completion;
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.threadpool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link TaskExecutor}.
+ */
+class TaskExecutorTest {
+
+  @Test
+  void shouldRunShortestJobFirst() throws Exception {
+    try (var executor = new TaskExecutor(1)) {
+      var blocker = executor.submit(new TimedTask(300));
+      var order = Collections.synchronizedList(new ArrayList<Integer>());
+      var futures = new ArrayList<CompletableFuture<Void>>();
+      for (var timeMs : List.of(30, 10, 20)) {
+        futures.add(executor.submit(new TimedTask(timeMs)).thenRun(() -> order.add(timeMs)));
+      }
+      blocker.get(10, TimeUnit.SECONDS);
+      CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+      assertEquals(List.of(10, 20, 30), order);
+    }
+  }
+
+  @Test
+  void shouldDerivePriorityFromTime() {
+    assertEquals(TaskPriority.HIGH, TaskPriority.of(new CoffeeMakingTask(2)));
+    assertEquals(TaskPriority.NORMAL, TaskPriority.of(new PotatoPeelingTask(3)));
+    assertEquals(TaskPriority.LOW, TaskPriority.of(new PotatoPeelingTask(10)));
+  }
+
+  @Test
+  void shouldStealFromBusyWorker() throws Exception {
+    try (var executor = new TaskExecutor(2)) {
+      var threads = ConcurrentHashMap.<String>newKeySet();
+      // tasks submitted by a worker go to its own queue, so the other worker has to steal them
+      var children = executor.submit(new TimedTask(1))
+          .thenCompose(ignored -> submitAll(executor, threads, 8));
+      children.get(10, TimeUnit.SECONDS);
+      assertEquals(2, threads.size());
+    }
+  }
+
+  @Test
+  void shouldRecordQueueWaitAndRunTime() throws Exception {
+    var executor = new TaskExecutor(2);
+    for (var i = 0; i < 4; i++) {
+      executor.submit(new TimedTask(5));
+    }
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(Duration.ofSeconds(10)));
+    assertThrows(RejectedExecutionException.class, () -> executor.submit(new TimedTask(1)));
+
+    assertEquals(4, executor.getQueueWait(TaskPriority.HIGH).getCount());
+    assertEquals(4, executor.getRunTime(TaskPriority.HIGH).getCount());
+    var minimum = TimeUnit.MILLISECONDS.toNanos(5);
+    assertTrue(executor.getRunTime(TaskPriority.HIGH).getMean() >= minimum);
+    assertEquals(0, executor.getRunTime(TaskPriority.LOW).getCount());
+  }
+
+  private static CompletableFuture<Void> submitAll(TaskExecutor executor, Set<String> threads,
+                                                   int count) {
+    var futures = new ArrayList<CompletableFuture<Void>>();
+    for (var i = 0; i < count; i++) {
+      futures.add(executor.submit(new TimedTask(10))
+          .thenRun(() -> threads.add(Thread.currentThread().getName())));
+    }
+    return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new));
+  }
+
+  /**
+   * A task taking the given time.
+   */
+  static final class TimedTask extends Task {
+
+    TimedTask(int timeMs) {
+      super(timeMs);
+    }
+  }
+}
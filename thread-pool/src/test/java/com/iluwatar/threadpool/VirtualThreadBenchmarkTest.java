@@ -0,0 +1,133 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.threadpool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares {@link VirtualThreadTaskExecutor} with a fixed pool of platform threads on blocking
+ * tasks, logging the throughput, the peak number of platform threads and the peak heap growth.
+ * The run is reproducible through the {@code thread.pool.benchmark.blocking.tasks}, {@code
+ * thread.pool.benchmark.blocking.ms}, {@code thread.pool.benchmark.platform.threads} and {@code
+ * thread.pool.benchmark.concurrency} properties.
+ */
+@Slf4j
+class VirtualThreadBenchmarkTest {
+
+  private static final int TASKS =
+      Integer.getInteger("thread.pool.benchmark.blocking.tasks", 2_000);
+
+  private static final int TIME_MS = Integer.getInteger("thread.pool.benchmark.blocking.ms", 10);
+
+  private static final int PLATFORM_THREADS =
+      Integer.getInteger("thread.pool.benchmark.platform.threads", 50);
+
+  private static final int CONCURRENCY =
+      Integer.getInteger("thread.pool.benchmark.concurrency", 1_000);
+
+  @Test
+  void compareWithPlatformThreadPool() throws Exception {
+    LOGGER.info("{} tasks of {} ms on Java {}", TASKS, TIME_MS, Runtime.version());
+    measure("Fixed pool of " + PLATFORM_THREADS + " platform threads", this::runFixedThreadPool);
+    measure("Thread per task limited to " + CONCURRENCY, this::runThreadPerTask);
+  }
+
+  private void measure(String name, Run run) throws Exception {
+    var threads = ManagementFactory.getThreadMXBean();
+    var memory = ManagementFactory.getMemoryMXBean();
+    System.gc();
+    threads.resetPeakThreadCount();
+    var baseline = memory.getHeapMemoryUsage().getUsed();
+    var peakHeap = new AtomicLong(baseline);
+    var sampling = new AtomicBoolean(true);
+    var sampler = new Thread(() -> {
+      while (sampling.get()) {
+        peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+        try {
+          Thread.sleep(5);
+        } catch (InterruptedException e) {
+          return;
+        }
+      }
+    });
+    sampler.start();
+    var start = System.nanoTime();
+    var mode = run.run();
+    var elapsed = System.nanoTime() - start;
+    sampling.set(false);
+    sampler.join();
+    LOGGER.info("{} ({}): {} tasks/s, {} peak platform threads, {} KiB peak heap growth", name,
+        mode, TASKS * TimeUnit.SECONDS.toNanos(1) / Math.max(1, elapsed),
+        threads.getPeakThreadCount(), (peakHeap.get() - baseline) / 1024);
+  }
+
+  private String runFixedThreadPool() throws Exception {
+    var done = new CountDownLatch(TASKS);
+    var executor = Executors.newFixedThreadPool(PLATFORM_THREADS);
+    try {
+      for (var i = 0; i < TASKS; i++) {
+        var worker = new Worker(new TaskExecutorTest.TimedTask(TIME_MS));
+        executor.execute(() -> {
+          worker.run();
+          done.countDown();
+        });
+      }
+      done.await(5, TimeUnit.MINUTES);
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(0, done.getCount());
+    return "platform";
+  }
+
+  private String runThreadPerTask() throws Exception {
+    var done = new CountDownLatch(TASKS);
+    boolean virtual;
+    try (var executor = new VirtualThreadTaskExecutor(CONCURRENCY)) {
+      virtual = executor.isVirtual();
+      for (var i = 0; i < TASKS; i++) {
+        executor.submit(new TaskExecutorTest.TimedTask(TIME_MS)).thenRun(done::countDown);
+      }
+    }
+    assertEquals(0, done.getCount());
+    return virtual ? "virtual" : "platform fallback";
+  }
+
+  /**
+   * A benchmark run, returning the kind of threads it used.
+   */
+  private interface Run {
+    String run() throws Exception;
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.threadpool;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link VirtualThreadTaskExecutor}.
+ */
+class VirtualThreadTaskExecutorTest {
+
+  @Test
+  void shouldRunBlockingTasksConcurrently() throws Exception {
+    var start = System.nanoTime();
+    try (var executor = new VirtualThreadTaskExecutor(20)) {
+      runAll(executor, 20, 100);
+    }
+    // one after the other the tasks would take two seconds
+    assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+  }
+
+  @Test
+  void shouldEnforceConcurrencyLimit() throws Exception {
+    var start = System.nanoTime();
+    try (var executor = new VirtualThreadTaskExecutor(2)) {
+      runAll(executor, 6, 50);
+    }
+    // at most two tasks at a time makes three rounds
+    assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(150));
+  }
+
+  @Test
+  void shouldRejectTasksAfterClose() throws Exception {
+    var executor = new VirtualThreadTaskExecutor(1);
+    executor.close();
+    assertThrows(RejectedExecutionException.class,
+        () -> executor.submit(new TaskExecutorTest.TimedTask(1)));
+  }
+
+  private static void runAll(VirtualThreadTaskExecutor executor, int count, int timeMs)
+      throws Exception {
+    var futures = new ArrayList<CompletableFuture<Void>>();
+    for (var i = 0; i < count; i++) {
+      futures.add(executor.submit(new TaskExecutorTest.TimedTask(timeMs)));
+    }
+    CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+  }
+}